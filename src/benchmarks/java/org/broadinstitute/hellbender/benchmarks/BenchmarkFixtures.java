@@ -0,0 +1,153 @@
+package org.broadinstitute.hellbender.benchmarks;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Inputs shared by the JMH benchmarks.
+ *
+ * Real reads and reference bases come from the small NA12878 chr17 test files in src/test/resources, so the
+ * benchmarks must be run from the root of the GATK checkout (as the benchmarks gradle task does).
+ * Everything that involves randomness uses a fixed seed so that results are comparable between runs.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String READS_BAM = BaseTest.publicTestDir + "NA12878.chr17_69k_70k.dictFix.bam";
+    public static final String REFERENCE_FASTA = BaseTest.publicTestDir + "human_g1k_v37.chr17_1Mb.fasta";
+
+    /**
+     * A region of {@link #READS_BAM} about the size of a typical HaplotypeCaller active region
+     */
+    public static final SimpleInterval REGION = new SimpleInterval("17", 69_500, 69_800);
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * @return the header of {@link #READS_BAM}
+     */
+    public static SAMFileHeader loadReadsHeader() {
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(new File(READS_BAM).toPath()) ) {
+            return readsSource.getHeader();
+        }
+    }
+
+    /**
+     * @return the mapped, primary, non-duplicate reads from {@link #READS_BAM} that overlap {@code interval}
+     */
+    public static List<GATKRead> loadReads(final SimpleInterval interval) {
+        final List<GATKRead> reads = new ArrayList<>();
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(new File(READS_BAM).toPath()) ) {
+            final Iterator<GATKRead> iterator = readsSource.query(interval);
+            while ( iterator.hasNext() ) {
+                final GATKRead read = iterator.next();
+                if ( ! read.isUnmapped() && ! read.isSecondaryAlignment() && ! read.isSupplementaryAlignment() && ! read.isDuplicate() ) {
+                    reads.add(read);
+                }
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * @return the bases of {@link #REFERENCE_FASTA} that span {@code interval}
+     */
+    public static byte[] loadReferenceBases(final SimpleInterval interval) {
+        final File referenceFile = new File(REFERENCE_FASTA);
+        try ( final CachingIndexedFastaSequenceFile reference = new CachingIndexedFastaSequenceFile(referenceFile) ) {
+            return reference.getSubsequenceAt(interval.getContig(), interval.getStart(), interval.getEnd()).getBases();
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(referenceFile, e);
+        }
+    }
+
+    /**
+     * Make a reference haplotype followed by {@code count - 1} alternate haplotypes, each carrying a few random
+     * SNPs and single-base indels relative to the reference.
+     *
+     * @param referenceBases bases of the reference haplotype
+     * @param count total number of haplotypes to make, including the reference haplotype
+     * @param seed seed for the random number generator
+     */
+    public static List<Haplotype> makeHaplotypes(final byte[] referenceBases, final int count, final long seed) {
+        Utils.validateArg(count > 0, "there must be at least one haplotype");
+        final Random random = new Random(seed);
+        final byte[] nucleotides = {'A', 'C', 'G', 'T'};
+
+        final List<Haplotype> haplotypes = new ArrayList<>(count);
+        haplotypes.add(new Haplotype(referenceBases, true));
+        final Set<String> distinctBases = new HashSet<>();
+        distinctBases.add(new String(referenceBases));
+        while ( haplotypes.size() < count ) {
+            final StringBuilder bases = new StringBuilder(new String(referenceBases));
+            final int numberOfEvents = 1 + random.nextInt(3);
+            for ( int event = 0; event < numberOfEvents; event++ ) {
+                // stay away from the ends, where the reads don't anchor the haplotype
+                final int position = 10 + random.nextInt(bases.length() - 20);
+                switch ( random.nextInt(3) ) {
+                    case 0: bases.setCharAt(position, (char) nucleotides[random.nextInt(nucleotides.length)]); break;
+                    case 1: bases.insert(position, (char) nucleotides[random.nextInt(nucleotides.length)]); break;
+                    default: bases.deleteCharAt(position);
+                }
+            }
+            if ( distinctBases.add(bases.toString()) ) {
+                haplotypes.add(new Haplotype(bases.toString().getBytes(), false));
+            }
+        }
+        return haplotypes;
+    }
+
+    /**
+     * Make read likelihoods for artificial reads, where each read strongly supports one allele chosen at random.
+     *
+     * @param alleles the alleles, which become the alleles of the likelihoods in the same order
+     * @param numberOfSamples number of samples
+     * @param readsPerSample number of reads for each sample
+     * @param seed seed for the random number generator
+     */
+    public static <A extends Allele> ReadLikelihoods<A> makeReadLikelihoods(final List<A> alleles, final int numberOfSamples,
+                                                                          final int readsPerSample, final long seed) {
+        final Random random = new Random(seed);
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+
+        final List<String> samples = new ArrayList<>(numberOfSamples);
+        final Map<String, List<GATKRead>> readsBySample = new LinkedHashMap<>(numberOfSamples);
+        for ( int s = 0; s < numberOfSamples; s++ ) {
+            final String sample = "sample" + s;
+            final List<GATKRead> reads = new ArrayList<>(readsPerSample);
+            for ( int r = 0; r < readsPerSample; r++ ) {
+                reads.add(ArtificialReadUtils.createArtificialRead(header, sample + ".read" + r, 0, 1 + r, 100));
+            }
+            samples.add(sample);
+            readsBySample.put(sample, reads);
+        }
+
+        final ReadLikelihoods<A> likelihoods = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), readsBySample);
+        for ( int s = 0; s < numberOfSamples; s++ ) {
+            final LikelihoodMatrix<A> matrix = likelihoods.sampleMatrix(s);
+            for ( int r = 0; r < matrix.numberOfReads(); r++ ) {
+                final int supportedAllele = random.nextInt(alleles.size());
+                for ( int a = 0; a < alleles.size(); a++ ) {
+                    matrix.set(a, r, a == supportedAllele ? -0.1 * random.nextDouble() : -1.0 - 10.0 * random.nextDouble());
+                }
+            }
+        }
+        return likelihoods;
+    }
+}
@@ -0,0 +1,51 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compute the genotype likelihoods of a sample from its read likelihoods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GenotypeLikelihoodCalculatorBenchmark {
+
+    @Param({"1", "2", "4"})
+    public int ploidy;
+
+    @Param({"2", "3", "6"})
+    public int alleleCount;
+
+    @Param({"200"})
+    public int numberOfReads;
+
+    private GenotypeLikelihoodCalculator calculator;
+    private LikelihoodMatrix<Allele> likelihoods;
+
+    @Setup
+    public void setup() {
+        final List<Allele> alleles = new ArrayList<>(alleleCount);
+        final String[] bases = {"A", "C", "G", "T", "AC", "AG"};
+        for ( int a = 0; a < alleleCount; a++ ) {
+            alleles.add(Allele.create(bases[a], a == 0));
+        }
+        likelihoods = BenchmarkFixtures.makeReadLikelihoods(alleles, 1, numberOfReads, 13).sampleMatrix(0);
+        calculator = new GenotypeLikelihoodCalculators().getInstance(ploidy, alleleCount);
+    }
+
+    @Benchmark
+    public GenotypeLikelihoods genotypeLikelihoods() {
+        return calculator.genotypeLikelihoods(likelihoods);
+    }
+}
@@ -0,0 +1,65 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingGraph;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to find the best haplotypes in the simplified sequence graph of an active region.
+ *
+ * The graph is assembled from the reads of the region plus a set of alternate haplotypes, so that it has
+ * enough branches to be representative of a variable region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KBestHaplotypeFinderBenchmark {
+
+    @Param({"128"})
+    public int maxNumberOfHaplotypes;
+
+    private SeqGraph graph;
+
+    @Setup
+    public void setup() {
+        final byte[] referenceBases = BenchmarkFixtures.loadReferenceBases(BenchmarkFixtures.REGION);
+        final ReadThreadingGraph readThreadingGraph = new ReadThreadingGraph(25);
+        readThreadingGraph.addSequence("ref", referenceBases, true);
+        final List<Haplotype> haplotypes = BenchmarkFixtures.makeHaplotypes(referenceBases, 16, 13);
+        for ( int i = 1; i < haplotypes.size(); i++ ) {
+            readThreadingGraph.addSequence("haplotype" + i, haplotypes.get(i).getBases(), 10, false);
+        }
+        for ( final GATKRead read : BenchmarkFixtures.loadReads(BenchmarkFixtures.REGION) ) {
+            readThreadingGraph.addSequence(read.getName(), read.getBases(), false);
+        }
+        readThreadingGraph.buildGraphIfNecessary();
+
+        // the same clean up as the ReadThreadingAssembler
+        graph = readThreadingGraph.toSequenceGraph();
+        graph.zipLinearChains();
+        graph.removeSingletonOrphanVertices();
+        graph.removeVerticesNotConnectedToRefRegardlessOfEdgeDirection();
+        graph.simplifyGraph();
+        graph.removePathsNotConnectedToRef();
+        graph.simplifyGraph();
+    }
+
+    @Benchmark
+    public void findBestHaplotypes(final Blackhole blackhole) {
+        final KBestHaplotypeFinder finder = new KBestHaplotypeFinder(graph, graph.getReferenceSourceVertex(), graph.getReferenceSinkVertex());
+        final Iterator<KBestHaplotype> bestHaplotypes = finder.iterator(maxNumberOfHaplotypes);
+        while ( bestHaplotypes.hasNext() ) {
+            blackhole.consume(bestHaplotypes.next().haplotype());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to thread the reference and the reads of an active region through a new ReadThreadingGraph, as
+ * the ReadThreadingAssembler does for each kmer size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReadThreadingGraphBenchmark {
+
+    // the default used by the ReadThreadingAssembler
+    private static final byte MIN_BASE_QUALITY_TO_USE_IN_ASSEMBLY = 10;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    private SAMFileHeader header;
+    private byte[] referenceBases;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        header = BenchmarkFixtures.loadReadsHeader();
+        referenceBases = BenchmarkFixtures.loadReferenceBases(BenchmarkFixtures.REGION);
+        reads = BenchmarkFixtures.loadReads(BenchmarkFixtures.REGION);
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, MIN_BASE_QUALITY_TO_USE_IN_ASSEMBLY, 1);
+        graph.addSequence("ref", referenceBases, true);
+        for ( final GATKRead read : reads ) {
+            graph.addRead(read, header);
+        }
+        graph.buildGraphIfNecessary();
+        return graph;
+    }
+}
@@ -0,0 +1,53 @@
+package org.broadinstitute.hellbender.utils.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to marginalize haplotype likelihoods into allele likelihoods, as done for each variant site of an active region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReadLikelihoodsBenchmark {
+
+    @Param({"8", "32"})
+    public int numberOfHaplotypes;
+
+    @Param({"3"})
+    public int numberOfSamples;
+
+    @Param({"200"})
+    public int readsPerSample;
+
+    private ReadLikelihoods<Haplotype> likelihoods;
+    private Map<Allele, List<Haplotype>> alleleToHaplotypes;
+
+    @Setup
+    public void setup() {
+        final byte[] referenceBases = BenchmarkFixtures.loadReferenceBases(BenchmarkFixtures.REGION);
+        final List<Haplotype> haplotypes = BenchmarkFixtures.makeHaplotypes(referenceBases, numberOfHaplotypes, 13);
+        likelihoods = BenchmarkFixtures.makeReadLikelihoods(haplotypes, numberOfSamples, readsPerSample, 17);
+
+        // a tri-allelic site: the reference haplotype supports the reference allele, and the others are split between two alternate alleles
+        final List<Allele> alleles = Arrays.asList(Allele.create("A", true), Allele.create("C"), Allele.create("G"));
+        alleleToHaplotypes = new LinkedHashMap<>();
+        alleles.forEach(allele -> alleleToHaplotypes.put(allele, new ArrayList<>()));
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            alleleToHaplotypes.get(alleles.get(h == 0 ? 0 : 1 + h % 2)).add(haplotypes.get(h));
+        }
+    }
+
+    @Benchmark
+    public ReadLikelihoods<Allele> marginalize() {
+        return likelihoods.marginalize(alleleToHaplotypes);
+    }
+}
@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compute the likelihoods of the reads of an active region against its haplotypes with each PairHMM implementation.
+ *
+ * The AVX_LOGLESS_CACHING trial fails in setup on machines without AVX support or without the native library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PairHMMBenchmark {
+
+    @Param({"LOGLESS_CACHING", "ANTIDIAGONAL_LOGLESS_CACHING", "AVX_LOGLESS_CACHING"})
+    public PairHMM.Implementation implementation;
+
+    @Param({"8"})
+    public int numberOfHaplotypes;
+
+    private PairHMM hmm;
+    private List<GATKRead> reads;
+    private LikelihoodMatrix<Haplotype> likelihoods;
+    private Map<GATKRead, byte[]> gcp;
+
+    @Setup
+    public void setup() {
+        reads = BenchmarkFixtures.loadReads(BenchmarkFixtures.REGION);
+        final List<Haplotype> haplotypes = BenchmarkFixtures.makeHaplotypes(BenchmarkFixtures.loadReferenceBases(BenchmarkFixtures.REGION), numberOfHaplotypes, 13);
+        final Map<String, List<GATKRead>> readsBySample = Collections.singletonMap("sample", reads);
+        likelihoods = new ReadLikelihoods<>(new IndexedSampleList("sample"), new IndexedAlleleList<>(haplotypes), readsBySample).sampleMatrix(0);
+
+        // the default flat gap continuation penalty of the HaplotypeCaller
+        gcp = new LinkedHashMap<>(reads.size());
+        reads.forEach(read -> gcp.put(read, Utils.dupBytes((byte) 10, read.getLength())));
+
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.maxNumberOfThreads = 1;
+        args.useDoublePrecision = false;
+        hmm = implementation.makeNewHMM(args);
+
+        final int maxReadLength = reads.stream().mapToInt(GATKRead::getLength).max().orElse(1);
+        final int maxHaplotypeLength = haplotypes.stream().mapToInt(Haplotype::length).max().orElse(1);
+        hmm.initialize(haplotypes, readsBySample, maxReadLength, maxHaplotypeLength);
+    }
+
+    @Benchmark
+    public double[] computeLog10Likelihoods() {
+        hmm.computeLog10Likelihoods(likelihoods, reads, gcp);
+        return hmm.getLogLikelihoodArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        hmm.close();
+    }
+}
@@ -0,0 +1,61 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.hellbender.benchmarks.BenchmarkFixtures;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time to make the two kinds of Smith-Waterman alignments done by the HaplotypeCaller for an active region:
+ * haplotypes against the reference, and reads against a haplotype, with each {@link SmithWatermanAligner} implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SWPairwiseAlignmentBenchmark {
+
+    @Param({"JAVA", "BANDED_JAVA"})
+    public SmithWatermanAligner.Implementation implementation;
+
+    private SmithWatermanAligner aligner;
+    private byte[] referenceBases;
+    private List<byte[]> haplotypeBases;
+    private List<byte[]> readBases;
+
+    @Setup
+    public void setup() {
+        aligner = SmithWatermanAligner.getAligner(implementation);
+        referenceBases = BenchmarkFixtures.loadReferenceBases(BenchmarkFixtures.REGION);
+        haplotypeBases = BenchmarkFixtures.makeHaplotypes(referenceBases, 16, 13).stream().map(Haplotype::getBases).collect(Collectors.toList());
+        readBases = BenchmarkFixtures.loadReads(BenchmarkFixtures.REGION).stream().map(GATKRead::getBases).collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        aligner.close();
+    }
+
+    @Benchmark
+    public void alignHaplotypesToReference(final Blackhole blackhole) {
+        for ( final byte[] haplotype : haplotypeBases ) {
+            blackhole.consume(aligner.align(referenceBases, haplotype, CigarUtils.NEW_SW_PARAMETERS, SWPairwiseAlignment.OverhangStrategy.SOFTCLIP).getCigar());
+        }
+    }
+
+    @Benchmark
+    public void alignReadsToHaplotype(final Blackhole blackhole) {
+        final byte[] haplotype = haplotypeBases.get(1);
+        for ( final byte[] read : readBases ) {
+            blackhole.consume(aligner.align(haplotype, read, CigarUtils.NEW_SW_PARAMETERS, SWPairwiseAlignment.OverhangStrategy.SOFTCLIP).getCigar());
+        }
+    }
+}
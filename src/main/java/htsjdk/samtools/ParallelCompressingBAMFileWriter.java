@@ -0,0 +1,154 @@
+package htsjdk.samtools;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.samtools.util.RuntimeIOException;
+import org.broadinstitute.hellbender.utils.io.ParallelBgzfOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+/**
+ * A BAM writer that compresses its output on a pool of threads, producing the same file (and index) as the
+ * htsjdk BAM writer would at the same compression level.
+ *
+ * The records are encoded by htsjdk's BAMFileWriter at compression level 0, and the blocks it writes are compressed
+ * by a {@link ParallelBgzfOutputStream}. If an index is built while writing, the file pointers that htsjdk records in
+ * it refer to the level 0 blocks, so they are translated to the compressed blocks once the file has been written.
+ *
+ * This lives in the htsjdk.samtools package since BAMFileWriter is package-private.
+ */
+public final class ParallelCompressingBAMFileWriter extends BAMFileWriter {
+
+    private static final int PENDING_BLOCKS_PER_THREAD = 4;
+
+    private final ParallelBgzfOutputStream compressingStream;
+    private final ExecutorService deflaterPool;
+    private final File indexFile;
+
+    private ParallelCompressingBAMFileWriter( final ParallelBgzfOutputStream compressingStream, final ExecutorService deflaterPool,
+                                              final File outputFile, final File indexFile ) {
+        super(compressingStream, outputFile, Deflater.NO_COMPRESSION);
+        this.compressingStream = compressingStream;
+        this.deflaterPool = deflaterPool;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Create a BAM writer that compresses its output on a pool of threads
+     *
+     * @param header header for the output
+     * @param presorted if true then the records must already be sorted to match the header sort order
+     * @param outputFile BAM file to write
+     * @param createIndex whether to write a .bai index (only done if the header sort order is coordinate)
+     * @param createMd5File whether to write an MD5 digest of the output
+     * @param compressionLevel compression level for the output
+     * @param compressionThreads number of threads to compress the output on
+     * @return a writer, which must be closed by the caller
+     */
+    public static SAMFileWriter makeWriter( final SAMFileHeader header, final boolean presorted, final File outputFile,
+                                            final boolean createIndex, final boolean createMd5File,
+                                            final int compressionLevel, final int compressionThreads ) {
+        if ( compressionThreads <= 0 ) {
+            throw new IllegalArgumentException("compressionThreads must be positive");
+        }
+        final boolean indexing = createIndex && header.getSortOrder() == SAMFileHeader.SortOrder.coordinate;
+
+        OutputStream os;
+        try {
+            os = new BufferedOutputStream(new FileOutputStream(outputFile), Defaults.BUFFER_SIZE);
+        }
+        catch ( final FileNotFoundException e ) {
+            throw new RuntimeIOException("Error opening file: " + outputFile.getAbsolutePath(), e);
+        }
+        if ( createMd5File ) {
+            os = new Md5CalculatingOutputStream(os, new File(outputFile.getAbsolutePath() + ".md5"));
+        }
+
+        final ExecutorService deflaterPool = Executors.newFixedThreadPool(compressionThreads,
+                new ThreadFactoryBuilder().setNameFormat("bgzf-deflater-%d").setDaemon(true).build());
+        final ParallelBgzfOutputStream compressingStream = new ParallelBgzfOutputStream(os, compressionLevel, deflaterPool,
+                PENDING_BLOCKS_PER_THREAD * compressionThreads, indexing);
+
+        final ParallelCompressingBAMFileWriter writer = new ParallelCompressingBAMFileWriter(compressingStream, deflaterPool,
+                outputFile, indexing ? getIndexFile(outputFile) : null);
+        writer.setSortOrder(header.getSortOrder(), presorted);
+        writer.setHeader(header);
+        if ( indexing ) {
+            writer.enableBamIndexConstruction();
+        }
+        return Defaults.USE_ASYNC_IO_WRITE_FOR_SAMTOOLS ? new AsyncSAMFileWriter(writer) : writer;
+    }
+
+    @Override
+    protected void finish() {
+        try {
+            super.finish();
+        }
+        finally {
+            deflaterPool.shutdownNow();
+        }
+        if ( indexFile != null ) {
+            translateIndexFilePointers();
+        }
+    }
+
+    // the index file that BAMFileWriter writes for a BAM file
+    private static File getIndexFile( final File outputFile ) {
+        final String path = outputFile.getAbsolutePath();
+        final String base = path.endsWith(BamFileIoUtils.BAM_FILE_EXTENSION) ? path.substring(0, path.lastIndexOf('.')) : path;
+        return new File(base + BAMIndex.BAMIndexSuffix);
+    }
+
+    /**
+     * Rewrite the file pointers in the .bai index, which refer to the level 0 blocks written by BAMFileWriter, to
+     * refer to the compressed blocks.
+     */
+    private void translateIndexFilePointers() {
+        try {
+            final ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+            index.position(4); // magic
+            final int numReferences = index.getInt();
+            for ( int reference = 0; reference < numReferences; reference++ ) {
+                final int numBins = index.getInt();
+                for ( int b = 0; b < numBins; b++ ) {
+                    final int bin = index.getInt();
+                    final int numChunks = index.getInt();
+                    for ( int chunk = 0; chunk < numChunks; chunk++ ) {
+                        // the second "chunk" of the metadata pseudo-bin holds counts of records, not file pointers
+                        if ( bin == GenomicIndexUtil.MAX_BINS && chunk == 1 ) {
+                            index.position(index.position() + 2 * Long.BYTES);
+                        }
+                        else {
+                            translateFilePointer(index);
+                            translateFilePointer(index);
+                        }
+                    }
+                }
+                final int numIntervals = index.getInt();
+                for ( int interval = 0; interval < numIntervals; interval++ ) {
+                    translateFilePointer(index);
+                }
+            }
+            Files.write(indexFile.toPath(), index.array());
+        }
+        catch ( final IOException e ) {
+            throw new RuntimeIOException("Error writing index file " + indexFile.getAbsolutePath(), e);
+        }
+    }
+
+    private void translateFilePointer( final ByteBuffer index ) {
+        final int position = index.position();
+        index.putLong(position, compressingStream.translateFilePointer(index.getLong()));
+    }
+}
@@ -21,6 +21,9 @@ public abstract class PicardCommandLineProgram extends CommandLineProgram {
     @Argument(doc = "Compression level for all compressed files created (e.g. BAM and GELI).", common=true)
     public int COMPRESSION_LEVEL = BlockCompressedStreamConstants.DEFAULT_COMPRESSION_LEVEL;
 
+    @Argument(doc = "Number of threads to use to compress BAM files created, which produces the same files as compressing them on the writing thread (0 to compress them on the writing thread).", common=true)
+    public int COMPRESSION_THREADS = 0;
+
     @Argument(doc = "When writing SAM files that need to be sorted, this will specify the number of records stored in RAM before spilling to disk. Increasing this number reduces the number of file handles needed to sort a SAM file, and increases the amount of RAM needed.", optional=true, common=true)
     public Integer MAX_RECORDS_IN_RAM = SAMFileWriterImpl.getDefaultMaxRecordsInRam();
 
@@ -79,6 +82,11 @@ public abstract class PicardCommandLineProgram extends CommandLineProgram {
     {
         BlockCompressedOutputStream.setDefaultCompressionLevel(COMPRESSION_LEVEL);
 
+        if (COMPRESSION_THREADS > 0) {
+            // the number of records to keep in RAM when sorting has already been set as the default, in instanceMain
+            return ReadUtils.createCommonSAMWriter(outputFile, referenceFile, header, preSorted, CREATE_INDEX, CREATE_MD5_FILE, COMPRESSION_THREADS);
+        }
+
         SAMFileWriterFactory factory = new SAMFileWriterFactory()
                 .setCreateIndex(CREATE_INDEX)
                 .setCreateMd5File(CREATE_MD5_FILE);
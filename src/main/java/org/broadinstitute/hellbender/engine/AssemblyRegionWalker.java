@@ -9,11 +9,16 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
+import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -42,6 +47,11 @@ import java.util.List;
  *
  * Read shards exist mainly as a proof-of-concept that we can shard the reads without introducing calling artifacts,
  * which will be important for the Spark equivalent of this traversal.
+ *
+ * Tools that override {@link #supportsThreadedTraversal} to return true may be run with {@link #traversalThreads} > 1,
+ * in which case several read shards are processed concurrently, each on a separate thread with its own data sources.
+ * Output from such tools must go through {@link #emitInShardOrder}, which guarantees that it is produced in the same
+ * order as in a single-threaded run.
  */
 public abstract class AssemblyRegionWalker extends GATKTool {
 
@@ -67,6 +77,9 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     @Argument(fullName = "activeProbabilityThreshold", shortName = "activeProbabilityThreshold", doc="Minimum probability for a locus to be considered active.", optional = true)
     protected double activeProbThreshold = defaultActiveProbThreshold();
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process read shards concurrently. Output is still produced in genomic order. Only supported by some tools.", optional = true)
+    protected int traversalThreads = 1;
+
     @Advanced
     @Argument(fullName = "maxProbPropagationDistance", shortName = "maxProbPropagationDistance", doc="Upper limit on how many bases away probability mass can be moved around when calculating the boundaries between active and inactive assembly regions", optional = true)
     protected int maxProbPropagationDistance = defaultMaxProbPropagationDistance();
@@ -121,7 +134,9 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public String getProgressMeterRecordLabel() { return "regions"; }
     
     private List<LocalReadShard> readShards;
-    private Shard<GATKRead> currentReadShard;
+
+    // Thread-local so that each worker thread in a threaded traversal sees the shard it is currently processing
+    private final ThreadLocal<Shard<GATKRead>> currentReadShard = new ThreadLocal<>();
 
     /**
      * Initialize data sources for traversal.
@@ -152,6 +167,15 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             throw new CommandLineException.BadArgumentValue("assemblyRegionPadding must be <= readShardPadding");
         }
 
+        if ( traversalThreads < 1 ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads must be >= 1");
+        }
+
+        if ( traversalThreads > 1 && ! supportsThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads),
+                    getClass().getSimpleName() + " does not support threaded traversal");
+        }
+
         final List<SimpleInterval> intervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
     }
@@ -176,7 +200,43 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * @return The boundaries of the read shard we're currently operating within (ignoring any padding).
      */
     public SimpleInterval getCurrentReadShardBounds() {
-        return currentReadShard.getInterval();
+        return currentReadShard.get().getInterval();
+    }
+
+    /**
+     * Can this tool process more than one read shard at a time (ie., can it be run with {@link #traversalThreads} > 1)?
+     *
+     * Tools that return true must ensure that the evaluator returned by {@link #assemblyRegionEvaluator} and their
+     * {@link #apply} method are safe to call from several threads at once (for example, by keeping per-thread engines),
+     * and must send all of their output through {@link #emitInShardOrder} so that it is written in the same order
+     * as in a single-threaded traversal. Draws from the shared random number generator ({@link Utils#getRandomGenerator})
+     * made while processing a region happen in a different order than in a single-threaded traversal, and from several
+     * threads at once, so such tools must either avoid them or defer them to their output actions. When traversing
+     * with more than one thread, the reads of each shard are downsampled using a generator of their own, seeded from
+     * the shard, so output at positions where downsampling discards reads differs from a single-threaded run.
+     *
+     * The default implementation returns false.
+     *
+     * @return true if this tool supports threaded traversal, otherwise false
+     */
+    public boolean supportsThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Emit output produced while processing the current assembly region.
+     *
+     * In a single-threaded traversal the output action is run immediately. In a threaded traversal it is held
+     * until all previous read shards have been emitted, and is then run on the traversal thread, so that
+     * tools that write all of their output through this method produce identical output regardless of
+     * the number of {@link #traversalThreads}. The exceptions are output that depends on draws from the shared
+     * random number generator made outside of the output action, and positions where reads are downsampled
+     * (see {@link #supportsThreadedTraversal}). Must only be called from within {@link #apply}.
+     *
+     * @param output action that writes output for the current region (eg., adding variants to a writer)
+     */
+    protected final void emitInShardOrder(final Runnable output) {
+        ThreadedShardTraversal.emitInOrder(output);
     }
 
     /**
@@ -207,19 +267,106 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final LocalReadShard readShard : readShards ) {
-            // Since reads in each shard are lazily fetched, we need to pass the filter to the window
-            // instead of filtering the reads directly here
-            readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads()) : null);
-            currentReadShard = readShard;
+        if ( traversalThreads > 1 ) {
+            traverseReadShardsConcurrently(countedFilter);
+        }
+        else {
+            traverseReadShardsSequentially(countedFilter);
+        }
+
+        logger.info(countedFilter.getSummaryLine());
+    }
+
+    /**
+     * Process read shards one at a time, in order. Consecutive shards overlap in their padding, so the reads
+     * are fetched through a {@link ReadShardCache} that carries the reads in each overlap forward to the next
+     * shard instead of querying (and filtering) them again. The work saved is reported by the progress meter
+     * at the end of the traversal.
+     *
+     * @param countedFilter read filter to apply to the reads
+     */
+    private void traverseReadShardsSequentially( final CountingReadFilter countedFilter ) {
+        final ReadShardCache readCache = new ReadShardCache(countedFilter);
+        progressMeter.addSummaryStatistic(readCache::getSummaryLine);
+
+        for ( int i = 0; i < readShards.size(); i++ ) {
+            final SimpleInterval nextPaddedInterval = i + 1 < readShards.size() ? readShards.get(i + 1).getPaddedInterval() : null;
+            final Shard<GATKRead> readShard = readCache.getShard(readShards.get(i), nextPaddedInterval, makeDownsampler(Utils.getRandomGenerator()));
+            currentReadShard.set(readShard);
 
             processReadShard(readShard,
+                    reference,
+                    features,
                     new ReferenceContext(reference, readShard.getPaddedInterval()), // use the fully-padded window to fetch overlapping data
-                    new FeatureContext(features, readShard.getPaddedInterval()));
+                    new FeatureContext(features, readShard.getPaddedInterval()),
+                    progressMeter::update);
         }
+    }
 
-        logger.info(countedFilter.getSummaryLine());
+    /**
+     * Process read shards on a pool of {@link #traversalThreads} worker threads. Each worker queries its own data
+     * sources for the reads of its shard, and defers any output emitted via {@link #emitInShardOrder}, as well as its
+     * progress, until the shard is complete. Completed shards are then handed back to this thread strictly in their
+     * original order, where their output is written and the progress meter is updated.
+     *
+     * Since each shard queries its whole padded interval, reads in the overlap between consecutive shards are filtered
+     * by both. They are only counted by the first, as they would be by the {@link ReadShardCache} of a
+     * single-threaded traversal.
+     *
+     * @param countedFilter read filter that reports the filter counts of the traversal
+     */
+    private void traverseReadShardsConcurrently( final CountingReadFilter countedFilter ) {
+        try ( final ThreadedShardTraversal traversal = new ThreadedShardTraversal(this, traversalThreads, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            traversal.traverse(IntStream.range(0, readShards.size()).iterator(), shardIndex -> {
+                final LocalReadShard readShard = readShards.get(shardIndex);
+                final SimpleInterval paddedInterval = readShard.getPaddedInterval();
+                final SimpleInterval previousPaddedInterval = shardIndex > 0 ? readShards.get(shardIndex - 1).getPaddedInterval() : null;
+                final ReadFilter readFilter = traversal.getReadFilter(read -> ! ReadShardCache.wasReturnedForPreviousShard(read, previousPaddedInterval, paddedInterval));
+
+                try {
+                    processReadShard(new LocalReadShard(readShard.getInterval(), paddedInterval, traversal.getReads()), readFilter,
+                            traversal.getReference(), traversal.getFeatures(),
+                            regionSpan -> emitInShardOrder(() -> progressMeter.update(regionSpan)));
+                }
+                finally {
+                    currentReadShard.remove();
+                }
+            });
+            traversal.addFilteredCounts(countedFilter);
+        }
+    }
+
+    /**
+     * Configure the given shard for traversal, divide it into assembly regions, and process each region.
+     *
+     * @param readShard shard to process
+     * @param readFilter filter to apply to the reads in the shard
+     * @param referenceSource reference data source to use for this shard
+     * @param featureSource Feature data source to use for this shard (may be null)
+     * @param onRegionProcessed called with the span of each assembly region after it has been processed
+     */
+    private void processReadShard( final LocalReadShard readShard, final ReadFilter readFilter, final ReferenceDataSource referenceSource,
+                                   final FeatureManager featureSource, final Consumer<SimpleInterval> onRegionProcessed ) {
+        // Since reads in each shard are lazily fetched, we need to pass the filter to the window
+        // instead of filtering the reads directly here
+        readShard.setReadFilter(readFilter);
+        readShard.setDownsampler(makeDownsampler(new Random(readShard.getInterval().hashCode())));
+        currentReadShard.set(readShard);
+
+        processReadShard(readShard,
+                referenceSource,
+                featureSource,
+                new ReferenceContext(referenceSource, readShard.getPaddedInterval()), // use the fully-padded window to fetch overlapping data
+                new FeatureContext(featureSource, readShard.getPaddedInterval()),
+                onRegionProcessed);
+    }
+
+    /**
+     * @param rnd random number generator for the downsampler to draw from
+     * @return a new downsampler for the reads of a single read shard, or null if downsampling is disabled
+     */
+    private ReadsDownsampler makeDownsampler( final Random rnd ) {
+        return maxReadsPerAlignmentStart > 0 ? new PositionalDownsampler(maxReadsPerAlignmentStart, getHeaderForReads(), rnd) : null;
     }
 
     /**
@@ -227,10 +374,14 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * and send each region to the tool implementation for processing.
      *
      * @param shard Shard to process
+     * @param referenceSource reference data source to use for the regions in this shard
+     * @param featureSource Feature data source to use for the regions in this shard (may be null)
      * @param referenceContext Reference bases spanning the fully-padded interval of the shard
      * @param featureContext Features spanning the fully-padded interval of the shard
+     * @param onRegionProcessed called with the span of each assembly region after it has been processed
      */
-    private void processReadShard(Shard<GATKRead> shard, ReferenceContext referenceContext, FeatureContext featureContext ) {
+    private void processReadShard(Shard<GATKRead> shard, ReferenceDataSource referenceSource, FeatureManager featureSource,
+                                  ReferenceContext referenceContext, FeatureContext featureContext, Consumer<SimpleInterval> onRegionProcessed ) {
         // Divide each shard into one or more assembly regions using our AssemblyRegionEvaluator:
         final Iterable<AssemblyRegion> assemblyRegions = AssemblyRegion.createFromReadShard(shard,
                 getHeaderForReads(), referenceContext, featureContext, assemblyRegionEvaluator(),
@@ -242,11 +393,11 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size() + " in read shard " + shard.getInterval());
 
             apply(assemblyRegion,
-                    new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
-                    new FeatureContext(features, assemblyRegion.getExtendedSpan()));
+                    new ReferenceContext(referenceSource, assemblyRegion.getExtendedSpan()),
+                    new FeatureContext(featureSource, assemblyRegion.getExtendedSpan()));
 
             // For this traversal, the progress meter unit is the assembly region rather than the read shard
-            progressMeter.update(assemblyRegion.getSpan());
+            onRegionProcessed.accept(assemblyRegion.getSpan());
         }
     }
 
@@ -12,6 +12,7 @@ import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
@@ -110,6 +111,12 @@ public abstract class GATKTool extends CommandLineProgram {
     @Argument(fullName = StandardArgumentDefinitions.CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME, shortName = StandardArgumentDefinitions.CLOUD_INDEX_PREFETCH_BUFFER_SHORT_NAME, doc = "Size of the cloud-only prefetch buffer (in MB; 0 to disable). Defaults to cloudPrefetchBuffer if unset.", optional=true)
     public int cloudIndexPrefetchBuffer = getDefaultCloudIndexPrefetchBufferSize();
 
+    @Argument(fullName = "readInputThreads", shortName = "readInputThreads", doc = "Number of threads to use to inflate BAM inputs ahead of the traversal, which are then decoded on a separate thread (0 to inflate and decode them on the traversal thread).", optional = true)
+    public int readInputThreads = 0;
+
+    @Argument(fullName = "readOutputThreads", shortName = "readOutputThreads", doc = "Number of threads to use to compress BAM outputs, which produces the same files as compressing them on the writing thread (0 to compress them on the writing thread).", optional = true)
+    public int readOutputThreads = 0;
+
     @Argument(fullName = StandardArgumentDefinitions.DISABLE_BAM_INDEX_CACHING_LONG_NAME,
             shortName = StandardArgumentDefinitions.DISABLE_BAM_INDEX_CACHING_SHORT_NAME,
             doc = "If true, don't cache bam indexes, this will reduce memory requirements but may harm performance if many intervals are specified.  Caching is automatically disabled if there are no intervals specified.",
@@ -292,7 +299,20 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reference data source.
      */
     void initializeReference() {
-        reference = referenceArguments.getReferenceFile() != null ? ReferenceDataSource.of(referenceArguments.getReferenceFile()) : null;
+        reference = referenceArguments.getReferenceFile() != null ? createReferenceDataSource() : null;
+    }
+
+    /**
+     * Open a new, independent source of reference data over the reference provided on the command line.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot. Used by
+     * {@link #initializeReference} and by threaded traversals that need a separate data source for each thread.
+     *
+     * @return a new ReferenceDataSource for the reference argument, which must have been provided
+     */
+    ReferenceDataSource createReferenceDataSource() {
+        Utils.nonNull(referenceArguments.getReferenceFile(), "a reference is required to create a reference data source");
+        return ReferenceDataSource.of(referenceArguments.getReferenceFile());
     }
 
     /**
@@ -302,25 +322,38 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reads data source.
      */
     void initializeReads() {
-        if (! readArguments.getReadFiles().isEmpty()) {
-            SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
-            if (hasReference()) { // pass in reference if available, because CRAM files need it
-                factory = factory.referenceSequence(referenceArguments.getReferenceFile());
-            }
-            else if (hasCramInput()) {
-                throw new UserException.MissingReference("A reference file is required when using CRAM files.");
-            }
-
-            if(bamIndexCachingShouldBeEnabled()) {
-                factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
-            }
+        reads = readArguments.getReadFiles().isEmpty() ? null : createReadsDataSource();
+    }
 
-            reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
-                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+    /**
+     * Open a new, independent source of reads data over the reads provided on the command line, configured
+     * in the same way as our primary source of reads. Traversal bounds are not set on the returned data source.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot. Used by
+     * {@link #initializeReads} and by threaded traversals that need a separate data source for each thread.
+     *
+     * @return a new ReadsDataSource for the reads arguments, which must have been provided
+     */
+    ReadsDataSource createReadsDataSource() {
+        Utils.validate(! readArguments.getReadFiles().isEmpty(), "reads are required to create a reads data source");
+        // Records are decoded lazily, so that each field of a read is only decoded if something asks for it
+        SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency())
+                .disable(SamReaderFactory.Option.EAGERLY_DECODE);
+        if (hasReference()) { // pass in reference if available, because CRAM files need it
+            factory = factory.referenceSequence(referenceArguments.getReferenceFile());
         }
-        else {
-            reads = null;
+        else if (hasCramInput()) {
+            throw new UserException.MissingReference("A reference file is required when using CRAM files.");
         }
+
+        if(bamIndexCachingShouldBeEnabled()) {
+            factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
+        }
+
+        final ReadsDataSource readsDataSource = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+        readsDataSource.setReadInputThreads(readInputThreads);
+        return readsDataSource;
     }
 
 
@@ -344,11 +377,26 @@ public abstract class GATKTool extends CommandLineProgram {
      * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
      */
     void initializeFeatures() {
-        features = new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                      referenceArguments.getReferencePath());
-        if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
-            features = null;
+        features = createFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+    }
+
+    /**
+     * Open a new, independent FeatureManager over the Feature arguments of this tool.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot. Used by
+     * {@link #initializeFeatures} and by threaded traversals that need a separate data source for each thread.
+     *
+     * @param featureQueryLookahead cache this many extra bases of context beyond the end of query intervals
+     * @return a new FeatureManager, or null if this tool has no sources of Features
+     */
+    FeatureManager createFeatureManager(final int featureQueryLookahead) {
+        final FeatureManager featureManager = new FeatureManager(this, featureQueryLookahead, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                                                                 referenceArguments.getReferencePath());
+        if ( featureManager.isEmpty() ) {  // No available sources of Features discovered for this tool
+            featureManager.close();
+            return null;
         }
+        return featureManager;
     }
 
     /**
@@ -553,6 +601,12 @@ public abstract class GATKTool extends CommandLineProgram {
 
         initializeReference();
 
+        if ( readInputThreads < 0 ) {
+            throw new CommandLineException.BadArgumentValue("readInputThreads must be >= 0");
+        }
+        if ( readOutputThreads < 0 ) {
+            throw new CommandLineException.BadArgumentValue("readOutputThreads must be >= 0");
+        }
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
@@ -671,7 +725,8 @@ public abstract class GATKTool extends CommandLineProgram {
                                 getHeaderForSAMWriter(),
                                 preSorted,
                                 createOutputBamIndex,
-                                createOutputBamMD5
+                                createOutputBamMD5,
+                                readOutputThreads
                         )
         );
     }
@@ -100,6 +100,13 @@ public final class LocalReadShard implements Shard<GATKRead> {
         return paddedInterval;
     }
 
+    /**
+     * @return the source of the reads in this shard
+     */
+    ReadsDataSource getReadsSource() {
+        return readsSource;
+    }
+
     /**
      * @return number of bases of padding to the left of our interval
      */
@@ -1,7 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
-import htsjdk.samtools.SAMFileHeader;
-import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
@@ -9,14 +9,17 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A LocusWalker is a tool that processes reads that overlap a single position in a reference at a time from
@@ -32,6 +35,11 @@ import java.util.stream.Collectors;
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
  * onTraversalStart(), onTraversalSuccess() and/or closeTool().
  *
+ * Tools that override {@link #supportsThreadedTraversal} to return true may be run with {@link #traversalThreads} > 1,
+ * in which case the loci to traverse are divided into shards of {@link #locusShardSize} bases that are processed
+ * concurrently, each on a separate thread with its own data sources. Output from such tools must go through
+ * {@link #emitInShardOrder}, which guarantees that it is produced in the same order as in a single-threaded run.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 public abstract class LocusWalker extends GATKTool {
@@ -39,6 +47,18 @@ public abstract class LocusWalker extends GATKTool {
     @Argument(fullName = "maxDepthPerSample", shortName = "maxDepthPerSample", doc = "Maximum number of reads to retain per sample per locus. Reads above this threshold will be downsampled. Set to 0 to disable.", optional = true)
     protected int maxDepthPerSample = defaultMaxDepthPerSample();
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process locus shards concurrently. Output is still produced in genomic order. Only supported by some tools.", optional = true)
+    protected int traversalThreads = 1;
+
+    @Advanced
+    @Argument(fullName = "locusShardSize", shortName = "locusShardSize", doc = "Number of loci in each shard processed by a thread when traversalThreads > 1", optional = true)
+    protected int locusShardSize = DEFAULT_LOCUS_SHARD_SIZE;
+
+    /**
+     * Default value for the {@link #locusShardSize} parameter
+     */
+    public static final int DEFAULT_LOCUS_SHARD_SIZE = 100000;
+
     /**
      * Should the LIBS keep unique reads? Tools that do should override to return {@code true}.
      */
@@ -135,6 +155,53 @@ public abstract class LocusWalker extends GATKTool {
         if ( hasIntervals() ) {
             reads.setTraversalBounds(intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()));
         }
+
+        if ( traversalThreads < 1 ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads must be >= 1");
+        }
+
+        if ( traversalThreads > 1 && ! supportsThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads),
+                    getClass().getSimpleName() + " does not support threaded traversal");
+        }
+
+        if ( locusShardSize < 1 ) {
+            throw new CommandLineException.BadArgumentValue("locusShardSize must be >= 1");
+        }
+    }
+
+    /**
+     * Can this tool process more than one locus shard at a time (ie., can it be run with {@link #traversalThreads} > 1)?
+     *
+     * Tools that return true must ensure that their {@link #apply} method and their read transformers are safe to call
+     * from several threads at once, and must send all of their output through {@link #emitInShardOrder} so that it is
+     * written in the same order as in a single-threaded traversal. Tools that accumulate results across loci should do
+     * so within the output actions, which are run one at a time on the traversal thread.
+     *
+     * Tools that override {@link #traverse} do not support threaded traversal. The default implementation returns false.
+     *
+     * @return true if this tool supports threaded traversal, otherwise false
+     */
+    public boolean supportsThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Emit output produced while processing the current locus.
+     *
+     * In a single-threaded traversal the output action is run immediately. In a threaded traversal it is held
+     * until the output of all previous locus shards has been written, and is then run on the traversal thread.
+     * Tools that write all of their output through this method therefore write their loci in the same order
+     * regardless of the number of {@link #traversalThreads}.
+     *
+     * Note that the reads kept at a locus when {@link #maxDepthPerSample} downsampling is enabled are chosen
+     * using {@link Utils#getRandomGenerator}, whose draws are shared by all the worker threads, so with downsampling
+     * the output of a threaded traversal can differ from run to run. Must only be called from within {@link #apply}.
+     *
+     * @param output action that writes output for the current locus (eg., printing a line to a stream)
+     */
+    protected final void emitInShardOrder(final Runnable output) {
+        ThreadedShardTraversal.emitInOrder(output);
     }
 
     /**
@@ -147,34 +214,112 @@ public abstract class LocusWalker extends GATKTool {
      */
     @Override
     public void traverse() {
-        final SAMFileHeader header = getHeaderForReads();
-        // get the samples from the read groups
-        final Set<String> samples = header.getReadGroups().stream()
-                                          .map(SAMReadGroupRecord::getSample)
-                                          .collect(Collectors.toSet());
         final CountingReadFilter countedFilter = makeReadFilter();
-        // get the filter and transformed iterator
-        final Iterator<GATKRead> readIterator = getTransformedReadStream(countedFilter).iterator();
 
+        if ( traversalThreads > 1 ) {
+            traverseLocusShardsConcurrently(countedFilter);
+        }
+        else {
+            // get the filter and transformed iterator
+            final Iterator<GATKRead> readIterator = getTransformedReadStream(countedFilter).iterator();
+            final Iterator<AlignmentContext> iterator = makeAlignmentContextIteratorBuilder().build(
+                    readIterator, getHeaderForReads(), intervalsForTraversal, getBestAvailableSequenceDictionary(),
+                    hasReference());
+
+            // iterate over each alignment, and apply the function
+            iterator.forEachRemaining(alignmentContext -> {
+                            final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+                            apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
+                            progressMeter.update(alignmentInterval);
+                    }
+                );
+        }
+        logger.info(countedFilter.getSummaryLine());
+    }
+
+    /**
+     * @return a builder for the alignment context iterator over the (filtered and transformed) reads, configured
+     *         according to the traversal options of this tool
+     */
+    private AlignmentContextIteratorBuilder makeAlignmentContextIteratorBuilder() {
         final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
         alignmentContextIteratorBuilder.setDownsamplingInfo(getDownsamplingInfo());
         alignmentContextIteratorBuilder.setEmitEmptyLoci(emitEmptyLoci());
         alignmentContextIteratorBuilder.setIncludeDeletions(includeDeletions());
         alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(keepUniqueReadListInLibs());
         alignmentContextIteratorBuilder.setIncludeNs(includeNs());
+        return alignmentContextIteratorBuilder;
+    }
 
-        final Iterator<AlignmentContext> iterator = alignmentContextIteratorBuilder.build(
-                readIterator, header, intervalsForTraversal, getBestAvailableSequenceDictionary(),
+    /**
+     * Divide the loci to traverse into shards of up to {@link #locusShardSize} bases, and process them on a pool of
+     * {@link #traversalThreads} worker threads. Each worker queries its own data sources for the reads overlapping
+     * its shard, and any output emitted via {@link #emitInShardOrder} is written on this thread once all previous
+     * shards have been written.
+     *
+     * Reads that span a shard boundary are filtered by every shard that they overlap, but their filtering is only
+     * counted by the first of these shards, so that the filter counts match those of a single-threaded traversal.
+     *
+     * @param countedFilter read filter whose counts are reported at the end of the traversal
+     */
+    private void traverseLocusShardsConcurrently( final CountingReadFilter countedFilter ) {
+        final SAMSequenceDictionary dictionary = getHeaderForReads().getSequenceDictionary();
+        final List<SimpleInterval> intervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(dictionary);
+        final List<SimpleInterval> shards = new ArrayList<>();
+        for ( final SimpleInterval interval : intervals ) {
+            for ( final ShardBoundary shard : Shard.divideIntervalIntoShards(interval, locusShardSize, 0, dictionary) ) {
+                shards.add(shard.getInterval());
+            }
+        }
+
+        try ( final ThreadedShardTraversal traversal = new ThreadedShardTraversal(this, traversalThreads, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            traversal.traverse(IntStream.range(0, shards.size()).iterator(), shardIndex -> {
+                final SimpleInterval previousShard = shardIndex > 0 ? shards.get(shardIndex - 1) : null;
+                final ReadFilter readFilter = traversal.getReadFilter(read -> ! overlapsPreviousShard(read, previousShard));
+                processLocusShard(shards.get(shardIndex), readFilter, traversal);
+            });
+            traversal.addFilteredCounts(countedFilter);
+        }
+    }
+
+    /**
+     * A read overlapping the current shard that starts at or before the end of the previous shard on the same contig
+     * also overlaps the previous shard, and has already been counted by it.
+     */
+    private static boolean overlapsPreviousShard( final GATKRead read, final SimpleInterval previousShard ) {
+        return previousShard != null && previousShard.getContig().equals(read.getAssignedContig()) &&
+                read.getAssignedStart() <= previousShard.getEnd();
+    }
+
+    /**
+     * Run the locus traversal over a single shard on a worker thread.
+     *
+     * @param shardInterval loci to traverse
+     * @param readFilter filter to apply to the reads overlapping the shard
+     * @param traversal provides the data sources of the worker thread
+     */
+    private void processLocusShard( final SimpleInterval shardInterval, final ReadFilter readFilter, final ThreadedShardTraversal traversal ) {
+        final ReadTransformer preTransformer = makePreReadFilterTransformer();
+        final ReadTransformer postTransformer = makePostReadFilterTransformer();
+        final Iterator<GATKRead> readIterator = Utils.stream(traversal.getReads().query(shardInterval))
+                .map(preTransformer)
+                .filter(readFilter)
+                .map(postTransformer)
+                .iterator();
+
+        // restricting the traversal to the shard means that loci covered by reads that overlap the shard boundary
+        // are only processed by the shard that contains them
+        final Iterator<AlignmentContext> iterator = makeAlignmentContextIteratorBuilder().build(
+                readIterator, getHeaderForReads(), Collections.singletonList(shardInterval), getBestAvailableSequenceDictionary(),
                 hasReference());
 
-        // iterate over each alignment, and apply the function
+        final ReferenceDataSource referenceSource = traversal.getReference();
+        final FeatureManager featureSource = traversal.getFeatures();
         iterator.forEachRemaining(alignmentContext -> {
-                        final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
-                        apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
-                        progressMeter.update(alignmentInterval);
-                }
-            );
-        logger.info(countedFilter.getSummaryLine());
+            final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+            apply(alignmentContext, new ReferenceContext(referenceSource, alignmentInterval), new FeatureContext(featureSource, alignmentInterval));
+            emitInShardOrder(() -> progressMeter.update(alignmentInterval));
+        });
     }
 
     /**
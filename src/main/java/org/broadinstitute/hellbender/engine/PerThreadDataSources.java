@@ -0,0 +1,87 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out a separate set of engine data sources (reads, reference, and Features) to each thread that asks for one.
+ *
+ * None of {@link ReadsDataSource}, {@link ReferenceDataSource} or {@link FeatureManager} are safe to query from more
+ * than one thread at a time, so traversals that process shards concurrently use this class to give each worker
+ * thread its own copies. Data sources are created lazily on first access from a given thread, and all data sources
+ * created by this object are closed by {@link #close}.
+ *
+ * Package-private: for use by the walker base classes only.
+ */
+final class PerThreadDataSources implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PerThreadDataSources.class);
+
+    private final ThreadLocal<ReadsDataSource> reads;
+    private final ThreadLocal<ReferenceDataSource> reference;
+    private final ThreadLocal<FeatureManager> features;
+
+    private final List<AutoCloseable> openedDataSources = new ArrayList<>();
+
+    /**
+     * @param tool tool whose data sources should be replicated; its own data sources must already be initialized
+     * @param featureQueryLookahead lookahead to use for the per-thread FeatureManagers
+     */
+    PerThreadDataSources(final GATKTool tool, final int featureQueryLookahead) {
+        Utils.nonNull(tool);
+
+        this.reads = ThreadLocal.withInitial(() -> tool.hasReads() ? register(tool.createReadsDataSource()) : null);
+        this.reference = ThreadLocal.withInitial(() -> tool.hasReference() ? register(tool.createReferenceDataSource()) : null);
+        this.features = ThreadLocal.withInitial(() -> tool.hasFeatures() ? register(tool.createFeatureManager(featureQueryLookahead)) : null);
+    }
+
+    /**
+     * @return the reads data source for the calling thread, or null if the tool has no reads
+     */
+    ReadsDataSource getReads() {
+        return reads.get();
+    }
+
+    /**
+     * @return the reference data source for the calling thread, or null if the tool has no reference
+     */
+    ReferenceDataSource getReference() {
+        return reference.get();
+    }
+
+    /**
+     * @return the FeatureManager for the calling thread, or null if the tool has no sources of Features
+     */
+    FeatureManager getFeatures() {
+        return features.get();
+    }
+
+    private <T extends AutoCloseable> T register(final T dataSource) {
+        synchronized ( openedDataSources ) {
+            openedDataSources.add(dataSource);
+        }
+        return dataSource;
+    }
+
+    /**
+     * Close every data source handed out by this object, on any thread. Must only be called once all
+     * worker threads are done using their data sources.
+     */
+    @Override
+    public void close() {
+        synchronized ( openedDataSources ) {
+            for ( final AutoCloseable dataSource : openedDataSources ) {
+                try {
+                    dataSource.close();
+                } catch ( final Exception e ) {
+                    logger.warn("Error closing per-thread data source", e);
+                }
+            }
+            openedDataSources.clear();
+        }
+    }
+}
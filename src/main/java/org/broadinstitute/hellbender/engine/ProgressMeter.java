@@ -7,7 +7,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * A basic progress meter to print out the number of records processed (and other metrics) during a traversal
@@ -125,6 +128,11 @@ public final class ProgressMeter {
      */
     private String recordLabel = DEFAULT_RECORD_LABEL;
 
+    /**
+     * Additional summary lines to output at the end of the traversal, evaluated in {@link #stop}.
+     */
+    private final List<Supplier<String>> summaryStatistics = new ArrayList<>();
+
     /**
      * Create a progress meter with the default update interval of {@link #DEFAULT_SECONDS_BETWEEN_UPDATES} seconds
      * and the default time function {@link #DEFAULT_TIME_FUNCTION}.
@@ -181,6 +189,17 @@ public final class ProgressMeter {
         this.recordLabel = label;
     }
 
+    /**
+     * Add a line of summary statistics to output after the traversal summary when the meter is stopped.
+     * The line is computed only when {@link #stop} is called, so it may report on work done during the traversal.
+     *
+     * @param summaryLine supplier of the line to output. Not null.
+     */
+    public void addSummaryStatistic( final Supplier<String> summaryLine ) {
+        Utils.nonNull(summaryLine);
+        summaryStatistics.add(summaryLine);
+    }
+
     /**
      * Start the progress meter and produce preliminary output such as column headings.
      * @throws IllegalStateException if the meter has been started before or has been stopped already
@@ -234,6 +253,7 @@ public final class ProgressMeter {
         // Output progress a final time at the end
         printProgress();
         logger.info(String.format("Traversal complete. Processed %d total %s in %.1f minutes.", numRecordsProcessed, recordLabel, elapsedTimeInMinutes()));
+        summaryStatistics.forEach(summaryLine -> logger.info(summaryLine.get()));
     }
 
     /**
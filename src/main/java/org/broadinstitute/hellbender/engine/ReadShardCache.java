@@ -0,0 +1,185 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.collect.Iterators;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsamplingIterator;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A rolling cache of reads for a sequence of padded {@link LocalReadShard}s that are traversed in order.
+ *
+ * Consecutive shards overlap in their padding, so querying the reads source separately for each shard would decode
+ * and filter every read in the overlap twice, and inflate the compressed blocks around each shard boundary twice.
+ * Instead, the filtered reads of each shard that overlap the padded interval of the next shard are carried forward,
+ * and the reads source is only queried for the part of the next shard that lies beyond the end of the previous one.
+ * The reads of each shard are exactly the reads that a query over its padded interval would return after filtering,
+ * in the same order.
+ *
+ * The reads handed out for one shard are never handed out again: reads that are carried forward to the next shard
+ * are handed out as copies until their last use, so tools may modify the reads of one shard without affecting the next.
+ *
+ * Package-private: for use by the walker base classes only.
+ */
+final class ReadShardCache {
+
+    private final ReadFilter readFilter;
+
+    // padded interval of the previous shard, and its filtered reads that overlap the padded interval of the next shard
+    private SimpleInterval previousPaddedInterval = null;
+    private List<GATKRead> carriedReads = Collections.emptyList();
+
+    private long numReadsReused = 0L;
+    private long numBasesNotRequeried = 0L;
+
+    /**
+     * @param readFilter filter to apply to the reads (once per read, rather than once per shard that the read overlaps)
+     */
+    ReadShardCache( final ReadFilter readFilter ) {
+        this.readFilter = Utils.nonNull(readFilter);
+    }
+
+    /**
+     * Get the next shard of the traversal, populated with the filtered and downsampled reads that overlap its padded interval.
+     *
+     * @param shard the next shard of the traversal, whose reads source will be queried for any reads not in the cache
+     * @param nextPaddedInterval padded interval of the shard that will be requested after this one, or null if this is the last one
+     * @param downsampler downsampler to apply to the reads of the shard after filtering (may be null)
+     * @return a shard with the same intervals as the provided one, with its reads pre-loaded
+     */
+    Shard<GATKRead> getShard( final LocalReadShard shard, final SimpleInterval nextPaddedInterval, final ReadsDownsampler downsampler ) {
+        Utils.nonNull(shard);
+        final SimpleInterval paddedInterval = shard.getPaddedInterval();
+        final List<GATKRead> reads = new ArrayList<>();
+        final List<GATKRead> nextCarriedReads = new ArrayList<>();
+        // only reads that overlap the next shard will be needed again, and then only if it continues from this one
+        final SimpleInterval carryInterval = nextPaddedInterval != null && canCarryForward(paddedInterval, nextPaddedInterval) ? nextPaddedInterval : null;
+
+        final Iterator<GATKRead> queriedReads;
+        if ( previousPaddedInterval != null && canCarryForward(previousPaddedInterval, paddedInterval) ) {
+            // every read that overlaps this shard and starts before the end of the previous one was returned for the previous shard
+            for ( final GATKRead read : carriedReads ) {
+                if ( getEnd(read) >= paddedInterval.getStart() ) {
+                    addRead(read, carryInterval, reads, nextCarriedReads);
+                    numReadsReused++;
+                }
+            }
+            numBasesNotRequeried += previousPaddedInterval.getEnd() - paddedInterval.getStart() + 1;
+
+            final int previousEnd = previousPaddedInterval.getEnd();
+            queriedReads = paddedInterval.getEnd() > previousEnd ?
+                    Iterators.filter(shard.getReadsSource().query(new SimpleInterval(paddedInterval.getContig(), previousEnd + 1, paddedInterval.getEnd())),
+                                     read -> read.getAssignedStart() > previousEnd) :
+                    Collections.emptyIterator();
+        }
+        else {
+            queriedReads = shard.getReadsSource().query(paddedInterval);
+        }
+
+        while ( queriedReads.hasNext() ) {
+            final GATKRead read = queriedReads.next();
+            if ( readFilter.test(read) ) {
+                addRead(read, carryInterval, reads, nextCarriedReads);
+            }
+        }
+
+        previousPaddedInterval = paddedInterval;
+        carriedReads = nextCarriedReads;
+
+        final List<GATKRead> shardReads = downsampler != null ? Utils.stream(new ReadsDownsamplingIterator(reads.iterator(), downsampler)).collect(Collectors.toList()) : reads;
+        return new Shard<GATKRead>() {
+            @Override
+            public SimpleInterval getInterval() {
+                return shard.getInterval();
+            }
+
+            @Override
+            public SimpleInterval getPaddedInterval() {
+                return paddedInterval;
+            }
+
+            @Override
+            public Iterator<GATKRead> iterator() {
+                return shardReads.iterator();
+            }
+        };
+    }
+
+    /**
+     * @return the number of reads that were carried forward from one shard to the next instead of being queried again
+     */
+    long getNumReadsReused() {
+        return numReadsReused;
+    }
+
+    /**
+     * @return the total length of the shard overlaps that were not queried again
+     */
+    long getNumBasesNotRequeried() {
+        return numBasesNotRequeried;
+    }
+
+    /**
+     * @return a summary of the work saved by the cache, suitable for output at the end of the traversal
+     */
+    String getSummaryLine() {
+        return String.format("Read shard cache carried %d reads across shard boundaries instead of querying %d bases of shard padding again",
+                numReadsReused, numBasesNotRequeried);
+    }
+
+    /**
+     * Was the given read, which overlaps the padded interval of a shard, also returned for the previous shard of the
+     * traversal, and therefore already filtered by a ReadShardCache? Traversals that fetch the reads of each shard
+     * separately use this to count each read that fails the filter only once, as a ReadShardCache would.
+     *
+     * @param read read overlapping the padded interval of the shard
+     * @param previousPaddedInterval padded interval of the previous shard, or null if this is the first one
+     * @param paddedInterval padded interval of the shard
+     * @return true if the read was returned for the previous shard
+     */
+    static boolean wasReturnedForPreviousShard( final GATKRead read, final SimpleInterval previousPaddedInterval, final SimpleInterval paddedInterval ) {
+        return previousPaddedInterval != null && canCarryForward(previousPaddedInterval, paddedInterval) &&
+                read.getAssignedStart() <= previousPaddedInterval.getEnd();
+    }
+
+    /**
+     * The reads of the previous shard can be carried forward to the next only if the next shard starts within the
+     * previous one and does not end before it, so that the reads overlapping the next shard that start before the
+     * end of the previous shard are exactly those reads of the previous shard that overlap the next one.
+     */
+    private static boolean canCarryForward( final SimpleInterval previous, final SimpleInterval next ) {
+        return previous.getContig().equals(next.getContig()) &&
+                next.getStart() >= previous.getStart() && next.getStart() <= previous.getEnd() &&
+                next.getEnd() >= previous.getEnd();
+    }
+
+    /**
+     * Add a read to the reads of the current shard, and to the cache if it also overlaps carryInterval (the padded
+     * interval of the next shard, or null if no reads will be carried forward), in which case the current shard gets a copy.
+     */
+    private static void addRead( final GATKRead read, final SimpleInterval carryInterval, final List<GATKRead> reads, final List<GATKRead> nextCarriedReads ) {
+        if ( carryInterval != null && carryInterval.getContig().equals(read.getAssignedContig()) && getEnd(read) >= carryInterval.getStart() ) {
+            nextCarriedReads.add(read);
+            reads.add(read.copy());
+        }
+        else {
+            reads.add(read);
+        }
+    }
+
+    /**
+     * @return the end of the span of the read that is used for queries by interval: unmapped reads with an assigned
+     *         position span just that position
+     */
+    private static int getEnd( final GATKRead read ) {
+        return read.isUnmapped() ? read.getAssignedStart() : read.getEnd();
+    }
+}
@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.collect.Iterators;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
@@ -28,9 +32,27 @@ import java.util.List;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Tools that override {@link #supportsThreadedTraversal} to return true may be run with {@link #traversalThreads} > 1,
+ * in which case reads are read from the inputs in batches of {@link #readBatchSize} on the traversal thread, and the batches are
+ * transformed, filtered and processed concurrently, each worker thread with its own reference and Feature data sources.
+ * Output from such tools must go through {@link #emitInReadOrder}, which guarantees that it is produced in the same
+ * order as in a single-threaded run.
  */
 public abstract class ReadWalker extends GATKTool {
 
+    @Argument(fullName = "traversalThreads", shortName = "traversalThreads", doc = "Number of threads to use to process batches of reads concurrently. Output is still produced in input order. Only supported by some tools.", optional = true)
+    protected int traversalThreads = 1;
+
+    @Advanced
+    @Argument(fullName = "readBatchSize", shortName = "readBatchSize", doc = "Number of reads in each batch processed by a thread when traversalThreads > 1", optional = true)
+    protected int readBatchSize = DEFAULT_READ_BATCH_SIZE;
+
+    /**
+     * Default value for the {@link #readBatchSize} parameter
+     */
+    public static final int DEFAULT_READ_BATCH_SIZE = 1000;
+
     @Override
     public boolean requiresReads() {
         return true;
@@ -55,6 +77,50 @@ public abstract class ReadWalker extends GATKTool {
         super.onStartup();
 
         setReadTraversalBounds();
+
+        if ( traversalThreads < 1 ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads must be >= 1");
+        }
+
+        if ( traversalThreads > 1 && ! supportsThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads),
+                    getClass().getSimpleName() + " does not support threaded traversal");
+        }
+
+        if ( readBatchSize < 1 ) {
+            throw new CommandLineException.BadArgumentValue("readBatchSize must be >= 1");
+        }
+    }
+
+    /**
+     * Can this tool process more than one batch of reads at a time (ie., can it be run with {@link #traversalThreads} > 1)?
+     *
+     * Tools that return true must ensure that their {@link #apply} method is safe to call from several threads at once,
+     * and must send all of their output through {@link #emitInReadOrder} so that it is written in the same order as
+     * in a single-threaded traversal. Tools that accumulate results across reads should do so within the output
+     * actions, which are run one at a time on the traversal thread. The read transformers are created once per
+     * worker thread, so they need not be thread-safe.
+     *
+     * Tools that override {@link #traverse} do not support threaded traversal. The default implementation returns false.
+     *
+     * @return true if this tool supports threaded traversal, otherwise false
+     */
+    public boolean supportsThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Emit output produced while processing the current read.
+     *
+     * In a single-threaded traversal the output action is run immediately. In a threaded traversal it is held
+     * until the output of all previous batches of reads has been written, and is then run on the traversal thread,
+     * so tools that write all of their output through this method write their reads in input order regardless of
+     * the number of {@link #traversalThreads}. Must only be called from within {@link #apply}.
+     *
+     * @param output action that writes output for the current read (eg., adding the read to a writer)
+     */
+    protected final void emitInReadOrder(final Runnable output) {
+        ThreadedShardTraversal.emitInOrder(output);
     }
 
     /**
@@ -90,19 +156,71 @@ public abstract class ReadWalker extends GATKTool {
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
-        getTransformedReadStream(countedFilter)
-                .forEach(read -> {
-                    final SimpleInterval readInterval = getReadInterval(read);
-                    apply(read,
-                          new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
-                          new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
+        if ( traversalThreads > 1 ) {
+            traverseReadBatchesConcurrently(countedFilter);
+        }
+        else {
+            getTransformedReadStream(countedFilter)
+                    .forEach(read -> {
+                        final SimpleInterval readInterval = getReadInterval(read);
+                        apply(read,
+                              new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
+                              new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
 
-                    progressMeter.update(readInterval);
-                });
+                        progressMeter.update(readInterval);
+                    });
+        }
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Read batches of {@link #readBatchSize} reads on this thread, and process them on a pool of {@link #traversalThreads}
+     * worker threads. Each worker transforms, filters and applies the tool to the reads of a batch using its own
+     * transformers, read filter, reference and Feature data sources, and any output emitted via {@link #emitInReadOrder}
+     * is written on this thread once the output of all previous batches has been written. Every read belongs to a
+     * single batch, so the counts of the worker filters add up to those of a single-threaded traversal.
+     *
+     * @param countedFilter read filter whose counts are reported at the end of the traversal
+     */
+    private void traverseReadBatchesConcurrently( final CountingReadFilter countedFilter ) {
+        // transformers may keep state between reads, so each worker thread gets its own
+        final ThreadLocal<ReadTransformer> preTransformers = ThreadLocal.withInitial(this::makePreReadFilterTransformer);
+        final ThreadLocal<ReadTransformer> postTransformers = ThreadLocal.withInitial(this::makePostReadFilterTransformer);
+
+        try ( final ThreadedShardTraversal traversal = new ThreadedShardTraversal(this, traversalThreads, FEATURE_CACHE_LOOKAHEAD) ) {
+            traversal.traverse(Iterators.partition(reads.iterator(), readBatchSize), batch ->
+                    processReadBatch(batch, preTransformers.get(), traversal.getReadFilter(read -> true), postTransformers.get(),
+                            traversal.getReference(), traversal.getFeatures()));
+            traversal.addFilteredCounts(countedFilter);
+        }
+    }
+
+    /**
+     * Transform, filter and apply the tool to a batch of reads on a worker thread.
+     *
+     * @param batch reads to process, in input order
+     * @param preTransformer transformer to apply before filtering
+     * @param readFilter filter to apply to the reads
+     * @param postTransformer transformer to apply after filtering
+     * @param referenceSource reference data source to use for this batch (may be null)
+     * @param featureSource Feature data source to use for this batch (may be null)
+     */
+    private void processReadBatch( final List<GATKRead> batch, final ReadTransformer preTransformer, final ReadFilter readFilter,
+                                   final ReadTransformer postTransformer, final ReferenceDataSource referenceSource,
+                                   final FeatureManager featureSource ) {
+        for ( final GATKRead originalRead : batch ) {
+            final GATKRead preTransformedRead = preTransformer.apply(originalRead);
+            if ( ! readFilter.test(preTransformedRead) ) {
+                continue;
+            }
+            final GATKRead read = postTransformer.apply(preTransformedRead);
+            final SimpleInterval readInterval = getReadInterval(read);
+            apply(read, new ReferenceContext(referenceSource, readInterval), new FeatureContext(featureSource, readInterval));
+            emitInReadOrder(() -> progressMeter.update(readInterval));
+        }
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
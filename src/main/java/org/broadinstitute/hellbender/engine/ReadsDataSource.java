@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.*;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
@@ -14,6 +15,8 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBgzfInputStream;
+import org.broadinstitute.hellbender.utils.iterators.PipelinedBamRecordIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
@@ -21,8 +24,11 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +38,12 @@ import java.util.stream.Collectors;
  *
  * -Iteration over all reads, optionally restricted to reads that overlap a set of intervals
  * -Targeted queries by one interval at a time
+ *
+ * By default, reads are inflated and decoded by htsjdk on the thread that consumes them. If a number of read input
+ * threads is set via {@link #setReadInputThreads}, BAM files are instead read through a pipeline: the BGZF blocks
+ * of the file are inflated ahead of the traversal on a pool of that many threads, and records are decoded into
+ * batches on a separate thread (see {@link PipelinedBamRecordIterator}). This applies to both complete iterations and
+ * queries by interval, but not to queries for unmapped reads, or to SAM and CRAM files.
  */
 public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoCloseable {
     protected static final Logger logger = LogManager.getLogger(ReadsDataSource.class);
@@ -78,6 +90,31 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Channel wrappers to use when opening each of our files directly for pipelined decoding
+     */
+    private final Map<SamReader, Function<SeekableByteChannel, SeekableByteChannel>> channelWrappers;
+
+    /**
+     * Validation stringency of our readers, applied to reads decoded in a pipeline
+     */
+    private final ValidationStringency validationStringency;
+
+    /**
+     * Number of threads to inflate BAM files on during pipelined decoding (0 if pipelined decoding is disabled)
+     */
+    private int readInputThreads = 0;
+
+    /**
+     * Pool of threads that inflate BAM files during pipelined decoding, created on first use. Null if not yet created.
+     */
+    private ExecutorService inflaterPool;
+
+    /**
+     * Number of BGZF blocks to inflate ahead of the traversal, per read input thread
+     */
+    private static final int READ_AHEAD_BLOCKS_PER_THREAD = 4;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -173,8 +210,8 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      * @param samPaths paths to SAM/BAM/CRAM files, not null
      * @param samIndices indices for all of the SAM/BAM/CRAM files, in the same order as samPaths. May be null,
      *                   in which case index paths are inferred automatically.
-     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference and validation
-     *                               stringency SILENT is used.
+     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference, validation
+     *                               stringency SILENT and lazy decoding of records is used.
      * @param cloudWrapper caching/prefetching wrapper for the data, if on Google Cloud.
      * @param cloudIndexWrapper caching/prefetching wrapper for the index, if on Google Cloud.
      */
@@ -192,12 +229,14 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         readers = new LinkedHashMap<>(samPaths.size() * 2);
         backingPaths = new LinkedHashMap<>(samPaths.size() * 2);
+        channelWrappers = new LinkedHashMap<>(samPaths.size() * 2);
         indicesAvailable = true;
 
         final SamReaderFactory samReaderFactory =
                 customSamReaderFactory == null ?
-                    SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY) :
+                    SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY).disable(SamReaderFactory.Option.EAGERLY_DECODE) :
                     customSamReaderFactory;
+        validationStringency = samReaderFactory.validationStringency();
 
         int samCount = 0;
         for ( final Path samPath : samPaths ) {
@@ -240,6 +279,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
             readers.put(reader, null);
             backingPaths.put(reader, samPath);
+            channelWrappers.put(reader, wrapper);
             ++samCount;
         }
 
@@ -254,6 +294,21 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return indicesAvailable;
     }
 
+    /**
+     * Inflate and decode BAM files in a pipeline ahead of subsequent traversals and queries, using the given number
+     * of threads to inflate the files. Closes any iteration that is in progress if the number of threads changes.
+     *
+     * @param numThreads number of threads to inflate BGZF blocks on (0 to disable pipelined decoding)
+     */
+    public void setReadInputThreads( final int numThreads ) {
+        Utils.validateArg(numThreads >= 0, "numThreads must be >= 0");
+        if ( numThreads != readInputThreads ) {
+            closePreviousIterationsIfNecessary();
+            shutdownInflaterPool();
+            readInputThreads = numThreads;
+        }
+    }
+
     /**
      * Restricts a traversal of this data source via {@link #iterator} to only return reads which overlap the given intervals.
      * Calls to {@link #query} are not affected by setting these intervals.
@@ -396,7 +451,17 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         // Set up an iterator for each reader, bounded to overlap with the supplied intervals if there are any
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
-            if (traversalIsBounded) {
+            if ( usePipelinedDecoding(readerEntry.getKey(), queryUnmapped) ) {
+                readerEntry.setValue(
+                        openPipelinedIterator(
+                                readerEntry.getKey(),
+                                ! traversalIsBounded ? null :
+                                        readers.size() > 1 ?
+                                                getIntervalsOverlappingReader(readerEntry.getKey(), queryIntervals) :
+                                                queryIntervals
+                        )
+                );
+            } else if (traversalIsBounded) {
                 readerEntry.setValue(
                         new SamReaderQueryingIterator(
                                 readerEntry.getKey(),
@@ -424,6 +489,54 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return new SAMRecordToReadIterator(startingIterator);
     }
 
+    /**
+     * Should reads from this reader be decoded in a pipeline? Only BAM files can be, and queries for unmapped reads
+     * are always left to htsjdk.
+     */
+    private boolean usePipelinedDecoding( final SamReader reader, final boolean queryUnmapped ) {
+        return readInputThreads > 0 && ! queryUnmapped && SamReader.Type.BAM_TYPE.equals(reader.type());
+    }
+
+    /**
+     * Open an iterator over a BAM file that inflates and decodes its records in a pipeline
+     *
+     * @param reader reader over the BAM file
+     * @param queryIntervals intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
+     * @return iterator over the records from the file, limited to overlap with the supplied intervals
+     */
+    private CloseableIterator<SAMRecord> openPipelinedIterator( final SamReader reader, final List<SimpleInterval> queryIntervals ) {
+        if ( inflaterPool == null ) {
+            inflaterPool = Executors.newFixedThreadPool(readInputThreads,
+                    new ThreadFactoryBuilder().setNameFormat("bgzf-inflater-%d").setDaemon(true).build());
+        }
+
+        final Path samPath = backingPaths.get(reader);
+        final Function<SeekableByteChannel, SeekableByteChannel> wrapper = channelWrappers.get(reader);
+        final ParallelBgzfInputStream stream;
+        try {
+            final SeekableByteChannel channel = Files.newByteChannel(samPath);
+            stream = new ParallelBgzfInputStream(wrapper != null ? wrapper.apply(channel) : channel,
+                    inflaterPool, readInputThreads * READ_AHEAD_BLOCKS_PER_THREAD, samPath.toString());
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(samPath.toString(), e);
+        }
+
+        final SAMFileHeader header = reader.getFileHeader();
+        if ( queryIntervals == null ) {
+            return new PipelinedBamRecordIterator(stream, header, validationStringency,
+                    PipelinedBamRecordIterator.DEFAULT_BATCH_SIZE, samPath.toString());
+        }
+
+        // Intervals must be optimized (sorted and merged), as for the htsjdk query API
+        final QueryInterval[] convertedIntervals = queryIntervals.stream()
+                .map(interval -> IntervalUtils.convertSimpleIntervalToQueryInterval(interval, header.getSequenceDictionary()))
+                .toArray(QueryInterval[]::new);
+        return new PipelinedBamRecordIterator(stream, header, reader.indexing().getIndex(),
+                convertedIntervals.length > 0 ? QueryInterval.optimizeIntervals(convertedIntervals) : convertedIntervals,
+                validationStringency, PipelinedBamRecordIterator.DEFAULT_BATCH_SIZE, samPath.toString());
+    }
+
     /**
      * Reduce the intervals down to only include ones that can actually intersect with this reader
      */
@@ -481,6 +594,16 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         catch ( IOException e ) {
             throw new GATKException("Error closing SAMReader");
         }
+        finally {
+            shutdownInflaterPool();
+        }
+    }
+
+    private void shutdownInflaterPool() {
+        if ( inflaterPool != null ) {
+            inflaterPool.shutdownNow();
+            inflaterPool = null;
+        }
     }
 
     /**
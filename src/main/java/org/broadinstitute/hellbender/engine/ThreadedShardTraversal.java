@@ -0,0 +1,235 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Processes the shards of a traversal (read shards, locus shards, or batches of reads) on a pool of worker threads,
+ * and runs the output of each shard on the traversal thread, in the original order of the shards.
+ *
+ * Each worker thread has its own data sources (see {@link PerThreadDataSources}) and its own copies of the tool's
+ * read filter, made by {@link GATKTool#makeReadFilter}, so that workers never wait on each other. The counts of the
+ * worker filters are added to the traversal's filter by {@link #addFilteredCounts} once all the shards are done.
+ * Output passed to {@link #emitInOrder} by a worker thread is held until its shard is done and all previous shards
+ * have been emitted.
+ *
+ * If processing a shard fails, the shards still in progress are cancelled, and {@link #close} waits for the worker
+ * threads to stop before it closes their data sources. The worker threads are daemon threads, so they cannot keep
+ * the JVM alive after a failed traversal.
+ *
+ * Package-private: for use by the walker base classes only.
+ */
+final class ThreadedShardTraversal implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(ThreadedShardTraversal.class);
+
+    // Output deferred by the current worker thread until its shard can be emitted in order (null on other threads)
+    private static final ThreadLocal<List<Runnable>> deferredShardOutput = new ThreadLocal<>();
+
+    private final int numThreads;
+    private final ExecutorService executor;
+    private final PerThreadDataSources dataSources;
+
+    private final ThreadLocal<WorkerReadFilters> readFilters;
+    private final List<WorkerReadFilters> allReadFilters = new ArrayList<>();
+
+    /**
+     * @param tool tool being traversed; its own data sources must already be initialized
+     * @param numThreads number of worker threads
+     * @param featureQueryLookahead lookahead to use for the FeatureManagers of the worker threads
+     */
+    ThreadedShardTraversal(final GATKTool tool, final int numThreads, final int featureQueryLookahead) {
+        Utils.nonNull(tool);
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+
+        this.numThreads = numThreads;
+        this.dataSources = new PerThreadDataSources(tool, featureQueryLookahead);
+        this.readFilters = ThreadLocal.withInitial(() -> {
+            synchronized ( allReadFilters ) {
+                final WorkerReadFilters filters = new WorkerReadFilters(tool.makeReadFilter(), tool.makeReadFilter());
+                allReadFilters.add(filters);
+                return filters;
+            }
+        });
+        this.executor = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("traversal-worker-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Process each shard on a worker thread, and run the output emitted by each shard on the calling thread, in the
+     * order of the shards. At most {@code numThreads} shards are in progress at once, so that the output of only a
+     * few shards is held in memory.
+     *
+     * @param shards shards to process, in traversal order
+     * @param processShard processes a single shard; called on a worker thread
+     */
+    <S> void traverse(final Iterator<S> shards, final Consumer<S> processShard) {
+        Utils.nonNull(shards);
+        Utils.nonNull(processShard);
+
+        final Queue<Future<List<Runnable>>> pendingShards = new ArrayDeque<>(numThreads);
+        try {
+            while ( shards.hasNext() || ! pendingShards.isEmpty() ) {
+                while ( shards.hasNext() && pendingShards.size() < numThreads ) {
+                    final S shard = shards.next();
+                    pendingShards.add(executor.submit(() -> runShard(shard, processShard)));
+                }
+                pendingShards.remove().get().forEach(Runnable::run);
+            }
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a shard to be processed", e);
+        }
+        catch ( final ExecutionException e ) {
+            // pass on the exception thrown by the worker as is, so that (for example) UserExceptions are reported as such
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new GATKException("Problem processing shard", cause);
+        }
+        finally {
+            pendingShards.forEach(pendingShard -> pendingShard.cancel(true));
+        }
+    }
+
+    private static <S> List<Runnable> runShard(final S shard, final Consumer<S> processShard) {
+        final List<Runnable> output = new ArrayList<>();
+        deferredShardOutput.set(output);
+        try {
+            processShard.accept(shard);
+        }
+        finally {
+            deferredShardOutput.remove();
+        }
+        return output;
+    }
+
+    /**
+     * Emit output for the shard being processed by the calling thread. On a worker thread the output is held until
+     * the shard can be emitted in order, and then run on the traversal thread. On any other thread (eg., in a
+     * single-threaded traversal) it is run immediately.
+     *
+     * @param output action that writes output or reports progress
+     */
+    static void emitInOrder(final Runnable output) {
+        Utils.nonNull(output);
+        final List<Runnable> deferred = deferredShardOutput.get();
+        if ( deferred != null ) {
+            deferred.add(output);
+        }
+        else {
+            output.run();
+        }
+    }
+
+    /**
+     * @return the reads data source for the calling worker thread, or null if the tool has no reads
+     */
+    ReadsDataSource getReads() {
+        return dataSources.getReads();
+    }
+
+    /**
+     * @return the reference data source for the calling worker thread, or null if the tool has no reference
+     */
+    ReferenceDataSource getReference() {
+        return dataSources.getReference();
+    }
+
+    /**
+     * @return the FeatureManager for the calling worker thread, or null if the tool has no sources of Features
+     */
+    FeatureManager getFeatures() {
+        return dataSources.getFeatures();
+    }
+
+    /**
+     * Get the read filter for the calling worker thread. Reads that overlap more than one shard are filtered by each
+     * shard that sees them, but should only be counted once, as they would be in a single-threaded traversal. Reads
+     * that are not to be counted by the current shard are tested by a second copy of the filter, whose counts are
+     * discarded.
+     *
+     * @param countRead selects the reads whose filtering should be counted by the current shard
+     * @return a filter to apply to the reads of the current shard
+     */
+    ReadFilter getReadFilter(final Predicate<GATKRead> countRead) {
+        Utils.nonNull(countRead);
+        final WorkerReadFilters filters = readFilters.get();
+        return new ReadFilter() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean test( final GATKRead read ) {
+                return countRead.test(read) ? filters.counted.test(read) : filters.uncounted.test(read);
+            }
+        };
+    }
+
+    /**
+     * Add the counts of the read filters of all the worker threads to the given filter. Must only be called once
+     * {@link #traverse} has returned.
+     *
+     * @param countedFilter filter made by {@link GATKTool#makeReadFilter} that reports the counts of the traversal
+     */
+    void addFilteredCounts(final CountingReadFilter countedFilter) {
+        Utils.nonNull(countedFilter);
+        synchronized ( allReadFilters ) {
+            allReadFilters.forEach(filters -> countedFilter.addFilteredCounts(filters.counted));
+        }
+    }
+
+    /**
+     * Stop the worker threads, cancelling any shards still in progress, and close their data sources once they
+     * have stopped.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            while ( ! executor.awaitTermination(1, TimeUnit.MINUTES) ) {
+                logger.warn("Waiting for traversal worker threads to stop");
+            }
+        }
+        catch ( final InterruptedException e ) {
+            // leave the data sources open rather than close them under a worker that may still be using them
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for traversal worker threads to stop");
+            return;
+        }
+        dataSources.close();
+    }
+
+    private static final class WorkerReadFilters {
+        private final CountingReadFilter counted;
+        private final CountingReadFilter uncounted;
+
+        private WorkerReadFilters( final CountingReadFilter counted, final CountingReadFilter uncounted ) {
+            this.counted = counted;
+            this.uncounted = uncounted;
+        }
+    }
+}
@@ -75,6 +75,20 @@ public class CountingReadFilter extends ReadFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Add the counts of another filter to the counts of this filter, so that the counts of copies of a filter that
+     * were used on different threads can be reported together. The other filter must have the same structure as this
+     * one (eg., both made by {@link org.broadinstitute.hellbender.engine.GATKTool#makeReadFilter}).
+     *
+     * @param other filter whose counts should be added to this one
+     */
+    public void addFilteredCounts(final CountingReadFilter other) {
+        Utils.nonNull(other);
+        Utils.validateArg(getClass() == other.getClass() && getName().equals(other.getName()),
+                () -> "Can't add the counts of filter " + other.getName() + " to filter " + getName());
+        filteredCount += other.filteredCount;
+    }
+
     public String getName() {return delegateFilter.getClass().getSimpleName();}
 
     // Returns a summary line with filter counts organized by level
@@ -152,6 +166,12 @@ public class CountingReadFilter extends ReadFilter {
         public String getName() {
             return "Not " + delegateCountingFilter.getName();
         }
+
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            delegateCountingFilter.addFilteredCounts(((CountingNegateReadFilter) other).delegateCountingFilter);
+        }
     }
 
     /**
@@ -194,6 +214,13 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            this.lhs.addFilteredCounts(((CountingBinopReadFilter) other).lhs);
+            this.rhs.addFilteredCounts(((CountingBinopReadFilter) other).rhs);
+        }
+
         @Override
         public abstract String getName();
     }
@@ -12,8 +12,11 @@ import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.spark.serializer.KryoRegistrator;
 import org.bdgenomics.adam.serialization.ADAMKryoRegistrator;
+import org.broadinstitute.hellbender.utils.read.ReadBatch;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.read.markduplicates.DuplicateKey;
 import org.broadinstitute.hellbender.utils.read.markduplicates.PairedEnds;
+import org.broadinstitute.hellbender.utils.read.markduplicates.ReadDescriptor;
 
 import java.util.Collections;
 
@@ -53,8 +56,13 @@ public class GATKRegistrator implements KryoRegistrator {
 
         kryo.register(SAMRecord.class, new SAMRecordSerializer());
 
+        // uses its own (columnar) serializer
+        kryo.register(ReadBatch.class);
+
         //register to avoid writing the full name of this class over and over
         kryo.register(PairedEnds.class, new FieldSerializer<>(kryo, PairedEnds.class));
+        kryo.register(ReadDescriptor.class, new FieldSerializer<>(kryo, ReadDescriptor.class));
+        kryo.register(DuplicateKey.class, new FieldSerializer<>(kryo, DuplicateKey.class));
 
         // register the ADAM data types using Avro serialization, including:
         //     AlignmentRecord
@@ -9,6 +9,7 @@ import htsjdk.samtools.util.OverlapDetector;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
+import org.apache.spark.TaskContext;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -33,6 +34,7 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCaller;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerArgumentCollection;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerEngine;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerEnginePool;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ReferenceConfidenceMode;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -64,6 +66,10 @@ import java.util.stream.StreamSupport;
 public final class HaplotypeCallerSpark extends GATKSparkTool {
     private static final long serialVersionUID = 1L;
 
+    // The pools of per-thread engines in use by the tasks running in this executor JVM, keyed by the id of the
+    // broadcast HaplotypeCaller arguments. Guarded by synchronizing on the map.
+    private static final Map<Long, SharedEnginePool> ENGINE_POOLS = new HashMap<>();
+
     @Argument(fullName= StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc = "Single file to which variants should be written")
     public String output;
 
@@ -190,13 +196,60 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
             final Broadcast<ReferenceMultiSource> referenceBroadcast,
             final Broadcast<HaplotypeCallerArgumentCollection> hcArgsBroadcast) {
         return regionAndIntervals -> {
-            //HaplotypeCallerEngine isn't serializable but is expensive to instantiate, so construct and reuse one for every partition
-            final ReferenceMultiSourceAdapter referenceReader = new ReferenceMultiSourceAdapter(referenceBroadcast.getValue(), authHolder);
-            final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgsBroadcast.value(),false, false,  header, referenceReader);
+            final HaplotypeCallerEngine hcEngine = getEngineForCurrentTask(authHolder, header, referenceBroadcast, hcArgsBroadcast);
             return iteratorToStream(regionAndIntervals).flatMap(regionToVariants(hcEngine)).iterator();
         };
     }
 
+    /**
+     * HaplotypeCallerEngine isn't serializable but is expensive to instantiate, so rather than constructing one for
+     * every partition the tasks running at the same time in an executor JVM share a single engine pool (keyed by the
+     * id of the broadcast arguments). Each task thread gets its own engine from the pool, while the immutable parts of
+     * the engine are shared by all threads in the executor. The pool is shut down and dropped as soon as no running
+     * task is using it, so that nothing is left behind in the executor once the job is done.
+     */
+    private static HaplotypeCallerEngine getEngineForCurrentTask(
+            final AuthHolder authHolder,
+            final SAMFileHeader header,
+            final Broadcast<ReferenceMultiSource> referenceBroadcast,
+            final Broadcast<HaplotypeCallerArgumentCollection> hcArgsBroadcast) {
+        final long poolId = hcArgsBroadcast.id();
+        final SharedEnginePool sharedPool;
+        synchronized ( ENGINE_POOLS ) {
+            sharedPool = ENGINE_POOLS.computeIfAbsent(poolId, id -> new SharedEnginePool(
+                    new HaplotypeCallerEnginePool(hcArgsBroadcast.value(), false, false, header,
+                            () -> new ReferenceMultiSourceAdapter(referenceBroadcast.getValue(), authHolder))));
+            sharedPool.numTasks++;
+        }
+        // the completion listener runs whether the task succeeds or fails
+        TaskContext.get().addTaskCompletionListener(context -> releaseEnginePool(poolId));
+        return sharedPool.pool.get();
+    }
+
+    private static void releaseEnginePool( final long poolId ) {
+        final SharedEnginePool sharedPool;
+        synchronized ( ENGINE_POOLS ) {
+            sharedPool = ENGINE_POOLS.get(poolId);
+            if ( --sharedPool.numTasks > 0 ) {
+                return;
+            }
+            ENGINE_POOLS.remove(poolId);
+        }
+        sharedPool.pool.shutdown();
+    }
+
+    /**
+     * An engine pool, and the number of running tasks that are using it.
+     */
+    private static final class SharedEnginePool {
+        private final HaplotypeCallerEnginePool pool;
+        private int numTasks = 0;
+
+        private SharedEnginePool( final HaplotypeCallerEnginePool pool ) {
+            this.pool = pool;
+        }
+    }
+
     private static <T> Stream<T> iteratorToStream(Iterator<T> iterator) {
         Iterable<T> regionsIterable = () -> iterator;
         return StreamSupport.stream(regionsIterable.spliterator(), false);
@@ -271,7 +324,7 @@ public final class HaplotypeCallerSpark extends GATKSparkTool {
         return shards -> {
             final ReferenceMultiSource referenceMultiSource = reference.value();
             final ReferenceMultiSourceAdapter referenceSource = new ReferenceMultiSourceAdapter(referenceMultiSource, authHolder);
-            final HaplotypeCallerEngine hcEngine = new HaplotypeCallerEngine(hcArgsBroadcast.value(), false, false, header, referenceSource);
+            final HaplotypeCallerEngine hcEngine = getEngineForCurrentTask(authHolder, header, reference, hcArgsBroadcast);
 
             return iteratorToStream(shards).flatMap(shardToRegion(assemblyArgs, header, referenceSource, hcEngine)).iterator();
         };
@@ -58,6 +58,11 @@ public final class LeftAlignIndels extends ReadWalker {
         return true;
     }
 
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
@@ -67,7 +72,7 @@ public final class LeftAlignIndels extends ReadWalker {
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
         // we can not deal with screwy records
         if ( read.isUnmapped() || read.numCigarElements() == 0 ) {
-            outputWriter.addRead(read);
+            emitInReadOrder(() -> outputWriter.addRead(read));
             return;
         }
 
@@ -80,7 +85,7 @@ public final class LeftAlignIndels extends ReadWalker {
             read.setCigar(newCigar);
         }
 
-        outputWriter.addRead(read);
+        emitInReadOrder(() -> outputWriter.addRead(read));
     }
 
     @Override
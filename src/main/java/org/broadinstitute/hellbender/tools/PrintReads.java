@@ -31,6 +31,11 @@ public final class PrintReads extends ReadWalker {
 
     private SAMFileGATKReadWriter outputWriter;
 
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
@@ -38,7 +43,7 @@ public final class PrintReads extends ReadWalker {
 
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        outputWriter.addRead(read);
+        emitInReadOrder(() -> outputWriter.addRead(read));
     }
 
     @Override
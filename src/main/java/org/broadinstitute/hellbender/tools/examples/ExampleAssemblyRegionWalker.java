@@ -76,28 +76,40 @@ public final class ExampleAssemblyRegionWalker extends AssemblyRegionWalker {
         }
     }
 
+    /**
+     * This walker keeps no per-region state and writes its output via {@link #emitInShardOrder},
+     * so it can be run with multiple traversal threads.
+     */
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public void apply( AssemblyRegion region, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        outputStream.printf("%s assembly region at %s (%s with padding), containing %d reads.\n\n",
-                region.isActive() ? "ACTIVE" : "INACTIVE", region.getSpan(), region.getExtendedSpan(), region.getReads().size());
+        final StringBuilder regionOutput = new StringBuilder();
+        regionOutput.append(String.format("%s assembly region at %s (%s with padding), containing %d reads.\n\n",
+                region.isActive() ? "ACTIVE" : "INACTIVE", region.getSpan(), region.getExtendedSpan(), region.getReads().size()));
 
-        printReferenceBases(referenceContext);
+        printReferenceBases(regionOutput, referenceContext);
 
         if ( featureContext.hasBackingDataSource() ) {
-            printOverlappingVariants(featureContext);
+            printOverlappingVariants(regionOutput, featureContext);
         }
+
+        emitInShardOrder(() -> outputStream.print(regionOutput));
     }
 
-    private void printReferenceBases( final ReferenceContext refContext ) {
-        outputStream.printf("\tOverlapping reference bases: %s\n\n", new String(refContext.getBases()));
+    private void printReferenceBases( final StringBuilder regionOutput, final ReferenceContext refContext ) {
+        regionOutput.append(String.format("\tOverlapping reference bases: %s\n\n", new String(refContext.getBases())));
     }
 
-    private void printOverlappingVariants( final FeatureContext featureContext ) {
+    private void printOverlappingVariants( final StringBuilder regionOutput, final FeatureContext featureContext ) {
         for ( final VariantContext variant : featureContext.getValues(knownVariants) ) {
-            outputStream.printf("\tOverlapping variant at %s:%d-%d. Ref: %s Alt(s): %s\n\n",
-                    variant.getContig(), variant.getStart(), variant.getEnd(), variant.getReference(), variant.getAlternateAlleles());
+            regionOutput.append(String.format("\tOverlapping variant at %s:%d-%d. Ref: %s Alt(s): %s\n\n",
+                    variant.getContig(), variant.getStart(), variant.getEnd(), variant.getReference(), variant.getAlternateAlleles()));
         }
-        outputStream.println();
+        regionOutput.append(System.lineSeparator());
     }
 
     @Override
@@ -32,6 +32,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.FlatRecalibrationTables;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
@@ -115,14 +116,16 @@ public class BaseRecalibratorSparkSharded extends SparkCommandLineProgram {
 
         // run BaseRecalibratorEngine.
         BaseRecalibratorEngineSparkWrapper recal = new BaseRecalibratorEngineSparkWrapper(readsHeaderBcast, refDictionaryBcast, bqsrArgs);
-        JavaRDD<RecalibrationTables> tables = readsWithContext.mapPartitions(s->recal.apply(s));
+        JavaRDD<FlatRecalibrationTables> counts = readsWithContext.mapPartitions(s->recal.apply(s));
 
-        final RecalibrationTables emptyRecalibrationTable = new RecalibrationTables(new StandardCovariateList(bqsrArgs, readsHeader));
-        final RecalibrationTables table = tables.treeAggregate(emptyRecalibrationTable,
-                RecalibrationTables::inPlaceCombine,
-                RecalibrationTables::inPlaceCombine,
-                Math.max(1, (int)(Math.log(tables.partitions().size()) / Math.log(2))));
+        final StandardCovariateList covariates = new StandardCovariateList(bqsrArgs, readsHeader);
+        final FlatRecalibrationTables emptyCounts = new FlatRecalibrationTables(covariates);
+        final FlatRecalibrationTables combinedCounts = counts.treeAggregate(emptyCounts,
+                FlatRecalibrationTables::inPlaceCombine,
+                FlatRecalibrationTables::inPlaceCombine,
+                Math.max(1, (int)(Math.log(counts.partitions().size()) / Math.log(2))));
 
+        final RecalibrationTables table = combinedCounts.toRecalibrationTables(covariates);
         BaseRecalibrationEngine.finalizeRecalibrationTables(table);
 
         try {
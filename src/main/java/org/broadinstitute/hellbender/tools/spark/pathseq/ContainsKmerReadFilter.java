@@ -34,16 +34,16 @@ public class ContainsKmerReadFilter extends ReadFilter {
 
     @Override
     public boolean test(final GATKRead read) {
-        final SVKmerizer kmers = new SVKmerizer(read.getBases(), kSize, 1, new SVKmerShort(kSize));
-        int numKmersFound = 0;
-        while (kmers.hasNext()) {
-            if (kmerLib.contains(((SVKmerShort)kmers.next()))) {
-                if (++numKmersFound >= kmerCountThreshold) {
-                    return false;
-                }
-            }
+        final byte[] bases = read.getBases();
+        final long[] kmers = new long[Math.max(bases.length - kSize + 1, 0)];
+        int numKmers = 0;
+        final SVKmerizer kmerizer = new SVKmerizer(bases, kSize, 1, new SVKmerShort(kSize));
+        while (kmerizer.hasNext()) {
+            kmers[numKmers++] = ((SVKmerShort) kmerizer.next()).getLong();
         }
-        return true;
+        //A read is filtered if it has at least one kmer in the library, even for thresholds below 1
+        final int minKmersFound = Math.max(kmerCountThreshold, 1);
+        return kmerLib.countContained(kmers, numKmers, minKmersFound) < minKmersFound;
     }
 
     //Static variables can't be garbage collected until the object is unloaded
@@ -18,6 +18,10 @@ public final class PSFilterArgumentCollection implements Serializable {
             fullName = "isHostAligned",
             optional = true)
     public boolean alignedInput = false;
+    /**
+     * Memory-mapped kmer libraries (built with --mappedBloomFilter) are read from the local filesystem of each
+     * executor, so they must be present at this path on every machine.
+     */
     @Argument(doc = "Path to host kmer library generated with PathSeqBuildKmers. Skipped if not specified.",
             fullName = "kmerLibraryPath",
             optional = true)
@@ -12,6 +12,20 @@ public abstract class PSKmerCollection {
     abstract SVKmerShort getMask();
     abstract double getFalsePositiveProbability();
 
+    /**
+     * Counts how many of the first numKmers raw (not canonicalized/masked) kmers are in the collection, stopping once
+     * maxCount of them have been found. Subclasses may override this to look up the kmers together.
+     */
+    int countContained(final long[] rawKmers, final int numKmers, final int maxCount) {
+        int count = 0;
+        for (int i = 0; i < numKmers && count < maxCount; i++) {
+            if (contains(new SVKmerShort(rawKmers[i]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Definition for the order of canonicalization and masking
      */
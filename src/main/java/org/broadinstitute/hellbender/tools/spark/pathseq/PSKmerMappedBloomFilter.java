@@ -0,0 +1,121 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongBlockedBloomFilter;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Kmer blocked Bloom filter class that encapsulates the filter, kmer size, and kmer mask, and that is memory-mapped
+ * from a local file rather than deserialized. Executors on the same machine share one copy of the filter in the page
+ * cache, and loading it is nearly instantaneous.
+ * <p>
+ * The file holds a one-page header with the kmer size, kmer mask, and false positive probability, followed by a
+ * {@link MappedLongBlockedBloomFilter}.
+ */
+public final class PSKmerMappedBloomFilter extends PSKmerCollection {
+
+    private static final long MAGIC = 0x3146424d4b4d5350L; //"PSMKMBF1"
+    private static final int HEADER_SIZE = MappedLongBlockedBloomFilter.PAGE_SIZE;
+
+    private final MappedLongBlockedBloomFilter kmerSet;
+    private final int kmerSize;
+    private final SVKmerShort kmerMask;
+    private final double falsePositiveProbability;
+
+    /**
+     * Maps the filter in the given local file
+     */
+    public PSKmerMappedBloomFilter(final Path path) {
+        Utils.nonNull(path);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new UserException.BadInput("Memory-mapped kmer library " + path + " is truncated");
+                }
+            }
+            header.flip();
+            if (header.getLong() != MAGIC) {
+                throw new UserException.BadInput(path + " is not a memory-mapped kmer library");
+            }
+            this.kmerSize = header.getInt();
+            this.kmerMask = new SVKmerShort(header.getLong());
+            this.falsePositiveProbability = header.getDouble();
+            this.kmerSet = new MappedLongBlockedBloomFilter(channel, HEADER_SIZE);
+        } catch (final GATKException e) {
+            throw new UserException.BadInput("Could not map kmer library " + path + ": " + e.getMessage());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the filter in the format read by the constructor.
+     * Note values in the Bloom filter should have been run through PSKmerCollection's canonicalizeAndMask()
+     */
+    public static void write(final OutputStream outputStream, final LongBlockedBloomFilter maskedKmerBloomFilter,
+                             final int kmerSize, final SVKmerShort kmerMask, final long numElements) throws IOException {
+        Utils.nonNull(outputStream);
+        Utils.nonNull(maskedKmerBloomFilter);
+        Utils.nonNull(kmerMask);
+        final WritableByteChannel channel = Channels.newChannel(outputStream);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC);
+        header.putInt(kmerSize);
+        header.putLong(kmerMask.getLong());
+        header.putDouble(maskedKmerBloomFilter.getTheoreticalFPP(numElements));
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        MappedLongBlockedBloomFilter.write(maskedKmerBloomFilter, channel);
+    }
+
+    /**
+     * Input should not be canonicalized/masked
+     */
+    @Override
+    public boolean contains(final SVKmerShort rawKmer) {
+        return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
+    }
+
+    /**
+     * Input should not be canonicalized/masked. The kmers are looked up together in the Bloom filter.
+     */
+    @Override
+    int countContained(final long[] rawKmers, final int numKmers, final int maxCount) {
+        final long[] maskedKmers = new long[numKmers];
+        for (int i = 0; i < numKmers; i++) {
+            maskedKmers[i] = canonicalizeAndMask(new SVKmerShort(rawKmers[i]), kmerSize, kmerMask);
+        }
+        return kmerSet.countContained(maskedKmers, numKmers, maxCount);
+    }
+
+    @Override
+    public int kmerSize() {
+        return kmerSize;
+    }
+
+    @Override
+    public SVKmerShort getMask() {
+        return kmerMask;
+    }
+
+    @Override
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+}
@@ -11,11 +11,14 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
@@ -27,6 +30,8 @@ public class PSKmerUtils {
 
     public static final String HOPSCOTCH_SET_EXTENSION = ".hss";
     public static final String BLOOM_FILTER_EXTENSION = ".bfi";
+    public static final String BLOCKED_BLOOM_FILTER_EXTENSION = ".bbf";
+    public static final String MAPPED_BLOOM_FILTER_EXTENSION = ".mbf";
     private static final Logger logger = LogManager.getLogger(PSKmerUtils.class);
 
     /**
@@ -101,6 +106,19 @@ public class PSKmerUtils {
         return bloomFilter;
     }
 
+    /**
+     * Converts a Collection of Lists of Longs's into a blocked Bloom filter
+     */
+    protected static LongBlockedBloomFilter longArrayCollectionToBlockedBloomFilter(final Collection<long[]> longs, final long numLongs, final double bloomFpp) {
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(numLongs, bloomFpp);
+        final ProgressCounter counter = new ProgressCounter(numLongs, 1e6, "million kmers", logger);
+        for (final long[] array : longs) {
+            bloomFilter.addAll(array);
+            counter.update(array.length);
+        }
+        return bloomFilter;
+    }
+
     /**
      * Writes an object to a URI using Kryo serialization.
      */
@@ -127,13 +145,45 @@ public class PSKmerUtils {
         writeKryoObject(bloomFilter, filePath);
     }
 
+    public static void writeKmerBlockedBloomFilter(final String uri, final PSKmerBlockedBloomFilter bloomFilter) {
+        String filePath = uri;
+        if (!uri.toLowerCase().endsWith(BLOCKED_BLOOM_FILTER_EXTENSION.toLowerCase())) {
+            filePath = filePath + BLOCKED_BLOOM_FILTER_EXTENSION;
+        }
+        writeKryoObject(bloomFilter, filePath);
+    }
+
+    /**
+     * Writes a blocked Bloom filter in the page-aligned format that is memory-mapped by {@link PSKmerMappedBloomFilter}.
+     */
+    public static void writeKmerMappedBloomFilter(final String uri, final LongBlockedBloomFilter maskedKmerBloomFilter,
+                                                  final int kmerSize, final SVKmerShort kmerMask, final long numElements) {
+        String filePath = uri;
+        if (!uri.toLowerCase().endsWith(MAPPED_BLOOM_FILTER_EXTENSION.toLowerCase())) {
+            filePath = filePath + MAPPED_BLOOM_FILTER_EXTENSION;
+        }
+        try (final OutputStream outputStream = BucketUtils.createFile(filePath)) {
+            PSKmerMappedBloomFilter.write(outputStream, maskedKmerBloomFilter, kmerSize, kmerMask, numElements);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(filePath, "Error writing memory-mapped kmer library", e);
+        }
+    }
+
     public static PSKmerCollection readKmerFilter(final String uri) {
+        if (uri.endsWith(MAPPED_BLOOM_FILTER_EXTENSION)) {
+            if (BucketUtils.isRemoteStorageUrl(uri)) {
+                throw new UserException.BadInput("Memory-mapped kmer libraries must be on a local filesystem: " + uri);
+            }
+            return new PSKmerMappedBloomFilter(IOUtils.getPath(uri));
+        }
         final Input input = new Input(BucketUtils.openFile(uri));
         final Kryo kryo = new Kryo();
         if (uri.endsWith(HOPSCOTCH_SET_EXTENSION)) {
             return kryo.readObject(input, PSKmerSet.class);
         } else if (uri.endsWith(BLOOM_FILTER_EXTENSION)) {
             return kryo.readObject(input, PSKmerBloomFilter.class);
+        } else if (uri.endsWith(BLOCKED_BLOOM_FILTER_EXTENSION)) {
+            return kryo.readObject(input, PSKmerBlockedBloomFilter.class);
         }
         throw new UserException.BadInput("Unknown kmer set extension in file name " + uri);
     }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.spark.pathseq;
 
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -9,6 +10,7 @@ import org.broadinstitute.hellbender.cmdline.programgroups.PathSeqProgramGroup;
 import org.broadinstitute.hellbender.engine.datasources.ReferenceFileSource;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
 
 import java.util.Collection;
@@ -28,7 +30,9 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
 
     @Argument(doc = "File for kmer library output. Extension will be automatically added if not present ("
             + PSKmerUtils.HOPSCOTCH_SET_EXTENSION + " for hash set or "
-            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter)",
+            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter, "
+            + PSKmerUtils.BLOCKED_BLOOM_FILTER_EXTENSION + " for blocked Bloom filter, "
+            + PSKmerUtils.MAPPED_BLOOM_FILTER_EXTENSION + " for memory-mapped Bloom filter)",
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME)
     public String outputFile;
@@ -45,6 +49,23 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             optional = true)
     public double bloomFpp = 0;
 
+    @Argument(doc = "Build a blocked Bloom filter, which is faster to query than a standard Bloom filter but slightly " +
+            "larger for the same false positive probability. Requires --bloomFalsePositiveProbability.",
+            fullName = "blockedBloomFilter",
+            optional = true)
+    public boolean blockedBloomFilter = false;
+
+    /**
+     * Writes the blocked Bloom filter in a page-aligned format that PathSeqFilterSpark memory-maps instead of
+     * deserializing, so that executors on the same machine share one copy of it and start up immediately. The file
+     * must be copied to the same local path on every machine, and that path given as the kmer library.
+     */
+    @Argument(doc = "Build a blocked Bloom filter that is memory-mapped rather than loaded by PathSeqFilterSpark. " +
+            "Requires --bloomFalsePositiveProbability.",
+            fullName = "mappedBloomFilter",
+            optional = true)
+    public boolean mappedBloomFilter = false;
+
     @Argument(doc = "Kmer size, must be odd and less than 32",
             fullName = "kSize",
             minValue = 1,
@@ -69,6 +90,11 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
     @Override
     protected Object doWork() {
 
+        if ((blockedBloomFilter || mappedBloomFilter) && bloomFpp <= 0) {
+            throw new CommandLineException.BadArgumentValue("bloomFalsePositiveProbability", Double.toString(bloomFpp),
+                    "A false positive probability greater than zero is required to build a blocked Bloom filter");
+        }
+
         final ReferenceFileSource reference = new ReferenceFileSource(referencePath);
 
         final byte[] maskBytes = PSUtils.parseMask(kmerMaskString, kmerSize);
@@ -77,7 +103,18 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
         logger.info("Loading reference kmers...");
         final Collection<long[]> maskedKmerCollection = PSKmerUtils.getMaskedKmersFromLocalReference(reference, kmerSize, kmerSpacing, kmerMask);
         final long numLongs = PSKmerUtils.longArrayCollectionSize(maskedKmerCollection);
-        if (bloomFpp > 0) {
+        if (mappedBloomFilter) {
+            logger.info("Building memory-mapped Bloom filter with false positive probability " + bloomFpp + "...");
+            final LongBlockedBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBlockedBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
+            logger.info("Theoretical Bloom filter false positive probability: " + bloomFilter.getTheoreticalFPP(numLongs));
+            PSKmerUtils.writeKmerMappedBloomFilter(outputFile, bloomFilter, kmerSize, kmerMask, numLongs);
+        } else if (blockedBloomFilter) {
+            logger.info("Building blocked Bloom filter with false positive probability " + bloomFpp + "...");
+            final LongBlockedBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBlockedBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
+            final PSKmerBlockedBloomFilter kmerBloomFilter = new PSKmerBlockedBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
+            logger.info("Theoretical blocked Bloom filter false positive probability: " + kmerBloomFilter.getFalsePositiveProbability());
+            PSKmerUtils.writeKmerBlockedBloomFilter(outputFile, kmerBloomFilter);
+        } else if (bloomFpp > 0) {
             logger.info("Building Bloom filter with false positive probability " + bloomFpp + "...");
             final LongBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
             final PSKmerBloomFilter kmerBloomFilter = new PSKmerBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
@@ -8,6 +8,7 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -27,6 +28,7 @@ import org.broadinstitute.hellbender.tools.spark.transforms.markduplicates.MarkD
 import org.broadinstitute.hellbender.tools.walkers.bqsr.BaseRecalibrator;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadBatch;
 import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
 import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
@@ -56,6 +58,8 @@ import java.util.List;
 public class ReadsPipelineSpark extends GATKSparkTool {
     private static final long serialVersionUID = 1L;
 
+    private static final int READ_BATCH_SIZE = 10000;
+
     @Override
     public boolean requiresReads() { return true; }
 
@@ -109,7 +113,11 @@ public class ReadsPipelineSpark extends GATKSparkTool {
         final JavaRDD<GATKRead> initialReads = getReads();
 
         final JavaRDD<GATKRead> markedReadsWithOD = MarkDuplicatesSpark.mark(initialReads, getHeaderForReads(), duplicatesScoringStrategy, new OpticalDuplicateFinder(), getRecommendedNumReducers());
-        final JavaRDD<GATKRead> markedReads = MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD);
+        // the marked reads are used by both BQSR and ApplyBQSR, so cache them (as batches, which are much more
+        // compact than individual reads) rather than marking duplicates twice
+        final JavaRDD<ReadBatch> markedReadBatches = SparkUtils.batchReads(MarkDuplicatesSpark.cleanupTemporaryAttributes(markedReadsWithOD), READ_BATCH_SIZE)
+                .persist(StorageLevel.MEMORY_AND_DISK_SER());
+        final JavaRDD<GATKRead> markedReads = SparkUtils.unbatchReads(markedReadBatches);
 
         // The markedReads have already had the WellformedReadFilter applied to them, which
         // is all the filtering that MarkDupes and ApplyBQSR want. BQSR itself wants additional
@@ -136,5 +144,6 @@ public class ReadsPipelineSpark extends GATKSparkTool {
         final JavaRDD<GATKRead> finalReads = ApplyBQSRSparkFn.apply(markedReads, reportBroadcast, getHeaderForReads(), applyBqsrArgs.toApplyBQSRArgumentCollection(bqsrArgs.PRESERVE_QSCORES_LESS_THAN));
 
         writeReads(ctx, output, finalReads);
+        markedReadBatches.unpersist();
     }
 }
@@ -9,6 +9,7 @@ import org.apache.spark.HashPartitioner;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.storage.StorageLevel;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
@@ -29,7 +30,9 @@ import org.broadinstitute.hellbender.utils.fermi.FermiLiteAssembler;
 import org.broadinstitute.hellbender.utils.fermi.FermiLiteAssembly;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadBatch;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import scala.Tuple2;
 
 import java.io.*;
@@ -56,7 +59,8 @@ import static org.broadinstitute.hellbender.tools.spark.sv.evidence.BreakpointEv
 @BetaFeature
 public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
     private static final long serialVersionUID = 1L;
-
+    private static final int READ_CACHE_BATCH_SIZE = 10000;
+    private static final String SA_TAG_NAME = "SA";
 
     @ArgumentCollection
     private final FindBreakpointEvidenceSparkArgumentCollection params =
@@ -100,11 +104,18 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
 
         final SVReadFilter filter = new SVReadFilter(params);
 
+        // each of the passes below scans the reads, so decode them just once
+        final JavaRDD<ReadBatch> cachedReadBatches = cacheReads(unfilteredReads, filter);
+        final JavaRDD<GATKRead> cachedReads = SparkUtils.unbatchReads(cachedReadBatches);
+
         // develop evidence, intervals, and, finally, a set of template names for each interval
         final Tuple2<List<SVInterval>, HopscotchUniqueMultiMap<String, Integer, QNameAndInterval>> intervalsAndQNameMap =
-                getMappedQNamesSet(params, ctx, header, unfilteredReads, filter, toolLogger);
+                getMappedQNamesSet(params, ctx, header, cachedReads, filter, toolLogger);
         final List<SVInterval> intervals = intervalsAndQNameMap._1;
-        if ( intervals.isEmpty() ) return new ArrayList<>();
+        if ( intervals.isEmpty() ) {
+            cachedReadBatches.unpersist();
+            return new ArrayList<>();
+        }
 
         final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNamesMultiMap = intervalsAndQNameMap._2;
 
@@ -114,7 +125,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             alignedAssemblyOrExcuseList = new ArrayList<>();
         } else {
             alignedAssemblyOrExcuseList = addAssemblyQNames(params, ctx, qNamesMultiMap, intervals.size(),
-                    unfilteredReads, filter, toolLogger);
+                    cachedReads, filter, toolLogger);
         }
 
         // write a FASTQ file for each interval
@@ -122,8 +133,9 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                 new FermiLiteAssemblyHandler(params.alignerIndexImageFile, params.maxFASTQSize,
                                                 params.fastqDir, params.gfaDir);
         alignedAssemblyOrExcuseList.addAll(
-                handleAssemblies(ctx, qNamesMultiMap, unfilteredReads, filter, intervals.size(),
+                handleAssemblies(ctx, qNamesMultiMap, cachedReads, filter, intervals.size(),
                         params.includeMappingLocation, fermiLiteAssemblyHandler));
+        cachedReadBatches.unpersist();
 
         alignedAssemblyOrExcuseList.sort(Comparator.comparingInt(AlignedAssemblyOrExcuse::getAssemblyId));
 
@@ -143,6 +155,28 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         return alignedAssemblyOrExcuseList;
     }
 
+    /**
+     * Caches the reads that the evidence-gathering passes look at: the mapped reads, and the primary lines of all
+     * templates. Only the RG and SA tags are kept. The reads are held in serialized {@link ReadBatch}es, spilling to
+     * local disk if necessary, with the same partitioning as the unfiltered reads so that the partition bounds in
+     * the {@link ReadMetadata} still apply.
+     */
+    @VisibleForTesting static JavaRDD<ReadBatch> cacheReads( final JavaRDD<GATKRead> unfilteredReads,
+                                                             final SVReadFilter filter ) {
+        final JavaRDD<GATKRead> strippedReads = unfilteredReads
+                .filter(read -> filter.isPrimaryLine(read) || filter.isMapped(read))
+                .map(read -> {
+                    final GATKRead strippedRead = read.copy();
+                    strippedRead.clearAttributes();
+                    strippedRead.setReadGroup(read.getReadGroup());
+                    if ( read.hasAttribute(SA_TAG_NAME) ) {
+                        strippedRead.setAttribute(SA_TAG_NAME, read.getAttributeAsString(SA_TAG_NAME));
+                    }
+                    return strippedRead;
+                });
+        return SparkUtils.batchReads(strippedReads, READ_CACHE_BATCH_SIZE).persist(StorageLevel.MEMORY_AND_DISK_SER());
+    }
+
     /**
      * Find the breakpoint evidence,
      * cluster the evidence into intervals,
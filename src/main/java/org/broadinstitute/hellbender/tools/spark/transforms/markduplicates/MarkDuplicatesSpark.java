@@ -8,6 +8,7 @@ import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.OpticalDuplicatesArgumentCollection;
@@ -16,9 +17,9 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.markduplicates.DuplicationMetrics;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateCounter;
 import org.broadinstitute.hellbender.utils.read.markduplicates.OpticalDuplicateFinder;
 
 import java.util.Collections;
@@ -49,6 +50,11 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
     @ArgumentCollection
     protected OpticalDuplicatesArgumentCollection opticalDuplicatesArgumentCollection = new OpticalDuplicatesArgumentCollection();
 
+    @Argument(doc = "The maximum number of duplicate pairs at a single locus whose locations are held in memory while " +
+            "counting optical duplicates. The locations of larger sets of duplicates are spilled to disk.",
+            fullName = "MAX_OPTICAL_DUPLICATE_LOCATIONS_IN_RAM", optional = true)
+    public int maxOpticalDuplicateLocationsInRam = OpticalDuplicateCounter.DEFAULT_MAX_LOCATIONS_IN_RAM;
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         return Collections.singletonList(ReadFilterLibrary.ALLOW_ALL_READS);
@@ -57,12 +63,16 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
     public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
                                          final MarkDuplicatesScoringStrategy scoringStrategy,
                                          final OpticalDuplicateFinder opticalDuplicateFinder, final int numReducers) {
+        return mark(reads, header, scoringStrategy, opticalDuplicateFinder, numReducers, OpticalDuplicateCounter.DEFAULT_MAX_LOCATIONS_IN_RAM);
+    }
 
-        JavaRDD<GATKRead> primaryReads = reads.filter(v1 -> !ReadUtils.isNonPrimary(v1));
-        JavaRDD<GATKRead> nonPrimaryReads = reads.filter(v1 -> ReadUtils.isNonPrimary(v1));
-        JavaRDD<GATKRead> primaryReadsTransformed = MarkDuplicatesSparkUtils.transformReads(header, scoringStrategy, opticalDuplicateFinder, primaryReads, numReducers);
+    public static JavaRDD<GATKRead> mark(final JavaRDD<GATKRead> reads, final SAMFileHeader header,
+                                         final MarkDuplicatesScoringStrategy scoringStrategy,
+                                         final OpticalDuplicateFinder opticalDuplicateFinder, final int numReducers,
+                                         final int maxOpticalDuplicateLocationsInRam) {
 
-        return primaryReadsTransformed.union(nonPrimaryReads);
+        // non-primary reads are passed through unchanged, and all reads stay in their partitions
+        return MarkDuplicatesSparkUtils.transformReads(header, scoringStrategy, opticalDuplicateFinder, reads, numReducers, maxOpticalDuplicateLocationsInRam);
     }
 
     @Override
@@ -71,7 +81,11 @@ public final class MarkDuplicatesSpark extends GATKSparkTool {
         final OpticalDuplicateFinder finder = opticalDuplicatesArgumentCollection.READ_NAME_REGEX != null ?
                 new OpticalDuplicateFinder(opticalDuplicatesArgumentCollection.READ_NAME_REGEX, opticalDuplicatesArgumentCollection.OPTICAL_DUPLICATE_PIXEL_DISTANCE, null) : null;
 
-        final JavaRDD<GATKRead> finalReadsForMetrics = mark(reads, getHeaderForReads(), duplicatesScoringStrategy, finder, getRecommendedNumReducers());
+        if (maxOpticalDuplicateLocationsInRam <= 0) {
+            throw new CommandLineException.BadArgumentValue("MAX_OPTICAL_DUPLICATE_LOCATIONS_IN_RAM", Integer.toString(maxOpticalDuplicateLocationsInRam), "must be positive");
+        }
+
+        final JavaRDD<GATKRead> finalReadsForMetrics = mark(reads, getHeaderForReads(), duplicatesScoringStrategy, finder, getRecommendedNumReducers(), maxOpticalDuplicateLocationsInRam);
 
         if (metricsFile != null) {
             final JavaPairRDD<String, DuplicationMetrics> metricsByLibrary = MarkDuplicatesSparkUtils.generateMetrics(getHeaderForReads(), finalReadsForMetrics);
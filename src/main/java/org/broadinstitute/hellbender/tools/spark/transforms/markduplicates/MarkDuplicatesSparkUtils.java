@@ -3,6 +3,9 @@ package org.broadinstitute.hellbender.tools.spark.transforms.markduplicates;
 import com.google.common.collect.*;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.metrics.MetricsFile;
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.Partitioner;
+import org.apache.spark.SparkEnv;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.broadinstitute.hellbender.engine.AuthHolder;
@@ -10,14 +13,13 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.metrics.MetricsUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.markduplicates.*;
 import scala.Tuple2;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Utility classes and functions for Mark Duplicates.
@@ -27,75 +29,110 @@ public class MarkDuplicatesSparkUtils {
     // Used to set an attribute on the GATKRead marking this read as an optical duplicate.
     public static final String OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME = "OD";
 
+    // Marks a read as a duplicate in the output of markPairedEnds.
+    static final int DUPLICATE_MARK = -1;
+
     /**
-     * (0) filter: remove unpaired reads and reads with an unmapped mate.
-     * (1) keyReadsByName: label each read with its read group and read name.
-     * (2) GroupByKey: group together reads with the same group and name.
+     * (0) describe: give each read an ordinal and reduce each mapped, primary read to a {@link ReadDescriptor},
+     *     which holds just the fields needed below, so that the bases and qualities of the reads are not shuffled.
+     * (1) keyReadsByName: label each descriptor with its read group and read name.
+     * (2) SpanByKey: sort by group and name within partitions, and group together reads with the same group and name.
      * (3) keyPairedEndsWithAlignmentInfo:
-     *   (a) Sort each group of reads (see GATKOrder below).
+     *   (a) Sort each group of reads (see {@link ReadDescriptor#PAIRING_ORDER}).
      *   (b) Pair consecutive reads into PairedEnds. In most cases there will only be two reads
      *       with the same name. TODO: explain why there might be more.
-     *   (c) Label each read with alignment information: Library, reference index,
+     *   (c) Label each read with alignment information (a {@link DuplicateKey}): Library, reference index,
      *       stranded unclipped start and reverse strand.
      *   (d) Leftover reads are emitted, unmodified, as an unpaired end.
-     * (4) GroupByKey: Group PairedEnds that share alignment information. These pairs
-     *     are duplicates of each other.
-     * (5) markDuplicatePairs:
-     *   (a) For each group created by (4), sort the pairs by score and mark all but the
-     *       highest scoring as duplicates.
+     * (4) Sort PairedEnds within partitions so that those that share alignment information, which are
+     *     duplicates of each other, are together, with the best pair (highest score) first.
+     * (5) markDuplicatePairs: stream through each group of (4) without holding it in memory:
+     *   (a) Mark all but the first pair of each group as duplicates.
      *   (b) Determine which duplicates are optical duplicates and increase the overall count.
+     * (6) applyMarks: send the marks from (5) to the partitions holding their reads, and set the duplicate
+     *     flags (and optical duplicate counts) on the reads.
+     *
+     * Reads that are unmapped, secondary or supplementary are passed through unchanged.
      */
     static JavaRDD<GATKRead> transformReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead> reads, final int numReducers) {
+        return transformReads(header, scoringStrategy, finder, reads, numReducers, OpticalDuplicateCounter.DEFAULT_MAX_LOCATIONS_IN_RAM);
+    }
 
-        JavaPairRDD<String, Iterable<GATKRead>> keyedReads;
+    /**
+     * @param maxOpticalDuplicateLocationsInRam the number of pair locations to hold in memory while counting the
+     *                                          optical duplicates in a set of duplicates; larger sets spill to disk
+     * @see #transformReads(SAMFileHeader, MarkDuplicatesScoringStrategy, OpticalDuplicateFinder, JavaRDD, int)
+     */
+    static JavaRDD<GATKRead> transformReads(final SAMFileHeader header, final MarkDuplicatesScoringStrategy scoringStrategy, final OpticalDuplicateFinder finder, final JavaRDD<GATKRead> reads, final int numReducers,
+                                            final int maxOpticalDuplicateLocationsInRam) {
+        final JavaPairRDD<GATKRead, Long> readsWithOrdinals = reads.zipWithUniqueId();
+        final Map<String, Short> libraryIndices = ReadDescriptor.getLibraryIndices(header);
+        final JavaPairRDD<String, ReadDescriptor> keyedDescriptors = readsWithOrdinals
+                .filter(readWithOrdinal -> !ReadUtils.isNonPrimary(readWithOrdinal._1()))
+                .mapToPair(readWithOrdinal -> {
+                    final GATKRead read = readWithOrdinal._1();
+                    return new Tuple2<>(ReadsKey.keyForRead(header, read),
+                            new ReadDescriptor(read, readWithOrdinal._2(), header, libraryIndices, scoringStrategy));
+                });
+
+        JavaPairRDD<String, Iterable<ReadDescriptor>> keyedReads;
         if (SAMFileHeader.SortOrder.queryname.equals(header.getSortOrder())) {
             // reads are already sorted by name, so perform grouping within the partition (no shuffle)
-            keyedReads = spanReadsByKey(header, reads);
+            keyedReads = spanByName(keyedDescriptors.mapToPair(keyed -> new Tuple2<>(keyed._2().getName(), keyed)));
         } else {
             // sort by group and name (incurs a shuffle)
-            JavaPairRDD<String, GATKRead> keyReadPairs = reads.mapToPair(read -> new Tuple2<>(ReadsKey.keyForRead(header, read), read));
-            keyedReads = keyReadPairs.groupByKey(numReducers);
+            keyedReads = spanByKey(keyedDescriptors.repartitionAndSortWithinPartitions(new HashPartitioner(numReducers)));
         }
 
-        JavaPairRDD<String, Iterable<PairedEnds>> keyedPairs = keyedReads.flatMapToPair(keyedRead -> {
-            List<Tuple2<String, PairedEnds>> out = Lists.newArrayList();
-            // Write each read out as a pair with only the first slot filled
-            for (GATKRead read : keyedRead._2()) {
-                read.setIsDuplicate(false);
-                final PairedEnds pair = PairedEnds.of(read);
-                out.add(new Tuple2<>(pair.keyForFragment(header), pair));
+        JavaRDD<PairedEnds> pairedEnds = keyedReads.flatMap(keyedRead -> {
+            List<PairedEnds> out = Lists.newArrayList();
+            // Write each read out as a fragment
+            for (ReadDescriptor read : keyedRead._2()) {
+                out.add(PairedEnds.fragment(read));
             }
             // Write each paired read with a mapped mate as a pair
-            final List<GATKRead> sorted = Lists.newArrayList(Iterables.filter(keyedRead._2(), read -> ReadUtils.readHasMappedMate(read)));
-            sorted.sort(new GATKOrder(header));
+            final List<ReadDescriptor> sorted = Lists.newArrayList(Iterables.filter(keyedRead._2(), ReadDescriptor::hasMappedMate));
+            sorted.sort(ReadDescriptor.PAIRING_ORDER);
             PairedEnds pair = null;
             //Records are sorted, we iterate over them and pair them up.
-            for (final GATKRead record : sorted) {
+            for (final ReadDescriptor record : sorted) {
                 if (pair == null) {                                //first in pair
                     pair = PairedEnds.of(record);
                 } else {                                           //second in pair
                     pair.and(record);
-                    out.add(new Tuple2<>(pair.key(header), pair));
+                    out.add(pair);
                     pair = null;                                   //back to first
                 }
             }
             if (pair != null) {                                    //left over read
-                out.add(new Tuple2<>(pair.key(header), pair));
+                out.add(pair);
             }
             return out.iterator();
-        }).groupByKey(numReducers);
+        });
 
-        return markPairedEnds(keyedPairs, scoringStrategy, finder, header);
+        // the sort is on the pairs themselves, so there is nothing in the values
+        final JavaPairRDD<PairedEnds, Void> sortedPairs = pairedEnds.mapToPair(pe -> new Tuple2<PairedEnds, Void>(pe, null))
+                .repartitionAndSortWithinPartitions(new DuplicateKeyPartitioner(numReducers), new DuplicateGroupOrder());
+        return applyMarks(readsWithOrdinals, markPairedEnds(sortedPairs.keys(), finder, maxOpticalDuplicateLocationsInRam));
     }
 
     static JavaPairRDD<String, Iterable<GATKRead>> spanReadsByKey(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
-        JavaPairRDD<String, GATKRead> nameReadPairs = reads.mapToPair(read -> new Tuple2<>(read.getName(), read));
-        return spanByKey(nameReadPairs).flatMapToPair(namedRead -> {
-            // for each name, separate reads by key (group name)
-            List<Tuple2<String, Iterable<GATKRead>>> out = Lists.newArrayList();
-            ListMultimap<String, GATKRead> multi = LinkedListMultimap.create();
-            for (GATKRead read : namedRead._2()) {
-                multi.put(ReadsKey.keyForRead(header, read), read);
+        return spanByName(reads.mapToPair(read -> new Tuple2<>(read.getName(), new Tuple2<>(ReadsKey.keyForRead(header, read), read))));
+    }
+
+    /**
+     * Groups values that are sorted by name by their key (group and name), without a shuffle.
+     * @param namedValues pairs of names and (key, value) pairs, in name order
+     * @param <V> type of values
+     * @return an RDD where the values for each key are grouped into an iterable collection
+     */
+    private static <V> JavaPairRDD<String, Iterable<V>> spanByName(final JavaPairRDD<String, Tuple2<String, V>> namedValues) {
+        return spanByKey(namedValues).flatMapToPair(named -> {
+            // for each name, separate values by key (group name)
+            List<Tuple2<String, Iterable<V>>> out = Lists.newArrayList();
+            ListMultimap<String, V> multi = LinkedListMultimap.create();
+            for (Tuple2<String, V> keyed : named._2()) {
+                multi.put(keyed._1(), keyed._2());
             }
             for (String key : multi.keySet()) {
                 // list from Multimap is not serializable by Kryo, so put in a new array list
@@ -154,111 +191,230 @@ public class MarkDuplicatesSparkUtils {
         };
     }
 
-    static JavaRDD<GATKRead> markPairedEnds(final JavaPairRDD<String, Iterable<PairedEnds>> keyedPairs,
-                                            final MarkDuplicatesScoringStrategy scoringStrategy,
-                                            final OpticalDuplicateFinder finder, final SAMFileHeader header) {
-        return keyedPairs.flatMap(keyedPair -> {
-            Iterable<PairedEnds> pairedEnds = keyedPair._2();
-            final ImmutableListMultimap<Boolean, PairedEnds> paired = Multimaps.index(pairedEnds, pair -> pair.second() != null);
+    /**
+     * Finds the duplicates in each group of paired ends and fragments.
+     * @param sortedPairs paired ends and fragments, with each group of duplicates together in one partition, in
+     *                    {@link DuplicateGroupOrder}
+     * @return the marks for the reads: pairs of read ordinals and {@link #DUPLICATE_MARK} for duplicates, or the
+     * number of optical duplicates for the best read of a group of paired ends. Reads without a mark are not duplicates.
+     */
+    static JavaPairRDD<Long, Integer> markPairedEnds(final JavaRDD<PairedEnds> sortedPairs, final OpticalDuplicateFinder finder,
+                                                     final int maxOpticalDuplicateLocationsInRam) {
+        return sortedPairs.mapPartitionsToPair(iter -> new DuplicateMarkingIterator(iter, finder, maxOpticalDuplicateLocationsInRam));
+    }
 
-            // Each key corresponds to either fragments or paired ends, not a mixture of both.
+    /**
+     * Marks the duplicates in a stream of paired ends and fragments in {@link DuplicateGroupOrder}. The first (best)
+     * element of each group is all that needs to be remembered about the group, along with the locations of the pairs
+     * for counting optical duplicates.
+     */
+    private static final class DuplicateMarkingIterator extends AbstractIterator<Tuple2<Long, Integer>> {
+        private final Iterator<PairedEnds> sortedPairs;
+        private final OpticalDuplicateFinder finder;
+        private final int maxOpticalDuplicateLocationsInRam;
+        private final Deque<Tuple2<Long, Integer>> marks = new ArrayDeque<>();
+
+        private DuplicateKey groupKey;
+        private PairedEnds bestPair;
+        private OpticalDuplicateCounter opticalDuplicateCounter;
+        private File spillDir;
+
+        DuplicateMarkingIterator(final Iterator<PairedEnds> sortedPairs, final OpticalDuplicateFinder finder, final int maxOpticalDuplicateLocationsInRam) {
+            this.sortedPairs = sortedPairs;
+            this.finder = finder;
+            this.maxOpticalDuplicateLocationsInRam = maxOpticalDuplicateLocationsInRam;
+        }
 
-            if (ReadsKey.isFragment(keyedPair._1())) { // fragments
-                return handleFragments(pairedEnds, scoringStrategy, header).iterator();
+        @Override
+        protected Tuple2<Long, Integer> computeNext() {
+            while (marks.isEmpty()) {
+                if (!sortedPairs.hasNext()) {
+                    finishGroup();
+                    return marks.isEmpty() ? endOfData() : marks.poll();
+                }
+                final PairedEnds pair = sortedPairs.next();
+                if (!pair.key().equals(groupKey)) {
+                    finishGroup();
+                    startGroup(pair);
+                } else {
+                    addToGroup(pair);
+                }
             }
+            return marks.poll();
+        }
 
-            List<GATKRead> out = Lists.newArrayList();
-
-            // As in Picard, unpaired ends left alone.
-            for (final PairedEnds pair : paired.get(false)) {
-                out.add(pair.first());
+        private void startGroup(final PairedEnds pair) {
+            groupKey = pair.key();
+            // Each key corresponds to either fragments or paired ends, not a mixture of both.
+            // The first fragment is either paired (and fragments of paired reads are emitted with the pairs),
+            // or is the highest scoring fragment. As in Picard, unpaired ends are left alone.
+            if (!pair.isFragment() && pair.second() != null) {
+                bestPair = pair;
+                if (finder != null) {
+                    opticalDuplicateCounter = new OpticalDuplicateCounter(finder, maxOpticalDuplicateLocationsInRam, getSpillDir());
+                    opticalDuplicateCounter.add(pair);
+                }
             }
+        }
 
-            // Order by score using ReadCoordinateComparator for tie-breaking.
-            Comparator<PairedEnds> pairedEndsComparator =
-                    Comparator.<PairedEnds, Integer>comparing(pe -> pe.score(scoringStrategy)).reversed()
-                            .thenComparing((o1, o2) -> new ReadCoordinateComparator(header).compare(o1.first(), o2.first()));
-            final List <PairedEnds> scored = paired.get(true).stream().sorted(pairedEndsComparator).collect(Collectors.toList());
-
-            final PairedEnds best = Iterables.getFirst(scored, null);
-            if (best == null) {
-                return out.iterator();
+        /**
+         * Large groups spill the locations of their pairs to the executor's Spark local directory (spark.local.dir, or
+         * the directories provided by the cluster manager), which is looked up on the executor since it differs
+         * between machines.
+         */
+        private File getSpillDir() {
+            if (spillDir == null) {
+                spillDir = new File(org.apache.spark.util.Utils.getLocalDir(SparkEnv.get().conf()));
             }
+            return spillDir;
+        }
 
-            // Mark everyone who's not best as a duplicate
-            for (final PairedEnds pair : Iterables.skip(scored, 1)) {
-                pair.first().setIsDuplicate(true);
-                pair.second().setIsDuplicate(true);
+        private void addToGroup(final PairedEnds pair) {
+            if (pair.isFragment()) {
+                // There are either paired ends, which sort first, so we mark all fragments as duplicates,
+                // or this is not the highest scoring fragment.
+                if (!pair.first().hasMappedMate()) {
+                    marks.add(new Tuple2<>(pair.first().getOrdinal(), DUPLICATE_MARK));
+                }
+            } else if (pair.second() != null) {
+                // Mark everyone who's not best as a duplicate
+                marks.add(new Tuple2<>(pair.first().getOrdinal(), DUPLICATE_MARK));
+                marks.add(new Tuple2<>(pair.second().getOrdinal(), DUPLICATE_MARK));
+                if (opticalDuplicateCounter != null) {
+                    opticalDuplicateCounter.add(pair);
+                }
             }
+        }
 
-            // Now, add location information to the paired ends
-            for (final PairedEnds pair : scored) {
-                // Both elements in the pair have the same name
-                finder.addLocationInformation(pair.first().getName(), pair);
+        private void finishGroup() {
+            if (bestPair != null) {
+                final int numOpticalDuplicates = opticalDuplicateCounter != null ? opticalDuplicateCounter.count() : 0;
+                marks.add(new Tuple2<>(bestPair.first().getOrdinal(), numOpticalDuplicates));
             }
+            groupKey = null;
+            bestPair = null;
+            opticalDuplicateCounter = null;
+        }
+    }
 
-            // This must happen last, as findOpticalDuplicates mutates the list.
-            // Split by orientation and count duplicates in each group separately.
-            final ImmutableListMultimap<Byte, PairedEnds> groupByOrientation = Multimaps.index(scored, pe -> pe.getOrientationForOpticalDuplicates());
-            final int numOpticalDuplicates;
-            if (groupByOrientation.containsKey(ReadEnds.FR) && groupByOrientation.containsKey(ReadEnds.RF)){
-                final List<PairedEnds> peFR = new ArrayList<>(groupByOrientation.get(ReadEnds.FR));
-                final List<PairedEnds> peRF = new ArrayList<>(groupByOrientation.get(ReadEnds.RF));
-                numOpticalDuplicates = countOpticalDuplicates(finder, peFR) +  countOpticalDuplicates(finder, peRF);
-            } else {
-                numOpticalDuplicates = countOpticalDuplicates(finder, scored);
-            }
-            best.first().setAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, numOpticalDuplicates);
+    /**
+     * Orders paired ends and fragments by their {@link DuplicateKey}, and within each group of duplicates puts the
+     * best first: paired reads first (for fragments), then by score, using the coordinate order for tie-breaking.
+     */
+    private static final class DuplicateGroupOrder implements Comparator<PairedEnds>, Serializable {
+        private static final long serialVersionUID = 1L;
 
-            for (final PairedEnds pair : scored) {
-                out.add(pair.first());
-                out.add(pair.second());
+        @Override
+        public int compare(final PairedEnds lhs, final PairedEnds rhs) {
+            int result = lhs.key().compareTo(rhs.key());
+            if (result != 0) return result;
+            if (lhs.isFragment()) {
+                result = -Boolean.compare(lhs.first().hasMappedMate(), rhs.first().hasMappedMate());
+                if (result != 0) return result;
             }
-            return out.iterator();
-        });
+            result = Integer.compare(rhs.score(), lhs.score());
+            if (result != 0) return result;
+            return ReadDescriptor.COORDINATE_ORDER.compare(lhs.first(), rhs.first());
+        }
     }
 
-    private static int countOpticalDuplicates(OpticalDuplicateFinder finder, List<PairedEnds> scored) {
-        final boolean[] opticalDuplicateFlags = finder.findOpticalDuplicates(scored);
-        int numOpticalDuplicates = 0;
-        for (final boolean b : opticalDuplicateFlags) {
-            if (b) {
-                numOpticalDuplicates++;
-            }
+    /**
+     * Partitions paired ends and fragments by their {@link DuplicateKey}, so that duplicates end up together.
+     */
+    private static final class DuplicateKeyPartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+        private final int numPartitions;
+
+        DuplicateKeyPartitioner(final int numPartitions) {
+            this.numPartitions = numPartitions;
+        }
+
+        @Override
+        public int numPartitions() {
+            return numPartitions;
+        }
+
+        @Override
+        public int getPartition(final Object key) {
+            return Math.floorMod(((PairedEnds)key).key().hashCode(), numPartitions);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof DuplicateKeyPartitioner && ((DuplicateKeyPartitioner)o).numPartitions == numPartitions;
+        }
+
+        @Override
+        public int hashCode() {
+            return numPartitions;
         }
-        return numOpticalDuplicates;
     }
 
-    private static List<GATKRead> handleFragments(Iterable<PairedEnds> pairedEnds, final MarkDuplicatesScoringStrategy scoringStrategy, final SAMFileHeader header) {
-        List<GATKRead> reads = Lists.newArrayList();
-
-        final Iterable<GATKRead> transform = Iterables.transform(pairedEnds, pair -> pair.first());
-        Iterable<GATKRead> readsCopy = Iterables.transform(transform, GATKRead::copy);
-        final Map<Boolean, List<GATKRead>> byPairing = Utils.stream(readsCopy).collect(Collectors.partitioningBy(
-                read -> ReadUtils.readHasMappedMate(read)
-        ));
-        // Note the we emit only fragments from this mapper.
-        if (byPairing.get(true).isEmpty()) {
-            // There are no paired reads, mark all but the highest scoring fragment as duplicate.
-            Comparator<GATKRead> fragmentsComparator = Comparator.<GATKRead, Integer>comparing(read -> scoringStrategy.score(read)).reversed().thenComparing(new ReadCoordinateComparator(header));
-            List <GATKRead> frags = byPairing.get(false).stream().sorted(fragmentsComparator).collect(Collectors.toList());
-            if (!frags.isEmpty()) {
-                reads.add(frags.get(0));                        //highest score - just emit
-                for (final GATKRead record : Iterables.skip(frags, 1)) {  //lower   scores - mark as dups and emit
-                    record.setIsDuplicate(true);
-                    reads.add(record);
+    /**
+     * Sets the duplicate flags and optical duplicate counts from the marks on the reads. Since the ordinals come from
+     * {@link JavaPairRDD#zipWithUniqueId}, the partition of a read is its ordinal modulo the number of partitions,
+     * and the ordinals increase within a partition, so the marks can be partitioned and sorted the same way and merged
+     * with the reads without shuffling the reads.
+     */
+    static JavaRDD<GATKRead> applyMarks(final JavaPairRDD<GATKRead, Long> readsWithOrdinals, final JavaPairRDD<Long, Integer> marks) {
+        final JavaPairRDD<Long, Integer> sortedMarks = marks.repartitionAndSortWithinPartitions(new OrdinalPartitioner(readsWithOrdinals.getNumPartitions()));
+        return readsWithOrdinals.zipPartitions(sortedMarks, (readsIterator, marksIterator) -> {
+            final PeekingIterator<Tuple2<Long, Integer>> marksInPartition = Iterators.peekingIterator(marksIterator);
+            return Iterators.transform(readsIterator, readWithOrdinal -> {
+                final GATKRead read = readWithOrdinal._1();
+                if (ReadUtils.isNonPrimary(read)) {
+                    return read;
                 }
-            }
-        } else {
-            // There are paired ends so we mark all fragments as duplicates.
-            for (final GATKRead record : byPairing.get(false)) {
-                record.setIsDuplicate(true);
-                reads.add(record);
-            }
-        }
-        return reads;
+                final long ordinal = readWithOrdinal._2();
+                Utils.validate(!marksInPartition.hasNext() || marksInPartition.peek()._1() >= ordinal,
+                        () -> "mark for read " + marksInPartition.peek()._1() + " does not match any read in its partition");
+                if (marksInPartition.hasNext() && marksInPartition.peek()._1() == ordinal) {
+                    final int mark = marksInPartition.next()._2();
+                    if (mark == DUPLICATE_MARK) {
+                        read.setIsDuplicate(true);
+                    } else {
+                        read.setIsDuplicate(false);
+                        read.setAttribute(OPTICAL_DUPLICATE_TOTAL_ATTRIBUTE_NAME, mark);
+                    }
+                } else {
+                    read.setIsDuplicate(false);
+                }
+                return read;
+            });
+        });
     }
 
+    /**
+     * Partitions read ordinals assigned by {@link JavaPairRDD#zipWithUniqueId} to the partitions that hold their reads.
+     */
+    private static final class OrdinalPartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+        private final int numPartitions;
+
+        OrdinalPartitioner(final int numPartitions) {
+            this.numPartitions = numPartitions;
+        }
+
+        @Override
+        public int numPartitions() {
+            return numPartitions;
+        }
+
+        @Override
+        public int getPartition(final Object key) {
+            return (int)((Long)key % numPartitions);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof OrdinalPartitioner && ((OrdinalPartitioner)o).numPartitions == numPartitions;
+        }
+
+        @Override
+        public int hashCode() {
+            return numPartitions;
+        }
+    }
 
     static JavaPairRDD<String, DuplicationMetrics> generateMetrics(final SAMFileHeader header, final JavaRDD<GATKRead> reads) {
         return reads.filter(read -> !read.isSecondaryAlignment() && !read.isSupplementaryAlignment())
@@ -346,60 +502,4 @@ public class MarkDuplicatesSparkUtils {
 
         MetricsUtils.saveMetrics(result, metricsOutputPath);
     }
-
-    /**
-     * GATKRead comparator that compares based on mapping position followed by SAM flags.
-     */
-    final static class GATKOrder implements Comparator<GATKRead>, Serializable {
-        private static final long serialVersionUID = 1l;
-        private final SAMFileHeader header;
-        // TODO: Unify with other comparators in the codebase
-
-        public GATKOrder(final SAMFileHeader header) {
-            this.header = header;
-        }
-
-        @Override
-        public int compare(final GATKRead lhs, final GATKRead rhs) {
-            if (rhs == lhs) return 0; //shortcut
-
-            final int res1 = Integer.compare(ReadUtils.getReferenceIndex(lhs, header), ReadUtils.getReferenceIndex(rhs, header));
-            if (res1 != 0) return res1;
-
-            final int res2 = Long.compare(lhs.getStart(), rhs.getStart());
-            if (res2 != 0) return res2;
-
-            final int res3 = Boolean.compare(lhs.isDuplicate(), rhs.isDuplicate());
-            if (res3 != 0) return res3;
-
-            final int res4 = Boolean.compare(lhs.failsVendorQualityCheck(), rhs.failsVendorQualityCheck());
-            if (res4 != 0) return res4;
-
-            final int res5 = Boolean.compare(lhs.isPaired(), rhs.isPaired());
-            if (res5 != 0) return res5;
-
-            final int res6 = Boolean.compare(lhs.isProperlyPaired(), rhs.isProperlyPaired());
-            if (res6 != 0) return res6;
-
-            //Note: negate the result because we want first-of-pair to be before second
-            //ie, want 'second' to be sorted after first, so want to return -1 for (true, false)
-            final int res7 = -Boolean.compare(lhs.isFirstOfPair(), rhs.isFirstOfPair());
-            if (res7 != 0) return res7;
-
-            final int res8 = Boolean.compare(lhs.isSecondaryAlignment(), rhs.isSecondaryAlignment());
-            if (res8 != 0) return res8;
-
-            final int res9 = Boolean.compare(lhs.isSupplementaryAlignment(), rhs.isSupplementaryAlignment());
-            if (res9 != 0) return res9;
-
-            final int res10 = Integer.compare(lhs.getMappingQuality(), rhs.getMappingQuality());
-            if (res10 != 0) return res10;
-
-            final int res11 = Integer.compare(ReadUtils.getMateReferenceIndex(lhs, header), ReadUtils.getMateReferenceIndex(rhs, header));
-            if (res11 != 0) return res11;
-
-            final int res12 = Long.compare(lhs.getMateStart(), rhs.getMateStart());
-            return res12;
-        }
-    }
-}
\ No newline at end of file
+}
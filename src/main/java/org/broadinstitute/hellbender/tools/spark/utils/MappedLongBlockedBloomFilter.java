@@ -0,0 +1,155 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Read-only view of a {@link LongBlockedBloomFilter} that has been written to a file, which is memory-mapped rather
+ * than read onto the heap. Opening the filter takes no time beyond mapping the file, and the pages of the filter are
+ * loaded by the operating system as they are used. All the JVMs on a machine that map the same file share a single
+ * copy of it in the page cache.
+ * <p>
+ * The filter occupies a one-page header, holding the number of blocks and hash functions, followed by the blocks,
+ * stored as little-endian longs. Since the header is a whole page, every block lies within a single page when the
+ * filter starts at a page boundary.
+ */
+public final class MappedLongBlockedBloomFilter {
+
+    public static final int PAGE_SIZE = 4096;
+
+    private static final long MAGIC = 0x3146424b4c42474cL; //"LGBLKBF1"
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int BYTES_PER_BLOCK = LongBlockedBloomFilter.LONGS_PER_BLOCK * Long.BYTES;
+    private static final int LOG2_BLOCKS_PER_BUFFER = 24; //1GB buffers
+    private static final int BLOCKS_PER_BUFFER = 1 << LOG2_BLOCKS_PER_BUFFER;
+    private static final int WRITE_BUFFER_LONGS = 1 << 17;
+
+    private final long numBlocks;
+    private final int numHashes;
+    private final LongBuffer[] blocks;
+
+    /**
+     * Maps the filter at the given position in the file. The mapping remains valid after the channel is closed.
+     */
+    public MappedLongBlockedBloomFilter(final FileChannel channel, final long position) throws IOException {
+        Utils.nonNull(channel);
+        Utils.validateArg(position >= 0 && position % PAGE_SIZE == 0, "Position must be a multiple of the page size");
+        if (channel.size() < position + PAGE_SIZE) {
+            throw new GATKException("File is too short to hold a memory-mapped Bloom filter");
+        }
+        final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, position, PAGE_SIZE).order(BYTE_ORDER);
+        if (header.getLong() != MAGIC) {
+            throw new GATKException("File does not hold a memory-mapped Bloom filter at position " + position);
+        }
+        numBlocks = header.getLong();
+        numHashes = header.getInt();
+        if (numBlocks <= 0 || numHashes <= 0) {
+            throw new GATKException("Memory-mapped Bloom filter has an invalid header");
+        }
+
+        final long blocksStart = position + PAGE_SIZE;
+        if (channel.size() < blocksStart + numBlocks * BYTES_PER_BLOCK) {
+            throw new GATKException("Memory-mapped Bloom filter is truncated");
+        }
+        final int numBuffers = (int) ((numBlocks + BLOCKS_PER_BUFFER - 1) >>> LOG2_BLOCKS_PER_BUFFER);
+        blocks = new LongBuffer[numBuffers];
+        for (int i = 0; i < numBuffers; i++) {
+            final long firstBlock = (long) i << LOG2_BLOCKS_PER_BUFFER;
+            final long bufferBlocks = Math.min(BLOCKS_PER_BUFFER, numBlocks - firstBlock);
+            blocks[i] = channel.map(FileChannel.MapMode.READ_ONLY, blocksStart + firstBlock * BYTES_PER_BLOCK,
+                    bufferBlocks * BYTES_PER_BLOCK).order(BYTE_ORDER).asLongBuffer();
+        }
+    }
+
+    /**
+     * Writes the filter in the format read by the constructor. The channel should be at a page boundary.
+     * @return the number of bytes written
+     */
+    public static long write(final LongBlockedBloomFilter filter, final WritableByteChannel channel) throws IOException {
+        Utils.nonNull(filter);
+        Utils.nonNull(channel);
+        final ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE).order(BYTE_ORDER);
+        header.putLong(MAGIC);
+        header.putLong(filter.getNumBlocks());
+        header.putInt(filter.getNumHashes());
+        header.clear();
+        long bytesWritten = writeFully(header, channel);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_LONGS * Long.BYTES).order(BYTE_ORDER);
+        for (final long[] array : filter.getBlocks()) {
+            for (int start = 0; start < array.length; start += WRITE_BUFFER_LONGS) {
+                final int length = Math.min(WRITE_BUFFER_LONGS, array.length - start);
+                buffer.clear();
+                buffer.asLongBuffer().put(array, start, length);
+                buffer.limit(length * Long.BYTES);
+                bytesWritten += writeFully(buffer, channel);
+            }
+        }
+        return bytesWritten;
+    }
+
+    private static long writeFully(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+        long bytesWritten = 0;
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the false positive probability after inserting the given number of elements.
+     */
+    public double getTheoreticalFPP(final long numElements) {
+        return LongBlockedBloomFilter.getTheoreticalFPP(numBlocks, numHashes, numElements);
+    }
+
+    public boolean contains(final long key) {
+        final long hash = SVUtils.fnvLong64(key);
+        return blockContains(LongBlockedBloomFilter.getBlockIndex(hash, numBlocks), hash);
+    }
+
+    /**
+     * Counts how many of the first numKeys keys are (probably) in the set, stopping early once maxCount of them have
+     * been found. See {@link LongBlockedBloomFilter#countContained}.
+     */
+    public int countContained(final long[] keys, final int numKeys, final int maxCount) {
+        Utils.nonNull(keys);
+        Utils.validateArg(numKeys >= 0 && numKeys <= keys.length, "Number of keys must be between 0 and the array length");
+        final long[] hashes = new long[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            hashes[i] = SVUtils.fnvLong64(keys[i]);
+        }
+        int count = 0;
+        for (int i = 0; i < numKeys && count < maxCount; i++) {
+            if (blockContains(LongBlockedBloomFilter.getBlockIndex(hashes[i], numBlocks), hashes[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean blockContains(final long blockIndex, final long hash) {
+        final LongBuffer buffer = blocks[(int) (blockIndex >>> LOG2_BLOCKS_PER_BUFFER)];
+        final int offset = ((int) blockIndex & (BLOCKS_PER_BUFFER - 1)) * LongBlockedBloomFilter.LONGS_PER_BLOCK;
+        // Same probe as LongBlockedBloomFilter.blockContains, but reading the buffer directly
+        long bitHash = hash;
+        long bits = 0;
+        for (int i = 0; i < numHashes; i++) {
+            if (i % LongBlockedBloomFilter.BITS_PER_HASH == 0) {
+                bitHash = LongBlockedBloomFilter.mix(bitHash);
+                bits = bitHash;
+            }
+            if ((buffer.get(offset + LongBlockedBloomFilter.wordInBlock((int) bits)) & (1L << bits)) == 0) return false;
+            bits >>>= LongBlockedBloomFilter.LOG2_BITS_PER_BLOCK;
+        }
+        return true;
+    }
+}
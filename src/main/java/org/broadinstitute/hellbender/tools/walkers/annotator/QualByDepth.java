@@ -5,6 +5,7 @@ import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.MathUtils;
@@ -13,9 +14,11 @@ import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Variant confidence normalized by unfiltered depth of variant samples
@@ -50,6 +53,8 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
     static final double IDEAL_HIGH_QD = 30;
     private static final double JITTER_SIGMA = 3;
 
+    private static final ThreadLocal<DeferredJitter> deferredJitter = new ThreadLocal<>();
+
     @Override
     public Map<String, Object> annotate(final ReferenceContext ref,
                                         final VariantContext vc,
@@ -103,6 +108,10 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
         double QD = qual / depth;
 
         // Hack: see note in the fixTooHighQD method below
+        final DeferredJitter deferred = deferredJitter.get();
+        if ( deferred != null && QD >= MAX_QD_BEFORE_FIXING ) {
+            return Collections.singletonMap(getKeyNames().get(0), deferred.defer());
+        }
         QD = fixTooHighQD(QD);
 
         return Collections.singletonMap(getKeyNames().get(0), String.format("%.2f", QD));
@@ -125,6 +134,70 @@ public final class QualByDepth extends InfoFieldAnnotation implements StandardAn
         }
     }
 
+    /**
+     * Defers the jitter of {@link #fixTooHighQD} for variants annotated on another thread, so that the draws from the
+     * shared random number generator can still be made in the order a single-threaded run would make them.
+     *
+     * While {@link #deferWhile} runs, QD values that need jittering are annotated with placeholders. Once every
+     * variant annotated before them has been written, {@link #draw} makes the draws in the order the variants were
+     * annotated, and {@link #resolve} replaces the placeholders with the jittered values.
+     */
+    public static final class DeferredJitter {
+        private final List<JitteredQD> pending = new ArrayList<>();
+
+        /**
+         * Run annotating on the current thread, deferring the jitter of any QD values it annotates to {@link #draw}
+         */
+        public <T> T deferWhile(final Supplier<T> annotating) {
+            Utils.nonNull(annotating);
+            Utils.validate(deferredJitter.get() == null, "QD jitter is already being deferred on this thread");
+            deferredJitter.set(this);
+            try {
+                return annotating.get();
+            } finally {
+                deferredJitter.remove();
+            }
+        }
+
+        /**
+         * Draw the jitter of every QD value deferred so far, in the order the values were annotated.
+         * Must be called on the thread whose draws from the shared random number generator come in genomic order.
+         */
+        public void draw() {
+            for ( final JitteredQD value : pending ) {
+                value.QD = fixTooHighQD(MAX_QD_BEFORE_FIXING);
+            }
+            pending.clear();
+        }
+
+        /**
+         * @return vc with its deferred QD placeholder, if any, replaced by the value drawn for it
+         */
+        public VariantContext resolve(final VariantContext vc) {
+            final Object QD = vc.getAttribute(GATKVCFConstants.QUAL_BY_DEPTH_KEY);
+            if ( !(QD instanceof JitteredQD) ) {
+                return vc;
+            }
+            return new VariantContextBuilder(vc).attribute(GATKVCFConstants.QUAL_BY_DEPTH_KEY, QD.toString()).make();
+        }
+
+        private JitteredQD defer() {
+            final JitteredQD value = new JitteredQD();
+            pending.add(value);
+            return value;
+        }
+    }
+
+    private static final class JitteredQD {
+        private double QD = Double.NaN;
+
+        @Override
+        public String toString() {
+            Utils.validate(!Double.isNaN(QD), "the jitter of this QD value has not been drawn yet");
+            return String.format("%.2f", QD);
+        }
+    }
+
     @Override
     public List<String> getKeyNames() { return Collections.singletonList(GATKVCFConstants.QUAL_BY_DEPTH_KEY); }
 
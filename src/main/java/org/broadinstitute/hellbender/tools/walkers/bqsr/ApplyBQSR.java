@@ -99,6 +99,11 @@ public final class ApplyBQSR extends ReadWalker{
         return new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
     }
 
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
@@ -107,7 +112,7 @@ public final class ApplyBQSR extends ReadWalker{
 
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        outputWriter.addRead(read);
+        emitInReadOrder(() -> outputWriter.addRead(read));
     }
 
     @Override
@@ -1,10 +1,12 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
+import com.google.common.collect.Iterators;
 import htsjdk.tribble.Feature;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -17,6 +19,7 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.KnownSitesIndex;
 import org.broadinstitute.hellbender.utils.recalibration.QuantizationInfo;
 import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCollection;
@@ -25,7 +28,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * First pass of the base quality score recalibration -- Generates recalibration table based on various covariates
@@ -74,6 +79,13 @@ import java.util.List;
  *   -knownSites another/optional/setOfSitesToMask.vcf \
  *   -o recal_data.table
  * </pre>
+ *
+ * <p>
+ * With -traversalThreads greater than 1, each thread processes batches of reads into its own set of tables,
+ * and the tables are merged at the end. The output is identical to that of a single-threaded run. Threaded
+ * traversal is not supported with -enableBAQ: BAQ makes the error counts fractional, so merging tables would
+ * make them depend on the order of summation.
+ * </p>
  */
 
 @CommandLineProgramProperties(
@@ -110,10 +122,25 @@ public final class BaseRecalibrator extends ReadWalker {
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
 
+    /**
+     * The known sites can be loaded into a compact index of the sites, which is faster to look up sites in than the
+     * known sites files themselves. If the given file exists, the index is read from it (it must have been built from
+     * the same knownSites files, in the same order); otherwise the index is built from the knownSites and written to it,
+     * for use in later runs. Note that the index covers the whole of the known sites files, regardless of any intervals.
+     */
+    @Argument(fullName = "knownSitesIndex", shortName = "knownSitesIndex", doc = "Index of the known sites to use instead of querying the knownSites files, created from them if it does not exist", optional = true)
+    private File knownSitesIndexFile = null;
+
+    private KnownSitesIndex knownSitesIndex = null;
+
     private BaseRecalibrationEngine recalibrationEngine;
 
     private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
 
+    // with traversalThreads > 1: the engine and reference of each worker thread, merged into recalibrationEngine at the end
+    private final ThreadLocal<RecalibrationWorker> threadWorker = ThreadLocal.withInitial(this::makeWorker);
+    private final List<RecalibrationWorker> workers = Collections.synchronizedList(new ArrayList<>());
+
     /**
      * an object that keeps track of the information necessary for quality score quantization
      */
@@ -136,9 +163,65 @@ public final class BaseRecalibrator extends ReadWalker {
 
         Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
 
+        if ( traversalThreads > 1 && recalArgs.enableBAQ ) {
+            throw new CommandLineException.BadArgumentValue("traversalThreads", String.valueOf(traversalThreads),
+                    "threaded traversal is not supported with -enableBAQ");
+        }
+
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
         recalibrationEngine.logCovariatesUsed();
         referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferenceFile());
+
+        if ( knownSitesIndexFile != null ) {
+            knownSitesIndex = loadOrBuildKnownSitesIndex();
+        }
+    }
+
+    /**
+     * Read the known sites index from knownSitesIndexFile, or build it from the knownSites and write it there if
+     * the file does not exist yet.
+     */
+    private KnownSitesIndex loadOrBuildKnownSitesIndex() {
+        final List<String> sources = knownSites.stream().map(FeatureInput::getFeaturePath).collect(Collectors.toList());
+        if ( knownSitesIndexFile.exists() ) {
+            final KnownSitesIndex index = KnownSitesIndex.read(knownSitesIndexFile);
+            if ( ! index.getSources().equals(sources) ) {
+                throw new UserException.BadInput("The known sites index " + knownSitesIndexFile + " was built from " + index.getSources() +
+                        ", not from the knownSites " + sources + ". Delete it or specify a different file to build a new index.");
+            }
+            logger.info("Loaded " + index.size() + " known sites from " + knownSitesIndexFile);
+            return index;
+        }
+
+        logger.info("Building known sites index " + knownSitesIndexFile + "...");
+        final List<FeatureDataSource<Feature>> dataSources = knownSites.stream()
+                .map(input -> new FeatureDataSource<>(input, 0, null))
+                .collect(Collectors.toList());
+        try {
+            final KnownSitesIndex index = KnownSitesIndex.fromSites(sources, Iterators.concat(dataSources.stream().map(FeatureDataSource::iterator).iterator()));
+            index.write(knownSitesIndexFile);
+            logger.info("...done, indexed " + index.size() + " known sites");
+            return index;
+        }
+        finally {
+            dataSources.forEach(FeatureDataSource::close);
+        }
+    }
+
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
+    /**
+     * Create the engine and reference data source for a worker thread. Each engine gets its own copy of the header,
+     * since the engine sets the platform of the read groups as it goes.
+     */
+    private RecalibrationWorker makeWorker() {
+        final RecalibrationWorker worker = new RecalibrationWorker(new BaseRecalibrationEngine(recalArgs, getHeaderForReads().clone()),
+                ReferenceDataSource.of(referenceArguments.getReferenceFile()));
+        workers.add(worker);
+        return worker;
     }
 
     @Override
@@ -177,11 +260,32 @@ public final class BaseRecalibrator extends ReadWalker {
      */
     @Override
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
-        recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        final BaseRecalibrationEngine engine;
+        final ReferenceDataSource engineReference;
+        if ( traversalThreads > 1 ) {
+            final RecalibrationWorker worker = threadWorker.get();
+            engine = worker.engine;
+            engineReference = worker.referenceDataSource;
+        }
+        else {
+            engine = recalibrationEngine;
+            engineReference = referenceDataSource;
+        }
+
+        if ( knownSitesIndex != null ) {
+            engine.processRead(read, engineReference, knownSitesIndex);
+        }
+        else {
+            engine.processRead(read, engineReference, featureContext.getValues(knownSites));
+        }
     }
 
     @Override
     public Object onTraversalSuccess() {
+        // the error counts are whole numbers (no BAQ), so the merged counts are exactly those of a single-threaded run
+        synchronized ( workers ) {
+            workers.forEach(worker -> recalibrationEngine.combine(worker.engine));
+        }
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
@@ -212,4 +316,25 @@ public final class BaseRecalibrator extends ReadWalker {
             throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void closeTool() {
+        synchronized ( workers ) {
+            workers.forEach(worker -> worker.referenceDataSource.close());
+            workers.clear();
+        }
+    }
+
+    /**
+     * The recalibration engine and reference data source used by one worker thread in a threaded traversal.
+     */
+    private static final class RecalibrationWorker {
+        private final BaseRecalibrationEngine engine;
+        private final ReferenceDataSource referenceDataSource;
+
+        private RecalibrationWorker( final BaseRecalibrationEngine engine, final ReferenceDataSource referenceDataSource ) {
+            this.engine = engine;
+            this.referenceDataSource = referenceDataSource;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCo
 import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.StandardCallerArgumentCollection;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -55,6 +56,15 @@ public abstract class AssemblyBasedCallerArgumentCollection extends StandardCall
     @Argument(fullName="useFilteredReadsForAnnotations", shortName="useFilteredReadsForAnnotations", doc = "Use the contamination-filtered read maps for the purposes of annotating variants", optional=true)
     public boolean USE_FILTERED_READ_MAP_FOR_ANNOTATIONS = false;
 
+    /**
+     * The Smith-Waterman implementation used to align haplotypes to the reference, dangling branches to the reference
+     * path during assembly, and reads to their best haplotype. BANDED_JAVA is faster, but may miss large indels
+     * relative to the reference that JAVA would find.
+     */
+    @Advanced
+    @Argument(fullName="smithWaterman", shortName="smithWaterman", doc="Which Smith-Waterman implementation to use", optional = true)
+    public SmithWatermanAligner.Implementation smithWatermanImplementation = SmithWatermanAligner.Implementation.JAVA;
+
     /**
      * The reference confidence mode makes it possible to emit a per-bp or summarized confidence estimate for a site being strictly homozygous-reference.
      * See http://www.broadinstitute.org/gatk/guide/article?id=2940 for more details of how this works.
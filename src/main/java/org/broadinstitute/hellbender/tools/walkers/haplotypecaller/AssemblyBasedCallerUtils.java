@@ -23,6 +23,7 @@ import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
@@ -42,9 +43,11 @@ public class AssemblyBasedCallerUtils {
      * <p>
      *     Missing keys or equivalent key and value pairs mean that the read was not realigned.
      * </p>
+     * @param aligner the Smith-Waterman aligner to use to align each read to its best haplotype
      * @return never {@code null}
      */
-    public static Map<GATKRead, GATKRead> realignReadsToTheirBestHaplotype(final ReadLikelihoods<Haplotype> originalReadLikelihoods, final Haplotype refHaplotype, final Locatable paddedReferenceLoc) {
+    public static Map<GATKRead, GATKRead> realignReadsToTheirBestHaplotype(final ReadLikelihoods<Haplotype> originalReadLikelihoods, final Haplotype refHaplotype,
+                                                                          final Locatable paddedReferenceLoc, final SmithWatermanAligner aligner) {
         final Collection<ReadLikelihoods<Haplotype>.BestAllele> bestAlleles = originalReadLikelihoods.bestAlleles();
         final Map<GATKRead, GATKRead> result = new HashMap<>(bestAlleles.size());
 
@@ -52,7 +55,7 @@ public class AssemblyBasedCallerUtils {
             final GATKRead originalRead = bestAllele.read;
             final Haplotype bestHaplotype = bestAllele.allele;
             final boolean isInformative = bestAllele.isInformative();
-            final GATKRead realignedRead = AlignmentUtils.createReadAlignedToRef(originalRead, bestHaplotype, refHaplotype, paddedReferenceLoc.getStart(), isInformative);
+            final GATKRead realignedRead = AlignmentUtils.createReadAlignedToRef(originalRead, bestHaplotype, refHaplotype, paddedReferenceLoc.getStart(), isInformative, aligner);
             result.put(originalRead, realignedRead);
         }
         return result;
@@ -185,6 +188,7 @@ public class AssemblyBasedCallerUtils {
         assemblyEngine.setRecoverDanglingBranches(!rtaac.doNotRecoverDanglingBranches);
         assemblyEngine.setMinDanglingBranchLength(rtaac.minDanglingBranchLength);
         assemblyEngine.setMinBaseQualityToUseInAssembly(args.minBaseQualityScore);
+        assemblyEngine.setAssemblyThreads(rtaac.assemblyThreads);
 
         if ( rtaac.graphOutput != null ) {
             assemblyEngine.setGraphWriter(new File(rtaac.graphOutput));
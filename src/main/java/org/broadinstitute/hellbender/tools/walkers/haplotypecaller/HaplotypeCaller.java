@@ -1,11 +1,12 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMSequenceDictionary;
-import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -14,12 +15,14 @@ import org.broadinstitute.hellbender.cmdline.programgroups.VariantProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 
 /**
@@ -158,7 +161,7 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     private VariantContextWriter vcfWriter;
 
-    private HaplotypeCallerEngine hcEngine;
+    private HaplotypeCallerEnginePool hcEngines;
 
     @Override
     protected int defaultReadShardSize() { return DEFAULT_READSHARD_SIZE; }
@@ -191,15 +194,31 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     @Override
     public AssemblyRegionEvaluator assemblyRegionEvaluator() {
-        return hcEngine;
+        return hcEngines.get();
+    }
+
+    /**
+     * Each traversal thread uses its own HaplotypeCallerEngine from our engine pool,
+     * and all calls are written via {@link #emitInShardOrder}. The jitter of very high QD values
+     * is deferred to the output action (see {@link QualByDepth.DeferredJitter}), so that it is drawn
+     * in the same order as in a single-threaded run. Reads removed for contamination are chosen with
+     * a generator seeded from each region, so they do not depend on the number of threads either.
+     */
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
     }
 
     @Override
     public void onTraversalStart() {
-        final ReferenceSequenceFile referenceReader = getReferenceReader(referenceArguments);
-        hcEngine = new HaplotypeCallerEngine(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceReader);
+        if ( traversalThreads > 1 && hcArgs.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue("bamOutput", "is not supported with more than one traversal thread");
+        }
+
+        hcEngines = new HaplotypeCallerEnginePool(hcArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), () -> getReferenceReader(referenceArguments));
 
         // The HC engine will make the right kind (VCF or GVCF) of writer for us
+        final HaplotypeCallerEngine hcEngine = hcEngines.getPrototype();
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
@@ -218,11 +237,26 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        hcEngine.callRegion(region, featureContext).stream()
+        if ( traversalThreads == 1 ) {
+            callsInShard(hcEngines.get().callRegion(region, featureContext)).forEach(vcfWriter::add);
+            return;
+        }
+
+        final QualByDepth.DeferredJitter jitter = new QualByDepth.DeferredJitter();
+        final List<VariantContext> calls = callsInShard(jitter.deferWhile(() -> hcEngines.get().callRegion(region, featureContext)));
+        emitInShardOrder(() -> {
+            // Draws for every call annotated in this region, including any that are not written, as a single-threaded run would
+            jitter.draw();
+            calls.stream().map(jitter::resolve).forEach(vcfWriter::add);
+        });
+    }
+
+    private List<VariantContext> callsInShard(final List<VariantContext> calls) {
+        return calls.stream()
                 // Only include calls that start within the current read shard (as opposed to the padded regions around it).
                 // This is critical to avoid duplicating events that span shard boundaries!
                 .filter(call -> getCurrentReadShardBounds().contains(new SimpleInterval(call.getContig(), call.getStart(), call.getStart())))
-                .forEach(vcfWriter::add);
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -231,8 +265,8 @@ public final class HaplotypeCaller extends AssemblyRegionWalker {
             vcfWriter.close();
         }
 
-        if ( hcEngine != null ) {
-            hcEngine.shutdown();
+        if ( hcEngines != null ) {
+            hcEngines.shutdown();
         }
     }
 }
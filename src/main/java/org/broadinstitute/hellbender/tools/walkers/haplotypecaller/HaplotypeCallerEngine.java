@@ -36,6 +36,7 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -73,6 +74,8 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private ReadThreadingAssembler assemblyEngine = null;
 
+    private SmithWatermanAligner aligner = null;
+
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine = null;
 
     private HaplotypeCallerGenotypingEngine genotypingEngine = null;
@@ -148,6 +151,33 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         initialize(createBamOutIndex, createBamOutMD5);
     }
 
+    /**
+     * Create a new HaplotypeCallerEngine that shares the immutable state of an existing engine (arguments, header,
+     * samples, and annotation engine) but has its own assembler, likelihood calculation engine, genotyping engines,
+     * trimmer, and reference reader, so that it can call regions concurrently with the original engine.
+     *
+     * Engines created this way never write a -bamout file. Use {@link HaplotypeCallerEnginePool} rather than
+     * calling this directly.
+     *
+     * @param prototype fully-initialized engine whose immutable state should be shared
+     * @param referenceReader reader to provide reference data, which must not be shared with any other engine
+     */
+    HaplotypeCallerEngine( final HaplotypeCallerEngine prototype, final ReferenceSequenceFile referenceReader ) {
+        Utils.nonNull(prototype);
+        this.hcArgs = prototype.hcArgs;
+        this.readsHeader = prototype.readsHeader;
+        this.referenceReader = Utils.nonNull(referenceReader);
+
+        // The arguments were already validated (and adjusted) by the prototype, so we only copy the derived state
+        sampleSet = prototype.sampleSet;
+        samplesList = prototype.samplesList;
+        minTailQuality = prototype.minTailQuality;
+        annotationEngine = prototype.annotationEngine;
+        haplotypeBAMWriter = Optional.empty();
+
+        initializePerThreadComponents();
+    }
+
     private void initialize(boolean createBamOutIndex, final boolean createBamOutMD5) {
         // Note: order of operations matters here!
 
@@ -157,22 +187,33 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         validateAndInitializeArgs();
         minTailQuality = (byte)(hcArgs.minBaseQualityScore - 1);
 
-        initializeActiveRegionEvaluationGenotyperEngine();
-
         annotationEngine = VariantAnnotatorEngine.ofSelectedMinusExcluded(hcArgs.annotationGroupsToUse, hcArgs.annotationsToUse, hcArgs.annotationsToExclude, hcArgs.dbsnp.dbsnp, hcArgs.comps);
 
-        genotypingEngine = new HaplotypeCallerGenotypingEngine(hcArgs, samplesList, FixedAFCalculatorProvider.createThreadSafeProvider(hcArgs), ! hcArgs.doNotRunPhysicalPhasing);
-        genotypingEngine.setAnnotationEngine(annotationEngine);
-
-        referenceConfidenceModel = new ReferenceConfidenceModel(samplesList, readsHeader, hcArgs.indelSizeToEliminateInRefModel);
-
         //Allele-specific annotations are not yet supported in the VCF mode
         if (isAlleleSpecificMode(annotationEngine) && isVCFMode()){
            throw new UserException("Allele-specific annotations are not yet supported in the VCF mode");
         }
 
         haplotypeBAMWriter = AssemblyBasedCallerUtils.createBamWriter(hcArgs, createBamOutIndex, createBamOutMD5, readsHeader);
+
+        initializePerThreadComponents();
+    }
+
+    /**
+     * Initialize the mutable components of this engine that cannot be shared between threads.
+     * Must be called after the samples, arguments, and annotation engine have been initialized.
+     */
+    private void initializePerThreadComponents() {
+        initializeActiveRegionEvaluationGenotyperEngine();
+
+        genotypingEngine = new HaplotypeCallerGenotypingEngine(hcArgs, samplesList, FixedAFCalculatorProvider.createThreadSafeProvider(hcArgs), ! hcArgs.doNotRunPhysicalPhasing);
+        genotypingEngine.setAnnotationEngine(annotationEngine);
+
+        referenceConfidenceModel = new ReferenceConfidenceModel(samplesList, readsHeader, hcArgs.indelSizeToEliminateInRefModel);
+
+        aligner = SmithWatermanAligner.getAligner(hcArgs.smithWatermanImplementation);
         assemblyEngine = AssemblyBasedCallerUtils.createReadThreadingAssembler(hcArgs);
+        assemblyEngine.setSmithWatermanAligner(aligner);
         likelihoodCalculationEngine = AssemblyBasedCallerUtils.createLikelihoodCalculationEngine(hcArgs.likelihoodArgs);
 
         trimmer.initialize(hcArgs.assemblyRegionTrimmerArgs, readsHeader.getSequenceDictionary(), hcArgs.debug,
@@ -531,7 +572,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
                 likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult, samplesList, reads);
 
         // Realign reads to their best haplotype.
-        final Map<GATKRead, GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc());
+        final Map<GATKRead, GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc(), aligner);
         readLikelihoods.changeReads(readRealignments);
 
         // Note: we used to subset down at this point to only the "best" haplotypes in all samples for genotyping, but there
@@ -646,6 +687,8 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      */
     public void shutdown() {
         likelihoodCalculationEngine.close();
+        aligner.close();
+        assemblyEngine.shutdown();
 
         if ( haplotypeBAMWriter.isPresent() ) {
             haplotypeBAMWriter.get().close();
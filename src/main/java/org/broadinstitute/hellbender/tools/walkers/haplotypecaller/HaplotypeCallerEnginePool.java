@@ -0,0 +1,96 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out a separate {@link HaplotypeCallerEngine} to each thread that asks for one, so that
+ * {@link HaplotypeCallerEngine#callRegion} and {@link HaplotypeCallerEngine#isActive} can be run on several threads
+ * at once within the same JVM.
+ *
+ * The first engine (the "prototype") is created eagerly, performs all argument validation, and is the engine used by
+ * the thread that created the pool. Engines for other threads are created lazily from the prototype: they share its
+ * immutable state (arguments, reads header, sample list, and annotation engine) but each gets its own assembler,
+ * PairHMM likelihood calculation engine, genotyping engines, trimmer, and reference reader.
+ *
+ * Only the prototype engine writes the -bamout file, if one was requested; callers that use engines on more
+ * than one thread should reject -bamout.
+ *
+ * Usage:
+ * -Create the pool once, and use {@link #getPrototype} to create the VCF writer and write the header
+ * -From each worker thread, call {@link #get} to obtain the engine for that thread
+ * -When done, call {@link #shutdown} to shut down all engines handed out by the pool
+ */
+public final class HaplotypeCallerEnginePool {
+
+    private final HaplotypeCallerEngine prototype;
+    private final ThreadLocal<HaplotypeCallerEngine> perThreadEngines;
+    private final List<HaplotypeCallerEngine> allEngines = new ArrayList<>();
+
+    /**
+     * Create a new pool, initializing the prototype engine immediately
+     *
+     * @param hcArgs command-line arguments for the HaplotypeCaller
+     * @param createBamOutIndex true to create an index file for the bamout
+     * @param createBamOutMD5 true to create an md5 file for the bamout
+     * @param readsHeader header for the reads
+     * @param referenceReaderFactory produces a new reader to provide reference data each time it is called (one per engine)
+     */
+    public HaplotypeCallerEnginePool( final HaplotypeCallerArgumentCollection hcArgs, final boolean createBamOutIndex, final boolean createBamOutMD5,
+                                      final SAMFileHeader readsHeader, final Supplier<? extends ReferenceSequenceFile> referenceReaderFactory ) {
+        Utils.nonNull(referenceReaderFactory);
+
+        prototype = new HaplotypeCallerEngine(hcArgs, createBamOutIndex, createBamOutMD5, readsHeader, referenceReaderFactory.get());
+        allEngines.add(prototype);
+
+        final Thread creatingThread = Thread.currentThread();
+        perThreadEngines = ThreadLocal.withInitial(() -> {
+            if ( Thread.currentThread() == creatingThread ) {
+                return prototype;
+            }
+            final HaplotypeCallerEngine engine = new HaplotypeCallerEngine(prototype, referenceReaderFactory.get());
+            synchronized ( allEngines ) {
+                allEngines.add(engine);
+            }
+            return engine;
+        });
+    }
+
+    /**
+     * @return the prototype engine, for operations that don't involve calling (eg., making the VCF writer and header)
+     */
+    public HaplotypeCallerEngine getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * @return the engine to be used by the calling thread, creating it if necessary
+     */
+    public HaplotypeCallerEngine get() {
+        return perThreadEngines.get();
+    }
+
+    /**
+     * @return the number of engines created so far by this pool, including the prototype
+     */
+    public int numberOfEngines() {
+        synchronized ( allEngines ) {
+            return allEngines.size();
+        }
+    }
+
+    /**
+     * Shutdown every engine handed out by this pool. Must only be called once no thread is using its engine any more.
+     */
+    public void shutdown() {
+        synchronized ( allEngines ) {
+            allEngines.forEach(HaplotypeCallerEngine::shutdown);
+            allEngines.clear();
+        }
+    }
+}
@@ -6,6 +6,8 @@ import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.*;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.math3.random.RandomDataGenerator;
+import org.apache.commons.math3.random.Well19937c;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.FeatureContext;
@@ -115,6 +117,11 @@ public class HaplotypeCallerGenotypingEngine extends AssemblyBasedCallerGenotypi
         final int ploidy = configuration.genotypeArgs.samplePloidy;
         final List<Allele> noCallAlleles = GATKVariantContextUtils.noCallAlleles(ploidy);
 
+        // Seeded from the region rather than drawn from the shared generator, so that the reads removed for contamination
+        // do not depend on the order in which regions are called (the HaplotypeCaller may call several at once)
+        final RandomDataGenerator contaminationRandom = configuration.isSampleContaminationPresent() ?
+                new RandomDataGenerator(new Well19937c(activeRegionWindow.hashCode())) : null;
+
         for( final int loc : startPosKeySet ) {
             if( loc < activeRegionWindow.getStart() || loc > activeRegionWindow.getEnd() ) {
                 continue;
@@ -135,7 +142,7 @@ public class HaplotypeCallerGenotypingEngine extends AssemblyBasedCallerGenotypi
 
             ReadLikelihoods<Allele> readAlleleLikelihoods = readLikelihoods.marginalize(alleleMapper, new SimpleInterval(mergedVC).expandWithinContig(ALLELE_EXTENSION, header.getSequenceDictionary()));
             if (configuration.isSampleContaminationPresent()) {
-                readAlleleLikelihoods.contaminationDownsampling(configuration.getSampleContamination());
+                readAlleleLikelihoods.contaminationDownsampling(configuration.getSampleContamination(), contaminationRandom);
             }
 
             if (emitReferenceConfidence) {
@@ -180,9 +180,11 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         // Add likelihoods for each sample's reads to our result
         final ReadLikelihoods<Haplotype> result = new ReadLikelihoods<>(samples, haplotypes, perSampleReadList);
         final int sampleCount = result.numberOfSamples();
+        final List<LikelihoodMatrix<Haplotype>> sampleMatrices = new ArrayList<>(sampleCount);
         for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+            sampleMatrices.add(result.sampleMatrix(i));
         }
+        computeReadLikelihoods(sampleMatrices);
 
         result.normalizeLikelihoods(false, log10globalReadMismappingRate);
         result.filterPoorlyModeledReads(EXPECTED_ERROR_RATE_PER_BASE);
@@ -243,16 +245,26 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         pairHMM.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
     }
 
-    private void computeReadLikelihoods(final LikelihoodMatrix<Haplotype> likelihoods) {
-        // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
-        final List<GATKRead> processedReads = modifyReadQualities(likelihoods.reads());
-
-        final Map<GATKRead, byte[]> gapContinuationPenalties = buildGapContinuationPenalties(processedReads, constantGCP);
+    /**
+     * Compute the likelihoods for the reads of every sample at once, so that all samples' reads are
+     * submitted to the PairHMM as a single batch.
+     *
+     * @param sampleMatrices the likelihood matrix of each sample, all sharing the same haplotypes
+     */
+    private void computeReadLikelihoods(final List<LikelihoodMatrix<Haplotype>> sampleMatrices) {
+        final List<List<GATKRead>> processedReads = new ArrayList<>(sampleMatrices.size());
+        final Map<GATKRead, byte[]> gapContinuationPenalties = new HashMap<>();
+        for (final LikelihoodMatrix<Haplotype> likelihoods : sampleMatrices) {
+            // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
+            final List<GATKRead> sampleProcessedReads = modifyReadQualities(likelihoods.reads());
+            processedReads.add(sampleProcessedReads);
+            gapContinuationPenalties.putAll(buildGapContinuationPenalties(sampleProcessedReads, constantGCP));
+        }
 
         // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, gapContinuationPenalties);
+        pairHMM.computeLog10Likelihoods(sampleMatrices, processedReads, gapContinuationPenalties);
 
-        writeDebugLikelihoods(likelihoods);
+        sampleMatrices.forEach(this::writeDebugLikelihoods);
     }
 
     /**
@@ -271,7 +283,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
             // NOTE -- must clone anything that gets modified here so we don't screw up future uses of the read
             //Using close here is justified - it's an array of primitives.
-            final byte[] readQuals = read.getBaseQualities().clone();
+            final byte[] readQuals = read.getBaseQualitiesNoCopy().clone();
             final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read).clone();
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read).clone();
 
@@ -111,6 +111,15 @@ public final class ReadThreadingAssemblerArgumentCollection implements Serializa
     @Argument(fullName="minPruning", shortName="minPruning", doc = "Minimum support to not prune paths in the graph", optional = true)
     public int minPruneFactor = 2;
 
+    /**
+     * The graphs for the different kmer sizes of an active region are independent of each other, and can be built
+     * concurrently. The results do not depend on the number of threads. Note that each caller thread uses its own
+     * assembly threads.
+     */
+    @Advanced
+    @Argument(fullName="assemblyThreads", shortName="assemblyThreads", doc="Number of threads used to build the assembly graphs for the different kmer sizes", optional = true)
+    public int assemblyThreads = 1;
+
     @Hidden
     @Argument(fullName="debugGraphTransformations", shortName="debugGraphTransformations", doc="Write DOT formatted graph files out of the assembler for only this graph size", optional = true)
     public boolean debugGraphTransformations = false;
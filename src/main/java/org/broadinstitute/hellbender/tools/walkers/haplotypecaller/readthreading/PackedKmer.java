@@ -0,0 +1,79 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Static methods to pack kmers of up to {@link #MAX_PACKED_KMER_SIZE} bases into a long, two bits per base.
+ *
+ * Only the upper-case bases A, C, G and T can be packed, since kmers are compared byte for byte elsewhere in the
+ * assembler. Kmers that contain any other byte, or that are too long, are reported as {@link #NOT_PACKABLE}.
+ * A packed kmer is only meaningful together with its length, so callers should not mix kmers of different
+ * lengths in the same collection.
+ */
+final class PackedKmer {
+
+    /**
+     * The largest kmer that fits in a long, keeping the sign bit clear so that {@link #NOT_PACKABLE} can't be a kmer
+     */
+    static final int MAX_PACKED_KMER_SIZE = 31;
+
+    /**
+     * Returned by {@link #pack} for kmers that cannot be packed
+     */
+    static final long NOT_PACKABLE = -1L;
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    // two-bit code of each byte value, or -1 if the byte is not a packable base
+    private static final byte[] BASE_CODES = new byte[256];
+    static {
+        Arrays.fill(BASE_CODES, (byte) -1);
+        for ( int code = 0; code < BASES.length; code++ ) {
+            BASE_CODES[BASES[code]] = (byte) code;
+        }
+    }
+
+    private PackedKmer() {}
+
+    /**
+     * Pack the kmer bases[start, start + length) into a long
+     *
+     * @return the packed kmer, which is always non-negative, or {@link #NOT_PACKABLE} if the kmer is longer than
+     *         {@link #MAX_PACKED_KMER_SIZE} or contains anything other than A, C, G or T
+     */
+    static long pack(final byte[] bases, final int start, final int length) {
+        if ( length > MAX_PACKED_KMER_SIZE ) {
+            return NOT_PACKABLE;
+        }
+        long packed = 0;
+        for ( int i = start, stop = start + length; i < stop; i++ ) {
+            final int code = BASE_CODES[bases[i] & 0xFF];
+            if ( code < 0 ) {
+                return NOT_PACKABLE;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    /**
+     * Unpack a kmer produced by {@link #pack}
+     *
+     * @param packed a packed kmer
+     * @param length the length of the packed kmer
+     * @return a new array with the bases of the kmer
+     */
+    static byte[] unpack(final long packed, final int length) {
+        Utils.validateArg(packed >= 0, () -> "not a packed kmer: " + packed);
+        Utils.validateArg(length >= 0 && length <= MAX_PACKED_KMER_SIZE, () -> "invalid packed kmer length " + length);
+        final byte[] bases = new byte[length];
+        long remaining = packed;
+        for ( int i = length - 1; i >= 0; i-- ) {
+            bases[i] = BASES[(int) (remaining & 3L)];
+            remaining >>>= 2;
+        }
+        return bases;
+    }
+}
@@ -0,0 +1,102 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map from kmers of a fixed size to values, for the read threading graph.
+ *
+ * Kmers are given as an offset into an array of bases, so that looking one up doesn't allocate anything.
+ * Kmers that {@link PackedKmer} can pack are kept in a primitive open-addressing map keyed on the packed kmer;
+ * the rest (kmers longer than {@link PackedKmer#MAX_PACKED_KMER_SIZE}, or with bases such as N) fall back to a
+ * map keyed on {@link Kmer}. Both maps iterate in insertion order.
+ *
+ * Fallback keys share the array they were created from, as {@link Kmer} does, so that array must not be modified.
+ */
+final class PackedKmerMap<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int kmerSize;
+    private final Long2ObjectLinkedOpenHashMap<V> packedKmers = new Long2ObjectLinkedOpenHashMap<>();
+    private final Map<Kmer, V> otherKmers = new LinkedHashMap<>();
+
+    /**
+     * @param kmerSize the size of every kmer in this map; must be positive
+     */
+    PackedKmerMap(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "kmerSize must be positive but was " + kmerSize);
+        this.kmerSize = kmerSize;
+    }
+
+    /**
+     * @return the value for the kmer that starts at start in bases, or null if there is none
+     */
+    V get(final byte[] bases, final int start) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.get(packed) : otherKmers.get(new Kmer(bases, start, kmerSize));
+    }
+
+    /**
+     * @return the value for kmer, or null if there is none (including if kmer is not of this map's kmer size)
+     */
+    V get(final Kmer kmer) {
+        return kmer.length() == kmerSize ? get(kmer.bases(), 0) : null;
+    }
+
+    /**
+     * @return true if the kmer that starts at start in bases is in this map
+     */
+    boolean containsKey(final byte[] bases, final int start) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.containsKey(packed) : otherKmers.containsKey(new Kmer(bases, start, kmerSize));
+    }
+
+    /**
+     * Associate value with the kmer that starts at start in bases
+     *
+     * @return the previous value for the kmer, or null if there was none
+     */
+    V put(final byte[] bases, final int start, final V value) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.put(packed, value) : otherKmers.put(new Kmer(bases, start, kmerSize), value);
+    }
+
+    /**
+     * Remove the kmer that starts at start in bases
+     *
+     * @return the value for the kmer, or null if it was not in this map
+     */
+    V remove(final byte[] bases, final int start) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.remove(packed) : otherKmers.remove(new Kmer(bases, start, kmerSize));
+    }
+
+    int size() {
+        return packedKmers.size() + otherKmers.size();
+    }
+
+    /**
+     * @return the values in this map: those for packed kmers first, then the others, each in insertion order
+     */
+    Collection<V> values() {
+        if ( otherKmers.isEmpty() ) {
+            return packedKmers.values();
+        }
+        final Collection<V> values = new ArrayList<>(size());
+        values.addAll(packedKmers.values());
+        values.addAll(otherKmers.values());
+        return values;
+    }
+
+    void clear() {
+        packedKmers.clear();
+        otherKmers.clear();
+    }
+}
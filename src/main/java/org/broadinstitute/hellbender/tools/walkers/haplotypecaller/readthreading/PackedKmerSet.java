@@ -0,0 +1,86 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of kmers of a fixed size, for the read threading graph.
+ *
+ * Kmers are kept packed in a primitive open-addressing set where possible, as described in {@link PackedKmerMap}.
+ */
+final class PackedKmerSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int kmerSize;
+    private final LongOpenHashSet packedKmers = new LongOpenHashSet();
+    private final Set<Kmer> otherKmers = new HashSet<>();
+
+    /**
+     * @param kmerSize the size of every kmer in this set; must be positive
+     */
+    PackedKmerSet(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "kmerSize must be positive but was " + kmerSize);
+        this.kmerSize = kmerSize;
+    }
+
+    int getKmerSize() {
+        return kmerSize;
+    }
+
+    /**
+     * Add the kmer that starts at start in bases
+     *
+     * @return true if the kmer was not already in this set
+     */
+    boolean add(final byte[] bases, final int start) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.add(packed) : otherKmers.add(new Kmer(bases, start, kmerSize));
+    }
+
+    /**
+     * Add every kmer in other, which must have the same kmer size as this set
+     */
+    void addAll(final PackedKmerSet other) {
+        Utils.validateArg(other.kmerSize == kmerSize, () -> "kmer sizes differ: " + other.kmerSize + " and " + kmerSize);
+        packedKmers.addAll(other.packedKmers);
+        otherKmers.addAll(other.otherKmers);
+    }
+
+    /**
+     * @return true if the kmer that starts at start in bases is in this set
+     */
+    boolean contains(final byte[] bases, final int start) {
+        final long packed = PackedKmer.pack(bases, start, kmerSize);
+        return packed != PackedKmer.NOT_PACKABLE ? packedKmers.contains(packed) : otherKmers.contains(new Kmer(bases, start, kmerSize));
+    }
+
+    int size() {
+        return packedKmers.size() + otherKmers.size();
+    }
+
+    boolean isEmpty() {
+        return packedKmers.isEmpty() && otherKmers.isEmpty();
+    }
+
+    void clear() {
+        packedKmers.clear();
+        otherKmers.clear();
+    }
+
+    /**
+     * @return a new set of Kmer objects with the same contents as this set.  Slow, for debugging and testing only.
+     */
+    Set<Kmer> toKmerSet() {
+        final Set<Kmer> kmers = new HashSet<>(otherKmers);
+        for ( final LongIterator it = packedKmers.iterator(); it.hasNext(); ) {
+            kmers.add(new Kmer(PackedKmer.unpack(it.nextLong(), kmerSize)));
+        }
+        return kmers;
+    }
+}
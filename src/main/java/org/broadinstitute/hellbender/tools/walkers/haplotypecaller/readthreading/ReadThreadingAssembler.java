@@ -20,12 +20,18 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 
 public final class ReadThreadingAssembler {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
@@ -56,6 +62,12 @@ public final class ReadThreadingAssembler {
     private boolean debugGraphTransformations = false;
     private boolean recoverDanglingBranches = true;
     private int minDanglingBranchLength = 0;
+    private SmithWatermanAligner aligner = SmithWatermanJavaAligner.getInstance();
+
+    /**
+     * Pool on which the graphs for the different kmer sizes are built, or null to build them one after the other
+     */
+    private ForkJoinPool assemblyPool = null;
 
     private static final byte MIN_BASE_QUALITY_TO_USE_IN_ASSEMBLY = DEFAULT_MIN_BASE_QUALITY_TO_USE;
 
@@ -207,7 +219,7 @@ public final class ReadThreadingAssembler {
                 final KBestHaplotype kBestHaplotype = bestHaplotypes.next();
                 final Haplotype h = kBestHaplotype.haplotype();
                 if( !returnHaplotypes.contains(h) ) {
-                    final Cigar cigar = CigarUtils.calculateCigar(refHaplotype.getBases(), h.getBases());
+                    final Cigar cigar = CigarUtils.calculateCigar(refHaplotype.getBases(), h.getBases(), aligner);
 
                     if ( cigar == null ) {
                         failedCigars++; // couldn't produce a meaningful alignment of haplotype to reference, fail quietly
@@ -383,26 +395,70 @@ public final class ReadThreadingAssembler {
         final List<AssemblyResult> results = new LinkedList<>();
 
         // first, try using the requested kmer sizes
-        for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header));
-        }
+        final List<Callable<AssemblyResult>> requestedGraphs = kmerSizes.stream()
+                .map(kmerSize -> (Callable<AssemblyResult>) () -> createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header))
+                .collect(Collectors.toList());
+        createGraphs(requestedGraphs, false).forEach(result -> addResult(results, result));
 
         // if none of those worked, iterate over larger sizes if allowed to do so
         if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
+            final List<Callable<AssemblyResult>> largerGraphs = new ArrayList<>(MAX_KMER_ITERATIONS_TO_ATTEMPT);
             int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
-            int numIterations = 1;
-            while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
+            for ( int numIterations = 1; numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT; numIterations++ ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header));
+                final int largerKmerSize = kmerSize;
+                largerGraphs.add(() -> createGraph(reads, refHaplotype, largerKmerSize, givenHaplotypes, lastAttempt, lastAttempt, header));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
             }
+            // we only want the smallest of the larger kmer sizes that works
+            createGraphs(largerGraphs, true).forEach(result -> addResult(results, result));
         }
 
         return results;
     }
 
+    /**
+     * Build the graphs for several kmer sizes, on the assembly pool if we have one.
+     *
+     * The graphs are independent of each other, so the results are the same whether or not they are built
+     * concurrently, and are always returned in the order of graphBuilders.
+     *
+     * @param graphBuilders the graphs to build, in increasing order of kmer size
+     * @param stopAtFirstResult if true, we only need the first non-null result, and the graphs after it are not built
+     *                          (or their results are discarded)
+     * @return the results of graphBuilders, in order, some of which may be null
+     */
+    private List<AssemblyResult> createGraphs(final List<Callable<AssemblyResult>> graphBuilders, final boolean stopAtFirstResult) {
+        final List<AssemblyResult> results = new ArrayList<>(graphBuilders.size());
+
+        // the debug graph files are written to the same file names for every kmer size, so don't write them concurrently
+        if ( assemblyPool == null || graphBuilders.size() == 1 || debugGraphTransformations ) {
+            for ( final Callable<AssemblyResult> graphBuilder : graphBuilders ) {
+                final AssemblyResult result = ForkJoinTask.adapt(graphBuilder).invoke();
+                results.add(result);
+                if ( stopAtFirstResult && result != null ) {
+                    break;
+                }
+            }
+            return results;
+        }
+
+        final List<ForkJoinTask<AssemblyResult>> tasks = graphBuilders.stream()
+                .map(graphBuilder -> assemblyPool.submit(graphBuilder))
+                .collect(Collectors.toList());
+        for ( int i = 0; i < tasks.size(); i++ ) {
+            final AssemblyResult result = tasks.get(i).join();
+            results.add(result);
+            if ( stopAtFirstResult && result != null ) {
+                // the graphs for the larger kmer sizes are no longer needed
+                tasks.subList(i + 1, tasks.size()).forEach(task -> task.cancel(false));
+                break;
+            }
+        }
+        return results;
+    }
+
     private static int arrayMaxInt(final List<Integer> array) {
         return array.stream().mapToInt(Integer::intValue).max().orElseThrow(() -> new IllegalArgumentException("Array size cannot be 0!"));
     }
@@ -488,8 +544,8 @@ public final class ReadThreadingAssembler {
         // look at all chains in the graph that terminate in a non-ref node (dangling sources and sinks) and see if
         // we can recover them by merging some N bases from the chain back into the reference
         if ( recoverDanglingBranches ) {
-            rtgraph.recoverDanglingTails(pruneFactor, minDanglingBranchLength);
-            rtgraph.recoverDanglingHeads(pruneFactor, minDanglingBranchLength);
+            rtgraph.recoverDanglingTails(pruneFactor, minDanglingBranchLength, aligner);
+            rtgraph.recoverDanglingHeads(pruneFactor, minDanglingBranchLength, aligner);
         }
 
         // remove all heading and trailing paths
@@ -620,6 +676,38 @@ public final class ReadThreadingAssembler {
         this.minDanglingBranchLength = minDanglingBranchLength;
     }
 
+    /**
+     * Set the Smith-Waterman aligner used to align haplotypes and dangling branches to the reference.
+     * The assembler does not close the aligner, which must be safe to use from several threads if
+     * {@link #setAssemblyThreads} is greater than one.
+     */
+    public void setSmithWatermanAligner(final SmithWatermanAligner aligner) {
+        this.aligner = Utils.nonNull(aligner);
+    }
+
+    /**
+     * Set the number of threads on which the graphs for the different kmer sizes of a region are built.
+     * With a single thread, the default, the graphs are built one after the other on the calling thread.
+     * Call {@link #shutdown} when done with an assembler that uses more than one thread.
+     */
+    public void setAssemblyThreads(final int numThreads) {
+        ParamUtils.isPositive(numThreads, "The number of assembly threads must be positive");
+        shutdown();
+        if ( numThreads > 1 ) {
+            assemblyPool = new ForkJoinPool(numThreads);
+        }
+    }
+
+    /**
+     * Stop the threads used for assembly, if any. The assembler can still be used afterwards, on the calling thread.
+     */
+    public void shutdown() {
+        if ( assemblyPool != null ) {
+            assemblyPool.shutdown();
+            assemblyPool = null;
+        }
+    }
+
     @VisibleForTesting
     void setJustReturnRawGraph(final boolean justReturnRawGraph) {
         this.justReturnRawGraph = justReturnRawGraph;
@@ -18,6 +18,8 @@ import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SWPairwiseAlignment;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignment;
 import org.jgrapht.EdgeFactory;
 
 import java.io.File;
@@ -56,12 +58,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     /**
      * A set of non-unique kmers that cannot be used as merge points in the graph
      */
-    private Set<Kmer> nonUniqueKmers;
+    private PackedKmerSet nonUniqueKmers;
 
     /**
      * A map from kmers -> their corresponding vertex in the graph
      */
-    private final Map<Kmer, MultiDeBruijnVertex> uniqueKmers = new LinkedHashMap<>();
+    private final PackedKmerMap<MultiDeBruijnVertex> uniqueKmers;
 
     private final boolean debugGraphTransformations;
     private final byte minBaseQualityToUseInAssembly;
@@ -95,6 +97,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     @VisibleForTesting
     protected ReadThreadingGraph(final int kmerSizeFromString, final EdgeFactory<MultiDeBruijnVertex, MultiSampleEdge> edgeFactory) {
         super(kmerSizeFromString, new MyEdgeFactory(1));
+        uniqueKmers = new PackedKmerMap<>(kmerSizeFromString);
         debugGraphTransformations = false;
         minBaseQualityToUseInAssembly = 0;
     }
@@ -143,6 +146,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
         Utils.validateArg( kmerSize > 0, () -> "bad minkKmerSize " + kmerSize);
 
+        uniqueKmers = new PackedKmerMap<>(kmerSize);
         this.debugGraphTransformations = debugGraphTransformations;
         this.minBaseQualityToUseInAssembly = minBaseQualityToUseInAssembly;
 
@@ -265,8 +269,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( isThreadingStart(kmer1) ) {
+            if ( isThreadingStart(seqForKmers.sequence, i) ) {
                 return i;
             }
         }
@@ -280,12 +283,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      * @see #getThreadingStartOnlyAtExistingVertex()
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence containing the query kmer.
+     * @param start the start of the query kmer in sequence.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    private boolean isThreadingStart(final Kmer kmer) {
-        Utils.nonNull(kmer);
-        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
+    private boolean isThreadingStart(final byte[] sequence, final int start) {
+        return startThreadingOnlyAtExistingVertex ? uniqueKmers.containsKey(sequence, start) : !nonUniqueKmers.contains(sequence, start);
     }
 
     /**
@@ -344,8 +347,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final boolean result = super.removeVertex(V);
         if (result) {
             final byte[] sequence = V.getSequence();
-            final Kmer kmer = new Kmer(sequence);
-            uniqueKmers.remove(kmer);
+            // only kmerSize vertices can be in uniqueKmers
+            if (sequence.length == kmerSize) {
+                uniqueKmers.remove(sequence, 0);
+            }
         }
         return result;
     }
@@ -428,9 +433,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     /** structure that keeps track of the non-unique kmers for a given kmer size */
     private static final class NonUniqueResult {
-        final Set<Kmer> nonUniques;
+        final PackedKmerSet nonUniques;
 
-        private NonUniqueResult(final Set<Kmer> nonUniques) {
+        private NonUniqueResult(final PackedKmerSet nonUniques) {
             this.nonUniques = nonUniques;
         }
     }
@@ -469,10 +474,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
      * @param minDanglingBranchLength the minimum length of a dangling branch for us to try to merge it
+     * @param aligner the Smith-Waterman aligner to use to align dangling tails to the reference path
      */
-    public void recoverDanglingTails(final int pruneFactor, final int minDanglingBranchLength) {
+    public void recoverDanglingTails(final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
         Utils.validateArg(pruneFactor >= 0, () -> "pruneFactor must be non-negative but was " + pruneFactor);
         Utils.validateArg(minDanglingBranchLength >= 0, () -> "minDanglingBranchLength must be non-negative but was " + minDanglingBranchLength);
+        Utils.nonNull(aligner);
 
         if ( ! alreadyBuilt ) {
             throw new IllegalStateException("recoverDanglingTails requires the graph be already built");
@@ -483,7 +490,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         for ( final MultiDeBruijnVertex v : vertexSet() ) {
             if ( outDegreeOf(v) == 0 && ! isRefSink(v) ) {
                 attempted++;
-                nRecovered += recoverDanglingTail(v, pruneFactor, minDanglingBranchLength);
+                nRecovered += recoverDanglingTail(v, pruneFactor, minDanglingBranchLength, aligner);
             }
         }
 
@@ -496,10 +503,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
      * @param minDanglingBranchLength the minimum length of a dangling branch for us to try to merge it
+     * @param aligner the Smith-Waterman aligner to use to align dangling heads to the reference path
      */
-    public void recoverDanglingHeads(final int pruneFactor, final int minDanglingBranchLength) {
+    public void recoverDanglingHeads(final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
         Utils.validateArg(pruneFactor >= 0, () -> "pruneFactor must be non-negative but was " + pruneFactor);
         Utils.validateArg(minDanglingBranchLength >= 0, () -> "minDanglingBranchLength must be non-negative but was " + minDanglingBranchLength);
+        Utils.nonNull(aligner);
         if ( ! alreadyBuilt ) {
             throw new IllegalStateException("recoverDanglingHeads requires the graph be already built");
         }
@@ -515,7 +524,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         int nRecovered = 0;
         for ( final MultiDeBruijnVertex v : danglingHeads ) {
             attempted++;
-            nRecovered += recoverDanglingHead(v, pruneFactor, minDanglingBranchLength);
+            nRecovered += recoverDanglingHead(v, pruneFactor, minDanglingBranchLength, aligner);
         }
 
         logger.debug(String.format("Recovered %d of %d dangling heads", nRecovered, attempted));
@@ -527,15 +536,16 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @param vertex the vertex to recover
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
      * @param minDanglingBranchLength the minimum length of a dangling branch for us to try to merge it
+     * @param aligner the Smith-Waterman aligner to use
      * @return 1 if we successfully recovered the vertex and 0 otherwise
      */
-    private int recoverDanglingTail(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength) {
+    private int recoverDanglingTail(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
         if ( outDegreeOf(vertex) != 0 ) {
             throw new IllegalStateException("Attempting to recover a dangling tail for " + vertex + " but it has out-degree > 0");
         }
 
         // generate the CIGAR string from Smith-Waterman between the dangling tail and reference paths
-        final DanglingChainMergeHelper danglingTailMergeResult = generateCigarAgainstDownwardsReferencePath(vertex, pruneFactor, minDanglingBranchLength);
+        final DanglingChainMergeHelper danglingTailMergeResult = generateCigarAgainstDownwardsReferencePath(vertex, pruneFactor, minDanglingBranchLength, aligner);
 
         // if the CIGAR is too complex (or couldn't be computed) then we do not allow the merge into the reference path
         if ( danglingTailMergeResult == null || ! cigarIsOkayToMerge(danglingTailMergeResult.cigar, false, true) ) {
@@ -552,15 +562,16 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @param vertex the vertex to recover
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
      * @param minDanglingBranchLength the minimum length of a dangling branch for us to try to merge it
+     * @param aligner the Smith-Waterman aligner to use
      * @return 1 if we successfully recovered a vertex and 0 otherwise
      */
-    private int recoverDanglingHead(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength) {
+    private int recoverDanglingHead(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
         if ( inDegreeOf(vertex) != 0 ) {
             throw new IllegalStateException("Attempting to recover a dangling head for " + vertex + " but it has in-degree > 0");
         }
 
         // generate the CIGAR string from Smith-Waterman between the dangling tail and reference paths
-        final DanglingChainMergeHelper danglingHeadMergeResult = generateCigarAgainstUpwardsReferencePath(vertex, pruneFactor, minDanglingBranchLength);
+        final DanglingChainMergeHelper danglingHeadMergeResult = generateCigarAgainstUpwardsReferencePath(vertex, pruneFactor, minDanglingBranchLength, aligner);
 
         // if the CIGAR is too complex (or couldn't be computed) then we do not allow the merge into the reference path
         if ( danglingHeadMergeResult == null || ! cigarIsOkayToMerge(danglingHeadMergeResult.cigar, true, false) ) {
@@ -706,10 +717,11 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * @param vertex   the sink of the dangling chain
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
+     * @param aligner the Smith-Waterman aligner to use
      * @return a SmithWaterman object which can be null if no proper alignment could be generated
      */
     @VisibleForTesting
-    final DanglingChainMergeHelper generateCigarAgainstDownwardsReferencePath(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength) {
+    final DanglingChainMergeHelper generateCigarAgainstDownwardsReferencePath(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
         final int minTailPathLength = Math.max(1, minDanglingBranchLength); // while heads can be 0, tails absolutely cannot
 
         // find the lowest common ancestor path between this vertex and the diverging master path if available
@@ -727,7 +739,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final byte[] altBases = getBasesForPath(altPath, false);
 
         // run Smith-Waterman to determine the best alignment (and remove trailing deletions since they aren't interesting)
-        final SWPairwiseAlignment alignment = new SWPairwiseAlignment(refBases, altBases, SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.LEADING_INDEL);
+        final SmithWatermanAlignment alignment = aligner.align(refBases, altBases, SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.LEADING_INDEL);
         return new DanglingChainMergeHelper(altPath, refPath, altBases, refBases, AlignmentUtils.removeTrailingDeletions(alignment.getCigar()));
     }
 
@@ -737,10 +749,11 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * @param vertex   the source of the dangling head
      * @param pruneFactor  the prune factor to use in ignoring chain pieces
+     * @param aligner the Smith-Waterman aligner to use
      * @return a SmithWaterman object which can be null if no proper alignment could be generated
      */
     @VisibleForTesting
-    final DanglingChainMergeHelper generateCigarAgainstUpwardsReferencePath(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength) {
+    final DanglingChainMergeHelper generateCigarAgainstUpwardsReferencePath(final MultiDeBruijnVertex vertex, final int pruneFactor, final int minDanglingBranchLength, final SmithWatermanAligner aligner) {
 
         // find the highest common descendant path between vertex and the reference source if available
         final List<MultiDeBruijnVertex> altPath = findPathDownwardsToHighestCommonDescendantOfReference(vertex, pruneFactor);
@@ -757,7 +770,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final byte[] altBases = getBasesForPath(altPath, true);
 
         // run Smith-Waterman to determine the best alignment (and remove trailing deletions since they aren't interesting)
-        final SWPairwiseAlignment alignment = new SWPairwiseAlignment(refBases, altBases, SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.LEADING_INDEL);
+        final SmithWatermanAlignment alignment = aligner.align(refBases, altBases, SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.LEADING_INDEL);
         return new DanglingChainMergeHelper(altPath, refPath, altBases, refBases, AlignmentUtils.removeTrailingDeletions(alignment.getCigar()));
     }
 
@@ -947,27 +960,25 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null NonUniqueResult
      */
     private NonUniqueResult determineKmerSizeAndNonUniques(final int minKmerSize, final int maxKmerSize) {
+        Utils.validateArg(minKmerSize <= maxKmerSize, () -> "minKmerSize " + minKmerSize + " must be <= maxKmerSize " + maxKmerSize);
         final Collection<SequenceForKmers> withNonUniques = getAllPendingSequences();
-        final Set<Kmer> nonUniqueKmers = new HashSet<>();
+        PackedKmerSet nonUniqueKmers = null;
 
         // go through the sequences and determine which kmers aren't unique within each read
         for (int kmerSize = minKmerSize ; kmerSize <= maxKmerSize; kmerSize++) {
-            // clear out set of non-unique kmers
-            nonUniqueKmers.clear();
+            // start a new set of non-unique kmers, since the packed kmers depend on the kmer size
+            nonUniqueKmers = new PackedKmerSet(kmerSize);
+            final PackedKmerSet kmersInSequence = new PackedKmerSet(kmerSize);
 
             // loop over all sequences that have non-unique kmers in them from the previous iterator
             final Iterator<SequenceForKmers> it = withNonUniques.iterator();
             while ( it.hasNext() ) {
                 final SequenceForKmers sequenceForKmers = it.next();
 
-                // determine the non-unique kmers for this sequence
-                final Collection<Kmer> nonUniquesFromSeq = determineNonUniqueKmers(sequenceForKmers, kmerSize);
-                if ( nonUniquesFromSeq.isEmpty() ) {
+                // keep track of the non-uniques for this kmerSize, and keep the sequence in the list of sequences that have non-uniques
+                if ( ! addNonUniqueKmers(sequenceForKmers, kmerSize, kmersInSequence, nonUniqueKmers) ) {
                     // remove this sequence from future consideration
                     it.remove();
-                } else {
-                    // keep track of the non-uniques for this kmerSize, and keep it in the list of sequences that have non-uniques
-                    nonUniqueKmers.addAll(nonUniquesFromSeq);
                 }
             }
 
@@ -991,23 +1002,37 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     }
 
     /**
-     * Get the collection of non-unique kmers from sequence for kmer size kmerSize
+     * Get the set of non-unique kmers from sequence for kmer size kmerSize
+     * @param seqForKmers a sequence to get kmers from
+     * @param kmerSize the size of the kmers
+     * @return a non-null set of non-unique kmers in sequence
+     */
+    static PackedKmerSet determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+        final PackedKmerSet nonUniqueKmers = new PackedKmerSet(kmerSize);
+        addNonUniqueKmers(seqForKmers, kmerSize, new PackedKmerSet(kmerSize), nonUniqueKmers);
+        return nonUniqueKmers;
+    }
+
+    /**
+     * Add the non-unique kmers from sequence for kmer size kmerSize to nonUniqueKmers
      * @param seqForKmers a sequence to get kmers from
      * @param kmerSize the size of the kmers
-     * @return a non-null collection of non-unique kmers in sequence
+     * @param kmersInSequence scratch set of kmers of size kmerSize, reused between calls to avoid allocation; its contents are replaced
+     * @param nonUniqueKmers the set of kmers of size kmerSize to add the non-unique kmers in sequence to
+     * @return true if sequence has any non-unique kmers
      */
-    static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+    static boolean addNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize, final PackedKmerSet kmersInSequence, final PackedKmerSet nonUniqueKmers) {
         // count up occurrences of kmers within each read
-        final Set<Kmer> allKmers = new LinkedHashSet<>();
-        final List<Kmer> nonUniqueKmers = new ArrayList<>();
+        kmersInSequence.clear();
+        boolean foundNonUnique = false;
         final int stopPosition = seqForKmers.stop - kmerSize;
         for (int i = 0; i <= stopPosition; i++) {
-            final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (!allKmers.add(kmer)) {
-                nonUniqueKmers.add(kmer);
+            if (!kmersInSequence.add(seqForKmers.sequence, i)) {
+                nonUniqueKmers.add(seqForKmers.sequence, i);
+                foundNonUnique = true;
             }
         }
-        return nonUniqueKmers;
+        return foundNonUnique;
     }
 
     @Override
@@ -1042,23 +1067,22 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @return a non-null vertex
      */
     private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(kmer, true);
-        return ( vertex != null ) ? vertex : createVertex(kmer);
+        final MultiDeBruijnVertex vertex = getUniqueKmerVertex(sequence, start, true);
+        return ( vertex != null ) ? vertex : createVertex(sequence, start);
     }
 
     /**
-     * Get the unique vertex for kmer, or null if not possible.
+     * Get the unique vertex for the kmer in sequence starting at start, or null if not possible.
      *
      * @param allowRefSource if true, we will allow kmer to match the reference source vertex
      * @return a vertex for kmer, or null if it's not unique
      */
-    private MultiDeBruijnVertex getUniqueKmerVertex(final Kmer kmer, final boolean allowRefSource) {
-        if ( ! allowRefSource && kmer.equals(refSource) ) {
+    private MultiDeBruijnVertex getUniqueKmerVertex(final byte[] sequence, final int start, final boolean allowRefSource) {
+        if ( ! allowRefSource && refSource != null && Utils.equalRange(sequence, start, refSource.bases(), 0, kmerSize) ) {
             return null;
         }
 
-        return uniqueKmers.get(kmer);
+        return uniqueKmers.get(sequence, start);
     }
 
 
@@ -1067,11 +1091,12 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      *
      * kmer must not have a entry in unique kmers, or an error will be thrown
      *
-     * @param kmer the kmer we want to create a vertex for
+     * @param sequence the sequence containing the kmer we want to create a vertex for
+     * @param start the start of the kmer in sequence
      * @return the non-null created vertex
      */
-    private MultiDeBruijnVertex createVertex(final Kmer kmer) {
-        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(kmer.bases());
+    private MultiDeBruijnVertex createVertex(final byte[] sequence, final int start) {
+        final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(Arrays.copyOfRange(sequence, start, start + kmerSize));
         final int prevSize = vertexSet().size();
         addVertex(newVertex);
 
@@ -1081,9 +1106,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the vertex to the unique kmer map, if it is in fact unique
-        if ( ! nonUniqueKmers.contains(kmer) && ! uniqueKmers.containsKey(kmer) ) // TODO -- not sure this last test is necessary
+        if ( ! nonUniqueKmers.contains(sequence, start) && ! uniqueKmers.containsKey(sequence, start) ) // TODO -- not sure this last test is necessary
         {
-            uniqueKmers.put(kmer, newVertex);
+            uniqueKmers.put(sequence, start, newVertex);
         }
 
         return newVertex;
@@ -1114,15 +1139,14 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
-        final Kmer kmer = new Kmer(sequence, kmerStart, kmerSize);
-        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(kmer, false);
+        final MultiDeBruijnVertex uniqueMergeVertex = getUniqueKmerVertex(sequence, kmerStart, false);
 
         if ( isRef && uniqueMergeVertex != null ) {
             throw new IllegalStateException("Found a unique vertex to merge into the reference graph " + prevVertex + " -> " + uniqueMergeVertex);
         }
 
         // either use our unique merge vertex, or create a new one in the chain
-        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(kmer) : uniqueMergeVertex;
+        final MultiDeBruijnVertex nextVertex = uniqueMergeVertex == null ? createVertex(sequence, kmerStart) : uniqueMergeVertex;
         addEdge(prevVertex, nextVertex, ((MyEdgeFactory)getEdgeFactory()).createEdge(isRef, count));
         return nextVertex;
     }
@@ -1135,8 +1159,8 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     void addRead(final GATKRead read, final SAMFileHeader header) {
-        final byte[] sequence = read.getBases();
-        final byte[] qualities = read.getBaseQualities();
+        final byte[] sequence = read.getBasesNoCopy();
+        final byte[] qualities = read.getBaseQualitiesNoCopy();
 
         int lastGood = -1;
         for( int end = 0; end <= sequence.length; end++ ) {
@@ -1149,7 +1173,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
                 if ( start != -1 && len >= kmerSize ) {
                     // if the sequence is long enough to get some value out of, add it to the graph
                     final String name = read.getName() + '_' + start + '_' + end;
-                    addSequence(name, ReadUtils.getSampleName(read, header), read.getBases(), start, end, 1, false);
+                    addSequence(name, ReadUtils.getSampleName(read, header), sequence, start, end, 1, false);
                 }
 
                 lastGood = -1; // reset the last good base
@@ -1177,7 +1201,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     Set<Kmer> getNonUniqueKmers() {
-        return nonUniqueKmers;
+        return nonUniqueKmers.toKmerSet();
     }
 
     @Override
@@ -7,6 +7,7 @@ import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -19,6 +20,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Call somatic short variants, both SNVs and indels, via local assembly of haplotypes
@@ -195,6 +197,10 @@ public final class Mutect2 extends AssemblyRegionWalker {
 
     private Mutect2Engine m2Engine;
 
+    // The engine for each traversal thread: m2Engine for the thread that started the traversal, and copies of it for the others
+    private ThreadLocal<Mutect2Engine> m2Engines;
+    private final List<Mutect2Engine> workerEngines = new ArrayList<>();
+
     @Override
     protected int defaultReadShardSize() { return 5000; }
 
@@ -225,11 +231,34 @@ public final class Mutect2 extends AssemblyRegionWalker {
     }
 
     @Override
-    public AssemblyRegionEvaluator assemblyRegionEvaluator() { return m2Engine; }
+    public AssemblyRegionEvaluator assemblyRegionEvaluator() { return m2Engines.get(); }
+
+    /**
+     * Each traversal thread uses its own Mutect2Engine, and all calls are written via {@link #emitInShardOrder}.
+     */
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
 
     @Override
     public void onTraversalStart() {
+        if ( traversalThreads > 1 && MTAC.bamOutputPath != null ) {
+            throw new CommandLineException.BadArgumentValue("bamOutput", "is not supported with more than one traversal thread");
+        }
+
         m2Engine = new Mutect2Engine(MTAC, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), referenceArguments.getReferenceFileName());
+        final Thread traversalThread = Thread.currentThread();
+        m2Engines = ThreadLocal.withInitial(() -> {
+            if ( Thread.currentThread() == traversalThread ) {
+                return m2Engine;
+            }
+            final Mutect2Engine engine = new Mutect2Engine(m2Engine, referenceArguments.getReferenceFileName());
+            synchronized ( workerEngines ) {
+                workerEngines.add(engine);
+            }
+            return engine;
+        });
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = createVCFWriter(outputVCF);
         m2Engine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
@@ -242,11 +271,13 @@ public final class Mutect2 extends AssemblyRegionWalker {
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        m2Engine.callRegion(region, referenceContext, featureContext).stream()
+        final List<VariantContext> calls = m2Engines.get().callRegion(region, referenceContext, featureContext).stream()
                 // Only include calls that start within the current read shard (as opposed to the padded regions around it).
                 // This is critical to avoid duplicating events that span shard boundaries!
                 .filter(call -> getCurrentReadShardBounds().contains(new SimpleInterval(call.getContig(), call.getStart(), call.getStart())))
-                .forEach(vcfWriter::add);
+                .collect(Collectors.toList());
+
+        emitInShardOrder(() -> calls.forEach(vcfWriter::add));
     }
 
     @Override
@@ -255,6 +286,11 @@ public final class Mutect2 extends AssemblyRegionWalker {
             vcfWriter.close();
         }
 
+        synchronized ( workerEngines ) {
+            workerEngines.forEach(Mutect2Engine::shutdown);
+            workerEngines.clear();
+        }
+
         if ( m2Engine != null ) {
             m2Engine.shutdown();
         }
@@ -31,6 +31,7 @@ import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 
@@ -65,6 +66,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
 
     private CachingIndexedFastaSequenceFile referenceReader;
     private ReadThreadingAssembler assemblyEngine;
+    private SmithWatermanAligner aligner;
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine;
     private SomaticGenotypingEngine genotypingEngine;
     private Optional<HaplotypeBAMWriter> haplotypeBAMWriter;
@@ -98,6 +100,31 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
         initialize(createBamOutIndex, createBamOutMD5);
     }
 
+    /**
+     * Create a new Mutect2Engine that shares the immutable state of an existing engine (arguments, header, samples,
+     * and annotation engine) but has its own reference reader, assembler, aligner, likelihood calculation engine,
+     * genotyping engine, and trimmer, so that it can call regions concurrently with the original engine.
+     *
+     * Engines created this way never write a -bamout file.
+     *
+     * @param prototype fully-initialized engine whose immutable state should be shared
+     * @param reference path to the reference
+     */
+    public Mutect2Engine(final Mutect2Engine prototype, final String reference ) {
+        Utils.nonNull(prototype);
+        Utils.nonNull(reference);
+        this.MTAC = prototype.MTAC;
+        this.header = prototype.header;
+        referenceReader = AssemblyBasedCallerUtils.createReferenceReader(reference);
+
+        // The samples were already validated, and any contamination file loaded, by the prototype
+        samplesList = prototype.samplesList;
+        annotationEngine = prototype.annotationEngine;
+        haplotypeBAMWriter = Optional.empty();
+
+        initializePerThreadComponents();
+    }
+
     private void initialize(final boolean createBamOutIndex, final boolean createBamOutBamMD5) {
 
         samplesList = new IndexedSampleList(new ArrayList<>(ReadUtils.getSamplesFromHeader(header)));
@@ -115,18 +142,29 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
                 MTAC.dbsnp.dbsnp,
                 MTAC.comps);
 
+        haplotypeBAMWriter = AssemblyBasedCallerUtils.createBamWriter(MTAC, createBamOutIndex, createBamOutBamMD5, header);
+
+        if( MTAC.CONTAMINATION_FRACTION_FILE != null ) {
+            MTAC.setSampleContamination(AlleleBiasedDownsamplingUtils.loadContaminationFile(MTAC.CONTAMINATION_FRACTION_FILE, MTAC.CONTAMINATION_FRACTION, samplesList.asSetOfSamples(), logger));
+        }
+
+        initializePerThreadComponents();
+    }
+
+    /**
+     * Initialize the mutable components of this engine that cannot be shared between threads.
+     * Must be called after the samples, arguments, and annotation engine have been initialized.
+     */
+    private void initializePerThreadComponents() {
+        aligner = SmithWatermanAligner.getAligner(MTAC.smithWatermanImplementation);
         assemblyEngine = AssemblyBasedCallerUtils.createReadThreadingAssembler(MTAC);
+        assemblyEngine.setSmithWatermanAligner(aligner);
         likelihoodCalculationEngine = AssemblyBasedCallerUtils.createLikelihoodCalculationEngine(MTAC.likelihoodArgs);
         genotypingEngine = new SomaticGenotypingEngine(samplesList, MTAC, MTAC.tumorSampleName, MTAC.normalSampleName);
         genotypingEngine.setAnnotationEngine(annotationEngine);
-        haplotypeBAMWriter = AssemblyBasedCallerUtils.createBamWriter(MTAC, createBamOutIndex, createBamOutBamMD5, header);
 
         trimmer.initialize(MTAC.assemblyRegionTrimmerArgs, header.getSequenceDictionary(), MTAC.debug,
                 MTAC.genotypingOutputMode == GenotypingOutputMode.GENOTYPE_GIVEN_ALLELES, false);
-
-        if( MTAC.CONTAMINATION_FRACTION_FILE != null ) {
-            MTAC.setSampleContamination(AlleleBiasedDownsamplingUtils.loadContaminationFile(MTAC.CONTAMINATION_FRACTION_FILE, MTAC.CONTAMINATION_FRACTION, samplesList.asSetOfSamples(), logger));
-        }
     }
 
     /**
@@ -227,7 +265,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
         final Map<String,List<GATKRead>> reads = splitReadsBySample( regionForGenotyping.getReads() );
 
         final ReadLikelihoods<Haplotype> readLikelihoods = likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult,samplesList,reads);
-        final Map<GATKRead,GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc());
+        final Map<GATKRead,GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc(), aligner);
         readLikelihoods.changeReads(readRealignments);
 
         final HaplotypeCallerGenotypingEngine.CalledHaplotypes calledHaplotypes = genotypingEngine.callMutations(
@@ -273,6 +311,8 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator {
      */
     public void shutdown() {
         likelihoodCalculationEngine.close();
+        aligner.close();
+        assemblyEngine.shutdown();
 
         if ( haplotypeBAMWriter.isPresent() ) {
             haplotypeBAMWriter.get().close();
@@ -108,6 +108,11 @@ public final class CheckPileup extends LocusWalker {
         }
     }
 
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public void apply(final AlignmentContext context, final ReferenceContext ref, final FeatureContext featureContext) {
         final ReadPileup pileup = context.getBasePileup();
@@ -117,24 +122,34 @@ public final class CheckPileup extends LocusWalker {
             pileup.fixOverlaps();
         }
 
+        // report errors and update the counts in order, so that we stop at the same locus regardless of threading
         if ( truePileup == null ) {
-            out.printf("No truth pileup data available at %s%n", pileup.getPileupString((char) ref.getBase()));
-            if ( !continueAfterAnError) {
-                throw new UserException.BadInput(
-                        String.format("No pileup data available at %s given GATK's output of %s -- this walker requires samtools mpileup data over all bases",
-                        context.getLocation(), new String(pileup.getBases())));
-            }
+            final String pileupString = pileup.getPileupString((char) ref.getBase());
+            emitInShardOrder(() -> {
+                out.printf("No truth pileup data available at %s%n", pileupString);
+                if ( !continueAfterAnError) {
+                    throw new UserException.BadInput(
+                            String.format("No pileup data available at %s given GATK's output of %s -- this walker requires samtools mpileup data over all bases",
+                            context.getLocation(), new String(pileup.getBases())));
+                }
+            });
         } else {
             final String pileupDiff = pileupDiff(pileup, truePileup);
             if ( pileupDiff != null ) {
-                out.printf("%s vs. %s%n", pileup.getPileupString((char) ref.getBase()), truePileup.getPileupString());
-                if ( !continueAfterAnError) {
-                    throw new UserException.BadInput(String.format("The input pileup doesn't match the GATK's internal pileup: %s", pileupDiff));
-                }
+                final String pileupString = pileup.getPileupString((char) ref.getBase());
+                emitInShardOrder(() -> {
+                    out.printf("%s vs. %s%n", pileupString, truePileup.getPileupString());
+                    if ( !continueAfterAnError) {
+                        throw new UserException.BadInput(String.format("The input pileup doesn't match the GATK's internal pileup: %s", pileupDiff));
+                    }
+                });
             }
         }
-        nLoci++;
-        nBases += pileup.size();
+        final int pileupSize = pileup.size();
+        emitInShardOrder(() -> {
+            nLoci++;
+            nBases += pileupSize;
+        });
     }
 
     public String pileupDiff(final ReadPileup a, final SAMPileupFeature b) {
@@ -117,6 +117,11 @@ public final class Pileup extends LocusWalker {
         return false;
     }
 
+    @Override
+    public boolean supportsThreadedTraversal() {
+        return true;
+    }
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         final List<ReadFilter> defaultFilters = super.getDefaultReadFilters();
@@ -150,7 +155,8 @@ public final class Pileup extends LocusWalker {
             s.append(" ").append(createVerboseOutput(basePileup));
         }
         s.append("\n");
-        out.print(s.toString());
+        final String line = s.toString();
+        emitInShardOrder(() -> out.print(line));
     }
 
     /**
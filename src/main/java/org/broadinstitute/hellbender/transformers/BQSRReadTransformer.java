@@ -49,6 +49,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
+    // the base substitution tables compiled into flat arrays, or null if they were too large to compile
+    private final CompiledRecalibrationTable compiledTable;
+
     /**
      * Constructor using a GATK Report file
      *
@@ -98,6 +101,15 @@ public final class BQSRReadTransformer implements ReadTransformer {
         //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
         empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
         keyCache = new CovariateKeyCache();//one cache per transformer
+
+        // compile the tables, including quantization, once up front, so that recalibrating a base is a few array lookups
+        final byte[] recalibratedToFinalQual = new byte[MAX_RECALIBRATED_Q_SCORE + 1];
+        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
+        for (int qual = 0; qual < recalibratedToFinalQual.length && qual < quantizedQuals.size(); qual++) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            recalibratedToFinalQual[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+        compiledTable = CompiledRecalibrationTable.compile(recalibrationTables, globalQScorePrior, recalibratedToFinalQual);
     }
 
     /**
@@ -136,7 +148,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
         if (emitOriginalQuals && ! read.hasAttribute(SAMTag.OQ.name())) { // Save the old qualities if the tag isn't already taken in the read
             try {
-                read.setAttribute(SAMTag.OQ.name(), SAMUtils.phredToFastq(read.getBaseQualities()));
+                read.setAttribute(SAMTag.OQ.name(), SAMUtils.phredToFastq(read.getBaseQualitiesNoCopy()));
             } catch (final IllegalArgumentException e) {
                 throw new MalformedRead(read, "illegal base quality encountered; " + e.getMessage());
             }
@@ -154,6 +166,10 @@ public final class BQSRReadTransformer implements ReadTransformer {
         // the rg key is constant over the whole read, the global deltaQ is too
         final int rgKey = fullReadKeySet[0][0];
 
+        if (compiledTable != null) {
+            return compiledTable.hasReadGroup(rgKey) ? applyCompiledTable(read, fullReadKeySet) : read;
+        }
+
         final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
 
         if (empiricalQualRG == null) {
@@ -196,6 +212,24 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return read;
     }
 
+    /**
+     * Recalibrate the base qualities of a read using the compiled tables. Gives the same results as the
+     * hierarchical model applied to the tables directly, as in {@link #apply}.
+     */
+    private GATKRead applyCompiledTable(final GATKRead read, final int[][] fullReadKeySet) {
+        final byte[] quals = read.getBaseQualities();
+
+        //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
+        for (int offset = 0; offset < quals.length; offset++) {
+            // only recalibrate usable qualities (the original quality will come from the instrument -- reported quality)
+            if (quals[offset] >= preserveQLessThan) {
+                quals[offset] = compiledTable.recalibrate(fullReadKeySet[offset]);
+            }
+        }
+        read.setBaseQualities(quals);
+        return read;
+    }
+
     // recalibrated quality is bound between 1 and MAX_QUAL
     private byte getRecalibratedQual(final double recalibratedQualDouble) {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils;
 
 import org.apache.commons.math3.exception.NotStrictlyPositiveException;
 import org.apache.commons.math3.exception.NumberIsTooLargeException;
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.special.Gamma;
 import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.apache.log4j.LogManager;
@@ -145,8 +146,18 @@ public final class MathUtils {
      * @throws NotStrictlyPositiveException if {@code k <= 0}.
      */
     public static int[] sampleIndicesWithoutReplacement(final int n, final int k) {
+        return sampleIndicesWithoutReplacement(n, k, Utils.getRandomDataGenerator());
+    }
+
+    /**
+     * Creates a new sample of k ints from [0..n-1], without duplicates, using the given random data generator.
+     * @throws NumberIsTooLargeException if {@code k > n}.
+     * @throws NotStrictlyPositiveException if {@code k <= 0}.
+     */
+    public static int[] sampleIndicesWithoutReplacement(final int n, final int k, final RandomDataGenerator rnd) {
+        Utils.nonNull(rnd);
         //No error checking : RandomDataGenetator.nextPermutation does it
-        return Utils.getRandomDataGenerator().nextPermutation(n, k);
+        return rnd.nextPermutation(n, k);
     }
 
     /**
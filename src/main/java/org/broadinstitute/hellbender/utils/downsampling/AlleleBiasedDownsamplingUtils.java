@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 import htsjdk.variant.variantcontext.Allele;
 import org.apache.commons.collections4.map.DefaultedMap;
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.BaseUtils;
@@ -94,11 +95,24 @@ public final class AlleleBiasedDownsamplingUtils {
      * @return list of reads TO REMOVE from allele biased down-sampling
      */
     public static <A extends Allele> List<GATKRead> selectAlleleBiasedReads(final Map<A, List<GATKRead>> alleleReadMap, final double contaminationFraction) {
+        return selectAlleleBiasedReads(alleleReadMap, contaminationFraction, Utils.getRandomDataGenerator());
+    }
+
+    /**
+     * Computes reads to remove based on an allele biased down-sampling, drawing from the given random data generator
+     *
+     * @param alleleReadMap             original list of records per allele
+     * @param contaminationFraction      the fraction of total reads to remove per allele
+     * @param rnd                       random data generator used to choose which reads of each allele to remove
+     * @return list of reads TO REMOVE from allele biased down-sampling
+     */
+    public static <A extends Allele> List<GATKRead> selectAlleleBiasedReads(final Map<A, List<GATKRead>> alleleReadMap, final double contaminationFraction, final RandomDataGenerator rnd) {
         Utils.nonNull(alleleReadMap, "alleleReadMap is null");
+        Utils.nonNull(rnd, "rnd is null");
         if (contaminationFraction < 0.0 || contaminationFraction > 1.0) {
             throw new IllegalArgumentException("invalid contamination fraction " + contaminationFraction);
         }
-        return selectAlleleBiasedReads(alleleReadMap, totalReads(alleleReadMap), contaminationFraction);
+        return selectAlleleBiasedReads(alleleReadMap, totalReads(alleleReadMap), contaminationFraction, rnd);
     }
 
     /**
@@ -109,6 +123,10 @@ public final class AlleleBiasedDownsamplingUtils {
      * @return list of reads TO REMOVE from allele biased down-sampling
      */
     public static <A extends Allele> List<GATKRead> selectAlleleBiasedReads(final Map<A, List<GATKRead>> alleleReadMap, final int totalReads, final double contaminationFraction) {
+        return selectAlleleBiasedReads(alleleReadMap, totalReads, contaminationFraction, Utils.getRandomDataGenerator());
+    }
+
+    private static <A extends Allele> List<GATKRead> selectAlleleBiasedReads(final Map<A, List<GATKRead>> alleleReadMap, final int totalReads, final double contaminationFraction, final RandomDataGenerator rnd) {
         //no checks here - done on the public level
         final int numReadsToRemove = (int)(totalReads * contaminationFraction);
 
@@ -127,7 +145,7 @@ public final class AlleleBiasedDownsamplingUtils {
         final List<GATKRead> readsToRemove = new ArrayList<>(numReadsToRemove);
         for ( int i = 0; i < numAlleles; i++ ) {
             if ( alleleCounts[i] > targetAlleleCounts[i] ) {
-                readsToRemove.addAll(downsampleElements(alleleReadMap.get(alleles.get(i)), alleleCounts[i] - targetAlleleCounts[i]));
+                readsToRemove.addAll(downsampleElements(alleleReadMap.get(alleles.get(i)), alleleCounts[i] - targetAlleleCounts[i], rnd));
             }
         }
 
@@ -146,9 +164,10 @@ public final class AlleleBiasedDownsamplingUtils {
      *
      * @param reads                     original list of records
      * @param numElementsToRemove       the number of records to remove
+     * @param rnd                       random data generator used to choose the records to remove
      * @return the list of pileup elements TO REMOVE. The list is unmodifable.
      */
-    private static List<GATKRead> downsampleElements(final List<GATKRead> reads, final int numElementsToRemove) {
+    private static List<GATKRead> downsampleElements(final List<GATKRead> reads, final int numElementsToRemove, final RandomDataGenerator rnd) {
         if ( numElementsToRemove == 0 ) {  //remove none
             return Collections.emptyList();
         }
@@ -157,7 +176,7 @@ public final class AlleleBiasedDownsamplingUtils {
         }
 
         final List<GATKRead> elementsToRemove = new ArrayList<>(numElementsToRemove);
-        for (final int idx : MathUtils.sampleIndicesWithoutReplacement(reads.size(), numElementsToRemove)){
+        for (final int idx : MathUtils.sampleIndicesWithoutReplacement(reads.size(), numElementsToRemove, rnd)){
             elementsToRemove.add(reads.get(idx));
         }
         return Collections.unmodifiableList(elementsToRemove);
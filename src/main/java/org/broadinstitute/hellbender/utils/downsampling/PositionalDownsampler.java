@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 
 /**
@@ -35,10 +36,21 @@ public final class PositionalDownsampler extends ReadsDownsampler {
      * @param header SAMFileHeader to use to determine contig ordering. Non-null.
      */
     public PositionalDownsampler( final int targetCoverage, final SAMFileHeader header ) {
+        this(targetCoverage, header, Utils.getRandomGenerator());
+    }
+
+    /**
+     * Construct a PositionalDownsampler with its own source of randomness
+     *
+     * @param targetCoverage Maximum number of reads that may share any given alignment start position. Must be > 0
+     * @param header SAMFileHeader to use to determine contig ordering. Non-null.
+     * @param random source of randomness for choosing which reads to retain. Non-null.
+     */
+    public PositionalDownsampler( final int targetCoverage, final SAMFileHeader header, final Random random ) {
         Utils.validateArg(targetCoverage > 0, "targetCoverage must be > 0");
         Utils.nonNull(header);
 
-        this.reservoir = new ReservoirDownsampler(targetCoverage);
+        this.reservoir = new ReservoirDownsampler(targetCoverage, false, random);
         this.finalizedReads = new ArrayList<>();
         this.header = header;
         clearItems();
@@ -7,6 +7,7 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.apache.commons.collections.ListUtils;
+import org.apache.commons.math3.random.RandomDataGenerator;
 import org.broadinstitute.hellbender.utils.IndexRange;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -927,7 +928,22 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
      * @throws IllegalArgumentException if {@code perSampleDownsamplingFraction} is {@code null}.
      */
     public void contaminationDownsampling(final Map<String, Double> perSampleDownsamplingFraction) {
+        contaminationDownsampling(perSampleDownsamplingFraction, Utils.getRandomDataGenerator());
+    }
+
+    /**
+     * Downsamples reads based on contamination fractions making sure that all alleles are affected proportionally,
+     * choosing the reads to remove with the given random data generator.
+     *
+     * @param perSampleDownsamplingFraction contamination sample map where the sample name are the keys and the
+     *                                       fractions are the values.
+     * @param rnd random data generator used to choose the reads to remove.
+     *
+     * @throws IllegalArgumentException if {@code perSampleDownsamplingFraction} or {@code rnd} is {@code null}.
+     */
+    public void contaminationDownsampling(final Map<String, Double> perSampleDownsamplingFraction, final RandomDataGenerator rnd) {
         Utils.nonNull(perSampleDownsamplingFraction);
+        Utils.nonNull(rnd);
 
         final int alleleCount = alleles.numberOfAlleles();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
@@ -945,7 +961,7 @@ public final class ReadLikelihoods<A extends Allele> implements SampleList, Alle
                 removeSampleReads(s, removeIndices, alleleCount);
             } else {
                 final Map<A,List<GATKRead>> readsByBestAllelesMap = readsByBestAlleleMap(s);
-                removeSampleReads(s, AlleleBiasedDownsamplingUtils.selectAlleleBiasedReads(readsByBestAllelesMap, fraction),alleleCount);
+                removeSampleReads(s, AlleleBiasedDownsamplingUtils.selectAlleleBiasedReads(readsByBestAllelesMap, fraction, rnd),alleleCount);
             }
         }
     }
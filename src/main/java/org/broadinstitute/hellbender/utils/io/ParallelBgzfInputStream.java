@@ -0,0 +1,295 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.BlockGunzipper;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An InputStream over the uncompressed contents of a BGZF file (eg., a BAM file) that inflates the blocks of the file
+ * ahead of the reader on a pool of threads.
+ *
+ * The compressed blocks are read sequentially from the channel on the thread that reads from this stream, and each
+ * block is handed to the pool to be inflated as soon as it has been read, so that up to readAheadBlocks blocks are
+ * being inflated concurrently while the reader consumes the uncompressed data of earlier blocks. Blocks are always
+ * returned in file order.
+ *
+ * Like {@link htsjdk.samtools.util.BlockCompressedInputStream}, positions within the stream are BGZF virtual file
+ * pointers (the address of a block in the file, shifted left by 16 bits, plus an offset within the uncompressed block),
+ * see {@link #getFilePointer} and {@link #seek}.
+ *
+ * Blocks are inflated with inflaters made by {@link BlockGunzipper#getDefaultInflaterFactory()}, so that the same
+ * (eg., Intel) inflater is used as by htsjdk.
+ *
+ * This class is not thread-safe: only one thread at a time may read from the stream.
+ */
+public final class ParallelBgzfInputStream extends InputStream {
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> BlockGunzipper.getDefaultInflaterFactory().makeInflater(true));
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final SeekableByteChannel channel;
+    private final ExecutorService inflaterPool;
+    private final int readAheadBlocks;
+    private final String source;
+
+    // blocks that have been read from the channel and submitted for inflation, in file order
+    private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+    private long nextBlockAddress;
+    private boolean endOfChannel = false;
+
+    // the uncompressed contents of the block currently being read, and its address (-1 if no block has been read)
+    private byte[] currentBlock = NO_DATA;
+    private int currentOffset = 0;
+    private long currentBlockAddress = -1;
+    private long currentBlockEnd;
+
+    private final byte[] oneByte = new byte[1];
+
+    /**
+     * @param channel channel over the BGZF file, positioned at the start of a block. Closed when this stream is closed.
+     * @param inflaterPool threads to inflate the blocks on; not shut down when this stream is closed
+     * @param readAheadBlocks maximum number of blocks to read and inflate ahead of the reader
+     * @param source description of the file, for error messages
+     */
+    public ParallelBgzfInputStream( final SeekableByteChannel channel, final ExecutorService inflaterPool,
+                                    final int readAheadBlocks, final String source ) throws IOException {
+        this.channel = Utils.nonNull(channel);
+        this.inflaterPool = Utils.nonNull(inflaterPool);
+        Utils.validateArg(readAheadBlocks > 0, "readAheadBlocks must be positive");
+        this.readAheadBlocks = readAheadBlocks;
+        this.source = source;
+        this.nextBlockAddress = channel.position();
+        this.currentBlockEnd = nextBlockAddress;
+    }
+
+    /**
+     * @return the virtual file pointer of the next byte to be read. If the current block has been read completely,
+     *         this is the start of the next block (as in {@link htsjdk.samtools.util.BlockCompressedInputStream}).
+     */
+    public long getFilePointer() {
+        return currentOffset < currentBlock.length ? (currentBlockAddress << 16) | currentOffset : currentBlockEnd << 16;
+    }
+
+    /**
+     * Position the stream at a virtual file pointer. Blocks that have already been read ahead are reused if the
+     * new position is within them, otherwise read-ahead restarts from the new position.
+     *
+     * @param virtualFilePointer virtual file pointer to read from next
+     */
+    public void seek( final long virtualFilePointer ) throws IOException {
+        final long blockAddress = virtualFilePointer >>> 16;
+        final int blockOffset = (int)(virtualFilePointer & 0xFFFF);
+
+        if ( blockAddress != currentBlockAddress ) {
+            while ( ! pendingBlocks.isEmpty() && pendingBlocks.peekFirst().address < blockAddress ) {
+                pendingBlocks.removeFirst().inflated.cancel(false);
+            }
+            if ( pendingBlocks.isEmpty() || pendingBlocks.peekFirst().address != blockAddress ) {
+                cancelPendingBlocks();
+                channel.position(blockAddress);
+                nextBlockAddress = blockAddress;
+                endOfChannel = false;
+            }
+            currentBlock = NO_DATA;
+            currentBlockAddress = -1;
+            currentBlockEnd = blockAddress;
+            if ( ! nextBlock() && blockOffset > 0 ) {
+                throw new IOException("Cannot seek to " + virtualFilePointer + " past the end of " + source);
+            }
+        }
+        if ( blockOffset > currentBlock.length ) {
+            throw new IOException("Invalid virtual file pointer " + virtualFilePointer + " for " + source);
+        }
+        currentOffset = blockOffset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(oneByte, 0, 1) == 1 ? oneByte[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read( final byte[] buffer, final int offset, final int length ) throws IOException {
+        if ( length == 0 ) {
+            return 0;
+        }
+        while ( currentOffset == currentBlock.length ) {
+            if ( ! nextBlock() ) {
+                return -1;
+            }
+        }
+        final int count = Math.min(length, currentBlock.length - currentOffset);
+        System.arraycopy(currentBlock, currentOffset, buffer, offset, count);
+        currentOffset += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return currentBlock.length - currentOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        cancelPendingBlocks();
+        channel.close();
+    }
+
+    /**
+     * Make the next block in the file the current block, waiting for it to be inflated if necessary.
+     *
+     * @return false if there are no more blocks
+     */
+    private boolean nextBlock() throws IOException {
+        fillReadAhead();
+        if ( pendingBlocks.isEmpty() ) {
+            return false;
+        }
+
+        final PendingBlock block = pendingBlocks.removeFirst();
+        try {
+            currentBlock = block.inflated.get();
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating " + source);
+        }
+        catch ( final ExecutionException e ) {
+            throw new IOException("Error inflating block at " + block.address + " of " + source, e.getCause());
+        }
+        currentOffset = 0;
+        currentBlockAddress = block.address;
+        currentBlockEnd = block.end;
+
+        // keep the pool busy while the caller reads this block
+        fillReadAhead();
+        return true;
+    }
+
+    private void fillReadAhead() throws IOException {
+        while ( ! endOfChannel && pendingBlocks.size() < readAheadBlocks ) {
+            final PendingBlock block = readCompressedBlock();
+            if ( block == null ) {
+                endOfChannel = true;
+            }
+            else {
+                pendingBlocks.addLast(block);
+            }
+        }
+    }
+
+    private PendingBlock readCompressedBlock() throws IOException {
+        final byte[] header = new byte[BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+        final int headerBytes = readFully(header, 0, header.length);
+        if ( headerBytes == 0 ) {
+            return null;
+        }
+        final long address = nextBlockAddress;
+        if ( headerBytes < header.length || ! isBgzfBlockHeader(header) ) {
+            throw new IOException("Invalid BGZF block header at " + address + " of " + source);
+        }
+
+        final int blockLength = unpackShort(header, BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET) + 1;
+        if ( blockLength < BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH ) {
+            throw new IOException("Invalid BGZF block length at " + address + " of " + source);
+        }
+        final byte[] block = new byte[blockLength];
+        System.arraycopy(header, 0, block, 0, header.length);
+        if ( readFully(block, header.length, blockLength - header.length) < blockLength - header.length ) {
+            throw new IOException("Premature end of file in BGZF block at " + address + " of " + source);
+        }
+
+        nextBlockAddress += blockLength;
+        return new PendingBlock(address, nextBlockAddress, inflaterPool.submit(() -> inflate(block)));
+    }
+
+    private int readFully( final byte[] buffer, final int offset, final int length ) throws IOException {
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+        while ( byteBuffer.hasRemaining() ) {
+            if ( channel.read(byteBuffer) < 0 ) {
+                break;
+            }
+        }
+        return byteBuffer.position() - offset;
+    }
+
+    private static byte[] inflate( final byte[] block ) throws IOException {
+        final int uncompressedLength = unpackInt(block, block.length - 4);
+        if ( uncompressedLength == 0 ) {
+            return NO_DATA;
+        }
+        if ( uncompressedLength < 0 || uncompressedLength > BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE ) {
+            throw new IOException("Invalid uncompressed BGZF block size " + uncompressedLength);
+        }
+
+        final byte[] inflated = new byte[uncompressedLength];
+        final Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(block, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH,
+                block.length - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH);
+        try {
+            final int inflatedLength = inflater.inflate(inflated, 0, uncompressedLength);
+            if ( inflatedLength != uncompressedLength ) {
+                throw new IOException("Did not inflate expected number of bytes (" + inflatedLength + " instead of " + uncompressedLength + ")");
+            }
+        }
+        catch ( final DataFormatException e ) {
+            throw new IOException(e);
+        }
+        return inflated;
+    }
+
+    private static boolean isBgzfBlockHeader( final byte[] header ) {
+        return header[0] == BlockCompressedStreamConstants.GZIP_ID1 &&
+                (header[1] & 0xFF) == BlockCompressedStreamConstants.GZIP_ID2 &&
+                (header[3] & BlockCompressedStreamConstants.GZIP_FLG) != 0 &&
+                unpackShort(header, 10) == BlockCompressedStreamConstants.GZIP_XLEN &&
+                header[12] == BlockCompressedStreamConstants.BGZF_ID1 &&
+                header[13] == BlockCompressedStreamConstants.BGZF_ID2;
+    }
+
+    private static int unpackShort( final byte[] buffer, final int offset ) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int unpackInt( final byte[] buffer, final int offset ) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8) |
+                ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 24);
+    }
+
+    private void cancelPendingBlocks() {
+        for ( final PendingBlock block : pendingBlocks ) {
+            block.inflated.cancel(false);
+        }
+        pendingBlocks.clear();
+    }
+
+    /**
+     * A compressed block that has been read from the channel, and its uncompressed contents once inflated
+     */
+    private static final class PendingBlock {
+        final long address;
+        final long end;
+        final Future<byte[]> inflated;
+
+        PendingBlock( final long address, final long end, final Future<byte[]> inflated ) {
+            this.address = address;
+            this.end = end;
+            this.inflated = inflated;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An OutputStream that takes BGZF data written at compression level 0 (eg., by an htsjdk BAM writer) and writes it
+ * to an underlying stream with the blocks compressed at another level on a pool of threads.
+ *
+ * The blocks written to this stream are parsed on the writing thread and each one is handed to the pool to be
+ * recompressed as soon as it is complete, so that up to maxPendingBlocks blocks are compressed concurrently while the
+ * writer produces later ones. Recompressed blocks are always written in order, and each one holds the same
+ * uncompressed data as the block it replaces. Since htsjdk splits its output into blocks independently of the
+ * compression level, and blocks are deflated the way {@link BlockCompressedOutputStream} does it (with the deflaters
+ * made by {@link BlockCompressedOutputStream#getDefaultDeflaterFactory()}, falling back to storing the block if it
+ * does not compress), the output is identical to what htsjdk would have written at that level.
+ *
+ * Virtual file pointers into the level 0 data that was written to this stream (eg., those recorded in an index built
+ * while writing) can be mapped to the corresponding pointers in the output with {@link #translateFilePointer}, if the
+ * stream was created to record block addresses.
+ *
+ * This class is not thread-safe: only one thread at a time may write to the stream.
+ */
+public final class ParallelBgzfOutputStream extends OutputStream {
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<Deflater> NO_COMPRESSION_DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.NO_COMPRESSION, true));
+
+    private final OutputStream out;
+    private final ExecutorService deflaterPool;
+    private final int maxPendingBlocks;
+    private final ThreadLocal<Deflater> deflaters;
+
+    // the block currently being written to this stream
+    private final byte[] block = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+    private int blockFill = 0;
+    private int blockLength = -1;
+    private long sourceAddress = 0;
+
+    // blocks that have been submitted for compression, in order
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private long targetAddress = 0;
+
+    // addresses of each block in the data written to this stream and in the output (null if not recorded)
+    private long[] sourceAddresses;
+    private long[] targetAddresses;
+    private int numSubmittedBlocks = 0;
+    private int numWrittenBlocks = 0;
+
+    private boolean closed = false;
+
+    /**
+     * @param out stream to write the compressed blocks to. Closed when this stream is closed.
+     * @param compressionLevel compression level for the output blocks
+     * @param deflaterPool threads to compress the blocks on; not shut down when this stream is closed
+     * @param maxPendingBlocks maximum number of blocks that may be waiting to be compressed or written
+     * @param recordBlockAddresses whether to record the addresses of the blocks, for {@link #translateFilePointer}
+     */
+    public ParallelBgzfOutputStream( final OutputStream out, final int compressionLevel, final ExecutorService deflaterPool,
+                                     final int maxPendingBlocks, final boolean recordBlockAddresses ) {
+        this.out = Utils.nonNull(out);
+        Utils.validateArg(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION, "invalid compression level");
+        this.deflaterPool = Utils.nonNull(deflaterPool);
+        Utils.validateArg(maxPendingBlocks > 0, "maxPendingBlocks must be positive");
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.deflaters = ThreadLocal.withInitial(() -> BlockCompressedOutputStream.getDefaultDeflaterFactory().makeDeflater(compressionLevel, true));
+        if ( recordBlockAddresses ) {
+            sourceAddresses = new long[1024];
+            targetAddresses = new long[1024];
+        }
+    }
+
+    @Override
+    public void write( final int b ) throws IOException {
+        write(new byte[]{(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write( final byte[] buffer, int offset, int length ) throws IOException {
+        if ( closed ) {
+            throw new IOException("Stream closed");
+        }
+        while ( length > 0 ) {
+            final int wanted = (blockLength < 0 ? BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH : blockLength) - blockFill;
+            final int count = Math.min(wanted, length);
+            System.arraycopy(buffer, offset, block, blockFill, count);
+            blockFill += count;
+            offset += count;
+            length -= count;
+
+            if ( blockLength < 0 && blockFill == BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH ) {
+                blockLength = startBlock();
+            }
+            if ( blockFill == blockLength ) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Write the blocks that have been completely written to this stream to the underlying stream (waiting for them
+     * to be compressed), and flush it. A partially written block is kept until the rest of it is written.
+     */
+    @Override
+    public void flush() throws IOException {
+        while ( ! pendingBlocks.isEmpty() ) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        try {
+            if ( blockFill > 0 ) {
+                throw new IOException("Incomplete BGZF block at end of stream (" + blockFill + " bytes)");
+            }
+            flush();
+        }
+        finally {
+            for ( final Future<byte[]> pending : pendingBlocks ) {
+                pending.cancel(false);
+            }
+            pendingBlocks.clear();
+            out.close();
+        }
+    }
+
+    /**
+     * Map a virtual file pointer into the level 0 data that was written to this stream to the corresponding virtual
+     * file pointer in the output. Only valid once the stream has been closed.
+     *
+     * @param virtualFilePointer virtual file pointer into the data written to this stream (at the start of a block
+     *                           or within one)
+     * @return the virtual file pointer of the same uncompressed byte in the output
+     */
+    public long translateFilePointer( final long virtualFilePointer ) {
+        Utils.validate(sourceAddresses != null, "this stream was not created to record block addresses");
+        Utils.validate(closed, "file pointers can only be translated once the stream is closed");
+
+        final long address = virtualFilePointer >>> 16;
+        final long blockOffset = virtualFilePointer & 0xFFFF;
+        final int index = Arrays.binarySearch(sourceAddresses, 0, numWrittenBlocks, address);
+        if ( index >= 0 ) {
+            return (targetAddresses[index] << 16) | blockOffset;
+        }
+        if ( address == sourceAddress && blockOffset == 0 ) {
+            return targetAddress << 16;
+        }
+        throw new IllegalArgumentException("Virtual file pointer " + virtualFilePointer + " is not within a block written to this stream");
+    }
+
+    /**
+     * Validate the header of the block currently being written
+     *
+     * @return the length of the block
+     */
+    private int startBlock() throws IOException {
+        if ( block[0] != BlockCompressedStreamConstants.GZIP_ID1 ||
+                (block[1] & 0xFF) != BlockCompressedStreamConstants.GZIP_ID2 ||
+                (block[3] & BlockCompressedStreamConstants.GZIP_FLG) == 0 ||
+                unpackShort(block, 10) != BlockCompressedStreamConstants.GZIP_XLEN ||
+                block[12] != BlockCompressedStreamConstants.BGZF_ID1 ||
+                block[13] != BlockCompressedStreamConstants.BGZF_ID2 ) {
+            throw new IOException("Invalid BGZF block header at " + sourceAddress);
+        }
+        final int length = unpackShort(block, BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET) + 1;
+        if ( length < BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH ) {
+            throw new IOException("Invalid BGZF block length at " + sourceAddress);
+        }
+        return length;
+    }
+
+    private void submitBlock() throws IOException {
+        while ( pendingBlocks.size() >= maxPendingBlocks ) {
+            writeNextBlock();
+        }
+
+        if ( sourceAddresses != null ) {
+            if ( numSubmittedBlocks == sourceAddresses.length ) {
+                sourceAddresses = Arrays.copyOf(sourceAddresses, sourceAddresses.length * 2);
+                targetAddresses = Arrays.copyOf(targetAddresses, targetAddresses.length * 2);
+            }
+            sourceAddresses[numSubmittedBlocks] = sourceAddress;
+        }
+        numSubmittedBlocks++;
+
+        final byte[] submitted = Arrays.copyOf(block, blockLength);
+        pendingBlocks.addLast(deflaterPool.submit(() -> recompress(submitted)));
+        sourceAddress += blockLength;
+        blockFill = 0;
+        blockLength = -1;
+
+        // write any blocks that are already done, so that they don't wait for the next flush
+        while ( ! pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone() ) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        final byte[] compressed;
+        try {
+            compressed = pendingBlocks.peekFirst().get();
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing BGZF block");
+        }
+        catch ( final ExecutionException e ) {
+            throw new IOException("Error compressing BGZF block", e.getCause());
+        }
+        pendingBlocks.removeFirst();
+
+        out.write(compressed);
+        if ( targetAddresses != null ) {
+            targetAddresses[numWrittenBlocks] = targetAddress;
+        }
+        numWrittenBlocks++;
+        targetAddress += compressed.length;
+    }
+
+    private byte[] recompress( final byte[] source ) throws IOException {
+        final int headerLength = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+        final int footerLength = BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        final int uncompressedLength = unpackInt(source, source.length - 4);
+        if ( uncompressedLength == 0 ) {
+            // eg., the terminator block
+            return source;
+        }
+
+        final byte[] uncompressed = new byte[uncompressedLength];
+        final Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(source, headerLength, source.length - headerLength - footerLength);
+        try {
+            if ( inflater.inflate(uncompressed) != uncompressedLength ) {
+                throw new IOException("BGZF block does not have the expected uncompressed size " + uncompressedLength);
+            }
+        }
+        catch ( final DataFormatException e ) {
+            throw new IOException(e);
+        }
+
+        // as in BlockCompressedOutputStream, the compressed data must fit in a buffer of MAX_COMPRESSED_BLOCK_SIZE - BLOCK_HEADER_LENGTH
+        final byte[] target = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE + footerLength];
+        final int compressedLength = deflate(deflaters.get(), uncompressed, target);
+        final int length = headerLength + compressedLength + footerLength;
+
+        // same header and footer (CRC and uncompressed size) as the source block, other than the block size
+        System.arraycopy(source, 0, target, 0, headerLength);
+        target[BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET] = (byte)(length - 1);
+        target[BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET + 1] = (byte)((length - 1) >>> 8);
+        System.arraycopy(source, source.length - footerLength, target, headerLength + compressedLength, footerLength);
+        return Arrays.copyOf(target, length);
+    }
+
+    private static int deflate( final Deflater deflater, final byte[] uncompressed, final byte[] target ) {
+        final int headerLength = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+        final int maxCompressedLength = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE - headerLength;
+        deflater.reset();
+        deflater.setInput(uncompressed);
+        deflater.finish();
+        final int compressedLength = deflater.deflate(target, headerLength, maxCompressedLength);
+        if ( deflater.finished() ) {
+            return compressedLength;
+        }
+
+        // the block did not compress, so store it
+        final Deflater noCompressionDeflater = NO_COMPRESSION_DEFLATERS.get();
+        noCompressionDeflater.reset();
+        noCompressionDeflater.setInput(uncompressed);
+        noCompressionDeflater.finish();
+        final int storedLength = noCompressionDeflater.deflate(target, headerLength, maxCompressedLength);
+        if ( ! noCompressionDeflater.finished() ) {
+            throw new IllegalStateException("BGZF block is too large to store");
+        }
+        return storedLength;
+    }
+
+    private static int unpackShort( final byte[] buffer, final int offset ) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int unpackInt( final byte[] buffer, final int offset ) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8) |
+                ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 24);
+    }
+}
@@ -0,0 +1,347 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMUtils;
+import htsjdk.samtools.SAMValidationError;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBgzfInputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An iterator over the records of a BAM file that decodes the records ahead of the caller on a background thread.
+ *
+ * The records are decoded from a {@link ParallelBgzfInputStream}, which inflates the BGZF blocks of the file on a
+ * pool of threads, and are handed to the caller in batches through a bounded queue. So inflation, decoding and the
+ * caller's processing of the records all proceed concurrently. Records are decoded lazily (as by htsjdk when
+ * {@link htsjdk.samtools.SamReaderFactory.Option#EAGERLY_DECODE} is disabled), and are returned in file order.
+ *
+ * The iterator either covers all records of the file, or only the records overlapping a set of intervals, in which
+ * case the chunks of the file to read are found using the BAM index and records are filtered by overlap exactly as
+ * by {@link htsjdk.samtools.SamReader#queryOverlapping(QueryInterval[])}. Unmapped reads with no position are never
+ * returned by an interval query.
+ *
+ * The iterator reads the file through its own channel, independently of any {@link htsjdk.samtools.SamReader}
+ * over the same file. {@link #close} must be called to stop the background thread if the iterator is not exhausted.
+ */
+public final class PipelinedBamRecordIterator implements CloseableIterator<SAMRecord> {
+
+    /**
+     * Default number of records in each batch handed from the decoding thread to the caller
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int QUEUED_BATCHES = 4;
+
+    private static final byte[] BAM_MAGIC = {'B', 'A', 'M', 1};
+
+    // marks the end of the records (whether or not decoding completed successfully)
+    private static final List<SAMRecord> END_OF_RECORDS = new ArrayList<>(0);
+
+    private final ParallelBgzfInputStream stream;
+    private final SAMFileHeader header;
+    private final QueryInterval[] intervals;
+    private final long[] chunks;
+    private final ValidationStringency validationStringency;
+    private final int batchSize;
+    private final String source;
+
+    private final BlockingQueue<List<SAMRecord>> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+    private final Thread decoder;
+    private volatile boolean closed = false;
+    private volatile Throwable decodingFailure = null;
+
+    private List<SAMRecord> currentBatch = null;
+    private int currentIndex = 0;
+    private boolean exhausted = false;
+
+    /**
+     * Iterate over all records of a BAM file.
+     *
+     * @param stream stream over the BAM file, positioned at the start of the file; closed when this iterator is closed
+     * @param header header of the BAM file
+     * @param validationStringency validation stringency to apply to each record
+     * @param batchSize number of records in each batch handed from the decoding thread to the caller
+     * @param source description of the file, for error messages
+     */
+    public PipelinedBamRecordIterator( final ParallelBgzfInputStream stream, final SAMFileHeader header,
+                                       final ValidationStringency validationStringency, final int batchSize, final String source ) {
+        this(stream, header, null, null, validationStringency, batchSize, source);
+    }
+
+    /**
+     * Iterate over the records of an indexed BAM file that overlap a set of intervals.
+     *
+     * @param stream stream over the BAM file; closed when this iterator is closed
+     * @param header header of the BAM file
+     * @param index index of the BAM file
+     * @param intervals intervals to query, sorted and merged using {@link QueryInterval#optimizeIntervals}
+     * @param validationStringency validation stringency to apply to each record
+     * @param batchSize number of records in each batch handed from the decoding thread to the caller
+     * @param source description of the file, for error messages
+     */
+    public PipelinedBamRecordIterator( final ParallelBgzfInputStream stream, final SAMFileHeader header,
+                                       final BAMIndex index, final QueryInterval[] intervals,
+                                       final ValidationStringency validationStringency, final int batchSize, final String source ) {
+        this(stream, header, Utils.nonNull(intervals), getChunks(Utils.nonNull(index), intervals), validationStringency, batchSize, source);
+    }
+
+    private PipelinedBamRecordIterator( final ParallelBgzfInputStream stream, final SAMFileHeader header,
+                                        final QueryInterval[] intervals, final long[] chunks,
+                                        final ValidationStringency validationStringency, final int batchSize, final String source ) {
+        this.stream = Utils.nonNull(stream);
+        this.header = Utils.nonNull(header);
+        this.intervals = intervals;
+        this.chunks = chunks;
+        this.validationStringency = Utils.nonNull(validationStringency);
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+        this.source = source;
+
+        decoder = new Thread(this::decodeRecords, "BAM decoder for " + source);
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    /**
+     * Find the chunks of the file that may contain records overlapping the intervals, as pairs of start and end
+     * virtual file pointers, sorted and with overlapping chunks merged so that no record is read twice.
+     */
+    private static long[] getChunks( final BAMIndex index, final QueryInterval[] intervals ) {
+        final List<Chunk> chunks = new ArrayList<>();
+        for ( final QueryInterval interval : intervals ) {
+            final BAMFileSpan span = index.getSpanOverlapping(interval.referenceIndex, interval.start, interval.end);
+            if ( span != null ) {
+                chunks.addAll(span.getChunks());
+            }
+        }
+        chunks.sort(Comparator.comparingLong(Chunk::getChunkStart));
+
+        final long[] merged = new long[chunks.size() * 2];
+        int numMerged = 0;
+        for ( final Chunk chunk : chunks ) {
+            if ( numMerged > 0 && chunk.getChunkStart() <= merged[numMerged - 1] ) {
+                merged[numMerged - 1] = Math.max(merged[numMerged - 1], chunk.getChunkEnd());
+            }
+            else {
+                merged[numMerged++] = chunk.getChunkStart();
+                merged[numMerged++] = chunk.getChunkEnd();
+            }
+        }
+        return Arrays.copyOf(merged, numMerged);
+    }
+
+    /**
+     * Runs on the decoding thread: decode the records and queue them up in batches
+     */
+    private void decodeRecords() {
+        try {
+            final BAMRecordCodec codec = new BAMRecordCodec(header);
+            codec.setInputStream(stream);
+            final RecordBatcher batcher = new RecordBatcher();
+
+            if ( chunks == null ) {
+                skipHeader();
+                decodeChunk(codec, Long.MAX_VALUE, batcher);
+            }
+            else {
+                for ( int i = 0; i < chunks.length && ! closed; i += 2 ) {
+                    stream.seek(chunks[i]);
+                    decodeChunk(codec, chunks[i + 1], batcher);
+                }
+            }
+            batcher.flush();
+        }
+        catch ( final InterruptedException e ) {
+            // we've been closed
+            return;
+        }
+        catch ( final Throwable e ) {
+            if ( closed ) {
+                return;
+            }
+            decodingFailure = e;
+        }
+        finally {
+            try {
+                stream.close();
+            }
+            catch ( final IOException e ) {
+                if ( decodingFailure == null && ! closed ) {
+                    decodingFailure = e;
+                }
+            }
+        }
+
+        try {
+            batches.put(END_OF_RECORDS);
+        }
+        catch ( final InterruptedException e ) {
+            // we've been closed
+        }
+    }
+
+    private void decodeChunk( final BAMRecordCodec codec, final long chunkEnd, final RecordBatcher batcher ) throws InterruptedException {
+        int intervalIndex = 0;
+        while ( ! closed && stream.getFilePointer() < chunkEnd ) {
+            final SAMRecord record = codec.decode();
+            if ( record == null ) {
+                return;
+            }
+            batcher.recordIndex++;
+
+            // Because some decoding is done lazily, the record needs to remember the validation stringency
+            record.setValidationStringency(validationStringency);
+            if ( validationStringency != ValidationStringency.SILENT ) {
+                final List<SAMValidationError> validationErrors = record.isValid();
+                SAMUtils.processValidationErrors(validationErrors, batcher.recordIndex, validationStringency);
+            }
+
+            if ( intervals == null ) {
+                batcher.add(record);
+                continue;
+            }
+
+            // Records within a chunk are sorted by start, so intervals that end before the start of a record can't
+            // overlap any later record of the chunk either
+            final int referenceIndex = record.getReferenceIndex();
+            if ( referenceIndex < 0 ) {
+                continue;
+            }
+            final int start = record.getAlignmentStart();
+            while ( intervalIndex < intervals.length && (intervals[intervalIndex].referenceIndex < referenceIndex ||
+                    (intervals[intervalIndex].referenceIndex == referenceIndex && intervalEnd(intervals[intervalIndex]) < start)) ) {
+                intervalIndex++;
+            }
+            if ( intervalIndex < intervals.length && intervals[intervalIndex].referenceIndex == referenceIndex ) {
+                // unmapped reads that have the position of their mates are treated as covering just that position
+                final int end = record.getReadUnmappedFlag() ? start : record.getAlignmentEnd();
+                if ( intervals[intervalIndex].start <= end ) {
+                    batcher.add(record);
+                }
+            }
+        }
+    }
+
+    private static int intervalEnd( final QueryInterval interval ) {
+        return interval.end <= 0 ? Integer.MAX_VALUE : interval.end;
+    }
+
+    /**
+     * Skip over the header at the start of the file (we already have the header, from the SamReader)
+     */
+    private void skipHeader() {
+        final BinaryCodec binaryCodec = new BinaryCodec(stream);
+        final byte[] magic = new byte[BAM_MAGIC.length];
+        binaryCodec.readBytes(magic);
+        if ( ! Arrays.equals(magic, BAM_MAGIC) ) {
+            throw new GATKException("Invalid BAM file header in " + source);
+        }
+        binaryCodec.readBytes(new byte[binaryCodec.readInt()]);
+        final int numReferences = binaryCodec.readInt();
+        for ( int i = 0; i < numReferences; i++ ) {
+            binaryCodec.readBytes(new byte[binaryCodec.readInt()]);
+            binaryCodec.readInt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return loadBatchIfNecessary();
+    }
+
+    @Override
+    public SAMRecord next() {
+        if ( ! loadBatchIfNecessary() ) {
+            throw new NoSuchElementException("Iterator is exhausted");
+        }
+        return currentBatch.get(currentIndex++);
+    }
+
+    private boolean loadBatchIfNecessary() {
+        while ( ! exhausted && (currentBatch == null || currentIndex == currentBatch.size()) ) {
+            Utils.validate(! closed, "Iterator has been closed");
+            final List<SAMRecord> batch;
+            try {
+                batch = batches.take();
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for records from " + source, e);
+            }
+
+            if ( batch == END_OF_RECORDS ) {
+                exhausted = true;
+                currentBatch = null;
+                if ( decodingFailure != null ) {
+                    if ( decodingFailure instanceof RuntimeException ) {
+                        throw (RuntimeException)decodingFailure;
+                    }
+                    throw new GATKException("Error reading records from " + source, decodingFailure);
+                }
+            }
+            else {
+                currentBatch = batch;
+                currentIndex = 0;
+            }
+        }
+        return ! exhausted;
+    }
+
+    @Override
+    public void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        decoder.interrupt();
+        try {
+            decoder.join();
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        batches.clear();
+        currentBatch = null;
+        exhausted = true;
+    }
+
+    /**
+     * Accumulates decoded records into batches, and queues up each batch when it is full
+     */
+    private final class RecordBatcher {
+        private List<SAMRecord> batch = new ArrayList<>(batchSize);
+        long recordIndex = 0;
+
+        void add( final SAMRecord record ) throws InterruptedException {
+            batch.add(record);
+            if ( batch.size() == batchSize ) {
+                flush();
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if ( ! batch.isEmpty() ) {
+                batches.put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+}
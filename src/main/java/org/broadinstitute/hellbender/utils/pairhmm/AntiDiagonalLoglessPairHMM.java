@@ -0,0 +1,274 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Pure Java implementation of {@link LoglessPairHMM} that computes the match, insertion, and deletion matrices one
+ * anti-diagonal at a time, in the same way as the native AVX implementation.
+ *
+ * Every cell on an anti-diagonal (i + j = d) depends only on cells of the two previous anti-diagonals, so the inner
+ * loop over a diagonal has no loop-carried dependency and is written as straight-line arithmetic over contiguous,
+ * row-indexed arrays. This lets the JIT unroll and (where supported) vectorize it, and means that only three
+ * diagonals per state need to be kept in memory instead of the full read x haplotype matrices.
+ *
+ * Like the native implementation, each likelihood is first computed in single precision, and is recomputed in
+ * double precision only if the single-precision result is too small to be trusted.
+ *
+ * Haplotype caching (hapStartIndex) is not used: every haplotype is computed in full, which is cheap relative to
+ * the bookkeeping needed to reuse part of a diagonal-ordered computation.
+ */
+public final class AntiDiagonalLoglessPairHMM extends PairHMM {
+
+    /**
+     * Initial condition used by the single-precision pass. Much smaller than {@link LoglessPairHMM#INITIAL_CONDITION}
+     * because it must fit in a float.
+     */
+    static final float INITIAL_CONDITION_FLOAT = (float) Math.pow(2, 120);
+    static final double INITIAL_CONDITION_FLOAT_LOG10 = Math.log10(INITIAL_CONDITION_FLOAT);
+
+    /**
+     * Single-precision results (before removing the initial condition) smaller than this are recomputed in double precision
+     */
+    static final double MIN_ACCEPTED_FLOAT_RESULT = 1e-28;
+
+    // per-read constants, indexed by (1-based) read position
+    private double[] matchToMatchProb;
+    private double[] indelToMatchProb;
+    private double[] matchToInsertionProb;
+    private double[] insertionToInsertionProb;
+    private double[] matchToDeletionProb;
+    private double[] deletionToDeletionProb;
+    private double[] baseMatchProb;
+    private double[] baseMismatchProb;
+
+    // single-precision copies of the per-read constants
+    private float[] matchToMatchProbFloat;
+    private float[] indelToMatchProbFloat;
+    private float[] matchToInsertionProbFloat;
+    private float[] insertionToInsertionProbFloat;
+    private float[] matchToDeletionProbFloat;
+    private float[] deletionToDeletionProbFloat;
+    private float[] baseMatchProbFloat;
+    private float[] baseMismatchProbFloat;
+
+    // the three most recent anti-diagonals of each matrix, plus the priors for the current one, indexed by read position
+    private double[][] matchDiagonals;
+    private double[][] insertionDiagonals;
+    private double[][] deletionDiagonals;
+    private double[] priorDiagonal;
+
+    private float[][] matchDiagonalsFloat;
+    private float[][] insertionDiagonalsFloat;
+    private float[][] deletionDiagonalsFloat;
+    private float[] priorDiagonalFloat;
+
+    private final double[] transitionScratch = new double[TRANS_PROB_ARRAY_LENGTH];
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        matchToMatchProb = new double[paddedMaxReadLength];
+        indelToMatchProb = new double[paddedMaxReadLength];
+        matchToInsertionProb = new double[paddedMaxReadLength];
+        insertionToInsertionProb = new double[paddedMaxReadLength];
+        matchToDeletionProb = new double[paddedMaxReadLength];
+        deletionToDeletionProb = new double[paddedMaxReadLength];
+        baseMatchProb = new double[paddedMaxReadLength];
+        baseMismatchProb = new double[paddedMaxReadLength];
+
+        matchToMatchProbFloat = new float[paddedMaxReadLength];
+        indelToMatchProbFloat = new float[paddedMaxReadLength];
+        matchToInsertionProbFloat = new float[paddedMaxReadLength];
+        insertionToInsertionProbFloat = new float[paddedMaxReadLength];
+        matchToDeletionProbFloat = new float[paddedMaxReadLength];
+        deletionToDeletionProbFloat = new float[paddedMaxReadLength];
+        baseMatchProbFloat = new float[paddedMaxReadLength];
+        baseMismatchProbFloat = new float[paddedMaxReadLength];
+
+        matchDiagonals = new double[3][paddedMaxReadLength];
+        insertionDiagonals = new double[3][paddedMaxReadLength];
+        deletionDiagonals = new double[3][paddedMaxReadLength];
+        priorDiagonal = new double[paddedMaxReadLength];
+
+        matchDiagonalsFloat = new float[3][paddedMaxReadLength];
+        insertionDiagonalsFloat = new float[3][paddedMaxReadLength];
+        deletionDiagonalsFloat = new float[3][paddedMaxReadLength];
+        priorDiagonalFloat = new float[paddedMaxReadLength];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                               final byte[] readBases,
+                                                               final byte[] readQuals,
+                                                               final byte[] insertionGOP,
+                                                               final byte[] deletionGOP,
+                                                               final byte[] overallGCP,
+                                                               final int hapStartIndex,
+                                                               final boolean recacheReadValues,
+                                                               final int nextHapStartIndex) {
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadConstants(readQuals, insertionGOP, deletionGOP, overallGCP);
+
+            // note that we initialized the constants
+            constantsAreInitialized = true;
+        }
+
+        final double floatResult = computeFloat(haplotypeBases, readBases);
+        if ( floatResult >= MIN_ACCEPTED_FLOAT_RESULT ) {
+            return Math.log10(floatResult) - INITIAL_CONDITION_FLOAT_LOG10;
+        }
+        return Math.log10(computeDouble(haplotypeBases, readBases)) - LoglessPairHMM.INITIAL_CONDITION_LOG10;
+    }
+
+    /**
+     * Caches the transition probabilities and the base match/mismatch probabilities for each position in the read
+     */
+    private void initializeReadConstants(final byte[] readQuals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        final double mismatchDivisor = doNotUseTristateCorrection ? 1.0 : LoglessPairHMM.TRISTATE_CORRECTION;
+
+        for (int i = 1; i <= readQuals.length; i++) {
+            qualToTransProbs(transitionScratch, insertionGOP[i - 1], deletionGOP[i - 1], overallGCP[i - 1]);
+            matchToMatchProb[i] = transitionScratch[matchToMatch];
+            indelToMatchProb[i] = transitionScratch[indelToMatch];
+            matchToInsertionProb[i] = transitionScratch[matchToInsertion];
+            insertionToInsertionProb[i] = transitionScratch[insertionToInsertion];
+            matchToDeletionProb[i] = transitionScratch[matchToDeletion];
+            deletionToDeletionProb[i] = transitionScratch[deletionToDeletion];
+            baseMatchProb[i] = QualityUtils.qualToProb(readQuals[i - 1]);
+            baseMismatchProb[i] = QualityUtils.qualToErrorProb(readQuals[i - 1]) / mismatchDivisor;
+
+            matchToMatchProbFloat[i] = (float) matchToMatchProb[i];
+            indelToMatchProbFloat[i] = (float) indelToMatchProb[i];
+            matchToInsertionProbFloat[i] = (float) matchToInsertionProb[i];
+            insertionToInsertionProbFloat[i] = (float) insertionToInsertionProb[i];
+            matchToDeletionProbFloat[i] = (float) matchToDeletionProb[i];
+            deletionToDeletionProbFloat[i] = (float) deletionToDeletionProb[i];
+            baseMatchProbFloat[i] = (float) baseMatchProb[i];
+            baseMismatchProbFloat[i] = (float) baseMismatchProb[i];
+        }
+    }
+
+    private static boolean basesMatch(final byte readBase, final byte haplotypeBase) {
+        return readBase == haplotypeBase || readBase == (byte) 'N' || haplotypeBase == (byte) 'N';
+    }
+
+    /**
+     * Runs the recurrence in single precision.
+     *
+     * Row 0 holds the initial conditions (free deletions at the start of the haplotype) and column 0 is all zeros.
+     * Cell (i, j) is stored at index i of the array for diagonal i + j.
+     *
+     * @return the sum of the match and insertion probabilities over the last row, scaled by {@link #INITIAL_CONDITION_FLOAT}
+     */
+    private double computeFloat(final byte[] haplotypeBases, final byte[] readBases) {
+        final int readLength = readBases.length;
+        final int haplotypeLength = haplotypeBases.length;
+        final float initialValue = INITIAL_CONDITION_FLOAT / haplotypeLength;
+
+        final float[] tMM = matchToMatchProbFloat, tGM = indelToMatchProbFloat, tMI = matchToInsertionProbFloat,
+                tII = insertionToInsertionProbFloat, tMD = matchToDeletionProbFloat, tDD = deletionToDeletionProbFloat;
+        final float[] prior = priorDiagonalFloat;
+
+        // diagonals d - 2, d - 1, and d
+        float[] m2 = matchDiagonalsFloat[0], m1 = matchDiagonalsFloat[1], m0 = matchDiagonalsFloat[2];
+        float[] i2 = insertionDiagonalsFloat[0], i1 = insertionDiagonalsFloat[1], i0 = insertionDiagonalsFloat[2];
+        float[] d2 = deletionDiagonalsFloat[0], d1 = deletionDiagonalsFloat[1], d0 = deletionDiagonalsFloat[2];
+
+        // diagonal 0 is the single cell (0, 0) and diagonal 1 holds the cells (0, 1) and (1, 0)
+        m2[0] = 0.0f; i2[0] = 0.0f; d2[0] = initialValue;
+        m1[0] = 0.0f; i1[0] = 0.0f; d1[0] = initialValue;
+        m1[1] = 0.0f; i1[1] = 0.0f; d1[1] = 0.0f;
+
+        double finalSumProbabilities = 0.0;
+        for (int d = 2; d <= readLength + haplotypeLength; d++) {
+            // boundary cells: row 0 is (0, d) and column 0 is (d, 0)
+            m0[0] = 0.0f; i0[0] = 0.0f; d0[0] = d <= haplotypeLength ? initialValue : 0.0f;
+            if ( d <= readLength ) {
+                m0[d] = 0.0f; i0[d] = 0.0f; d0[d] = 0.0f;
+            }
+
+            final int start = Math.max(1, d - haplotypeLength);
+            final int end = Math.min(readLength, d - 1);
+
+            for (int i = start; i <= end; i++) {
+                prior[i] = basesMatch(readBases[i - 1], haplotypeBases[d - i - 1]) ? baseMatchProbFloat[i] : baseMismatchProbFloat[i];
+            }
+            for (int i = start; i <= end; i++) {
+                m0[i] = prior[i] * (m2[i - 1] * tMM[i] + i2[i - 1] * tGM[i] + d2[i - 1] * tGM[i]);
+                i0[i] = m1[i - 1] * tMI[i] + i1[i - 1] * tII[i];
+                d0[i] = m1[i] * tMD[i] + d1[i] * tDD[i];
+            }
+
+            // the last row (i == readLength) is on every diagonal from readLength + 1 onwards
+            if ( d > readLength ) {
+                finalSumProbabilities += m0[readLength] + i0[readLength];
+            }
+
+            final float[] mt = m2; m2 = m1; m1 = m0; m0 = mt;
+            final float[] it = i2; i2 = i1; i1 = i0; i0 = it;
+            final float[] dt = d2; d2 = d1; d1 = d0; d0 = dt;
+        }
+        return finalSumProbabilities;
+    }
+
+    /**
+     * Runs the recurrence in double precision. Identical to {@link #computeFloat} except for the types involved.
+     *
+     * @return the sum of the match and insertion probabilities over the last row, scaled by {@link LoglessPairHMM#INITIAL_CONDITION}
+     */
+    private double computeDouble(final byte[] haplotypeBases, final byte[] readBases) {
+        final int readLength = readBases.length;
+        final int haplotypeLength = haplotypeBases.length;
+        final double initialValue = LoglessPairHMM.INITIAL_CONDITION / haplotypeLength;
+
+        final double[] tMM = matchToMatchProb, tGM = indelToMatchProb, tMI = matchToInsertionProb,
+                tII = insertionToInsertionProb, tMD = matchToDeletionProb, tDD = deletionToDeletionProb;
+        final double[] prior = priorDiagonal;
+
+        double[] m2 = matchDiagonals[0], m1 = matchDiagonals[1], m0 = matchDiagonals[2];
+        double[] i2 = insertionDiagonals[0], i1 = insertionDiagonals[1], i0 = insertionDiagonals[2];
+        double[] d2 = deletionDiagonals[0], d1 = deletionDiagonals[1], d0 = deletionDiagonals[2];
+
+        m2[0] = 0.0; i2[0] = 0.0; d2[0] = initialValue;
+        m1[0] = 0.0; i1[0] = 0.0; d1[0] = initialValue;
+        m1[1] = 0.0; i1[1] = 0.0; d1[1] = 0.0;
+
+        double finalSumProbabilities = 0.0;
+        for (int d = 2; d <= readLength + haplotypeLength; d++) {
+            m0[0] = 0.0; i0[0] = 0.0; d0[0] = d <= haplotypeLength ? initialValue : 0.0;
+            if ( d <= readLength ) {
+                m0[d] = 0.0; i0[d] = 0.0; d0[d] = 0.0;
+            }
+
+            final int start = Math.max(1, d - haplotypeLength);
+            final int end = Math.min(readLength, d - 1);
+
+            for (int i = start; i <= end; i++) {
+                prior[i] = basesMatch(readBases[i - 1], haplotypeBases[d - i - 1]) ? baseMatchProb[i] : baseMismatchProb[i];
+            }
+            for (int i = start; i <= end; i++) {
+                m0[i] = prior[i] * (m2[i - 1] * tMM[i] + i2[i - 1] * tGM[i] + d2[i - 1] * tGM[i]);
+                i0[i] = m1[i - 1] * tMI[i] + i1[i - 1] * tII[i];
+                d0[i] = m1[i] * tMD[i] + d1[i] * tDD[i];
+            }
+
+            if ( d > readLength ) {
+                finalSumProbabilities += m0[readLength] + i0[readLength];
+            }
+
+            final double[] mt = m2; m2 = m1; m1 = m0; m0 = mt;
+            final double[] it = i2; i2 = i1; i1 = i0; i0 = it;
+            final double[] dt = d2; d2 = d1; d1 = d0; d0 = dt;
+        }
+        return finalSumProbabilities;
+    }
+}
@@ -51,6 +51,12 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Java implementation of LOGLESS_CACHING that works one anti-diagonal at a time, in single precision where possible, like the native implementations */
+        ANTIDIAGONAL_LOGLESS_CACHING(args -> {
+            final AntiDiagonalLoglessPairHMM hmm = new AntiDiagonalLoglessPairHMM();
+            logger.info("Using the non-hardware-accelerated Java ANTIDIAGONAL_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(args -> {
             // Constructor will throw a UserException if AVX is not available
@@ -76,7 +82,7 @@ public abstract class PairHMM implements Closeable{
            Order of precedence:
             1. AVX_LOGLESS_CACHING_OMP
             2. AVX_LOGLESS_CACHING
-            3. LOGLESS_CACHING
+            3. ANTIDIAGONAL_LOGLESS_CACHING
          */
         FASTEST_AVAILABLE(args -> {
             // This try block is temporarily commented out becuase FPGA support is experimental for the time being. Once
@@ -105,8 +111,8 @@ public abstract class PairHMM implements Closeable{
             }
             catch ( UserException.HardwareFeatureException e ) {
                 logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
-                            "Falling back to the MUCH slower LOGLESS_CACHING implementation!");
-                return new LoglessPairHMM();
+                            "Falling back to the MUCH slower ANTIDIAGONAL_LOGLESS_CACHING implementation!");
+                return new AntiDiagonalLoglessPairHMM();
             }
         });
 
@@ -232,8 +238,8 @@ public abstract class PairHMM implements Closeable{
         int idx = 0;
         int readIndex = 0;
         for(final GATKRead read : processedReads){
-            final byte[] readBases = read.getBases();
-            final byte[] readQuals = read.getBaseQualities();
+            final byte[] readBases = read.getBasesNoCopy();
+            final byte[] readQuals = read.getBaseQualitiesNoCopy();
             final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
             final byte[] overallGCP = gcp.get(read);
@@ -259,6 +265,30 @@ public abstract class PairHMM implements Closeable{
         }
     }
 
+    /**
+     *  Compute the likelihoods of several lists of reads against the same haplotypes in a single batch (typically,
+     *  the reads of each sample in an assembly region), storing the results for each list in the corresponding matrix.
+     *
+     *  The default implementation calls {@link #computeLog10Likelihoods(LikelihoodMatrix, List, Map)} once per matrix.
+     *  Implementations with a significant fixed cost per call (such as the native implementations, which pay for a
+     *  JNI transition and a thread fan-out on every call) should override this to submit all reads at once.
+     *
+     * @param logLikelihoods destination matrices, all of which must have the same haplotypes in the same order.
+     * @param processedReads reads to analyze for each matrix, in the same order as {@code logLikelihoods}.
+     * @param gcp penalty for gap continuations base array map for all processed reads.
+     */
+    public void computeLog10Likelihoods(final List<? extends LikelihoodMatrix<Haplotype>> logLikelihoods,
+                                        final List<List<GATKRead>> processedReads,
+                                        final Map<GATKRead, byte[]> gcp) {
+        Utils.nonNull(logLikelihoods, "logLikelihoods is null");
+        Utils.nonNull(processedReads, "processedReads is null");
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of reads per likelihood matrix");
+
+        for (int i = 0; i < logLikelihoods.size(); i++) {
+            computeLog10Likelihoods(logLikelihoods.get(i), processedReads.get(i), gcp);
+        }
+    }
+
     /**
      * Compute the total probability of read arising from haplotypeBases given base substitution, insertion, and deletion
      * probabilities.
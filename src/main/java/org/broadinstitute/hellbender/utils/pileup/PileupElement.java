@@ -294,7 +294,7 @@ public final class PileupElement {
         final CigarElement element = getNextIndelCigarElement();
         if ( element != null && element.getOperator() == CigarOperator.I ) {
             final int getFrom = offset + 1;
-            final byte[] bases = Arrays.copyOfRange(read.getBases(), getFrom, getFrom + element.getLength());
+            final byte[] bases = Arrays.copyOfRange(read.getBasesNoCopy(), getFrom, getFrom + element.getLength());
             return new String(bases);
         } else {
             return null;
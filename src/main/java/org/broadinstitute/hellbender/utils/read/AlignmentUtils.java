@@ -9,6 +9,9 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.smithwaterman.SWPairwiseAlignment;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignment;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
 
 import java.util.*;
 
@@ -57,20 +60,45 @@ public final class AlignmentUtils {
                                                        final Haplotype refHaplotype,
                                                        final int referenceStart,
                                                        final boolean isInformative) {
+        return createReadAlignedToRef(originalRead, haplotype, refHaplotype, referenceStart, isInformative, SmithWatermanJavaAligner.getInstance());
+    }
+
+    /**
+     * Aligns reads the haplotype, and then projects this alignment of read -> hap onto the reference
+     * via the alignment of haplotype (via its getCigar) method.
+     *
+     * @param originalRead the read we want to write aligned to the reference genome
+     * @param haplotype the haplotype that the read should be aligned to, before aligning to the reference
+     * @param referenceStart the start of the reference that haplotype is aligned to.  Provides global coordinate frame.
+     * @param isInformative true if the read is differentially informative for one of the haplotypes
+     * @param aligner the Smith-Waterman aligner to use to align the read to the haplotype
+     *
+     * @throws IllegalArgumentException if {@code originalRead} is {@code null} or {@code haplotype} is {@code null} or it
+     *   does not have a Cigar or the {@code referenceStart} is invalid (less than 1).
+     *
+     * @return a GATKRead aligned to reference. Never {@code null}.
+     */
+    public static GATKRead createReadAlignedToRef(final GATKRead originalRead,
+                                                  final Haplotype haplotype,
+                                                  final Haplotype refHaplotype,
+                                                  final int referenceStart,
+                                                  final boolean isInformative,
+                                                  final SmithWatermanAligner aligner) {
         Utils.nonNull(originalRead);
         Utils.nonNull(haplotype);
         Utils.nonNull(refHaplotype);
         Utils.nonNull(haplotype.getCigar());
+        Utils.nonNull(aligner);
         if ( referenceStart < 1 ) { throw new IllegalArgumentException("reference start much be >= 1 but got " + referenceStart); }
 
         // compute the smith-waterman alignment of read -> haplotype
-        final SWPairwiseAlignment swPairwiseAlignment = new SWPairwiseAlignment(haplotype.getBases(), originalRead.getBases(), CigarUtils.NEW_SW_PARAMETERS);
-        if ( swPairwiseAlignment.getAlignmentStart2wrt1() == -1 ) {
+        final SmithWatermanAlignment readToHaplotypeSWAlignment = aligner.align(haplotype.getBases(), originalRead.getBasesNoCopy(), CigarUtils.NEW_SW_PARAMETERS, SWPairwiseAlignment.OverhangStrategy.SOFTCLIP);
+        if ( readToHaplotypeSWAlignment.getAlignmentOffset() == -1 ) {
             // sw can fail (reasons not clear) so if it happens just don't realign the read
             return originalRead;
         }
 
-        final Cigar swCigar = consolidateCigar(swPairwiseAlignment.getCigar());
+        final Cigar swCigar = consolidateCigar(readToHaplotypeSWAlignment.getCigar());
 
         // since we're modifying the read we need to clone it
         final GATKRead read = originalRead.copy();
@@ -82,17 +110,17 @@ public final class AlignmentUtils {
 
         // compute here the read starts w.r.t. the reference from the SW result and the hap -> ref cigar
         final Cigar extendedHaplotypeCigar = haplotype.getConsolidatedPaddedCigar(1000);
-        final int readStartOnHaplotype = calcFirstBaseMatchingReferenceInCigar(extendedHaplotypeCigar, swPairwiseAlignment.getAlignmentStart2wrt1());
+        final int readStartOnHaplotype = calcFirstBaseMatchingReferenceInCigar(extendedHaplotypeCigar, readToHaplotypeSWAlignment.getAlignmentOffset());
         final int readStartOnReference = referenceStart + haplotype.getAlignmentStartHapwrtRef() + readStartOnHaplotype;
         read.setPosition(read.getContig(), readStartOnReference);
 
         // compute the read -> ref alignment by mapping read -> hap -> ref from the
         // SW of read -> hap mapped through the given by hap -> ref
-        final Cigar haplotypeToRef = trimCigarByBases(extendedHaplotypeCigar, swPairwiseAlignment.getAlignmentStart2wrt1(), extendedHaplotypeCigar.getReadLength() - 1);
+        final Cigar haplotypeToRef = trimCigarByBases(extendedHaplotypeCigar, readToHaplotypeSWAlignment.getAlignmentOffset(), extendedHaplotypeCigar.getReadLength() - 1);
         final Cigar readToRefCigarRaw = applyCigarToCigar(swCigar, haplotypeToRef);
         final Cigar readToRefCigarClean = cleanUpCigar(readToRefCigarRaw);
         final Cigar readToRefCigar = leftAlignIndel(readToRefCigarClean, refHaplotype.getBases(),
-                originalRead.getBases(), swPairwiseAlignment.getAlignmentStart2wrt1(), 0, true);
+                originalRead.getBasesNoCopy(), readToHaplotypeSWAlignment.getAlignmentOffset(), 0, true);
 
         read.setCigar(readToRefCigar);
 
@@ -258,9 +286,9 @@ public final class AlignmentUtils {
 
         int readIdx = 0;
         final int endOnRead = startOnRead + nReadBases - 1; // index of the last base on read we want to count (note we are including soft-clipped bases with this math)
-        final byte[] readSeq = r.getBases();
+        final byte[] readSeq = r.getBasesNoCopy();
         final Cigar c = r.getCigar();
-        final byte[] readQuals = r.getBaseQualities();
+        final byte[] readQuals = r.getBaseQualitiesNoCopy();
         for (final CigarElement ce : c.getCigarElements()) {
 
             if (readIdx > endOnRead)
@@ -396,7 +424,7 @@ public final class AlignmentUtils {
         if ( read.getCigar() == null ) // the read is unmapped
             return 0;
 
-        final byte[] qual = read.getBaseQualities();
+        final byte[] qual = read.getBaseQualitiesNoCopy();
 
         int numHQSoftClips = 0;
         int alignPos = 0;
@@ -7,6 +7,9 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.smithwaterman.SWPairwiseAlignment.Parameters;
 import org.broadinstitute.hellbender.utils.smithwaterman.SWPairwiseAlignment;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignment;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
 
 import java.util.*;
 
@@ -269,8 +272,20 @@ public final class CigarUtils {
      * @return a Cigar mapping this path to refSeq, or null if no reasonable alignment could be found
      */
     public static Cigar calculateCigar(final byte[] refSeq, final byte[] altSeq) {
+        return calculateCigar(refSeq, altSeq, SmithWatermanJavaAligner.getInstance());
+    }
+
+    /**
+     * Calculate the cigar elements for this path against the reference sequence
+     *
+     * @param refSeq the reference sequence that all of the bases in this path should align to
+     * @param aligner the Smith-Waterman aligner to use
+     * @return a Cigar mapping this path to refSeq, or null if no reasonable alignment could be found
+     */
+    public static Cigar calculateCigar(final byte[] refSeq, final byte[] altSeq, final SmithWatermanAligner aligner) {
         Utils.nonNull(refSeq, "refSeq");
         Utils.nonNull(altSeq, "altSeq");
+        Utils.nonNull(aligner, "aligner");
         if ( altSeq.length == 0 ) {
             // horrible edge case from the unit tests, where this path has no bases
             return new Cigar(Arrays.asList(new CigarElement(refSeq.length, CigarOperator.D)));
@@ -288,7 +303,7 @@ public final class CigarUtils {
 
         final String paddedRef = SW_PAD + new String(refSeq) + SW_PAD;
         final String paddedPath = SW_PAD + new String(altSeq) + SW_PAD;
-        final SWPairwiseAlignment alignment = new SWPairwiseAlignment( paddedRef.getBytes(), paddedPath.getBytes(), NEW_SW_PARAMETERS);
+        final SmithWatermanAlignment alignment = aligner.align(paddedRef.getBytes(), paddedPath.getBytes(), NEW_SW_PARAMETERS, SWPairwiseAlignment.OverhangStrategy.SOFTCLIP);
 
         if ( isSWFailure(alignment) ) {
             return null;
@@ -311,9 +326,9 @@ public final class CigarUtils {
     /**
      * Make sure that the SW didn't fail in some terrible way, and throw exception if it did
      */
-    private static boolean isSWFailure(final SWPairwiseAlignment alignment) {
+    private static boolean isSWFailure(final SmithWatermanAlignment alignment) {
         // check that the alignment starts at the first base, which it should given the padding
-        if ( alignment.getAlignmentStart2wrt1() > 0 ) {
+        if ( alignment.getAlignmentOffset() > 0 ) {
             return true;
         }
 
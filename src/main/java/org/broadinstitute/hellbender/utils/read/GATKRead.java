@@ -207,6 +207,20 @@ public interface GATKRead extends Locatable {
      */
     byte[] getBases();
 
+    /**
+     * @return The read sequence as ASCII bytes ACGTN=, or an empty byte[] if no sequence is present.
+     *
+     * Unlike {@link #getBases}, implementations may return the array backing the read without making a copy,
+     * so this is a read-only view of the bases: callers must NOT modify the returned array, and should not hold
+     * on to it beyond the point where the read might be modified. Use this in place of {@link #getBases} in
+     * code that only reads the bases, to avoid copying them on every call.
+     *
+     * The default implementation returns {@link #getBases}.
+     */
+    default byte[] getBasesNoCopy() {
+        return getBases();
+    }
+
     /**
      * @return The base at index i.
      * The default implementation returns getBases()[i].
@@ -243,6 +257,20 @@ public interface GATKRead extends Locatable {
      */
     byte[] getBaseQualities();
 
+    /**
+     * @return Base qualities as binary phred scores (not ASCII), or an empty byte[] if base qualities are not present.
+     *
+     * Unlike {@link #getBaseQualities}, implementations may return the array backing the read without making
+     * a copy, so this is a read-only view of the base qualities: callers must NOT modify the returned array, and
+     * should not hold on to it beyond the point where the read might be modified. Use this in place of
+     * {@link #getBaseQualities} in code that only reads the qualities, to avoid copying them on every call.
+     *
+     * The default implementation returns {@link #getBaseQualities}.
+     */
+    default byte[] getBaseQualitiesNoCopy() {
+        return getBaseQualities();
+    }
+
     /**
      * @return The number of base qualities in the read sequence.
      * This default implementation calls getBaseQualities().length
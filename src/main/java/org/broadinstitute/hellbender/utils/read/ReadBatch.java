@@ -0,0 +1,600 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A batch of headerless reads stored column by column, rather than as one object per read.
+ *
+ * The fixed-width fields of the reads (positions, flags, mapping qualities, ...) are stored in one primitive array per
+ * field, and the variable-length fields (names, cigars, bases, qualities and attributes) are concatenated into one
+ * array per field, with offsets to the start of each read. Bases are packed two per byte with the BAM encoding, and
+ * reference names are stored once per batch. A batch of reads is therefore a handful of large arrays, which is much
+ * cheaper to cache and serialize (see {@link Serializer}) and much easier on the garbage collector than the same
+ * number of individual read objects.
+ *
+ * The fields most often needed without the rest of the read can be read directly from the columns (see eg.,
+ * {@link #getAlignmentStart}). {@link #getRead} materializes a read from its row: the read is a copy, so changes
+ * to it are not reflected in the batch.
+ *
+ * As in BAM, bases are stored in upper case, and bases other than those that can be encoded in BAM are stored as N.
+ */
+@DefaultSerializer(ReadBatch.Serializer.class)
+public final class ReadBatch implements Iterable<GATKRead> {
+
+    private static final byte[] BAM_BASES = "=ACMGRSVTWYHKDBN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE_CODES = new byte[256];
+    static {
+        Arrays.fill(BASE_CODES, (byte)(BAM_BASES.length - 1));
+        for ( int code = 0; code < BAM_BASES.length; code++ ) {
+            BASE_CODES[BAM_BASES[code]] = (byte)code;
+            BASE_CODES[Character.toLowerCase(BAM_BASES[code])] = (byte)code;
+        }
+    }
+
+    // stored in place of the qualities of a read that has none, as in BAM
+    private static final byte MISSING_QUALITY = (byte)0xFF;
+
+    private final int size;
+    private final String[] referenceNames;
+
+    // fixed-width fields, one entry per read
+    private final int[] referenceIndices;
+    private final int[] alignmentStarts;
+    private final int[] mateReferenceIndices;
+    private final int[] mateAlignmentStarts;
+    private final int[] insertSizes;
+    private final short[] flags;
+    private final byte[] mappingQualities;
+
+    // variable-length fields, with offsets of the start of each read (and the end of the last one)
+    private final byte[] names;
+    private final int[] nameOffsets;
+    private final int[] cigars;
+    private final int[] cigarOffsets;
+    private final byte[] packedBases;
+    private final byte[] qualities;
+    private final int[] baseOffsets;
+    private final byte[] attributes;
+    private final int[] attributeOffsets;
+
+    private ReadBatch( final int size, final String[] referenceNames, final int[] referenceIndices, final int[] alignmentStarts,
+                       final int[] mateReferenceIndices, final int[] mateAlignmentStarts, final int[] insertSizes,
+                       final short[] flags, final byte[] mappingQualities, final byte[] names, final int[] nameOffsets,
+                       final int[] cigars, final int[] cigarOffsets, final byte[] packedBases, final byte[] qualities,
+                       final int[] baseOffsets, final byte[] attributes, final int[] attributeOffsets ) {
+        this.size = size;
+        this.referenceNames = referenceNames;
+        this.referenceIndices = referenceIndices;
+        this.alignmentStarts = alignmentStarts;
+        this.mateReferenceIndices = mateReferenceIndices;
+        this.mateAlignmentStarts = mateAlignmentStarts;
+        this.insertSizes = insertSizes;
+        this.flags = flags;
+        this.mappingQualities = mappingQualities;
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.cigars = cigars;
+        this.cigarOffsets = cigarOffsets;
+        this.packedBases = packedBases;
+        this.qualities = qualities;
+        this.baseOffsets = baseOffsets;
+        this.attributes = attributes;
+        this.attributeOffsets = attributeOffsets;
+    }
+
+    private ReadBatch( final Kryo kryo, final Input input ) {
+        size = input.readInt(true);
+        referenceNames = new String[input.readInt(true)];
+        for ( int i = 0; i < referenceNames.length; i++ ) {
+            referenceNames[i] = input.readString();
+        }
+        referenceIndices = readInts(input, size, true);
+        alignmentStarts = readInts(input, size, true);
+        mateReferenceIndices = readInts(input, size, true);
+        mateAlignmentStarts = readInts(input, size, true);
+        insertSizes = readInts(input, size, false);
+        flags = input.readShorts(size);
+        mappingQualities = input.readBytes(size);
+        nameOffsets = readInts(input, size + 1, true);
+        names = input.readBytes(nameOffsets[size]);
+        cigarOffsets = readInts(input, size + 1, true);
+        cigars = readInts(input, cigarOffsets[size], true);
+        baseOffsets = readInts(input, size + 1, true);
+        packedBases = input.readBytes((baseOffsets[size] + 1) / 2);
+        qualities = input.readBytes(baseOffsets[size]);
+        attributeOffsets = readInts(input, size + 1, true);
+        attributes = input.readBytes(attributeOffsets[size]);
+    }
+
+    private void serialize( final Kryo kryo, final Output output ) {
+        output.writeInt(size, true);
+        output.writeInt(referenceNames.length, true);
+        for ( final String referenceName : referenceNames ) {
+            output.writeString(referenceName);
+        }
+        writeInts(output, referenceIndices, true);
+        writeInts(output, alignmentStarts, true);
+        writeInts(output, mateReferenceIndices, true);
+        writeInts(output, mateAlignmentStarts, true);
+        writeInts(output, insertSizes, false);
+        output.writeShorts(flags);
+        output.writeBytes(mappingQualities);
+        writeInts(output, nameOffsets, true);
+        output.writeBytes(names);
+        writeInts(output, cigarOffsets, true);
+        writeInts(output, cigars, true);
+        writeInts(output, baseOffsets, true);
+        output.writeBytes(packedBases);
+        output.writeBytes(qualities);
+        writeInts(output, attributeOffsets, true);
+        output.writeBytes(attributes);
+    }
+
+    // variable-length ints, since most of the values (offsets, positions, cigar elements) are small and positive
+    private static void writeInts( final Output output, final int[] values, final boolean optimizePositive ) {
+        for ( final int value : values ) {
+            output.writeInt(value, optimizePositive);
+        }
+    }
+
+    private static int[] readInts( final Input input, final int length, final boolean optimizePositive ) {
+        final int[] values = new int[length];
+        for ( int i = 0; i < length; i++ ) {
+            values[i] = input.readInt(optimizePositive);
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of reads in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the reference name of a read ({@value SAMRecord#NO_ALIGNMENT_REFERENCE_NAME} if it has none)
+     */
+    public String getReferenceName( final int row ) {
+        return referenceNames[referenceIndices[row]];
+    }
+
+    /**
+     * @return the 1-based alignment start of a read (0 if it has none)
+     */
+    public int getAlignmentStart( final int row ) {
+        return alignmentStarts[row];
+    }
+
+    /**
+     * @return the SAM flags of a read
+     */
+    public int getFlags( final int row ) {
+        return flags[row] & 0xFFFF;
+    }
+
+    /**
+     * @return the mapping quality of a read
+     */
+    public int getMappingQuality( final int row ) {
+        return mappingQualities[row] & 0xFF;
+    }
+
+    /**
+     * @return the number of bases in a read
+     */
+    public int getLength( final int row ) {
+        return baseOffsets[row + 1] - baseOffsets[row];
+    }
+
+    /**
+     * @return the name of a read
+     */
+    public String getName( final int row ) {
+        return new String(names, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Materialize a read from the batch
+     *
+     * @param row index of the read in the batch
+     * @return a new headerless read with the contents of the row
+     */
+    public GATKRead getRead( final int row ) {
+        Utils.validIndex(row, size);
+
+        final SAMRecord record = new SAMRecord(null);
+        record.setReadName(getName(row));
+        record.setFlags(getFlags(row));
+        record.setReferenceName(getReferenceName(row));
+        record.setAlignmentStart(alignmentStarts[row]);
+        record.setMappingQuality(getMappingQuality(row));
+        record.setMateReferenceName(referenceNames[mateReferenceIndices[row]]);
+        record.setMateAlignmentStart(mateAlignmentStarts[row]);
+        record.setInferredInsertSize(insertSizes[row]);
+
+        final List<CigarElement> cigarElements = new ArrayList<>(cigarOffsets[row + 1] - cigarOffsets[row]);
+        for ( int i = cigarOffsets[row]; i < cigarOffsets[row + 1]; i++ ) {
+            cigarElements.add(new CigarElement(cigars[i] >>> 4, CigarOperator.binaryToEnum(cigars[i] & 0xF)));
+        }
+        record.setCigar(new Cigar(cigarElements));
+
+        final int baseStart = baseOffsets[row];
+        final int length = getLength(row);
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            final int packed = packedBases[(baseStart + i) >> 1];
+            bases[i] = BAM_BASES[((baseStart + i) & 1) == 0 ? (packed >> 4) & 0xF : packed & 0xF];
+        }
+        record.setReadBases(bases);
+        record.setBaseQualities(length > 0 && qualities[baseStart] == MISSING_QUALITY ?
+                SAMRecord.NULL_QUALS : Arrays.copyOfRange(qualities, baseStart, baseStart + length));
+
+        decodeAttributes(record, attributeOffsets[row], attributeOffsets[row + 1]);
+        return SAMRecordToGATKReadAdapter.headerlessReadAdapter(record);
+    }
+
+    /**
+     * @return an iterator that materializes each read in the batch in turn
+     */
+    @Override
+    public Iterator<GATKRead> iterator() {
+        return new Iterator<GATKRead>() {
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < size;
+            }
+
+            @Override
+            public GATKRead next() {
+                if ( ! hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                return getRead(row++);
+            }
+        };
+    }
+
+    /**
+     * Store reads in batches
+     *
+     * @param reads reads to store
+     * @param batchSize maximum number of reads per batch
+     * @return an iterator over batches of the reads, in order
+     */
+    public static Iterator<ReadBatch> batch( final Iterator<GATKRead> reads, final int batchSize ) {
+        Utils.nonNull(reads);
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        return new Iterator<ReadBatch>() {
+            @Override
+            public boolean hasNext() {
+                return reads.hasNext();
+            }
+
+            @Override
+            public ReadBatch next() {
+                if ( ! hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                final Builder builder = new Builder();
+                while ( reads.hasNext() && builder.size() < batchSize ) {
+                    builder.add(reads.next());
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    private void decodeAttributes( final SAMRecord record, final int start, final int end ) {
+        try ( final DataInputStream in = new DataInputStream(new ByteArrayInputStream(attributes, start, end - start)) ) {
+            while ( in.available() > 0 ) {
+                final String tag = new String(new byte[]{in.readByte(), in.readByte()}, StandardCharsets.US_ASCII);
+                final byte type = in.readByte();
+                switch ( type ) {
+                    case 'A': record.setAttribute(tag, in.readChar()); break;
+                    case 'i': record.setAttribute(tag, in.readInt()); break;
+                    case 'l': record.setAttribute(tag, in.readLong()); break;
+                    case 'f': record.setAttribute(tag, in.readFloat()); break;
+                    case 'Z': record.setAttribute(tag, new String(readArray(in), StandardCharsets.UTF_8)); break;
+                    case 'B': setArrayAttribute(record, tag, in.readBoolean(), readArray(in)); break;
+                    case 'S': {
+                        final boolean unsigned = in.readBoolean();
+                        final short[] values = new short[in.readInt()];
+                        for ( int i = 0; i < values.length; i++ ) {
+                            values[i] = in.readShort();
+                        }
+                        setArrayAttribute(record, tag, unsigned, values);
+                        break;
+                    }
+                    case 'I': {
+                        final boolean unsigned = in.readBoolean();
+                        final int[] values = new int[in.readInt()];
+                        for ( int i = 0; i < values.length; i++ ) {
+                            values[i] = in.readInt();
+                        }
+                        setArrayAttribute(record, tag, unsigned, values);
+                        break;
+                    }
+                    case 'F': {
+                        final float[] values = new float[in.readInt()];
+                        for ( int i = 0; i < values.length; i++ ) {
+                            values[i] = in.readFloat();
+                        }
+                        record.setAttribute(tag, values);
+                        break;
+                    }
+                    default: throw new GATKException("Invalid attribute type " + (char)type + " in read batch");
+                }
+            }
+        }
+        catch ( final IOException e ) {
+            throw new GATKException("Error decoding read attributes", e);
+        }
+    }
+
+    private static byte[] readArray( final DataInputStream in ) throws IOException {
+        final byte[] values = new byte[in.readInt()];
+        in.readFully(values);
+        return values;
+    }
+
+    private static void setArrayAttribute( final SAMRecord record, final String tag, final boolean unsigned, final Object values ) {
+        if ( unsigned ) {
+            record.setUnsignedArrayAttribute(tag, values);
+        }
+        else {
+            record.setAttribute(tag, values);
+        }
+    }
+
+    /**
+     * Collects reads into a {@link ReadBatch}
+     */
+    public static final class Builder {
+        private final Map<String, Integer> referenceIndexByName = new HashMap<>();
+        private final List<String> referenceNames = new ArrayList<>();
+
+        private int size = 0;
+        private int[] referenceIndices = new int[16];
+        private int[] alignmentStarts = new int[16];
+        private int[] mateReferenceIndices = new int[16];
+        private int[] mateAlignmentStarts = new int[16];
+        private int[] insertSizes = new int[16];
+        private short[] flags = new short[16];
+        private byte[] mappingQualities = new byte[16];
+
+        private final ByteArrayOutputStream names = new ByteArrayOutputStream();
+        private int[] nameOffsets = new int[17];
+        private int[] cigars = new int[16];
+        private int numCigarElements = 0;
+        private int[] cigarOffsets = new int[17];
+        private byte[] packedBases = new byte[256];
+        private byte[] qualities = new byte[256];
+        private int numBases = 0;
+        private int[] baseOffsets = new int[17];
+        private final ByteArrayOutputStream attributes = new ByteArrayOutputStream();
+        private final DataOutputStream attributesOut = new DataOutputStream(attributes);
+        private int[] attributeOffsets = new int[17];
+
+        /**
+         * @return the number of reads added so far
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Add a read to the batch. Any header of the read is not stored.
+         *
+         * @param read read to add
+         * @return this builder
+         */
+        public Builder add( final GATKRead read ) {
+            Utils.nonNull(read);
+            final SAMRecord record = read.convertToSAMRecord(null);
+            if ( size == referenceIndices.length ) {
+                grow();
+            }
+
+            referenceIndices[size] = getReferenceIndex(record.getReferenceName());
+            alignmentStarts[size] = record.getAlignmentStart();
+            mateReferenceIndices[size] = getReferenceIndex(record.getMateReferenceName());
+            mateAlignmentStarts[size] = record.getMateAlignmentStart();
+            insertSizes[size] = record.getInferredInsertSize();
+            flags[size] = (short)record.getFlags();
+            mappingQualities[size] = (byte)record.getMappingQuality();
+
+            final byte[] name = record.getReadName().getBytes(StandardCharsets.US_ASCII);
+            names.write(name, 0, name.length);
+            nameOffsets[size + 1] = names.size();
+
+            final List<CigarElement> cigarElements = record.getCigar().getCigarElements();
+            if ( numCigarElements + cigarElements.size() > cigars.length ) {
+                cigars = Arrays.copyOf(cigars, Math.max(cigars.length * 2, numCigarElements + cigarElements.size()));
+            }
+            for ( final CigarElement element : cigarElements ) {
+                cigars[numCigarElements++] = (element.getLength() << 4) | CigarOperator.enumToBinary(element.getOperator());
+            }
+            cigarOffsets[size + 1] = numCigarElements;
+
+            addBasesAndQualities(record.getReadBases(), record.getBaseQualities());
+            baseOffsets[size + 1] = numBases;
+
+            addAttributes(record);
+            attributeOffsets[size + 1] = attributes.size();
+
+            size++;
+            return this;
+        }
+
+        /**
+         * @return a batch of the reads added so far
+         */
+        public ReadBatch build() {
+            return new ReadBatch(size, referenceNames.toArray(new String[referenceNames.size()]),
+                    Arrays.copyOf(referenceIndices, size), Arrays.copyOf(alignmentStarts, size), Arrays.copyOf(mateReferenceIndices, size),
+                    Arrays.copyOf(mateAlignmentStarts, size), Arrays.copyOf(insertSizes, size), Arrays.copyOf(flags, size),
+                    Arrays.copyOf(mappingQualities, size), names.toByteArray(), Arrays.copyOf(nameOffsets, size + 1),
+                    Arrays.copyOf(cigars, numCigarElements), Arrays.copyOf(cigarOffsets, size + 1),
+                    Arrays.copyOf(packedBases, (numBases + 1) / 2), Arrays.copyOf(qualities, numBases),
+                    Arrays.copyOf(baseOffsets, size + 1), attributes.toByteArray(), Arrays.copyOf(attributeOffsets, size + 1));
+        }
+
+        private int getReferenceIndex( final String referenceName ) {
+            final String name = referenceName == null ? SAMRecord.NO_ALIGNMENT_REFERENCE_NAME : referenceName;
+            return referenceIndexByName.computeIfAbsent(name, n -> {
+                referenceNames.add(n);
+                return referenceNames.size() - 1;
+            });
+        }
+
+        private void grow() {
+            final int capacity = referenceIndices.length * 2;
+            referenceIndices = Arrays.copyOf(referenceIndices, capacity);
+            alignmentStarts = Arrays.copyOf(alignmentStarts, capacity);
+            mateReferenceIndices = Arrays.copyOf(mateReferenceIndices, capacity);
+            mateAlignmentStarts = Arrays.copyOf(mateAlignmentStarts, capacity);
+            insertSizes = Arrays.copyOf(insertSizes, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            mappingQualities = Arrays.copyOf(mappingQualities, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            cigarOffsets = Arrays.copyOf(cigarOffsets, capacity + 1);
+            baseOffsets = Arrays.copyOf(baseOffsets, capacity + 1);
+            attributeOffsets = Arrays.copyOf(attributeOffsets, capacity + 1);
+        }
+
+        private void addBasesAndQualities( final byte[] bases, final byte[] quals ) {
+            if ( numBases + bases.length > qualities.length ) {
+                final int capacity = Math.max(qualities.length * 2, numBases + bases.length);
+                qualities = Arrays.copyOf(qualities, capacity);
+                packedBases = Arrays.copyOf(packedBases, (capacity + 1) / 2);
+            }
+            for ( int i = 0; i < bases.length; i++ ) {
+                final int position = numBases + i;
+                final int code = BASE_CODES[bases[i] & 0xFF];
+                if ( (position & 1) == 0 ) {
+                    packedBases[position >> 1] = (byte)(code << 4);
+                }
+                else {
+                    packedBases[position >> 1] |= code;
+                }
+            }
+            if ( quals.length == bases.length ) {
+                System.arraycopy(quals, 0, qualities, numBases, quals.length);
+            }
+            else {
+                Arrays.fill(qualities, numBases, numBases + bases.length, MISSING_QUALITY);
+            }
+            numBases += bases.length;
+        }
+
+        private void addAttributes( final SAMRecord record ) {
+            try {
+                for ( final SAMRecord.SAMTagAndValue attribute : record.getAttributes() ) {
+                    final Object value = attribute.value;
+                    attributesOut.writeBytes(attribute.tag);
+                    if ( value instanceof Character ) {
+                        attributesOut.writeByte('A');
+                        attributesOut.writeChar((Character)value);
+                    }
+                    else if ( value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+                        attributesOut.writeByte('i');
+                        attributesOut.writeInt(((Number)value).intValue());
+                    }
+                    else if ( value instanceof Long ) {
+                        attributesOut.writeByte('l');
+                        attributesOut.writeLong((Long)value);
+                    }
+                    else if ( value instanceof Float ) {
+                        attributesOut.writeByte('f');
+                        attributesOut.writeFloat((Float)value);
+                    }
+                    else if ( value instanceof String ) {
+                        attributesOut.writeByte('Z');
+                        writeArray(((String)value).getBytes(StandardCharsets.UTF_8));
+                    }
+                    else if ( value instanceof byte[] ) {
+                        attributesOut.writeByte('B');
+                        attributesOut.writeBoolean(record.isUnsignedArrayAttribute(attribute.tag));
+                        writeArray((byte[])value);
+                    }
+                    else if ( value instanceof short[] ) {
+                        attributesOut.writeByte('S');
+                        attributesOut.writeBoolean(record.isUnsignedArrayAttribute(attribute.tag));
+                        final short[] values = (short[])value;
+                        attributesOut.writeInt(values.length);
+                        for ( final short v : values ) {
+                            attributesOut.writeShort(v);
+                        }
+                    }
+                    else if ( value instanceof int[] ) {
+                        attributesOut.writeByte('I');
+                        attributesOut.writeBoolean(record.isUnsignedArrayAttribute(attribute.tag));
+                        final int[] values = (int[])value;
+                        attributesOut.writeInt(values.length);
+                        for ( final int v : values ) {
+                            attributesOut.writeInt(v);
+                        }
+                    }
+                    else if ( value instanceof float[] ) {
+                        attributesOut.writeByte('F');
+                        final float[] values = (float[])value;
+                        attributesOut.writeInt(values.length);
+                        for ( final float v : values ) {
+                            attributesOut.writeFloat(v);
+                        }
+                    }
+                    else {
+                        throw new GATKException("Unsupported type " + value.getClass().getSimpleName() + " for attribute " + attribute.tag + " of read " + record.getReadName());
+                    }
+                }
+                attributesOut.flush();
+            }
+            catch ( final IOException e ) {
+                throw new GATKException("Error encoding read attributes", e);
+            }
+        }
+
+        private void writeArray( final byte[] values ) throws IOException {
+            attributesOut.writeInt(values.length);
+            attributesOut.write(values);
+        }
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<ReadBatch> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final ReadBatch batch ) {
+            batch.serialize(kryo, output);
+        }
+
+        @Override
+        public ReadBatch read( final Kryo kryo, final Input input, final Class<ReadBatch> klass ) {
+            return new ReadBatch(kryo, input);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.utils.read;
 
 import htsjdk.samtools.*;
 import htsjdk.samtools.cram.build.CramIO;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -115,10 +116,11 @@ public final class ReadUtils {
      */
     public static String getBaseQualityString( final GATKRead read ) {
         Utils.nonNull(read);
-        if ( Arrays.equals(SAMRecord.NULL_QUALS, read.getBaseQualities()) ) {
+        final byte[] baseQualities = read.getBaseQualitiesNoCopy();
+        if ( Arrays.equals(SAMRecord.NULL_QUALS, baseQualities) ) {
             return SAMRecord.NULL_QUALS_STRING;
         }
-        return SAMUtils.phredToFastq(read.getBaseQualities());
+        return SAMUtils.phredToFastq(baseQualities);
     }
 
     /**
@@ -799,7 +801,7 @@ public final class ReadUtils {
      * @return the reverse complement of the read bases
      */
     public static String getBasesReverseComplement(final GATKRead read) {
-        return getBasesReverseComplement(read.getBases());
+        return getBasesReverseComplement(read.getBasesNoCopy());
     }
 
     /**
@@ -965,8 +967,34 @@ public final class ReadUtils {
             final File referenceFile,
             final SAMFileHeader header,
             final boolean preSorted,
-            boolean createOutputBamIndex,
+            final boolean createOutputBamIndex,
             final boolean createMD5)
+    {
+        return createCommonSAMWriter(outputFile, referenceFile, header, preSorted, createOutputBamIndex, createMD5, 0);
+    }
+
+    /**
+     * Create a common SAMFileWriter for use with GATK tools.
+     *
+     * @param outputFile - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
+     * @param header - header to be used for the output writer
+     * @param preSorted - if true then the records must already be sorted to match the header sort order
+     * @param createOutputBamIndex - if true an index will be created for .BAM and .CRAM files
+     * @param createMD5 - if true an MD5 file will be created
+     * @param compressionThreads - if > 0, and the output is a .BAM file, the number of threads to compress it on
+     *                             (the output is the same as when it is compressed on the writing thread)
+     *
+     * @return SAMFileWriter
+     */
+    public static SAMFileWriter createCommonSAMWriter(
+            final File outputFile,
+            final File referenceFile,
+            final SAMFileHeader header,
+            final boolean preSorted,
+            boolean createOutputBamIndex,
+            final boolean createMD5,
+            final int compressionThreads)
     {
         Utils.nonNull(outputFile);
         Utils.nonNull(header);
@@ -977,6 +1005,12 @@ public final class ReadUtils {
             createOutputBamIndex = false;
         }
 
+        if (compressionThreads > 0 && outputFile.getName().endsWith(BamFileIoUtils.BAM_FILE_EXTENSION)
+                && BlockCompressedOutputStream.getDefaultCompressionLevel() > 0) {
+            return ParallelCompressingBAMFileWriter.makeWriter(header.clone(), preSorted, outputFile, createOutputBamIndex, createMD5,
+                    BlockCompressedOutputStream.getDefaultCompressionLevel(), compressionThreads);
+        }
+
         final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputFile, referenceFile, header, preSorted);
     }
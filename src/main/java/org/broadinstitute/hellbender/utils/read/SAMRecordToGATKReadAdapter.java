@@ -206,6 +206,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return bases != null ? Arrays.copyOf(bases, bases.length) : new byte[0];
     }
 
+    @Override
+    public byte[] getBasesNoCopy() {
+        final byte[] bases = samRecord.getReadBases();
+        return bases != null ? bases : new byte[0];
+    }
+
     //Overridden default method to avoid a call to getBases which makes a copy of data
     @Override
     public byte getBase(final int i){
@@ -217,10 +223,11 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return bases[i];
     }
 
+    // Records read from a BAM file decode their bases lazily, on first access, and know their length without
+    // decoding them, so this avoids decoding the bases of reads whose sequence is never looked at
     @Override
     public int getLength() {
-        final byte[] bases = samRecord.getReadBases();
-        return bases == null ? 0 : bases.length;
+        return samRecord.getReadLength();
     }
 
     @Override
@@ -236,6 +243,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return baseQualities != null ? Arrays.copyOf(baseQualities, baseQualities.length) : new byte[0];
     }
 
+    @Override
+    public byte[] getBaseQualitiesNoCopy() {
+        final byte[] baseQualities = samRecord.getBaseQualities();
+        return baseQualities != null ? baseQualities : new byte[0];
+    }
+
     @Override
     public int getBaseQualityCount(){
         final byte[] baseQualities = samRecord.getBaseQualities();
@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+
+/**
+ * A fixed-width binary key for fragments and paired ends, which are duplicates of each other when their keys are
+ * equal. Holds the same information as the String keys in {@link ReadsKey}: the library, and the reference index,
+ * stranded unclipped start and strand of each end.
+ */
+public final class DuplicateKey implements Comparable<DuplicateKey>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int MAX_LIBRARIES = 1 << 15;
+
+    private static final int FRAGMENT = 0;
+    private static final int PAIRED_ENDS = 1;
+    private static final int UNPAIRED_END = 2;
+
+    private static final int FIRST_REVERSE = 1 << 2;
+    private static final int SECOND_REVERSE = 1 << 3;
+    private static final int LIBRARY_SHIFT = 4;
+
+    // type, strands and library
+    private final int info;
+    // reference index and stranded unclipped start of each end
+    private final long firstEnd;
+    private final long secondEnd;
+
+    private DuplicateKey( final int type, final ReadDescriptor first, final ReadDescriptor second ) {
+        int info = type | (first.getLibraryIndex() << LIBRARY_SHIFT);
+        if ( first.isReverseStrand() ) {
+            info |= FIRST_REVERSE;
+        }
+        if ( second != null && second.isReverseStrand() ) {
+            info |= SECOND_REVERSE;
+        }
+        this.info = info;
+        this.firstEnd = encodeEnd(first);
+        this.secondEnd = second != null ? encodeEnd(second) : 0L;
+    }
+
+    private static long encodeEnd( final ReadDescriptor end ) {
+        return ((long)end.getReferenceIndex() << 32) | (end.getStrandedUnclippedStart() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Makes the key for a read considered as a fragment.
+     */
+    public static DuplicateKey forFragment( final ReadDescriptor read ) {
+        Utils.nonNull(read);
+        return new DuplicateKey(FRAGMENT, read, null);
+    }
+
+    /**
+     * Makes the key for paired ends, or for a lone end of a pair if second is null.
+     */
+    public static DuplicateKey forPairedEnds( final ReadDescriptor first, final ReadDescriptor second ) {
+        Utils.nonNull(first);
+        return new DuplicateKey(second != null ? PAIRED_ENDS : UNPAIRED_END, first, second);
+    }
+
+    /**
+     * Returns true if the key is a fragment key.
+     */
+    public boolean isFragment() {
+        return (info & 3) == FRAGMENT;
+    }
+
+    /**
+     * Orders keys by their binary representation, which has no meaning beyond grouping equal keys together.
+     */
+    @Override
+    public int compareTo( final DuplicateKey other ) {
+        int result = Integer.compare(info, other.info);
+        if ( result == 0 ) {
+            result = Long.compare(firstEnd, other.firstEnd);
+        }
+        if ( result == 0 ) {
+            result = Long.compare(secondEnd, other.secondEnd);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals( final Object o ) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( !(o instanceof DuplicateKey) ) {
+            return false;
+        }
+        final DuplicateKey that = (DuplicateKey)o;
+        return info == that.info && firstEnd == that.firstEnd && secondEnd == that.secondEnd;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = info;
+        result = 31 * result + Long.hashCode(firstEnd);
+        result = 31 * result + Long.hashCode(secondEnd);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DuplicateKey(%08x|%016x|%016x)", info, firstEnd, secondEnd);
+    }
+}
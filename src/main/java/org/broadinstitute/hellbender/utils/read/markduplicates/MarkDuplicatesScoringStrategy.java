@@ -44,7 +44,7 @@ public enum MarkDuplicatesScoringStrategy {
             return 0;
         } else {
             int sum = 0;
-            for ( final byte b : read.getBaseQualities() ) {
+            for ( final byte b : read.getBaseQualitiesNoCopy() ) {
                 int i = (int)b;
                 if ( i >= MIN_BASE_QUAL ) {
                     sum += i;
@@ -0,0 +1,217 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Counts the optical duplicates in a set of paired ends that are duplicates of each other, with the same result as
+ * calling {@link OpticalDuplicateFinder#findOpticalDuplicates} on the pairs (split by orientation as in
+ * MarkDuplicatesSpark), but holding only a packed physical location for each pair. If a set has more pairs than
+ * the given limit, the locations are spilled to disk and merged back in order when counting.
+ *
+ * Since the pairs are only compared to pairs in the same tile that are close in x, they can be counted in a single
+ * pass over the locations in sorted order, remembering only the nearby locations.
+ */
+public final class OpticalDuplicateCounter {
+
+    public static final int DEFAULT_MAX_LOCATIONS_IN_RAM = 500000;
+
+    private static final int COORDINATE_OFFSET = 1 << 15;
+
+    private final OpticalDuplicateFinder finder;
+    private final int maxLocationsInRam;
+    private final File tmpDir;
+
+    private long[] locations = new long[16];
+    private int numLocations = 0;
+    private SortingCollection<Long> spilledLocations;
+    private boolean hasFR = false;
+    private boolean hasRF = false;
+
+    /**
+     * @param finder finder that provides the read name parsing and the optical duplicate pixel distance
+     * @param maxLocationsInRam the number of locations to hold in memory before spilling to disk
+     * @param tmpDir directory in which to spill the locations
+     */
+    public OpticalDuplicateCounter( final OpticalDuplicateFinder finder, final int maxLocationsInRam, final File tmpDir ) {
+        Utils.nonNull(finder);
+        Utils.validateArg(maxLocationsInRam > 0, "maxLocationsInRam must be positive");
+        Utils.nonNull(tmpDir);
+        this.finder = finder;
+        this.maxLocationsInRam = maxLocationsInRam;
+        this.tmpDir = tmpDir;
+    }
+
+    /**
+     * Adds a pair to the set, filling in its physical location from its read name.
+     */
+    public void add( final PairedEnds pair ) {
+        final byte orientation = pair.getOrientationForOpticalDuplicates();
+        hasFR |= orientation == ReadEnds.FR;
+        hasRF |= orientation == ReadEnds.RF;
+
+        // Both elements in the pair have the same name
+        // Pairs without a tile can't be optical duplicates, or have any, so only their orientation matters
+        if ( !finder.addLocationInformation(pair.first().getName(), pair) || pair.getTile() < 0 ) {
+            return;
+        }
+        // the read group of the paired ends is never set, so it plays no part in the order
+        final long location = ((long)pair.getTile() << 48) |
+                ((long)(pair.getX() + COORDINATE_OFFSET) << 32) |
+                ((long)(pair.getY() + COORDINATE_OFFSET) << 16) |
+                orientation;
+
+        if ( spilledLocations != null ) {
+            spilledLocations.add(location);
+        }
+        else if ( numLocations == maxLocationsInRam ) {
+            spilledLocations = SortingCollection.newInstance(Long.class, new LocationCodec(), Long::compare,
+                    maxLocationsInRam, tmpDir);
+            for ( int i = 0; i < numLocations; i++ ) {
+                spilledLocations.add(locations[i]);
+            }
+            spilledLocations.add(location);
+            locations = null;
+        }
+        else {
+            if ( numLocations == locations.length ) {
+                locations = Arrays.copyOf(locations, Math.min(2 * locations.length, maxLocationsInRam));
+            }
+            locations[numLocations++] = location;
+        }
+    }
+
+    /**
+     * @return the number of optical duplicates in the set. Pairs may not be added after this is called.
+     */
+    public int count() {
+        final Counter frCounter = new Counter(ReadEnds.FR);
+        final Counter rfCounter = new Counter(ReadEnds.RF);
+        final Counter allCounter = new Counter(-1);
+        final boolean byOrientation = hasFR && hasRF;
+
+        if ( spilledLocations == null ) {
+            Arrays.sort(locations, 0, numLocations);
+            count(Arrays.stream(locations, 0, numLocations).iterator(), byOrientation, frCounter, rfCounter, allCounter);
+        }
+        else {
+            spilledLocations.doneAdding();
+            try ( final CloseableIterator<Long> iterator = spilledLocations.iterator() ) {
+                count(iterator, byOrientation, frCounter, rfCounter, allCounter);
+            }
+            finally {
+                spilledLocations.cleanup();
+            }
+        }
+        locations = null;
+        spilledLocations = null;
+        return byOrientation ? frCounter.numDuplicates + rfCounter.numDuplicates : allCounter.numDuplicates;
+    }
+
+    private static void count( final Iterator<Long> sortedLocations, final boolean byOrientation,
+                               final Counter frCounter, final Counter rfCounter, final Counter allCounter ) {
+        while ( sortedLocations.hasNext() ) {
+            final long location = sortedLocations.next();
+            if ( byOrientation ) {
+                frCounter.add(location);
+                rfCounter.add(location);
+            }
+            else {
+                allCounter.add(location);
+            }
+        }
+    }
+
+    /**
+     * Counts the optical duplicates in a stream of sorted locations (of one orientation, or of any if negative).
+     * A location is an optical duplicate if there is an earlier location in the same tile, within the pixel distance
+     * in x and in y.
+     */
+    private final class Counter {
+        private final int orientation;
+        // the earlier locations in the same tile, which are within the pixel distance in x of the latest location
+        private final ArrayDeque<Long> window = new ArrayDeque<>();
+        private int numDuplicates = 0;
+
+        Counter( final int orientation ) {
+            this.orientation = orientation;
+        }
+
+        void add( final long location ) {
+            if ( orientation >= 0 && (location & 0xFFFF) != orientation ) {
+                return;
+            }
+            final int distance = finder.opticalDuplicatePixelDistance;
+            while ( !window.isEmpty() && (getTile(window.peekFirst()) != getTile(location) ||
+                    getX(window.peekFirst()) + distance < getX(location)) ) {
+                window.pollFirst();
+            }
+            for ( final long earlier : window ) {
+                if ( Math.abs(getY(earlier) - getY(location)) <= distance ) {
+                    numDuplicates++;
+                    break;
+                }
+            }
+            window.addLast(location);
+        }
+    }
+
+    private static int getTile( final long location ) {
+        return (int)(location >>> 48);
+    }
+
+    private static int getX( final long location ) {
+        return (int)((location >>> 32) & 0xFFFF) - COORDINATE_OFFSET;
+    }
+
+    private static int getY( final long location ) {
+        return (int)((location >>> 16) & 0xFFFF) - COORDINATE_OFFSET;
+    }
+
+    /** Codec for spilling packed locations. */
+    private static final class LocationCodec implements SortingCollection.Codec<Long> {
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        @Override
+        public LocationCodec clone() {
+            return new LocationCodec();
+        }
+
+        @Override
+        public void setOutputStream( final OutputStream os ) { this.out = new DataOutputStream(os); }
+
+        @Override
+        public void setInputStream( final InputStream is ) { this.in = new DataInputStream(is); }
+
+        @Override
+        public void encode( final Long location ) {
+            try {
+                out.writeLong(location);
+            }
+            catch ( final IOException e ) {
+                throw new GATKException("Exception writing optical duplicate locations to file.", e);
+            }
+        }
+
+        @Override
+        public Long decode() {
+            try {
+                return in.readLong();
+            }
+            catch ( final EOFException e ) {
+                return null;
+            }
+            catch ( final IOException e ) {
+                throw new GATKException("Exception reading optical duplicate locations from file.", e);
+            }
+        }
+    }
+}
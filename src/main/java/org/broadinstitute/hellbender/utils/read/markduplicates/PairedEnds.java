@@ -1,14 +1,12 @@
 package org.broadinstitute.hellbender.utils.read.markduplicates;
 
-import htsjdk.samtools.SAMFileHeader;
-import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.read.ReadUtils;
-
 /**
  * Struct-like class to store information about the paired reads for mark duplicates.
  */
 public class PairedEnds implements OpticalDuplicateFinder.PhysicalLocation {
-  private GATKRead first, second;
+  private ReadDescriptor first, second;
+  private boolean fragment;
+  private transient DuplicateKey key;
 
   // Information used to detect optical dupes
   public short readGroup = -1;
@@ -16,43 +14,65 @@ public class PairedEnds implements OpticalDuplicateFinder.PhysicalLocation {
   public short x = -1, y = -1;
   public short libraryId = -1;
 
-  PairedEnds(final GATKRead first) {
+  PairedEnds(final ReadDescriptor first) {
     this.first = first;
   }
 
-  public static PairedEnds of(final GATKRead first) {
+  /**
+   * Makes paired ends with only the first end, which may be completed with {@link #and}.
+   */
+  public static PairedEnds of(final ReadDescriptor first) {
     return new PairedEnds(first);
   }
 
-  public PairedEnds and(final GATKRead second) {
+  /**
+   * Makes a fragment: a single read, looked at without its mate.
+   */
+  public static PairedEnds fragment(final ReadDescriptor read) {
+    final PairedEnds pair = new PairedEnds(read);
+    pair.fragment = true;
+    return pair;
+  }
+
+  public PairedEnds and(final ReadDescriptor second) {
     if (second != null &&
-        ReadUtils.getStrandedUnclippedStart(first) > ReadUtils.getStrandedUnclippedStart(second)) {
+        first.getStrandedUnclippedStart() > second.getStrandedUnclippedStart()) {
       this.second = this.first;
       this.first = second;
     } else {
       this.second = second;
     }
+    this.key = null;
     return this;
   }
 
-  public String key(final SAMFileHeader header) {
-    return ReadsKey.keyForPairedEnds(header, first, second);
+  /**
+   * @return the key for the fragment or the paired ends, which is cached since it is looked at while sorting
+   */
+  public DuplicateKey key() {
+    if (key == null) {
+      key = fragment ? DuplicateKey.forFragment(first) : DuplicateKey.forPairedEnds(first, second);
+    }
+    return key;
   }
 
-  public String keyForFragment(final SAMFileHeader header) {
-    return ReadsKey.keyForFragment(header, first);
+  public boolean isFragment() {
+    return fragment;
   }
 
-  public GATKRead first() {
+  public ReadDescriptor first() {
     return first;
   }
 
-  public GATKRead second() {
+  public ReadDescriptor second() {
     return second;
   }
 
-  public int score(final MarkDuplicatesScoringStrategy scoringStrategy) {
-    return scoringStrategy.score(first) + scoringStrategy.score(second);
+  /**
+   * @return the combined score of the ends
+   */
+  public int score() {
+    return second == null ? first.getScore() : first.getScore() + second.getScore();
   }
 
   @Override
@@ -84,18 +104,6 @@ public class PairedEnds implements OpticalDuplicateFinder.PhysicalLocation {
 
   @Override
   public void setLibraryId(final short libraryId) { this.libraryId = libraryId; }
-  /**
-   * returns a deep(ish) copy of the GATK reads in the PairedEnds.
-   * TODO: This is only deep for the Google Model read, GATKRead copy() isn't deep for
-   * TODO: for the SAMRecord backed read.
-   * @return a new deep copy
-   */
-  public PairedEnds copy() {
-    if (second == null) {
-      return new PairedEnds(first.copy());
-    }
-    return new PairedEnds(first.copy()).and(second.copy());
-  }
 
   /**
    * Returns the pair orientation suitable for optical duplicates,
@@ -104,8 +112,8 @@ public class PairedEnds implements OpticalDuplicateFinder.PhysicalLocation {
    * Returns one of {@link ReadEnds#RR}, {@link ReadEnds#RF}, {@link ReadEnds#FR}, {@link ReadEnds#FF}
    */
   public byte getOrientationForOpticalDuplicates() {
-    final GATKRead read1;
-    final GATKRead read2;
+    final ReadDescriptor read1;
+    final ReadDescriptor read2;
     if (first.isFirstOfPair()){
       read1 = first;
       read2 = second;
@@ -0,0 +1,222 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The fields of a mapped, primary read that duplicate marking looks at, so that the bases, qualities and attributes
+ * of the read don't have to be shuffled around while looking for duplicates. The read is identified by an ordinal
+ * that is unique within the input, which is used to apply the result to the read afterwards.
+ */
+public final class ReadDescriptor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Orders reads before pairing them up within a template: by mapping position followed by SAM flags.
+     */
+    public static final Comparator<ReadDescriptor> PAIRING_ORDER = new PairingOrder();
+
+    /**
+     * Orders reads by coordinate, with the same tie-breaking as {@link org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator}.
+     */
+    public static final Comparator<ReadDescriptor> COORDINATE_ORDER = new CoordinateOrder();
+
+    private final long ordinal;
+    private final String name;
+    private final short libraryIndex;
+    private final int flags;
+    private final int referenceIndex;
+    private final int start;
+    private final int strandedUnclippedStart;
+    private final int mateReferenceIndex;
+    private final int mateStart;
+    private final int fragmentLength;
+    private final int mappingQuality;
+    private final int score;
+
+    /**
+     * @param read a mapped, primary read
+     * @param ordinal unique identifier of the read
+     * @param header header for the read
+     * @param libraryIndices library indices for the header, as computed by {@link #getLibraryIndices}
+     * @param scoringStrategy scoring strategy for choosing the non-duplicate
+     */
+    public ReadDescriptor( final GATKRead read, final long ordinal, final SAMFileHeader header,
+                           final Map<String, Short> libraryIndices, final MarkDuplicatesScoringStrategy scoringStrategy ) {
+        Utils.nonNull(read);
+        Utils.validateArg(!read.isUnmapped(), "read must be mapped");
+        this.ordinal = ordinal;
+        this.name = read.getName();
+        this.libraryIndex = getLibraryIndex(libraryIndices, ReadUtils.getLibrary(read, header));
+        // the duplicate flag is being recomputed, so it plays no part in the comparisons
+        this.flags = ReadUtils.getSAMFlagsForRead(read) & ~ReadUtils.SAM_DUPLICATE_READ_FLAG;
+        this.referenceIndex = ReadUtils.getReferenceIndex(read, header);
+        this.start = read.getStart();
+        this.strandedUnclippedStart = ReadUtils.getStrandedUnclippedStart(read);
+        if ( read.isPaired() ) {
+            this.mateReferenceIndex = ReadUtils.getMateReferenceIndex(read, header);
+            this.mateStart = read.getMateStart();
+        } else {
+            this.mateReferenceIndex = SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX;
+            this.mateStart = ReadConstants.UNSET_POSITION;
+        }
+        this.fragmentLength = read.getFragmentLength();
+        this.mappingQuality = read.getMappingQuality();
+        this.score = scoringStrategy.score(read);
+    }
+
+    /**
+     * Assigns a small index to each library in the header, in sorted order, with 0 standing for reads with no library.
+     */
+    public static Map<String, Short> getLibraryIndices( final SAMFileHeader header ) {
+        final SortedSet<String> libraries = new TreeSet<>();
+        for ( final SAMReadGroupRecord readGroup : header.getReadGroups() ) {
+            if ( readGroup.getLibrary() != null ) {
+                libraries.add(readGroup.getLibrary());
+            }
+        }
+        Utils.validateArg(libraries.size() < DuplicateKey.MAX_LIBRARIES, "too many libraries in the header");
+        final Map<String, Short> libraryIndices = new HashMap<>();
+        for ( final String library : libraries ) {
+            libraryIndices.put(library, (short)(libraryIndices.size() + 1));
+        }
+        return libraryIndices;
+    }
+
+    private static short getLibraryIndex( final Map<String, Short> libraryIndices, final String library ) {
+        if ( library == null ) {
+            return 0;
+        }
+        final Short index = libraryIndices.get(library);
+        Utils.validateArg(index != null, () -> "library " + library + " is not in the library indices");
+        return index;
+    }
+
+    public long getOrdinal() { return ordinal; }
+
+    public String getName() { return name; }
+
+    public short getLibraryIndex() { return libraryIndex; }
+
+    /**
+     * @return the SAM flags of the read, with the duplicate flag cleared
+     */
+    public int getFlags() { return flags; }
+
+    public int getReferenceIndex() { return referenceIndex; }
+
+    public int getStart() { return start; }
+
+    public int getStrandedUnclippedStart() { return strandedUnclippedStart; }
+
+    public int getMateReferenceIndex() { return mateReferenceIndex; }
+
+    public int getMateStart() { return mateStart; }
+
+    public int getFragmentLength() { return fragmentLength; }
+
+    public int getMappingQuality() { return mappingQuality; }
+
+    public int getScore() { return score; }
+
+    public boolean isPaired() { return hasFlag(ReadUtils.SAM_READ_PAIRED_FLAG); }
+
+    public boolean isReverseStrand() { return hasFlag(ReadUtils.SAM_READ_STRAND_FLAG); }
+
+    public boolean isFirstOfPair() { return hasFlag(ReadUtils.SAM_FIRST_OF_PAIR_FLAG); }
+
+    /**
+     * @return true if the read is paired and its mate is mapped (see {@link ReadUtils#readHasMappedMate})
+     */
+    public boolean hasMappedMate() {
+        return isPaired() && !hasFlag(ReadUtils.SAM_MATE_UNMAPPED_FLAG);
+    }
+
+    private boolean hasFlag( final int flag ) {
+        return (flags & flag) != 0;
+    }
+
+    private static int compareFlag( final ReadDescriptor lhs, final ReadDescriptor rhs, final int flag ) {
+        return Boolean.compare(lhs.hasFlag(flag), rhs.hasFlag(flag));
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + ordinal;
+    }
+
+    private static final class PairingOrder implements Comparator<ReadDescriptor>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare( final ReadDescriptor lhs, final ReadDescriptor rhs ) {
+            if ( rhs == lhs ) return 0; //shortcut
+
+            int result = Integer.compare(lhs.referenceIndex, rhs.referenceIndex);
+            if ( result != 0 ) return result;
+            result = Integer.compare(lhs.start, rhs.start);
+            if ( result != 0 ) return result;
+            result = compareFlag(lhs, rhs, ReadUtils.SAM_READ_FAILS_VENDOR_QUALITY_CHECK_FLAG);
+            if ( result != 0 ) return result;
+            result = compareFlag(lhs, rhs, ReadUtils.SAM_READ_PAIRED_FLAG);
+            if ( result != 0 ) return result;
+            result = compareFlag(lhs, rhs, ReadUtils.SAM_PROPER_PAIR_FLAG);
+            if ( result != 0 ) return result;
+            //Note: negate the result because we want first-of-pair to be before second
+            result = -compareFlag(lhs, rhs, ReadUtils.SAM_FIRST_OF_PAIR_FLAG);
+            if ( result != 0 ) return result;
+            result = compareFlag(lhs, rhs, ReadUtils.SAM_NOT_PRIMARY_ALIGNMENT_FLAG);
+            if ( result != 0 ) return result;
+            result = compareFlag(lhs, rhs, ReadUtils.SAM_SUPPLEMENTARY_ALIGNMENT_FLAG);
+            if ( result != 0 ) return result;
+            result = Integer.compare(lhs.mappingQuality, rhs.mappingQuality);
+            if ( result != 0 ) return result;
+            result = Integer.compare(lhs.mateReferenceIndex, rhs.mateReferenceIndex);
+            if ( result != 0 ) return result;
+            return Integer.compare(lhs.mateStart, rhs.mateStart);
+        }
+    }
+
+    private static final class CoordinateOrder implements Comparator<ReadDescriptor>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare( final ReadDescriptor first, final ReadDescriptor second ) {
+            // described reads are mapped, so their assigned positions are their alignment positions
+            if ( first.referenceIndex != second.referenceIndex ) {
+                if ( first.referenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ) { return 1; }
+                if ( second.referenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ) { return -1; }
+                return Integer.compare(first.referenceIndex, second.referenceIndex);
+            }
+            int result;
+            result = Integer.compare(first.start, second.start);
+            if ( result != 0 ) { return result; }
+            if ( first.isReverseStrand() != second.isReverseStrand() ) {
+                return first.isReverseStrand() ? 1 : -1;
+            }
+            if ( first.name != null && second.name != null ) {
+                result = first.name.compareTo(second.name);
+                if ( result != 0 ) { return result; }
+            }
+            result = Integer.compare(first.flags, second.flags);
+            if ( result != 0 ) { return result; }
+            result = Integer.compare(first.mappingQuality, second.mappingQuality);
+            if ( result != 0 ) { return result; }
+            if ( first.isPaired() && second.isPaired() ) {
+                result = Integer.compare(first.mateReferenceIndex, second.mateReferenceIndex);
+                if ( result != 0 ) { return result; }
+                result = Integer.compare(first.mateStart, second.mateStart);
+                if ( result != 0 ) { return result; }
+            }
+            return Integer.compare(first.fragmentLength, second.fragmentLength);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 /**
  * Encodes a unique key for read, read pairs and fragments. Used to identify duplicates for MarkDuplicates.
+ * See {@link DuplicateKey} for a compact binary version of the keys for read pairs and fragments.
  */
 public final class ReadsKey {
 
@@ -55,10 +56,7 @@ public final class ReadsKey {
      * Makes a unique key for the read.
      */
     public static String keyForRead(final SAMFileHeader header, final GATKRead read) {
-        return String.format(
-                "%s|%s",
-                read.getReadGroup(),
-                read.getName());
+        return read.getReadGroup() + "|" + read.getName();
     }
 
     /**
@@ -28,6 +28,7 @@ import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCova
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.function.Function;
 
 public final class BaseRecalibrationEngine implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -60,6 +61,9 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     private RecalibrationArgumentCollection recalArgs;
 
+    // counts collected from the reads, and the tables made from them by finalizeData()
+    private FlatRecalibrationTables recalCounts;
+
     private RecalibrationTables recalTables;
 
     private SAMFileHeader readsHeader;
@@ -95,7 +99,7 @@ public final class BaseRecalibrationEngine implements Serializable {
         if ( numReadGroups < 1 ) {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
-        recalTables = new RecalibrationTables(covariates, numReadGroups);
+        recalCounts = new FlatRecalibrationTables(covariates, numReadGroups);
         keyCache = new CovariateKeyCache();
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
@@ -112,6 +116,22 @@ public final class BaseRecalibrationEngine implements Serializable {
      * whether or not the base matches the reference at this particular location
      */
     public void processRead( final GATKRead originalRead, final ReferenceDataSource refDS, final Iterable<? extends Locatable> knownSites ) {
+        processRead(originalRead, refDS, read -> calculateKnownSites(read, knownSites));
+    }
+
+    /**
+     * As {@link #processRead(GATKRead, ReferenceDataSource, Iterable)}, but with the known sites looked up in an index.
+     * The results are the same as passing the sites in the index that overlap the read.
+     */
+    public void processRead( final GATKRead originalRead, final ReferenceDataSource refDS, final KnownSitesIndex knownSites ) {
+        Utils.nonNull(knownSites);
+        // the known sites are those overlapping the read as it is before the engine clips it
+        final SimpleInterval readInterval = !originalRead.isUnmapped() && SimpleInterval.isValid(originalRead.getContig(), originalRead.getStart(), originalRead.getEnd()) ?
+                new SimpleInterval(originalRead) : null;
+        processRead(originalRead, refDS, read -> calculateKnownSites(read, knownSites, readInterval));
+    }
+
+    private void processRead( final GATKRead originalRead, final ReferenceDataSource refDS, final Function<GATKRead, boolean[]> knownSitesCalculator ) {
         final ReadTransformer transform = makeReadTransform();
         final GATKRead read = transform.apply(originalRead);
 
@@ -134,7 +154,7 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         if( baqArray != null ) { // some reads just can't be BAQ'ed
             final ReadCovariates covariates = RecalUtils.computeCovariates(read, readsHeader, this.covariates, true, keyCache);
-            final boolean[] skip = calculateSkipArray(read, knownSites); // skip known sites of variation as well as low quality and non-regular bases
+            final boolean[] skip = calculateSkipArray(read, knownSitesCalculator.apply(read)); // skip known sites of variation as well as low quality and non-regular bases
             final double[] snpErrors = calculateFractionalErrorArray(isSNP, baqArray);
             final double[] insertionErrors = calculateFractionalErrorArray(isInsertion, baqArray);
             final double[] deletionErrors = calculateFractionalErrorArray(isDeletion, baqArray);
@@ -147,6 +167,20 @@ public final class BaseRecalibrationEngine implements Serializable {
         numReadsProcessed++;
     }
 
+    /**
+     * Add the counts collected by another engine to the counts of this one, so that reads can be processed by several
+     * engines concurrently and the results finalized by just one of them. The engines must have been created with
+     * the same arguments and read groups, and neither can have been finalized.
+     *
+     * @param other engine whose counts and number of reads processed are added to this engine's
+     */
+    public void combine( final BaseRecalibrationEngine other ) {
+        Utils.nonNull(other);
+        Utils.validate(!finalized && !other.finalized, "Cannot combine engines after finalizeData() has been called");
+        recalCounts.combine(other.recalCounts);
+        numReadsProcessed += other.numReadsProcessed;
+    }
+
     /**
      * Finalize, if appropriate, all derived data in recalibrationTables.
      *
@@ -157,6 +191,8 @@ public final class BaseRecalibrationEngine implements Serializable {
      */
     public void finalizeData() {
         Utils.validate(!finalized, "FinalizeData() has already been called");
+        recalTables = recalCounts.toRecalibrationTables(covariates);
+        recalCounts = null;
         finalizeRecalibrationTables(recalTables);
         finalized = true;
     }
@@ -207,10 +243,14 @@ public final class BaseRecalibrationEngine implements Serializable {
     }
 
     /**
-     * Get a possibly not-final recalibration table, to deal with distributed execution.
+     * Get the counts collected so far (before finalizeData() has been called), to deal with distributed execution.
+     *
+     * The counts from several engines can be combined, and then turned into recalibration tables with
+     * {@link FlatRecalibrationTables#toRecalibrationTables} and {@link #finalizeRecalibrationTables}.
      */
-    public RecalibrationTables getRecalibrationTables() {
-        return recalTables;
+    public FlatRecalibrationTables getRecalibrationCounts() {
+        Utils.validate(!finalized, "The counts are not available after finalizeData() has been called");
+        return recalCounts;
     }
 
     /**
@@ -244,9 +284,7 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
 
-        final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
         final int readLength = read.getLength();
         for( int offset = 0; offset < readLength; offset++ ) {
@@ -254,21 +292,10 @@ public final class BaseRecalibrationEngine implements Serializable {
                 for (int idx = 0; idx < cachedEventTypes.length; idx++) { //Note: we loop explicitly over cached values for speed
                     final EventType eventType = cachedEventTypes[idx];
                     final int[] keys = readCovariates.getKeySet(offset, eventType);
-                    final int eventIndex = eventType.ordinal();
-                    final byte qual = recalInfo.getQual(eventType, offset);
                     final double isError = recalInfo.getErrorFraction(eventType, offset);
 
-                    final int key0 = keys[0];
-                    final int key1 = keys[1];
-
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
-
-                    for (int i = nSpecialCovariates; i < nCovariates; i++) {
-                        final int keyi = keys[i];
-                        if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
-                        }
-                    }
+                    // the reported quality is the quality score covariate key (keys[1])
+                    recalCounts.increment(keys, nSpecialCovariates, eventType.ordinal(), isError);
                 }
             }
         }
@@ -306,20 +333,18 @@ public final class BaseRecalibrationEngine implements Serializable {
         if (recalArgs.defaultBaseQualities < 0) {
             return read;
         }
-        byte[] reads = read.getBases();
-        byte[] quals = read.getBaseQualities();
-        if (quals == null || quals.length < reads.length) {
-            byte[] new_quals = new byte[reads.length];
+        final int readLength = read.getLength();
+        if (read.getBaseQualityCount() < readLength) {
+            byte[] new_quals = new byte[readLength];
             Arrays.fill(new_quals, recalArgs.defaultBaseQualities);
             read.setBaseQualities(new_quals);
         }
         return read;
     }
 
-    private boolean[] calculateSkipArray( final GATKRead read, final Iterable<? extends Locatable> knownSites ) {
+    private boolean[] calculateSkipArray( final GATKRead read, final boolean[] knownSitesArray ) {
         final int readLength = read.getLength();
         final boolean[] skip = new boolean[readLength];
-        final boolean[] knownSitesArray = calculateKnownSites(read, knownSites);
         for(int i = 0; i < readLength; i++ ) {
             skip[i] = !BaseUtils.isRegularBase(read.getBase(i)) || read.getBaseQuality(i) < recalArgs.PRESERVE_QSCORES_LESS_THAN || knownSitesArray[i];
         }
@@ -333,27 +358,47 @@ public final class BaseRecalibrationEngine implements Serializable {
         final int softStart = ReadUtils.getSoftStart(read);
         final int softEnd = ReadUtils.getSoftEnd(read);
         for ( final Locatable knownSite : knownSites ) {
-            if (knownSite.getEnd() < softStart || knownSite.getStart() > softEnd) {
-                // knownSite is outside clipping window for the read, ignore
-                continue;
-            }
-            int featureStartOnRead = ReadUtils.getReadCoordinateForReferenceCoordinate(softStart, cigar, knownSite.getStart(), ReadUtils.ClippingTail.LEFT_TAIL, true);
-            if( featureStartOnRead == ReadUtils.CLIPPING_GOAL_NOT_REACHED ) {
-                featureStartOnRead = 0;
-            }
+            markKnownSite(knownSitesArray, knownSite.getStart(), knownSite.getEnd(), softStart, softEnd, cigar);
+        }
+        return knownSitesArray;
+    }
 
-            int featureEndOnRead = ReadUtils.getReadCoordinateForReferenceCoordinate(softStart, cigar, knownSite.getEnd(), ReadUtils.ClippingTail.LEFT_TAIL, true);
-            if( featureEndOnRead == ReadUtils.CLIPPING_GOAL_NOT_REACHED ) {
-                featureEndOnRead = readLength;
-            }
+    private static boolean[] calculateKnownSites( final GATKRead read, final KnownSitesIndex knownSites, final SimpleInterval readInterval ) {
+        final boolean[] knownSitesArray = new boolean[read.getLength()];//initializes to all false
+        if ( readInterval != null ) {
+            final Cigar cigar = read.getCigar();
+            final int softStart = ReadUtils.getSoftStart(read);
+            final int softEnd = ReadUtils.getSoftEnd(read);
+            knownSites.forEachSiteOverlapping(readInterval.getContig(), readInterval.getStart(), readInterval.getEnd(),
+                    (start, end) -> markKnownSite(knownSitesArray, start, end, softStart, softEnd, cigar));
+        }
+        return knownSitesArray;
+    }
 
-            if( featureStartOnRead > readLength ) {
-                featureStartOnRead = featureEndOnRead = readLength;
-            }
+    /**
+     * Mark the bases of the read covered by a known site spanning the reference positions start to end
+     */
+    private static void markKnownSite( final boolean[] knownSitesArray, final int start, final int end, final int softStart, final int softEnd, final Cigar cigar ) {
+        if (end < softStart || start > softEnd) {
+            // knownSite is outside clipping window for the read, ignore
+            return;
+        }
+        final int readLength = knownSitesArray.length;
+        int featureStartOnRead = ReadUtils.getReadCoordinateForReferenceCoordinate(softStart, cigar, start, ReadUtils.ClippingTail.LEFT_TAIL, true);
+        if( featureStartOnRead == ReadUtils.CLIPPING_GOAL_NOT_REACHED ) {
+            featureStartOnRead = 0;
+        }
 
-            Arrays.fill(knownSitesArray, Math.max(0, featureStartOnRead), Math.min(readLength, featureEndOnRead + 1), true);
+        int featureEndOnRead = ReadUtils.getReadCoordinateForReferenceCoordinate(softStart, cigar, end, ReadUtils.ClippingTail.LEFT_TAIL, true);
+        if( featureEndOnRead == ReadUtils.CLIPPING_GOAL_NOT_REACHED ) {
+            featureEndOnRead = readLength;
         }
-        return knownSitesArray;
+
+        if( featureStartOnRead > readLength ) {
+            featureStartOnRead = featureEndOnRead = readLength;
+        }
+
+        Arrays.fill(knownSitesArray, Math.max(0, featureStartOnRead), Math.min(readLength, featureEndOnRead + 1), true);
     }
 
     /**
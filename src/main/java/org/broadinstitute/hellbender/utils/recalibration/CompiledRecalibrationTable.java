@@ -0,0 +1,207 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
+import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
+import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
+
+/**
+ * A compiled form of the base substitution part of a set of {@link RecalibrationTables}, for applying BQSR.
+ *
+ * Recalibrating a base quality with the hierarchical Bayesian model (see
+ * {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer#hierarchicalBayesianQualityEstimate}) involves
+ * looking up a {@link RecalDatum} in a nested table for each covariate and computing its empirical quality. However,
+ * the result is a sum of terms that each depend only on the read group, the reported quality, and at most one
+ * additional covariate key, so all of the terms can be computed once, up front, and stored in flat primitive arrays.
+ * Recalibrating a base is then a handful of array loads and additions, followed by a lookup of the final
+ * (quantized) quality. The results are identical to those of the hierarchical model applied to the tables directly.
+ *
+ * The additional covariate terms are stored densely, for every combination of read group, reported quality present
+ * in the tables, and covariate key up to the largest one present in the tables. {@link #compile} declines to compile
+ * tables for which that would take more than {@link #MAX_COMPILED_ENTRIES} entries.
+ */
+public final class CompiledRecalibrationTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Largest number of covariate terms that we'll compile (8 bytes each)
+     */
+    public static final long MAX_COMPILED_ENTRIES = 1L << 23;
+
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private final int numReadGroups;
+    private final int numQuals;
+    private final int specialCovariateCount;
+
+    // per read group: whether it has recalibration data, its prior (epsilon), and its global delta Q
+    private final boolean[] hasReadGroup;
+    private final double[] epsilons;
+    private final double[] globalDeltaQs;
+
+    // index of each reported quality among the qualities present in the tables, or -1 if not present
+    private final int[] qualIndices;
+
+    // per (read group, quality index): the conditional prior for the additional covariates
+    private final double[] conditionalPriors;
+
+    // per additional covariate, per (read group, quality index, key): the covariate's delta Q (0 if absent from the tables)
+    private final double[][] covariateDeltaQs;
+    private final int[] numCovariateKeys;
+
+    // maps each recalibrated quality to the final quality to emit
+    private final byte[] recalibratedToFinalQual;
+
+    private CompiledRecalibrationTable( final RecalibrationTables tables, final double globalQScorePrior, final byte[] recalibratedToFinalQual,
+                                        final int[] qualIndices, final int numQuals, final int[] numCovariateKeys ) {
+        final NestedIntegerArray<RecalDatum> readGroupTable = tables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = tables.getAdditionalTables();
+
+        this.numReadGroups = readGroupTable.getDimensions()[0];
+        this.numQuals = numQuals;
+        this.specialCovariateCount = tables.numTables() - additionalTables.size();
+        this.qualIndices = qualIndices;
+        this.numCovariateKeys = numCovariateKeys;
+        this.recalibratedToFinalQual = recalibratedToFinalQual;
+
+        hasReadGroup = new boolean[numReadGroups];
+        epsilons = new double[numReadGroups];
+        globalDeltaQs = new double[numReadGroups];
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : readGroupTable.getAllLeaves() ) {
+            if ( leaf.keys[1] != BASE_SUBSTITUTION_INDEX ) {
+                continue;
+            }
+            final int readGroup = leaf.keys[0];
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : leaf.value.getEstimatedQReported();
+            hasReadGroup[readGroup] = true;
+            epsilons[readGroup] = epsilon;
+            globalDeltaQs[readGroup] = leaf.value.getEmpiricalQuality(epsilon) - epsilon;
+        }
+
+        // these are computed exactly as in BQSRReadTransformer.hierarchicalBayesianQualityEstimate, so that the
+        // empirical quality of each datum is computed with the same prior and the results are identical
+        conditionalPriors = new double[numReadGroups * numQuals];
+        for ( int readGroup = 0; readGroup < numReadGroups; readGroup++ ) {
+            if ( ! hasReadGroup[readGroup] ) {
+                continue;
+            }
+            final double epsilon = epsilons[readGroup];
+            final double globalDeltaQ = globalDeltaQs[readGroup];
+            for ( int qual = 0; qual < qualIndices.length; qual++ ) {
+                if ( qualIndices[qual] < 0 ) {
+                    continue;
+                }
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(readGroup, qual, BASE_SUBSTITUTION_INDEX);
+                final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+                conditionalPriors[readGroup * numQuals + qualIndices[qual]] = deltaQReported + globalDeltaQ + epsilon;
+            }
+        }
+
+        covariateDeltaQs = new double[additionalTables.size()][];
+        for ( int i = 0; i < additionalTables.size(); i++ ) {
+            final double[] deltaQs = new double[numReadGroups * numQuals * numCovariateKeys[i]];
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : additionalTables.get(i).getAllLeaves() ) {
+                final int readGroup = leaf.keys[0];
+                if ( leaf.keys[3] != BASE_SUBSTITUTION_INDEX || ! hasReadGroup[readGroup] ) {
+                    continue;
+                }
+                final int row = readGroup * numQuals + qualIndices[leaf.keys[1]];
+                final double conditionalPrior = conditionalPriors[row];
+                deltaQs[row * numCovariateKeys[i] + leaf.keys[2]] = leaf.value.getEmpiricalQuality(conditionalPrior) - conditionalPrior;
+            }
+            covariateDeltaQs[i] = deltaQs;
+        }
+    }
+
+    /**
+     * Compile the base substitution tables for applying BQSR.
+     *
+     * @param tables recalibration tables to compile
+     * @param globalQScorePrior prior to use for the read group qualities, or a value <= 0 to use the reported quality of each read group
+     * @param recalibratedToFinalQual maps each recalibrated quality, from 0 to {@link RecalDatum#MAX_RECALIBRATED_Q_SCORE},
+     *                                to the (quantized) quality to emit
+     * @return the compiled tables, or null if they would be too large (more than {@link #MAX_COMPILED_ENTRIES} entries)
+     */
+    public static CompiledRecalibrationTable compile( final RecalibrationTables tables, final double globalQScorePrior, final byte[] recalibratedToFinalQual ) {
+        Utils.nonNull(tables);
+        Utils.nonNull(recalibratedToFinalQual);
+        Utils.validateArg(recalibratedToFinalQual.length > MAX_RECALIBRATED_Q_SCORE, "there must be a final quality for each recalibrated quality");
+
+        // find the qualities and covariate keys that are present in the tables, so that we don't store terms for the rest
+        final int[] qualIndices = new int[tables.getQualityScoreTable().getDimensions()[1]];
+        Arrays.fill(qualIndices, -1);
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : tables.getQualityScoreTable().getAllLeaves() ) {
+            if ( leaf.keys[2] == BASE_SUBSTITUTION_INDEX ) {
+                qualIndices[leaf.keys[1]] = 0;
+            }
+        }
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = tables.getAdditionalTables();
+        final int[] numCovariateKeys = new int[additionalTables.size()];
+        for ( int i = 0; i < additionalTables.size(); i++ ) {
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : additionalTables.get(i).getAllLeaves() ) {
+                if ( leaf.keys[3] == BASE_SUBSTITUTION_INDEX ) {
+                    qualIndices[leaf.keys[1]] = 0;
+                    numCovariateKeys[i] = Math.max(numCovariateKeys[i], leaf.keys[2] + 1);
+                }
+            }
+        }
+        int numQuals = 0;
+        for ( int qual = 0; qual < qualIndices.length; qual++ ) {
+            if ( qualIndices[qual] >= 0 ) {
+                qualIndices[qual] = numQuals++;
+            }
+        }
+
+        final long numRows = (long)tables.getReadGroupTable().getDimensions()[0] * numQuals;
+        long numEntries = numRows;
+        for ( final int numKeys : numCovariateKeys ) {
+            numEntries += numRows * numKeys;
+        }
+        if ( numEntries > MAX_COMPILED_ENTRIES ) {
+            return null;
+        }
+
+        return new CompiledRecalibrationTable(tables, globalQScorePrior, recalibratedToFinalQual.clone(), qualIndices, numQuals, numCovariateKeys);
+    }
+
+    /**
+     * @param readGroupKey read group key, as produced by the read group covariate
+     * @return true if the tables have data for the read group (reads in other read groups are not recalibrated)
+     */
+    public boolean hasReadGroup( final int readGroupKey ) {
+        return readGroupKey >= 0 && readGroupKey < numReadGroups && hasReadGroup[readGroupKey];
+    }
+
+    /**
+     * Recalibrate the base substitution quality of a single base.
+     *
+     * @param keySet covariate keys for the base, as produced by the covariates the tables were built with; the read
+     *               group must be one for which {@link #hasReadGroup} is true
+     * @return the final (quantized) recalibrated quality for the base
+     */
+    public byte recalibrate( final int[] keySet ) {
+        final int readGroup = keySet[0];
+        final int qualIndex = qualIndices[keySet[1]];
+        if ( qualIndex < 0 ) {
+            // no data for this quality, so none for any of the additional covariates either
+            return recalibratedToFinalQual[boundQual(fastRound(globalDeltaQs[readGroup] + epsilons[readGroup]), MAX_RECALIBRATED_Q_SCORE)];
+        }
+
+        final int row = readGroup * numQuals + qualIndex;
+        double deltaQCovariates = 0.0;
+        for ( int i = 0; i < covariateDeltaQs.length; i++ ) {
+            final int key = keySet[specialCovariateCount + i];
+            if ( key >= 0 && key < numCovariateKeys[i] ) {
+                deltaQCovariates += covariateDeltaQs[i][row * numCovariateKeys[i] + key];
+            }
+        }
+        return recalibratedToFinalQual[boundQual(fastRound(conditionalPriors[row] + deltaQCovariates), MAX_RECALIBRATED_Q_SCORE)];
+    }
+}
@@ -0,0 +1,280 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The observation and mismatch counts collected by {@link BaseRecalibrationEngine}, stored in primitive arrays.
+ *
+ * While reads are being processed, only the quality score table and the additional covariate tables are updated,
+ * and every datum in them is keyed by read group, reported quality and event type (and one covariate key). So rather
+ * than a {@link NestedIntegerArray} of {@link RecalDatum} objects for each table, the counts are kept in one pair of
+ * arrays (observations and mismatches) per combination of read group, reported quality and event type, allocated the
+ * first time that combination is seen. Each pair holds the counts of the quality score table followed by the counts
+ * for every key of each additional covariate in turn, so each update is a couple of array increments.
+ *
+ * The counts are accumulated exactly as {@link RecalDatum} accumulates them, so {@link #toRecalibrationTables} produces
+ * the same tables that incrementing the datums directly would. Combining two sets of counts just adds up the arrays,
+ * and the Kryo serializer writes out only the non-zero counts.
+ */
+@DefaultSerializer(FlatRecalibrationTables.Serializer.class)
+public final class FlatRecalibrationTables implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int numReadGroups;
+    private final int qualDimension;
+    private final int eventDimension;
+
+    // number of keys of each additional covariate, and the offset of its counts within each row
+    private final int[] covariateKeyDimensions;
+    private final int[] covariateOffsets;
+    private final int rowLength;
+
+    // per (read group, reported quality, event type): counts for the quality score table (at offset 0) and then the
+    // additional covariate tables; mismatches are multiplied by RecalDatum.MULTIPLIER, as in RecalDatum
+    private final long[][] observations;
+    private final double[][] mismatches;
+
+    public FlatRecalibrationTables(final StandardCovariateList covariates) {
+        this(covariates, covariates.getReadGroupCovariate().maximumKeyValue() + 1);
+    }
+
+    public FlatRecalibrationTables(final StandardCovariateList covariates, final int numReadGroups) {
+        this(numReadGroups, covariates.getQualityScoreCovariate().maximumKeyValue() + 1, EventType.values().length,
+                Utils.stream(covariates.getAdditionalCovariates()).mapToInt(cov -> cov.maximumKeyValue() + 1).toArray());
+    }
+
+    private FlatRecalibrationTables(final int numReadGroups, final int qualDimension, final int eventDimension, final int[] covariateKeyDimensions) {
+        Utils.validateArg(numReadGroups > 0, "numReadGroups must be positive");
+        this.numReadGroups = numReadGroups;
+        this.qualDimension = qualDimension;
+        this.eventDimension = eventDimension;
+        this.covariateKeyDimensions = covariateKeyDimensions;
+
+        covariateOffsets = new int[covariateKeyDimensions.length];
+        int offset = 1;
+        for ( int i = 0; i < covariateKeyDimensions.length; i++ ) {
+            covariateOffsets[i] = offset;
+            offset += covariateKeyDimensions[i];
+        }
+        rowLength = offset;
+
+        observations = new long[numReadGroups * qualDimension * eventDimension][];
+        mismatches = new double[observations.length][];
+    }
+
+    /**
+     * Add one observation of an event to the counts.
+     *
+     * Note: the keys are passed as an array that is not copied, and the additional covariate keys are read from it
+     * starting at index firstCovariateIndex, to avoid allocating an array on every call.
+     *
+     * @param keys covariate keys for the event: the read group key and the reported quality must be at indices 0 and 1;
+     *             additional covariate keys that are negative are not counted
+     * @param firstCovariateIndex index in keys of the key of the first additional covariate
+     * @param eventIndex ordinal of the event type
+     * @param isError error value for the event
+     */
+    public void increment(final int[] keys, final int firstCovariateIndex, final int eventIndex, final double isError) {
+        final int row = rowIndex(keys[0], keys[1], eventIndex);
+        long[] rowObservations = observations[row];
+        double[] rowMismatches = mismatches[row];
+        if ( rowObservations == null ) {
+            rowObservations = observations[row] = new long[rowLength];
+            rowMismatches = mismatches[row] = new double[rowLength];
+        }
+
+        final double scaledIsError = isError * RecalDatum.MULTIPLIER;
+        rowObservations[0]++;
+        rowMismatches[0] += scaledIsError;
+        for ( int i = 0; i < covariateOffsets.length; i++ ) {
+            final int key = keys[firstCovariateIndex + i];
+            if ( key >= 0 ) {
+                rowObservations[covariateOffsets[i] + key]++;
+                rowMismatches[covariateOffsets[i] + key] += scaledIsError;
+            }
+        }
+    }
+
+    /**
+     * @return true if no events have been counted
+     */
+    public boolean isEmpty() {
+        for ( final long[] rowObservations : observations ) {
+            if ( rowObservations != null ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add all of the counts of toMerge to this set of counts
+     *
+     * @return this set of counts
+     */
+    public FlatRecalibrationTables combine(final FlatRecalibrationTables toMerge) {
+        Utils.nonNull(toMerge);
+        Utils.validateArg(numReadGroups == toMerge.numReadGroups && qualDimension == toMerge.qualDimension &&
+                        eventDimension == toMerge.eventDimension && Arrays.equals(covariateKeyDimensions, toMerge.covariateKeyDimensions),
+                "Attempting to merge FlatRecalibrationTables with different dimensions");
+
+        for ( int row = 0; row < observations.length; row++ ) {
+            final long[] otherObservations = toMerge.observations[row];
+            if ( otherObservations == null ) {
+                continue;
+            }
+            if ( observations[row] == null ) {
+                observations[row] = otherObservations.clone();
+                mismatches[row] = toMerge.mismatches[row].clone();
+                continue;
+            }
+            final long[] rowObservations = observations[row];
+            final double[] rowMismatches = mismatches[row];
+            final double[] otherMismatches = toMerge.mismatches[row];
+            for ( int i = 0; i < rowLength; i++ ) {
+                rowObservations[i] += otherObservations[i];
+                rowMismatches[i] += otherMismatches[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Combines the right counts into the left counts, in-place (without making a copy)
+     *
+     * @param left first set of counts to combine
+     * @param right second set of counts to combine
+     * @return modified version of left with the contents of right incorporated into it
+     */
+    public static FlatRecalibrationTables inPlaceCombine(final FlatRecalibrationTables left, final FlatRecalibrationTables right) {
+        Utils.nonNull(left);
+        return left.combine(right);
+    }
+
+    /**
+     * Create (non-finalized) recalibration tables holding these counts: the quality score table and the additional
+     * covariate tables are populated, and the read group table is left empty
+     * (see {@link BaseRecalibrationEngine#finalizeRecalibrationTables}).
+     *
+     * @param covariates the covariates that these counts were created with
+     * @return newly allocated tables with a {@link RecalDatum} for every combination of keys that has been counted
+     */
+    public RecalibrationTables toRecalibrationTables(final StandardCovariateList covariates) {
+        Utils.nonNull(covariates);
+        final RecalibrationTables tables = new RecalibrationTables(covariates, numReadGroups);
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = tables.getAdditionalTables();
+        Utils.validateArg(additionalTables.size() == covariateKeyDimensions.length, "covariates do not match the counts");
+
+        for ( int row = 0; row < observations.length; row++ ) {
+            final long[] rowObservations = observations[row];
+            if ( rowObservations == null ) {
+                continue;
+            }
+            final double[] rowMismatches = mismatches[row];
+            final int eventIndex = row % eventDimension;
+            final int qual = (row / eventDimension) % qualDimension;
+            final int readGroup = row / eventDimension / qualDimension;
+
+            qualityScoreTable.put(RecalDatum.fromScaledCounts(rowObservations[0], rowMismatches[0], (byte)qual), readGroup, qual, eventIndex);
+            for ( int i = 0; i < covariateOffsets.length; i++ ) {
+                final NestedIntegerArray<RecalDatum> table = additionalTables.get(i);
+                for ( int key = 0; key < covariateKeyDimensions[i]; key++ ) {
+                    final int index = covariateOffsets[i] + key;
+                    if ( rowObservations[index] > 0 ) {
+                        table.put(RecalDatum.fromScaledCounts(rowObservations[index], rowMismatches[index], (byte)qual), readGroup, qual, key, eventIndex);
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    private int rowIndex(final int readGroup, final int qual, final int eventIndex) {
+        return (readGroup * qualDimension + qual) * eventDimension + eventIndex;
+    }
+
+    private void serialize(final Output output) {
+        output.writeInt(numReadGroups);
+        output.writeInt(qualDimension);
+        output.writeInt(eventDimension);
+        output.writeInt(covariateKeyDimensions.length);
+        for ( final int keyDimension : covariateKeyDimensions ) {
+            output.writeInt(keyDimension);
+        }
+
+        // write each allocated row as a list of its non-zero counts, with indices relative to the previous one
+        for ( int row = 0; row < observations.length; row++ ) {
+            final long[] rowObservations = observations[row];
+            if ( rowObservations == null ) {
+                continue;
+            }
+            final double[] rowMismatches = mismatches[row];
+            int numCounts = 0;
+            for ( final long count : rowObservations ) {
+                if ( count > 0 ) {
+                    numCounts++;
+                }
+            }
+            output.writeVarInt(row, true);
+            output.writeVarInt(numCounts, true);
+            int previousIndex = 0;
+            for ( int i = 0; i < rowLength; i++ ) {
+                if ( rowObservations[i] > 0 ) {
+                    output.writeVarInt(i - previousIndex, true);
+                    output.writeVarLong(rowObservations[i], true);
+                    output.writeDouble(rowMismatches[i]);
+                    previousIndex = i;
+                }
+            }
+        }
+        output.writeVarInt(-1, true);
+    }
+
+    private static FlatRecalibrationTables deserialize(final Input input) {
+        final int numReadGroups = input.readInt();
+        final int qualDimension = input.readInt();
+        final int eventDimension = input.readInt();
+        final int[] covariateKeyDimensions = new int[input.readInt()];
+        for ( int i = 0; i < covariateKeyDimensions.length; i++ ) {
+            covariateKeyDimensions[i] = input.readInt();
+        }
+        final FlatRecalibrationTables tables = new FlatRecalibrationTables(numReadGroups, qualDimension, eventDimension, covariateKeyDimensions);
+
+        int row;
+        while ( (row = input.readVarInt(true)) != -1 ) {
+            final long[] rowObservations = tables.observations[row] = new long[tables.rowLength];
+            final double[] rowMismatches = tables.mismatches[row] = new double[tables.rowLength];
+            final int numCounts = input.readVarInt(true);
+            int index = 0;
+            for ( int i = 0; i < numCounts; i++ ) {
+                index += input.readVarInt(true);
+                rowObservations[index] = input.readVarLong(true);
+                rowMismatches[index] = input.readDouble();
+            }
+        }
+        return tables;
+    }
+
+    public static final class Serializer extends com.esotericsoftware.kryo.Serializer<FlatRecalibrationTables> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final FlatRecalibrationTables tables) {
+            tables.serialize(output);
+        }
+
+        @Override
+        public FlatRecalibrationTables read(final Kryo kryo, final Input input, final Class<FlatRecalibrationTables> type) {
+            return deserialize(input);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only index of the known sites of variation used by BQSR to skip bases.
+ *
+ * Single-base sites (the vast majority of the sites in eg. dbSNP) are stored as one bit per reference position, in
+ * pages of {@value #PAGE_SIZE} positions that are only allocated where there are sites. Longer sites are stored as
+ * sorted arrays of start and end positions. Looking up the sites overlapping a read is then a scan of the bits under
+ * the read and a binary search, rather than a query of the original variants, and the index takes a few bits per
+ * reference position at most rather than an object per site.
+ *
+ * The index reports each distinct site (start and end) once, which is all that {@link BaseRecalibrationEngine} needs:
+ * the bases it skips are the union of the bases covered by each site.
+ *
+ * The index can be written to a file with {@link #write} and read back with {@link #read}, so that it only has to
+ * be built from the known sites files once. The index records the paths of the files it was built from.
+ */
+public final class KnownSitesIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_WORDS = PAGE_SIZE / Long.SIZE;
+
+    private static final int FILE_MAGIC = 0x4B534931; // "KSI1"
+
+    /**
+     * Receives the start and end (1-based, inclusive) of known sites
+     */
+    @FunctionalInterface
+    public interface SiteConsumer {
+        void accept( int start, int end );
+    }
+
+    private final List<String> sources;
+    private final Map<String, ContigSites> contigSites;
+
+    private KnownSitesIndex( final List<String> sources, final Map<String, ContigSites> contigSites ) {
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.contigSites = contigSites;
+    }
+
+    /**
+     * Build an index of known sites.
+     *
+     * @param sources names of the sources of the sites (eg., file paths), recorded in the index
+     * @param sites the known sites, in any order
+     * @return an index of the sites
+     */
+    public static KnownSitesIndex fromSites( final List<String> sources, final Iterator<? extends Locatable> sites ) {
+        Utils.nonNull(sources);
+        Utils.nonNull(sites);
+
+        final Map<String, ContigSitesBuilder> builders = new LinkedHashMap<>();
+        while ( sites.hasNext() ) {
+            final Locatable site = sites.next();
+            Utils.validateArg(site.getStart() >= 1 && site.getEnd() >= site.getStart(), () -> "invalid known site " + site);
+            builders.computeIfAbsent(site.getContig(), contig -> new ContigSitesBuilder()).add(site.getStart(), site.getEnd());
+        }
+
+        final Map<String, ContigSites> contigSites = new LinkedHashMap<>();
+        builders.forEach((contig, builder) -> contigSites.put(contig, builder.build()));
+        return new KnownSitesIndex(sources, contigSites);
+    }
+
+    /**
+     * @return the names of the sources that the index was built from
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return the number of distinct sites in the index
+     */
+    public long size() {
+        return contigSites.values().stream().mapToLong(ContigSites::size).sum();
+    }
+
+    /**
+     * Call consumer for each distinct site in the index that overlaps an interval.
+     *
+     * @param contig contig of the interval
+     * @param start start of the interval (1-based, inclusive)
+     * @param end end of the interval (1-based, inclusive)
+     * @param consumer receives the start and end of each overlapping site, in no particular order
+     */
+    public void forEachSiteOverlapping( final String contig, final int start, final int end, final SiteConsumer consumer ) {
+        Utils.nonNull(consumer);
+        final ContigSites sites = contigSites.get(contig);
+        if ( sites != null && start <= end ) {
+            sites.forEachSiteOverlapping(Math.max(1, start), end, consumer);
+        }
+    }
+
+    /**
+     * Write the index to a file, from which it can be loaded with {@link #read}
+     *
+     * @param file file to write
+     */
+    public void write( final File file ) {
+        Utils.nonNull(file);
+        try ( final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))) ) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(sources.size());
+            for ( final String source : sources ) {
+                out.writeUTF(source);
+            }
+            out.writeInt(contigSites.size());
+            for ( final Map.Entry<String, ContigSites> entry : contigSites.entrySet() ) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+        }
+        catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(file, e);
+        }
+    }
+
+    /**
+     * Read an index written by {@link #write}
+     *
+     * @param file file to read
+     * @return the index
+     */
+    public static KnownSitesIndex read( final File file ) {
+        Utils.nonNull(file);
+        try ( final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))) ) {
+            if ( in.readInt() != FILE_MAGIC ) {
+                throw new UserException.MalformedFile(file, "not a known sites index");
+            }
+            final int numSources = in.readInt();
+            final List<String> sources = new ArrayList<>(numSources);
+            for ( int i = 0; i < numSources; i++ ) {
+                sources.add(in.readUTF());
+            }
+            final int numContigs = in.readInt();
+            final Map<String, ContigSites> contigSites = new LinkedHashMap<>();
+            for ( int i = 0; i < numContigs; i++ ) {
+                final String contig = in.readUTF();
+                contigSites.put(contig, ContigSites.read(in));
+            }
+            return new KnownSitesIndex(sources, contigSites);
+        }
+        catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+    }
+
+    /**
+     * The known sites on one contig
+     */
+    private static final class ContigSites implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // single-base sites: one bit per position, in pages of PAGE_SIZE positions (null pages have no sites)
+        private final long[][] pages;
+
+        // longer sites, sorted by start, and the largest end of each site and all the sites before it
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnds;
+
+        private ContigSites( final long[][] pages, final int[] starts, final int[] ends ) {
+            this.pages = pages;
+            this.starts = starts;
+            this.ends = ends;
+            maxEnds = new int[ends.length];
+            int maxEnd = 0;
+            for ( int i = 0; i < ends.length; i++ ) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        long size() {
+            long size = starts.length;
+            for ( final long[] page : pages ) {
+                if ( page != null ) {
+                    for ( final long word : page ) {
+                        size += Long.bitCount(word);
+                    }
+                }
+            }
+            return size;
+        }
+
+        void forEachSiteOverlapping( final int start, final int end, final SiteConsumer consumer ) {
+            // single-base sites: scan the bits from start to end
+            final int lastPage = Math.min(end >>> PAGE_BITS, pages.length - 1);
+            for ( int page = start >>> PAGE_BITS; page <= lastPage; page++ ) {
+                final long[] words = pages[page];
+                if ( words == null ) {
+                    continue;
+                }
+                final int pageStart = page << PAGE_BITS;
+                final int from = Math.max(start, pageStart) - pageStart;
+                final int to = Math.min(end - pageStart, PAGE_SIZE - 1);
+                final int firstWord = from >>> 6;
+                final int lastWord = to >>> 6;
+                for ( int w = firstWord; w <= lastWord; w++ ) {
+                    long word = words[w];
+                    if ( w == firstWord ) {
+                        word &= -1L << (from & 63);
+                    }
+                    if ( w == lastWord ) {
+                        word &= -1L >>> (63 - (to & 63));
+                    }
+                    while ( word != 0L ) {
+                        final int position = pageStart + (w << 6) + Long.numberOfTrailingZeros(word);
+                        consumer.accept(position, position);
+                        word &= word - 1;
+                    }
+                }
+            }
+
+            // longer sites: skip those that end (along with all the sites before them) before start
+            int low = 0;
+            int high = maxEnds.length;
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( maxEnds[mid] < start ) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            for ( int i = low; i < starts.length && starts[i] <= end; i++ ) {
+                if ( ends[i] >= start ) {
+                    consumer.accept(starts[i], ends[i]);
+                }
+            }
+        }
+
+        void write( final DataOutputStream out ) throws IOException {
+            out.writeInt(pages.length);
+            int numPages = 0;
+            for ( final long[] page : pages ) {
+                if ( page != null ) {
+                    numPages++;
+                }
+            }
+            out.writeInt(numPages);
+            for ( int page = 0; page < pages.length; page++ ) {
+                if ( pages[page] != null ) {
+                    out.writeInt(page);
+                    for ( final long word : pages[page] ) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+            out.writeInt(starts.length);
+            for ( int i = 0; i < starts.length; i++ ) {
+                out.writeInt(starts[i]);
+                out.writeInt(ends[i]);
+            }
+        }
+
+        static ContigSites read( final DataInputStream in ) throws IOException {
+            final long[][] pages = new long[in.readInt()][];
+            final int numPages = in.readInt();
+            for ( int i = 0; i < numPages; i++ ) {
+                final long[] words = new long[PAGE_WORDS];
+                pages[in.readInt()] = words;
+                for ( int w = 0; w < PAGE_WORDS; w++ ) {
+                    words[w] = in.readLong();
+                }
+            }
+            final int numLongSites = in.readInt();
+            final int[] starts = new int[numLongSites];
+            final int[] ends = new int[numLongSites];
+            for ( int i = 0; i < numLongSites; i++ ) {
+                starts[i] = in.readInt();
+                ends[i] = in.readInt();
+            }
+            return new ContigSites(pages, starts, ends);
+        }
+    }
+
+    /**
+     * Collects the known sites on one contig
+     */
+    private static final class ContigSitesBuilder {
+        private long[][] pages = new long[0][];
+        private long[] longSites = new long[16];  // start in the high 32 bits, end in the low 32 bits
+        private int numLongSites = 0;
+
+        void add( final int start, final int end ) {
+            if ( start == end ) {
+                final int page = start >>> PAGE_BITS;
+                if ( page >= pages.length ) {
+                    pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+                }
+                if ( pages[page] == null ) {
+                    pages[page] = new long[PAGE_WORDS];
+                }
+                final int offset = start & (PAGE_SIZE - 1);
+                pages[page][offset >>> 6] |= 1L << (offset & 63);
+            }
+            else {
+                if ( numLongSites == longSites.length ) {
+                    longSites = Arrays.copyOf(longSites, longSites.length * 2);
+                }
+                longSites[numLongSites++] = ((long)start << 32) | end;
+            }
+        }
+
+        ContigSites build() {
+            // trim trailing empty pages, and sort and deduplicate the longer sites
+            int numPages = pages.length;
+            while ( numPages > 0 && pages[numPages - 1] == null ) {
+                numPages--;
+            }
+            final long[] sorted = Arrays.copyOf(longSites, numLongSites);
+            Arrays.sort(sorted);
+            int numDistinct = 0;
+            for ( int i = 0; i < sorted.length; i++ ) {
+                if ( i == 0 || sorted[i] != sorted[i - 1] ) {
+                    sorted[numDistinct++] = sorted[i];
+                }
+            }
+            final int[] starts = new int[numDistinct];
+            final int[] ends = new int[numDistinct];
+            for ( int i = 0; i < numDistinct; i++ ) {
+                starts[i] = (int)(sorted[i] >>> 32);
+                ends[i] = (int)sorted[i];
+            }
+            return new ContigSites(Arrays.copyOf(pages, numPages), starts, ends);
+        }
+    }
+}
@@ -61,7 +61,8 @@ public final class ContextCovariate implements Covariate {
         final int originalReadLength = read.getLength();
 
         // store the original bases and then write Ns over low quality ones
-        final byte[] strandedClippedBases = getStrandedClippedBytes(read, lowQualTail);  //Note: this makes a copy of the read
+        //Note: this may be the read's own base array (for a forward-strand read with no low quality tail), so it must not be modified
+        final byte[] strandedClippedBases = getStrandedClippedBytes(read, lowQualTail);
 
         //Note: we're using a non-standard library here because boxing came up on profiling as taking 20% of time in applyBQSR.
         //IntList avoids boxing
@@ -114,7 +115,8 @@ public final class ContextCovariate implements Covariate {
      * reverse-complementing for negative-strand reads.
      * @param read the read
      * @param lowQTail every base quality lower than or equal to this in the tail of the read will be replaced with N.
-     * @return bases of the read.
+     * @return bases of the read. For a forward-strand read with nothing to clip this is the read's own base array
+     *         (see {@link GATKRead#getBasesNoCopy}), so callers must not modify it.
      */
     @VisibleForTesting
     static byte[] getStrandedClippedBytes(final GATKRead read, final byte lowQTail) {
@@ -122,7 +124,7 @@ public final class ContextCovariate implements Covariate {
         // Write N's over the low quality tail of the reads to avoid adding them into the context
         final GATKRead clippedRead = ReadClipper.clipLowQualEnds(read, lowQTail, ClippingRepresentation.WRITE_NS);
 
-        final byte[] bases = clippedRead.getBases();
+        final byte[] bases = clippedRead.getBasesNoCopy();
         if (read.isReverseStrand()) {
             return BaseUtils.simpleReverseComplement(bases);
         } else {
@@ -0,0 +1,218 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * {@link SmithWatermanAligner} that only fills a band of the Smith-Waterman matrix.
+ *
+ * The band covers every diagonal between the one through the top-left corner of the matrix and the one through the
+ * bottom-right corner, padded on both sides by {@link #getBandPadding} diagonals. Every gapless placement of the
+ * shorter sequence against the longer one is therefore inside the band, as is every alignment whose indels drift
+ * from those placements by no more than the padding. The cost of an alignment is proportional to
+ * (length of ref) * (|length of ref - length of alt| + 2 * padding) rather than (length of ref) * (length of alt).
+ *
+ * Cells outside the band are treated as unreachable, so this aligner gives the same answer as
+ * {@link SmithWatermanJavaAligner} except when the best alignment needs to leave the band. When the band would be at
+ * least as wide as a row of the full matrix (as for short sequences), the full matrix is computed instead.
+ *
+ * ************************************************************************
+ * ****                    IMPORTANT NOTE:                             ****
+ * ****  This class assumes that all bytes come from UPPERCASED chars! ****
+ * ************************************************************************
+ */
+public final class BandedSmithWatermanAligner implements SmithWatermanAligner {
+
+    /**
+     * Default number of diagonals on each side of the band, which bounds the total size of the indels we can
+     * find relative to the diagonal alignments
+     */
+    public static final int DEFAULT_BAND_PADDING = 32;
+
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE / 2;
+
+    private final int bandPadding;
+
+    /**
+     * Create a new banded aligner with {@link #DEFAULT_BAND_PADDING}
+     */
+    public BandedSmithWatermanAligner() {
+        this(DEFAULT_BAND_PADDING);
+    }
+
+    /**
+     * Create a new banded aligner
+     *
+     * @param bandPadding the number of diagonals to add to each side of the band; must be non-negative
+     */
+    public BandedSmithWatermanAligner(final int bandPadding) {
+        Utils.validateArg(bandPadding >= 0, () -> "bandPadding must be non-negative but was " + bandPadding);
+        this.bandPadding = bandPadding;
+    }
+
+    /**
+     * @return the number of diagonals added to each side of the band
+     */
+    public int getBandPadding() {
+        return bandPadding;
+    }
+
+    @Override
+    public SmithWatermanAlignment align(final byte[] reference, final byte[] alternate, final SWPairwiseAlignment.Parameters parameters, final SWPairwiseAlignment.OverhangStrategy overhangStrategy) {
+        if ( reference == null || reference.length == 0 || alternate == null || alternate.length == 0 ) {
+            throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
+        }
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+
+        // a band at least as wide as a row of the full matrix (alternate.length + 1 cells) saves nothing, so fill in the full matrix instead
+        if ( Math.abs(reference.length - alternate.length) + 2 * bandPadding >= alternate.length ) {
+            return SmithWatermanJavaAligner.getInstance().align(reference, alternate, parameters, overhangStrategy);
+        }
+
+        // avoid running Smith-Waterman at all if there is an exact match of alternate in reference
+        final SWPairwiseAlignment.SWPairwiseAlignmentResult exactMatch = SWPairwiseAlignment.findExactMatch(reference, alternate, overhangStrategy);
+        if ( exactMatch != null ) {
+            return exactMatch;
+        }
+
+        final Band band = new Band(reference.length, alternate.length, parameters, overhangStrategy);
+        band.calculateMatrix(reference, alternate);
+        return SWPairwiseAlignment.calculateCigar(reference.length, alternate.length, band::score, band::backtrack, overhangStrategy);
+    }
+
+    /**
+     * The banded Smith-Waterman and back track matrices. Row i holds the cells (i, j) with
+     * minDiagonal <= i - j <= maxDiagonal, with cell (i, j) at index j - i + maxDiagonal.
+     */
+    private final class Band {
+        private final int refLength;
+        private final int altLength;
+        private final SWPairwiseAlignment.Parameters parameters;
+        private final boolean indelOverhangs;
+
+        private final int minDiagonal;
+        private final int maxDiagonal;
+        private final int width;
+
+        private final int[][] sw;
+        private final int[][] btrack;
+
+        Band(final int refLength, final int altLength, final SWPairwiseAlignment.Parameters parameters, final SWPairwiseAlignment.OverhangStrategy overhangStrategy) {
+            this.refLength = refLength;
+            this.altLength = altLength;
+            this.parameters = parameters;
+            this.indelOverhangs = overhangStrategy == SWPairwiseAlignment.OverhangStrategy.INDEL ||
+                    overhangStrategy == SWPairwiseAlignment.OverhangStrategy.LEADING_INDEL;
+
+            minDiagonal = Math.min(0, refLength - altLength) - bandPadding;
+            maxDiagonal = Math.max(0, refLength - altLength) + bandPadding;
+            width = maxDiagonal - minDiagonal + 1;
+
+            // row 0 is the border of the matrix, which we compute on the fly instead
+            sw = new int[refLength + 1][];
+            btrack = new int[refLength + 1][];
+            for ( int i = 1; i <= refLength; i++ ) {
+                sw[i] = new int[width];
+                btrack[i] = new int[width];
+            }
+        }
+
+        /**
+         * The value of the first row or column of the full matrix, which depends only on the overhang strategy
+         */
+        private int border(final int i, final int j) {
+            final int gapLength = i + j;
+            return indelOverhangs && gapLength > 0 ? parameters.w_open + (gapLength - 1) * parameters.w_extend : 0;
+        }
+
+        int score(final int i, final int j) {
+            if ( i == 0 || j == 0 ) {
+                return border(i, j);
+            }
+            final int k = j - i + maxDiagonal;
+            return k >= 0 && k < width ? sw[i][k] : LOW_INIT_VALUE;
+        }
+
+        int backtrack(final int i, final int j) {
+            final int k = j - i + maxDiagonal;
+            return i > 0 && k >= 0 && k < width ? btrack[i][k] : 0;
+        }
+
+        /**
+         * Fill in the band. This is the same recurrence as in {@link SWPairwiseAlignment}, restricted to the band.
+         */
+        void calculateMatrix(final byte[] reference, final byte[] alternate) {
+            //field access is pricey if done enough times so we extract those out
+            final int w_open = parameters.w_open;
+            final int w_extend = parameters.w_extend;
+            final int w_match = parameters.w_match;
+            final int w_mismatch = parameters.w_mismatch;
+
+            final int[] best_gap_v = new int[altLength + 1];
+            Arrays.fill(best_gap_v, LOW_INIT_VALUE);
+            final int[] gap_size_v = new int[altLength + 1];
+
+            for ( int i = 1; i <= refLength; i++ ) {
+                final byte a_base = reference[i - 1];
+                final int[] lastRow = sw[i - 1];
+                final int[] curRow = sw[i];
+                final int[] curBackTrackRow = btrack[i];
+
+                int best_gap_h = LOW_INIT_VALUE;
+                int gap_size_h = 0;
+
+                final int firstColumn = Math.max(1, i - maxDiagonal);
+                final int lastColumn = Math.min(altLength, i - minDiagonal);
+                for ( int j = firstColumn; j <= lastColumn; j++ ) {
+                    final int k = j - i + maxDiagonal;
+                    final byte b_base = alternate[j - 1];
+
+                    // the diagonal predecessor is always in the band
+                    final int diag = i == 1 || j == 1 ? border(i - 1, j - 1) : lastRow[k];
+                    final int up = i == 1 ? border(0, j) : (k + 1 < width ? lastRow[k + 1] : LOW_INIT_VALUE);
+                    final int left = j == 1 ? border(i, 0) : (k > 0 ? curRow[k - 1] : LOW_INIT_VALUE);
+
+                    final int step_diag = diag + (a_base == b_base ? w_match : w_mismatch);
+
+                    // see SWPairwiseAlignment for the derivation of the gap updates
+                    int prev_gap = up + w_open;
+                    best_gap_v[j] += w_extend;
+                    if ( prev_gap > best_gap_v[j] ) {
+                        best_gap_v[j] = prev_gap;
+                        gap_size_v[j] = 1;
+                    } else {
+                        gap_size_v[j]++;
+                    }
+                    final int step_down = best_gap_v[j];
+                    final int kd = gap_size_v[j];
+
+                    prev_gap = left + w_open;
+                    best_gap_h += w_extend;
+                    if ( prev_gap > best_gap_h ) {
+                        best_gap_h = prev_gap;
+                        gap_size_h = 1;
+                    } else {
+                        gap_size_h++;
+                    }
+                    final int step_right = best_gap_h;
+                    final int ki = gap_size_h;
+
+                    //priority here will be step diagonal, step right, step down
+                    if ( step_diag >= step_down && step_diag >= step_right ) {
+                        curRow[k] = Math.max(MATRIX_MIN_CUTOFF, step_diag);
+                        curBackTrackRow[k] = 0;
+                    } else if ( step_right >= step_down ) {
+                        curRow[k] = Math.max(MATRIX_MIN_CUTOFF, step_right);
+                        curBackTrackRow[k] = -ki; // negative = horizontal
+                    } else {
+                        curRow[k] = Math.max(MATRIX_MIN_CUTOFF, step_down);
+                        curBackTrackRow[k] = kd; // positive=vertical
+                    }
+                }
+            }
+        }
+    }
+}
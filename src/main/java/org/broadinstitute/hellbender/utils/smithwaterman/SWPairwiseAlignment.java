@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntBinaryOperator;
 
 /**
  * Pairwise discrete smith-waterman alignment
@@ -21,7 +22,7 @@ import java.util.List;
  * ****  This class assumes that all bytes come from UPPERCASED chars! ****
  * ************************************************************************
  */
-public final class SWPairwiseAlignment {
+public final class SWPairwiseAlignment implements SmithWatermanAlignment {
 
     /**
      * Holds the core Smith-Waterman alignment parameters of
@@ -163,6 +164,9 @@ public final class SWPairwiseAlignment {
 
     public int getAlignmentStart2wrt1() { return alignmentResult.alignment_offset; }
 
+    @Override
+    public int getAlignmentOffset() { return getAlignmentStart2wrt1(); }
+
     /**
      * Aligns the alternate sequence to the reference sequence
      *
@@ -174,18 +178,10 @@ public final class SWPairwiseAlignment {
             throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
 
         // avoid running full Smith-Waterman if there is an exact match of alternate in reference
-        int matchIndex = -1;
-        if (overhangStrategy == OverhangStrategy.SOFTCLIP || overhangStrategy == OverhangStrategy.IGNORE) {
-            // Use a substring search to find an exact match of the alternate in the reference
-            // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
-            matchIndex = Utils.lastIndexOf(reference, alternate);
-        }
+        final SWPairwiseAlignmentResult exactMatch = findExactMatch(reference, alternate, overhangStrategy);
 
-        if (matchIndex != -1) {
-            // generate the alignment result when the substring search was successful
-            final List<CigarElement> lce = new ArrayList<>(alternate.length);
-            lce.add(makeElement(State.MATCH, alternate.length));
-            alignmentResult = new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), matchIndex);
+        if (exactMatch != null) {
+            alignmentResult = exactMatch;
         }
         else {
             // run full Smith-Waterman
@@ -198,8 +194,33 @@ public final class SWPairwiseAlignment {
             final int[][] btrack=new int[n][m];
 
             calculateMatrix(reference, alternate, sw, btrack);
-            alignmentResult = calculateCigar(sw, btrack, overhangStrategy); // length of the segment (continuous matches, insertions or deletions)
+            alignmentResult = calculateCigar(reference.length, alternate.length, (i, j) -> sw[i][j], (i, j) -> btrack[i][j], overhangStrategy);
+        }
+    }
+
+    /**
+     * Looks for an exact match of the alternate sequence in the reference sequence, which lets us skip the
+     * Smith-Waterman calculation entirely
+     *
+     * @param reference  ref sequence
+     * @param alternate  alt sequence
+     * @param overhangStrategy    the strategy to use for dealing with overhangs
+     * @return the alignment of the exact match, or null if there is none (or if the overhang strategy requires the full calculation)
+     */
+    static SWPairwiseAlignmentResult findExactMatch(final byte[] reference, final byte[] alternate, final OverhangStrategy overhangStrategy) {
+        // Use a substring search to find an exact match of the alternate in the reference
+        // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
+        if (overhangStrategy != OverhangStrategy.SOFTCLIP && overhangStrategy != OverhangStrategy.IGNORE) {
+            return null;
+        }
+        final int matchIndex = Utils.lastIndexOf(reference, alternate);
+        if (matchIndex == -1) {
+            return null;
         }
+        // generate the alignment result when the substring search was successful
+        final List<CigarElement> lce = new ArrayList<>(alternate.length);
+        lce.add(makeElement(State.MATCH, alternate.length));
+        return new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), matchIndex);
     }
 
     /**
@@ -350,30 +371,39 @@ public final class SWPairwiseAlignment {
     /*
      * Class to store the result of calculating the CIGAR from the back track matrix
      */
-    private static final class SWPairwiseAlignmentResult {
+    static final class SWPairwiseAlignmentResult implements SmithWatermanAlignment {
         public final Cigar cigar;
         public final int alignment_offset;
         SWPairwiseAlignmentResult(final Cigar cigar, final int alignment_offset) {
             this.cigar = cigar;
             this.alignment_offset = alignment_offset;
         }
+
+        @Override
+        public Cigar getCigar() { return cigar; }
+
+        @Override
+        public int getAlignmentOffset() { return alignment_offset; }
     }
 
     /**
      * Calculates the CIGAR for the alignment from the back track matrix
      *
+     * The matrices are accessed through functions of (row, column) so that aligners that don't store the whole
+     * matrix (eg., {@link BandedSmithWatermanAligner}) can share the back tracking.
+     *
+     * @param refLength            the length of the reference sequence (the matrices have refLength+1 rows)
+     * @param altLength            the length of the alternate sequence (the matrices have altLength+1 columns)
      * @param sw                   the Smith-Waterman matrix to use
      * @param btrack               the back track matrix to use
      * @param overhangStrategy    the strategy to use for dealing with overhangs
      * @return non-null SWPairwiseAlignmentResult object
      */
-    private SWPairwiseAlignmentResult calculateCigar(final int[][] sw, final int[][] btrack, final OverhangStrategy overhangStrategy) {
+    static SWPairwiseAlignmentResult calculateCigar(final int refLength, final int altLength, final IntBinaryOperator sw,
+                                                    final IntBinaryOperator btrack, final OverhangStrategy overhangStrategy) {
         // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
         int p1 = 0, p2 = 0;
 
-        final int refLength = sw.length-1;
-        final int altLength = sw[0].length-1;
-
         int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
         int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
 
@@ -388,8 +418,8 @@ public final class SWPairwiseAlignment {
             //excluding high scoring local alignments
             p2=altLength;
 
-            for(int i=1;i<sw.length;i++)  {
-               final int curScore = sw[i][altLength];
+            for(int i=1;i<=refLength;i++)  {
+               final int curScore = sw.applyAsInt(i, altLength);
                if (curScore >= maxscore ) {
                     p1 = i;
                     maxscore = curScore;
@@ -397,9 +427,8 @@ public final class SWPairwiseAlignment {
             }
             // now look for a larger score on the bottom-most row
             if ( overhangStrategy != OverhangStrategy.LEADING_INDEL ) {
-                final int[] bottomRow=sw[refLength];
-                for ( int j = 1 ; j < bottomRow.length; j++) {
-                    final int curScore=bottomRow[j];
+                for ( int j = 1 ; j <= altLength; j++) {
+                    final int curScore=sw.applyAsInt(refLength, j);
                     // data_offset is the offset of [n][j]
                     if ( curScore > maxscore ||
                             (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
@@ -422,7 +451,7 @@ public final class SWPairwiseAlignment {
 
         State state = State.MATCH;
         do {
-            final int btr = btrack[p1][p2];
+            final int btr = btrack.applyAsInt(p1, p2);
             final State new_state;
             int step_length = 1;
             if ( btr > 0 ) {
@@ -0,0 +1,63 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Closeable;
+import java.util.function.Supplier;
+
+/**
+ * Interface for Smith-Waterman aligners, so that callers can choose between implementations at runtime.
+ *
+ * Aligners are stateless between calls to {@link #align}, so a single aligner may be shared by several threads.
+ * Callers should still {@link #close} an aligner when they are done with it, since implementations may hold
+ * resources (eg., native libraries).
+ */
+public interface SmithWatermanAligner extends Closeable {
+
+    enum Implementation {
+        /* Full-matrix Java implementation, as in SWPairwiseAlignment. This is the reference implementation */
+        JAVA(SmithWatermanJavaAligner::getInstance),
+        /* Java implementation that only fills a band of the matrix around the diagonal joining its corners.
+           Much cheaper for long sequences, but may produce a different alignment than JAVA when the best
+           alignment contains indels larger than the band */
+        BANDED_JAVA(BandedSmithWatermanAligner::new);
+
+        private final Supplier<SmithWatermanAligner> makeAligner;
+
+        Implementation(final Supplier<SmithWatermanAligner> makeAligner) {
+            this.makeAligner = makeAligner;
+        }
+
+        private SmithWatermanAligner makeAligner() {
+            return makeAligner.get();
+        }
+    }
+
+    /**
+     * Get an aligner of the given implementation
+     *
+     * @param type the implementation to use
+     * @return a new or shared aligner of the requested type; never null
+     */
+    static SmithWatermanAligner getAligner(final Implementation type) {
+        Utils.nonNull(type, "type cannot be null");
+        return type.makeAligner();
+    }
+
+    /**
+     * Aligns the alternate sequence to the reference sequence
+     *
+     * @param ref  ref sequence; must be non-null and non-empty, and made of upper-cased bases
+     * @param alt  alt sequence; must be non-null and non-empty, and made of upper-cased bases
+     * @param parameters the scoring parameters to use
+     * @param overhangStrategy how to treat the parts of alt that don't overlap ref
+     * @return the alignment of alt to ref; never null
+     */
+    SmithWatermanAlignment align(byte[] ref, byte[] alt, SWPairwiseAlignment.Parameters parameters, SWPairwiseAlignment.OverhangStrategy overhangStrategy);
+
+    /**
+     * Release any resources held by this aligner. Does nothing by default.
+     */
+    @Override
+    default void close() {}
+}
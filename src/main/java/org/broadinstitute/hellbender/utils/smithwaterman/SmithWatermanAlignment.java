@@ -0,0 +1,19 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import htsjdk.samtools.Cigar;
+
+/**
+ * The result of aligning an alternate sequence to a reference sequence with a {@link SmithWatermanAligner}
+ */
+public interface SmithWatermanAlignment {
+
+    /**
+     * @return the cigar of the alternate sequence with respect to the reference sequence
+     */
+    Cigar getCigar();
+
+    /**
+     * @return the offset of the start of the alignment of the alternate sequence within the reference sequence
+     */
+    int getAlignmentOffset();
+}
@@ -0,0 +1,25 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+/**
+ * {@link SmithWatermanAligner} that fills the whole Smith-Waterman matrix, using {@link SWPairwiseAlignment}.
+ *
+ * This aligner holds no state, so a single instance is shared by all callers.
+ */
+public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
+
+    private static final SmithWatermanJavaAligner INSTANCE = new SmithWatermanJavaAligner();
+
+    private SmithWatermanJavaAligner() {}
+
+    /**
+     * @return the shared instance of this aligner
+     */
+    public static SmithWatermanJavaAligner getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public SmithWatermanAlignment align(final byte[] ref, final byte[] alt, final SWPairwiseAlignment.Parameters parameters, final SWPairwiseAlignment.OverhangStrategy overhangStrategy) {
+        return new SWPairwiseAlignment(ref, alt, parameters, overhangStrategy);
+    }
+}
@@ -107,6 +107,27 @@ public final class SparkUtils {
         }
     }
 
+    /**
+     * Stores the reads of each partition in {@link ReadBatch}es, which are much cheaper to cache and shuffle than
+     * individual reads. The batches of a partition hold its reads in order.
+     * @param reads the reads to batch
+     * @param batchSize the maximum number of reads per batch
+     * @return an RDD of batches of reads, with the same partitioning as the reads
+     */
+    public static JavaRDD<ReadBatch> batchReads(final JavaRDD<GATKRead> reads, final int batchSize) {
+        Utils.validateArg(batchSize > 0, "batchSize must be positive");
+        return reads.mapPartitions(partition -> ReadBatch.batch(partition, batchSize));
+    }
+
+    /**
+     * Gets the reads from {@link ReadBatch}es, eg. from {@link #batchReads}.
+     * @param batches the batches of reads
+     * @return an RDD of the reads, in the same order and partitioning as the batches
+     */
+    public static JavaRDD<GATKRead> unbatchReads(final JavaRDD<ReadBatch> batches) {
+        return batches.flatMap(ReadBatch::iterator);
+    }
+
     /**
      * Sorts the given reads in coordinate sort order.
      * @param reads the reads to sort
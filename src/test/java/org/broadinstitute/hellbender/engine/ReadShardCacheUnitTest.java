@@ -0,0 +1,135 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+public final class ReadShardCacheUnitTest extends BaseTest {
+
+    private static final String READS_BAM = publicTestDir + "org/broadinstitute/hellbender/engine/reads_data_source_test1.bam";
+
+    @DataProvider(name = "ShardingTestData")
+    public Object[][] shardingTestData() {
+        final ReadFilter noReadB = new ReadFilter() {
+            private static final long serialVersionUID = 1l;
+            @Override
+            public boolean test( GATKRead read ) { return ! read.getName().equals("b"); };
+        };
+
+        return new Object[][] {
+                // shard size, shard padding, filter
+                { 5000, 0, ReadFilterLibrary.ALLOW_ALL_READS },
+                { 100, 50, ReadFilterLibrary.ALLOW_ALL_READS },
+                { 7, 3, ReadFilterLibrary.ALLOW_ALL_READS },
+                { 10, 200, ReadFilterLibrary.ALLOW_ALL_READS },
+                { 100, 50, noReadB }
+        };
+    }
+
+    @Test(dataProvider = "ShardingTestData")
+    public void testCachedShardsMatchQueriedShards( final int shardSize, final int shardPadding, final ReadFilter readFilter ) {
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(READS_BAM)) ) {
+            final SAMSequenceDictionary dictionary = readsSource.getHeader().getSequenceDictionary();
+            final List<LocalReadShard> shards = new ArrayList<>();
+            shards.addAll(LocalReadShard.divideIntervalIntoShards(new SimpleInterval("1", 1, 2000), shardSize, shardPadding, readsSource, dictionary));
+            shards.addAll(LocalReadShard.divideIntervalIntoShards(new SimpleInterval("2", 1, 2000), shardSize, shardPadding, readsSource, dictionary));
+
+            final ReadShardCache cache = new ReadShardCache(readFilter);
+            final Set<GATKRead> handedOut = Collections.newSetFromMap(new IdentityHashMap<>());
+            for ( int i = 0; i < shards.size(); i++ ) {
+                final LocalReadShard shard = shards.get(i);
+                final Shard<GATKRead> cachedShard = cache.getShard(shard, i + 1 < shards.size() ? shards.get(i + 1).getPaddedInterval() : null, null);
+                Assert.assertEquals(cachedShard.getInterval(), shard.getInterval());
+                Assert.assertEquals(cachedShard.getPaddedInterval(), shard.getPaddedInterval());
+
+                shard.setReadFilter(readFilter);
+                final List<String> expectedReadNames = new ArrayList<>();
+                for ( final GATKRead read : shard ) {
+                    expectedReadNames.add(read.getName());
+                }
+                final List<String> actualReadNames = new ArrayList<>();
+                for ( final GATKRead read : cachedShard ) {
+                    actualReadNames.add(read.getName());
+                    Assert.assertTrue(handedOut.add(read), "read " + read.getName() + " was handed out for more than one shard");
+                }
+                Assert.assertEquals(actualReadNames, expectedReadNames, "Wrong reads for shard " + shard.getPaddedInterval());
+            }
+
+            if ( shardPadding > 0 ) {
+                Assert.assertTrue(cache.getNumReadsReused() > 0, "no reads were carried forward");
+                Assert.assertTrue(cache.getNumBasesNotRequeried() > 0, "no bases were spared a query");
+            }
+            else {
+                Assert.assertEquals(cache.getNumBasesNotRequeried(), 0L);
+            }
+        }
+    }
+
+    @Test
+    public void testFilterAppliedOncePerRead() {
+        final List<String> filteredReadNames = new ArrayList<>();
+        final ReadFilter recordingFilter = new ReadFilter() {
+            private static final long serialVersionUID = 1l;
+            @Override
+            public boolean test( GATKRead read ) { filteredReadNames.add(read.getName()); return true; };
+        };
+
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(READS_BAM)) ) {
+            final List<LocalReadShard> shards = LocalReadShard.divideIntervalIntoShards(new SimpleInterval("1", 1, 2000), 5, 100,
+                    readsSource, readsSource.getHeader().getSequenceDictionary());
+            final ReadShardCache cache = new ReadShardCache(recordingFilter);
+            for ( int i = 0; i < shards.size(); i++ ) {
+                cache.getShard(shards.get(i), i + 1 < shards.size() ? shards.get(i + 1).getPaddedInterval() : null, null).forEach(read -> {});
+            }
+        }
+
+        Assert.assertEquals(filteredReadNames.size(), filteredReadNames.stream().distinct().count(), "a read was filtered more than once: " + filteredReadNames);
+    }
+
+    @Test(dataProvider = "ShardingTestData")
+    public void testWasReturnedForPreviousShard( final int shardSize, final int shardPadding, final ReadFilter unused ) {
+        final List<String> filteredReadNames = new ArrayList<>();
+        final ReadFilter recordingFilter = new ReadFilter() {
+            private static final long serialVersionUID = 1l;
+            @Override
+            public boolean test( GATKRead read ) { filteredReadNames.add(read.getName()); return true; };
+        };
+
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(IOUtils.getPath(READS_BAM)) ) {
+            final SAMSequenceDictionary dictionary = readsSource.getHeader().getSequenceDictionary();
+            final List<LocalReadShard> shards = new ArrayList<>();
+            shards.addAll(LocalReadShard.divideIntervalIntoShards(new SimpleInterval("1", 1, 2000), shardSize, shardPadding, readsSource, dictionary));
+            shards.addAll(LocalReadShard.divideIntervalIntoShards(new SimpleInterval("2", 1, 2000), shardSize, shardPadding, readsSource, dictionary));
+
+            // the reads of each shard that were not returned for the previous one are exactly those filtered by the cache for the shard
+            final ReadShardCache cache = new ReadShardCache(recordingFilter);
+            for ( int i = 0; i < shards.size(); i++ ) {
+                final LocalReadShard shard = shards.get(i);
+                filteredReadNames.clear();
+                cache.getShard(shard, i + 1 < shards.size() ? shards.get(i + 1).getPaddedInterval() : null, null).forEach(read -> {});
+
+                final SimpleInterval previousPaddedInterval = i > 0 ? shards.get(i - 1).getPaddedInterval() : null;
+                final List<String> newReadNames = new ArrayList<>();
+                for ( final GATKRead read : shard ) {
+                    if ( ! ReadShardCache.wasReturnedForPreviousShard(read, previousPaddedInterval, shard.getPaddedInterval()) ) {
+                        newReadNames.add(read.getName());
+                    }
+                }
+                Assert.assertEquals(newReadNames, filteredReadNames, "Wrong new reads for shard " + shard.getPaddedInterval());
+            }
+        }
+    }
+}
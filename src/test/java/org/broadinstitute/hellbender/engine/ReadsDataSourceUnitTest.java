@@ -664,6 +664,83 @@ public final class ReadsDataSourceUnitTest extends BaseTest {
         final ReadsDataSource readsSource = new ReadsDataSource(bams, wrongIndices);
     }
 
+    @DataProvider(name = "PipelinedDecodingData")
+    public Object[][] getPipelinedDecodingData() {
+        final Path withUnmapped = IOUtils.getPath(publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam");
+        // large enough to span many BGZF blocks
+        final Path manyBlocks = IOUtils.getPath(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+
+        // Files, with intervals for traversal (or null for a complete traversal)
+        return new Object[][] {
+                { Arrays.asList(FIRST_TEST_BAM), null },
+                { Arrays.asList(FIRST_TEST_BAM), Arrays.asList(new SimpleInterval("1", 200, 210), new SimpleInterval("2", 550, 700), new SimpleInterval("4", 700, 701)) },
+                { Arrays.asList(FIRST_TEST_BAM), Arrays.asList(new SimpleInterval("1", 2000, 3000), new SimpleInterval("2", 1000, 2000)) },
+                { Arrays.asList(FIRST_TEST_BAM, SECOND_TEST_BAM, THIRD_TEST_BAM), null },
+                { Arrays.asList(FIRST_TEST_BAM, SECOND_TEST_BAM, THIRD_TEST_BAM), Arrays.asList(new SimpleInterval("1", 205, 207), new SimpleInterval("1", 400, 1000), new SimpleInterval("4", 500, 704)) },
+                { Arrays.asList(withUnmapped), null },
+                { Arrays.asList(withUnmapped), Arrays.asList(new SimpleInterval("20", 10000009, 10000011)) },
+                { Arrays.asList(manyBlocks), null },
+                { Arrays.asList(manyBlocks), Arrays.asList(new SimpleInterval("20", 1000100, 1000200), new SimpleInterval("20", 1000500, 1000510), new SimpleInterval("20", 1000900, 1002000)) }
+        };
+    }
+
+    @Test(dataProvider = "PipelinedDecodingData")
+    public void testPipelinedDecodingMatchesHtsjdk( final List<Path> samFiles, final List<SimpleInterval> intervals ) {
+        final List<String> expectedReads = readAllAsStrings(samFiles, intervals, 0);
+        Assert.assertFalse(intervals == null && expectedReads.isEmpty(), "expected some reads");
+
+        for ( final int numThreads : new int[]{1, 3} ) {
+            Assert.assertEquals(readAllAsStrings(samFiles, intervals, numThreads), expectedReads, "wrong reads with " + numThreads + " read input threads");
+        }
+    }
+
+    @Test(dataProvider = "PipelinedDecodingData")
+    public void testPipelinedDecodingQuery( final List<Path> samFiles, final List<SimpleInterval> intervals ) {
+        if ( intervals == null ) {
+            return;
+        }
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(samFiles);
+              final ReadsDataSource pipelinedReadsSource = new ReadsDataSource(samFiles) ) {
+            pipelinedReadsSource.setReadInputThreads(2);
+            for ( final SimpleInterval interval : intervals ) {
+                final List<String> expectedNames = new ArrayList<>();
+                readsSource.query(interval).forEachRemaining(read -> expectedNames.add(read.getName()));
+                final List<String> actualNames = new ArrayList<>();
+                pipelinedReadsSource.query(interval).forEachRemaining(read -> actualNames.add(read.getName()));
+                Assert.assertEquals(actualNames, expectedNames, "wrong reads for query " + interval);
+            }
+        }
+    }
+
+    @Test
+    public void testPipelinedDecodingAbandonedIteration() {
+        final Path samFile = IOUtils.getPath(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(samFile) ) {
+            readsSource.setReadInputThreads(2);
+            final Iterator<GATKRead> abandoned = readsSource.iterator();
+            Assert.assertTrue(abandoned.hasNext());
+            abandoned.next();
+
+            // starting a new iteration closes the previous one
+            int count = 0;
+            for ( final GATKRead read : readsSource ) {
+                count++;
+            }
+            Assert.assertEquals(count, readAllAsStrings(Collections.singletonList(samFile), null, 0).size());
+        }
+    }
+
+    private static List<String> readAllAsStrings( final List<Path> samFiles, final List<SimpleInterval> intervals, final int readInputThreads ) {
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(samFiles) ) {
+            readsSource.setReadInputThreads(readInputThreads);
+            readsSource.setTraversalBounds(intervals);
+            final List<String> reads = new ArrayList<>();
+            for ( final GATKRead read : readsSource ) {
+                reads.add(read.convertToSAMRecord(readsSource.getHeader()).getSAMString());
+            }
+            return reads;
+        }
+    }
 
     @DataProvider(name = "readHeaders")
     public Object[][] getHeadersForDetectOrder() {
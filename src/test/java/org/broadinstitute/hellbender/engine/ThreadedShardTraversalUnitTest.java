@@ -0,0 +1,91 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class ThreadedShardTraversalUnitTest extends BaseTest {
+
+    private static final class DummyTool extends GATKTool {
+        @Override
+        public void traverse() { }
+    }
+
+    @Test
+    public void testOutputIsEmittedInShardOrder() throws Exception {
+        final List<Integer> shards = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        final List<Integer> emitted = new ArrayList<>();
+        final Thread traversalThread = Thread.currentThread();
+
+        try ( final ThreadedShardTraversal traversal = new ThreadedShardTraversal(new DummyTool(), 4, 0) ) {
+            traversal.traverse(shards.iterator(), shard -> {
+                Assert.assertNotSame(Thread.currentThread(), traversalThread);
+                try {
+                    // finish the shards out of order
+                    Thread.sleep((shard * 7) % 5);
+                }
+                catch ( final InterruptedException e ) {
+                    throw new RuntimeException(e);
+                }
+                ThreadedShardTraversal.emitInOrder(() -> {
+                    Assert.assertSame(Thread.currentThread(), traversalThread);
+                    emitted.add(shard);
+                });
+            });
+        }
+
+        Assert.assertEquals(emitted, shards);
+    }
+
+    @Test
+    public void testOutputIsEmittedImmediatelyOutsideWorkers() {
+        final List<String> emitted = new ArrayList<>();
+        ThreadedShardTraversal.emitInOrder(() -> emitted.add("output"));
+        Assert.assertEquals(emitted.size(), 1);
+    }
+
+    @Test
+    public void testFailedShardStopsTraversal() throws Exception {
+        final AtomicInteger runningShards = new AtomicInteger();
+        final CountDownLatch otherShardsStarted = new CountDownLatch(3);
+
+        final ThreadedShardTraversal traversal = new ThreadedShardTraversal(new DummyTool(), 4, 0);
+        try {
+            traversal.traverse(IntStream.range(0, 100).iterator(), shard -> {
+                runningShards.incrementAndGet();
+                try {
+                    if ( shard == 0 ) {
+                        otherShardsStarted.await(10, TimeUnit.SECONDS);
+                        throw new UserException.BadInput("bad shard");
+                    }
+                    otherShardsStarted.countDown();
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(10));
+                }
+                catch ( final InterruptedException e ) {
+                    // cancelled
+                }
+                finally {
+                    runningShards.decrementAndGet();
+                }
+            });
+            Assert.fail("the failure of a shard was not reported");
+        }
+        catch ( final UserException.BadInput e ) {
+            // the exception of the failed shard is passed on as is
+        }
+        finally {
+            traversal.close();
+        }
+
+        Assert.assertEquals(runningShards.get(), 0, "shards were still running after the traversal was closed");
+    }
+}
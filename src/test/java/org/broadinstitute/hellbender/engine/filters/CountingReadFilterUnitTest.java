@@ -258,6 +258,35 @@ public final class CountingReadFilterUnitTest {
         Assert.assertEquals(isEgon.getFilteredCount(), 0);
     }
 
+    private static CountingReadFilter makeCompoundFilter() {
+        return new CountingReadFilter(startOk).and(new CountingReadFilter(endOk)).or(new CountingReadFilter(startOk).negate());
+    }
+
+    @Test
+    public void testAddFilteredCounts() {
+        final List<GATKRead> reads = Arrays.asList(goodRead, startBad, endBad, bothBad, endBad, startBad);
+
+        final CountingReadFilter allReadsFilter = makeCompoundFilter();
+        reads.stream().filter(allReadsFilter).count(); // force the stream to be consumed
+
+        // split the reads between two copies of the filter, as a threaded traversal would
+        final CountingReadFilter firstHalfFilter = makeCompoundFilter();
+        final CountingReadFilter secondHalfFilter = makeCompoundFilter();
+        reads.subList(0, 3).stream().filter(firstHalfFilter).count();
+        reads.subList(3, reads.size()).stream().filter(secondHalfFilter).count();
+
+        final CountingReadFilter combinedFilter = makeCompoundFilter();
+        combinedFilter.addFilteredCounts(firstHalfFilter);
+        combinedFilter.addFilteredCounts(secondHalfFilter);
+        Assert.assertEquals(combinedFilter.getFilteredCount(), allReadsFilter.getFilteredCount());
+        Assert.assertEquals(combinedFilter.getSummaryLine(), allReadsFilter.getSummaryLine());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddFilteredCountsDifferentStructure() {
+        new CountingReadFilter(startOk).and(new CountingReadFilter(endOk)).addFilteredCounts(makeCompoundFilter());
+    }
+
     @Test
     public void testFromListNull() {
         CountingReadFilter rf = CountingReadFilter.fromList(null, ArtificialReadUtils.createArtificialSamHeader(1, 1, 10));
@@ -22,4 +22,20 @@ public class ExampleAssemblyRegionWalkerIntegrationTest extends CommandLineProgr
 
         testSpec.executeTest("testExampleAssemblyRegionWalker", this);
     }
+
+    @Test
+    public void testExampleAssemblyRegionWalkerWithTraversalThreads() throws Exception {
+        // Threaded traversal must produce exactly the same output as a single-threaded run
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+                " -R " + b37_reference_20_21 +
+                " -I " + NA12878_20_21_WGS_bam +
+                " -knownVariants " + dbsnp_138_b37_20_21_vcf +
+                " -L 20:10000000-10050000 " +
+                " -traversalThreads 4 " +
+                " -O %s",
+                Arrays.asList(TEST_OUTPUT_DIRECTORY + "expected_ExampleAssemblyRegionWalkerIntegrationTest_output.txt")
+        );
+
+        testSpec.executeTest("testExampleAssemblyRegionWalkerWithTraversalThreads", this);
+    }
 }
@@ -0,0 +1,55 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.LongBlockedBloomFilter;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Random;
+
+public class PSKmerMappedBloomFilterTest extends BaseTest {
+
+    private final double falsePositiveProb = 0.01;
+    private final int setSize = 100000;
+    private final int kmerSize = 31;
+    private final SVKmerShort mask = SVKmerShort.getMask(new byte[]{2, 18}, kmerSize);
+
+    @Test
+    public void testWriteAndMap() {
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(setSize, falsePositiveProb);
+        final long[] rawKmers = new long[setSize];
+        final Random rand = new Random(93848383L);
+        for (int i = 0; i < setSize; i++) {
+            rawKmers[i] = rand.nextLong() >>> 2;
+            bloomFilter.add(PSKmerCollection.canonicalizeAndMask(new SVKmerShort(rawKmers[i]), kmerSize, mask));
+        }
+        final PSKmerBlockedBloomFilter expectedKmerSet = new PSKmerBlockedBloomFilter(bloomFilter, kmerSize, mask, setSize);
+
+        final File file = createTempFile("mappedBloom", PSKmerUtils.MAPPED_BLOOM_FILTER_EXTENSION);
+        PSKmerUtils.writeKmerMappedBloomFilter(file.getAbsolutePath(), bloomFilter, kmerSize, mask, setSize);
+        final PSKmerCollection testKmerSet = PSKmerUtils.readKmerFilter(file.getAbsolutePath());
+        Assert.assertTrue(testKmerSet instanceof PSKmerMappedBloomFilter);
+
+        Assert.assertEquals(testKmerSet.kmerSize(), kmerSize);
+        Assert.assertEquals(testKmerSet.getMask(), mask);
+        Assert.assertEquals(testKmerSet.getFalsePositiveProbability(), expectedKmerSet.getFalsePositiveProbability());
+        for (final long rawKmer : rawKmers) {
+            Assert.assertTrue(testKmerSet.contains(new SVKmerShort(rawKmer)));
+        }
+        Assert.assertEquals(testKmerSet.countContained(rawKmers, rawKmers.length, rawKmers.length), setSize);
+
+        for (int i = 0; i < setSize; i++) {
+            final SVKmerShort kmer = new SVKmerShort(rand.nextLong() >>> 2);
+            Assert.assertEquals(testKmerSet.contains(kmer), expectedKmerSet.contains(kmer));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testNotMappedLibrary() {
+        final File file = createTempFile("notMappedBloom", PSKmerUtils.MAPPED_BLOOM_FILTER_EXTENSION);
+        new PSKmerMappedBloomFilter(file.toPath());
+    }
+}
@@ -11,6 +11,8 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadBatch;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -115,6 +117,30 @@ public final class FindBreakpointEvidenceSparkUnitTest extends BaseTest {
         Assert.assertEquals(actualAssemblyQNames, expectedAssemblyQNames);
     }
 
+    @Test(groups = "spark")
+    public void cachedReadsTest() {
+        final JavaRDD<ReadBatch> cachedReadBatches = FindBreakpointEvidenceSpark.cacheReads(reads, filter);
+        try {
+            final JavaRDD<GATKRead> cachedReads = SparkUtils.unbatchReads(cachedReadBatches);
+            Assert.assertEquals(cachedReads.getNumPartitions(), reads.getNumPartitions());
+            final ReadMetadata cachedMetadata =
+                    new ReadMetadata(Collections.emptySet(), header, params.maxTrackedFragmentLength, cachedReads, filter);
+            Assert.assertEquals(cachedMetadata.getNReads(), readMetadataExpected.getNReads());
+            Assert.assertEquals(
+                    FindBreakpointEvidenceSpark.getIntervals(params, ctx.broadcast(cachedMetadata), header, cachedReads, filter),
+                    expectedIntervalList);
+            final Set<String> actualQNames = new HashSet<>();
+            FindBreakpointEvidenceSpark.getQNames(params, ctx, broadcastMetadata, expectedIntervalList, cachedReads, filter)
+                    .stream()
+                    .map(QNameAndInterval::getKey)
+                    .forEach(actualQNames::add);
+            Assert.assertEquals(actualQNames, expectedQNames);
+        }
+        finally {
+            cachedReadBatches.unpersist();
+        }
+    }
+
     @Test(groups = "spark")
     public void generateFastqsTest() {
         final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNameMultiMap =
@@ -0,0 +1,81 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public final class MappedLongBlockedBloomFilterTest extends BaseTest {
+
+    private static final int RAND_SEED = 0xdeadf00;
+    private static final int NVALS = 100000;
+    private static final float FPP = 0.01F;
+
+    private static MappedLongBlockedBloomFilter writeAndMap(final LongBlockedBloomFilter bloomFilter, final long position) throws IOException {
+        final File file = createTempFile("mappedBloom", ".mbf");
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate((int) position));
+            final long bytesWritten = MappedLongBlockedBloomFilter.write(bloomFilter, channel);
+            Assert.assertEquals(channel.size(), position + bytesWritten);
+        }
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new MappedLongBlockedBloomFilter(channel, position);
+        }
+    }
+
+    @Test
+    void testMatchesBloomFilter() throws IOException {
+        final Random rng = new Random(RAND_SEED);
+        final long[] vals = new long[NVALS];
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(NVALS, FPP);
+        for (int valNo = 0; valNo != NVALS; ++valNo) {
+            vals[valNo] = rng.nextLong();
+            bloomFilter.add(vals[valNo]);
+        }
+
+        final MappedLongBlockedBloomFilter mappedFilter = writeAndMap(bloomFilter, MappedLongBlockedBloomFilter.PAGE_SIZE);
+        Assert.assertEquals(mappedFilter.getTheoreticalFPP(NVALS), bloomFilter.getTheoreticalFPP(NVALS));
+        for (final long val : vals) {
+            Assert.assertTrue(mappedFilter.contains(val));
+        }
+        Assert.assertEquals(mappedFilter.countContained(vals, vals.length, vals.length), vals.length);
+
+        final long[] otherVals = new long[NVALS];
+        int numContained = 0;
+        for (int valNo = 0; valNo != NVALS; ++valNo) {
+            otherVals[valNo] = rng.nextLong();
+            Assert.assertEquals(mappedFilter.contains(otherVals[valNo]), bloomFilter.contains(otherVals[valNo]));
+            if (bloomFilter.contains(otherVals[valNo])) {
+                numContained++;
+            }
+        }
+        Assert.assertEquals(mappedFilter.countContained(otherVals, otherVals.length, otherVals.length), numContained);
+    }
+
+    @Test
+    void testSingleBlock() throws IOException {
+        final LongBlockedBloomFilter bloomFilter = new LongBlockedBloomFilter(1, FPP);
+        bloomFilter.add(42L);
+        final MappedLongBlockedBloomFilter mappedFilter = writeAndMap(bloomFilter, 0);
+        Assert.assertTrue(mappedFilter.contains(42L));
+        Assert.assertFalse(mappedFilter.contains(43L));
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    void testNotAFilter() throws IOException {
+        final File file = createTempFile("notMappedBloom", ".mbf");
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2 * MappedLongBlockedBloomFilter.PAGE_SIZE));
+        }
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new MappedLongBlockedBloomFilter(channel, 0);
+        }
+    }
+}
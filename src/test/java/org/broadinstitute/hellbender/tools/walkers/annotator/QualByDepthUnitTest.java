@@ -5,6 +5,7 @@ import htsjdk.samtools.TextCigarCodec;
 import htsjdk.variant.variantcontext.*;
 import org.apache.commons.math3.stat.StatUtils;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.AS_QualByDepth;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -178,6 +179,43 @@ public class QualByDepthUnitTest extends BaseTest {
         Assert.assertEquals(StatUtils.mean(qds), QualByDepth.IDEAL_HIGH_QD, 0.02);
     }
 
+    @Test
+    public void testDeferredJitterMatchesImmediateJitter(){
+        final Allele A = Allele.create("A", true);
+        final Allele C = Allele.create("C");
+
+        final List<Allele> AC = Arrays.asList(A, C);
+        final Genotype gAC = new GenotypeBuilder("1", AC).DP(10).AD(new int[]{5, 5}).make();
+
+        final List<VariantContext> vcs = Arrays.asList(
+                new VariantContextBuilder("test", "20", 10, 10, AC).log10PError(-QualByDepth.MAX_QD_BEFORE_FIXING - 10).genotypes(Arrays.asList(gAC)).make(),
+                new VariantContextBuilder("test", "20", 20, 20, AC).log10PError(-5).genotypes(Arrays.asList(gAC)).make(),
+                new VariantContextBuilder("test", "20", 30, 30, AC).log10PError(-QualByDepth.MAX_QD_BEFORE_FIXING - 20).genotypes(Arrays.asList(gAC)).make());
+
+        Utils.resetRandomGenerator();
+        final List<Object> immediate = vcs.stream()
+                .map(vc -> new QualByDepth().annotate(null, vc, null).get(GATKVCFConstants.QUAL_BY_DEPTH_KEY))
+                .collect(Collectors.toList());
+
+        Utils.resetRandomGenerator();
+        final QualByDepth.DeferredJitter jitter = new QualByDepth.DeferredJitter();
+        final List<VariantContext> annotated = jitter.deferWhile(() -> vcs.stream()
+                .map(vc -> new VariantContextBuilder(vc).attributes(new QualByDepth().annotate(null, vc, null)).make())
+                .collect(Collectors.toList()));
+
+        //values that need no jitter are not deferred
+        Assert.assertEquals(annotated.get(1).getAttribute(GATKVCFConstants.QUAL_BY_DEPTH_KEY), immediate.get(1));
+
+        jitter.draw();
+        final List<Object> deferred = annotated.stream()
+                .map(vc -> jitter.resolve(vc).getAttribute(GATKVCFConstants.QUAL_BY_DEPTH_KEY))
+                .collect(Collectors.toList());
+        Assert.assertEquals(deferred, immediate);
+
+        //outside of deferWhile the jitter is drawn immediately
+        Assert.assertTrue(new QualByDepth().annotate(null, vcs.get(0), null).get(GATKVCFConstants.QUAL_BY_DEPTH_KEY) instanceof String);
+    }
+
     @Test
     public void testAnnotate_AS() throws Exception {
 
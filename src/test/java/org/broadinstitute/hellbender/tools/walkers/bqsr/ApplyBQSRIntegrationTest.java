@@ -72,6 +72,10 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", new String[] {"-SQQ", "10", "-SQQ", "20", "-SQQ", "30"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.SQQ102030.bam")});
         tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", new String[] {"-SQQ", "10", "-SQQ", "20", "-SQQ", "30", "-RDQ"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.SQQ102030RDQ.bam")});
 
+        // threaded traversal must produce the same output as a single-threaded run; small batches so that there are many of them
+        tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"-traversalThreads", "4", "-readBatchSize", "100"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.bam")});
+        tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", new String[] {"-qq", "6", "-traversalThreads", "4", "-readBatchSize", "100"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.qq6.bam")});
+
         //CRAM - input and output crams generated by direct conversion of the corresponding BAM test files with samtools 1.3
         tests.add(new Object[]{new ABQSRTest(hiSeqCram, hg18Reference, ".cram", new String[] {"--disableSequenceDictionaryValidation", "true"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.cram")});
         tests.add(new Object[]{new ABQSRTest(hiSeqCramAligned, hg18Reference, ".cram", new String[] {"-qq", "6", "--disableSequenceDictionaryValidation", "true"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.qq6.cram")});
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
 import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.Locatable;
 
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
@@ -8,12 +9,15 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.broadinstitute.hellbender.utils.test.SamAssertionUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.recalibration.KnownSitesIndex;
+import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 
 public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTest{
 
@@ -77,6 +81,8 @@ public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTes
                 // See RecalDatum for explanation of why the multiplier is needed.
 
                 {new BQSRTest(GRCh37Ref_chr2021, hiSeqBam_chr20, dbSNPb37_chr20, "", getResourceDir() + BQSRTestData.EXPECTED_WGS_B37_CH20_1M_1M1K_NOINDEL_NOBAQ_RECAL)},
+                // threaded traversal must produce the same tables as a single-threaded run; small batches so that there are many of them
+                {new BQSRTest(GRCh37Ref_chr2021, hiSeqBam_chr20, dbSNPb37_chr20, "-traversalThreads 4 -readBatchSize 50", getResourceDir() + BQSRTestData.EXPECTED_WGS_B37_CH20_1M_1M1K_NOINDEL_NOBAQ_RECAL)},
                 {new BQSRTest(GRCh37Ref_chr2021, hiSeqBam_chr20, dbSNPb37_chr20, "-indelBQSR -enableBAQ", getResourceDir() + BQSRTestData.EXPECTED_WGS_B37_CH20_1M_1M1K_RECAL)},
                 {new BQSRTest(GRCh37Ref_chr2021, hiSeqBam_1read, dbsnp_138_b37_20_21_vcf, "-indelBQSR -enableBAQ", getResourceDir() + BQSRTestData.EXPECTED_WGS_B37_CH20_1READ_RECAL)},
                 {new BQSRTest(GRCh37Ref_chr2021, hiSeqBam_readNithNoRefBases, dbsnp_138_b37_20_21_vcf, "-indelBQSR -enableBAQ", getResourceDir() + BQSRTestData.EXPECTED_WGS_B37_CH20_1READ_NOREFBASES_RECAL)},
@@ -133,6 +139,59 @@ public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTes
         IntegrationTestSpec.assertEqualTextFiles(actualTablePost, expectedTablePost);
     }
 
+    @Test
+    public void testBQSRWithKnownSitesIndex() throws IOException {
+        final String hg18Reference = publicTestDir + "human_g1k_v37.chr17_1Mb.fasta";
+        final String HiSeqBam_chr17 = getResourceDir() + "NA12878.chr17_69k_70k.dictFix.bam";
+        final String dbSNPb37_chr17 =  getResourceDir() + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf";
+        final String more17Sites = getResourceDir() + "bqsr.fakeSitesForTesting.b37.chr17.vcf";
+        final File expected = new File(getResourceDir() + "expected.NA12878.chr17_69k_70k.2inputs.txt");
+
+        final File index = createTempFile("known.sites", ".index");
+        Assert.assertTrue(index.delete());
+
+        // the first run builds the index, and the second one reads it back
+        for ( int run = 0; run < 2; run++ ) {
+            final File actual = createTempFile("gatk4.knownSitesIndex." + run, ".table");
+            final String args = "-R " + hg18Reference + " -indelBQSR -enableBAQ --knownSites " + dbSNPb37_chr17 + " --knownSites " + more17Sites +
+                    " --knownSitesIndex " + index.getAbsolutePath() + " -I " + HiSeqBam_chr17 + " -O " + actual.getAbsolutePath();
+            new BaseRecalibrator().instanceMain(Utils.escapeExpressions(args));
+            Assert.assertTrue(index.exists());
+            IntegrationTestSpec.assertEqualTextFiles(actual, expected);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testBQSRFailWithMismatchedKnownSitesIndex() throws IOException {
+        final String hg18Reference = publicTestDir + "human_g1k_v37.chr17_1Mb.fasta";
+        final String HiSeqBam_chr17 = getResourceDir() + "NA12878.chr17_69k_70k.dictFix.bam";
+        final String dbSNPb37_chr17 =  getResourceDir() + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf";
+        final String more17Sites = getResourceDir() + "bqsr.fakeSitesForTesting.b37.chr17.vcf";
+
+        final File index = createTempFile("known.sites", ".index");
+        KnownSitesIndex.fromSites(Collections.singletonList(more17Sites), Collections.<Locatable>emptyIterator()).write(index);
+
+        final String args = "-R " + hg18Reference + " --knownSites " + dbSNPb37_chr17 + " --knownSitesIndex " + index.getAbsolutePath() +
+                " -I " + HiSeqBam_chr17 + " -O " + createTempFile("gatk4.knownSitesIndex", ".table").getAbsolutePath();
+        new BaseRecalibrator().instanceMain(Utils.escapeExpressions(args));
+    }
+
+    @Test
+    public void testBQSRFailWithThreadsAndBAQ() throws IOException {
+        final String resourceDir =  getTestDataDir() + "/" + "BQSR" + "/";
+
+        final String hg18Reference = publicTestDir + "human_g1k_v37.chr17_1Mb.fasta";
+        final String HiSeqBam_chr17 = resourceDir + "NA12878.chr17_69k_70k.dictFix.bam";
+        final String dbSNPb37_chr17 =  getResourceDir() + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf";
+
+        final BQSRTest params = new BQSRTest(hg18Reference, HiSeqBam_chr17, dbSNPb37_chr17, "-indelBQSR -enableBAQ -traversalThreads 2", resourceDir + "expected.NA12878.chr17_69k_70k.txt");
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                params.getCommandLine(),
+                1,
+                CommandLineException.class);
+        spec.executeTest("testBQSRFailWithThreadsAndBAQ", this);
+    }
+
     @Test
     public void testBQSRFailWithoutDBSNP() throws IOException {
         final String resourceDir =  getTestDataDir() + "/" + "BQSR" + "/";
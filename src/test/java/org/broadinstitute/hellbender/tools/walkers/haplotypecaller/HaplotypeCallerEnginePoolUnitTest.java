@@ -0,0 +1,55 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class HaplotypeCallerEnginePoolUnitTest extends BaseTest {
+
+    private static CachingIndexedFastaSequenceFile openReference() {
+        final File reference = new File(b37_reference_20_21);
+        try {
+            return new CachingIndexedFastaSequenceFile(reference);
+        } catch ( final FileNotFoundException e ) {
+            throw new UserException.CouldNotReadInputFile(reference, e);
+        }
+    }
+
+    @Test
+    public void testEnginesArePerThread() throws Exception {
+        try ( final ReadsDataSource reads = new ReadsDataSource(new File(NA12878_20_21_WGS_bam).toPath()) ) {
+            final HaplotypeCallerEnginePool pool = new HaplotypeCallerEnginePool(new HaplotypeCallerArgumentCollection(), false, false,
+                    reads.getHeader(), HaplotypeCallerEnginePoolUnitTest::openReference);
+
+            // The creating thread uses the prototype, and always gets the same engine back
+            Assert.assertSame(pool.get(), pool.getPrototype());
+            Assert.assertSame(pool.get(), pool.get());
+            Assert.assertEquals(pool.numberOfEngines(), 1);
+
+            final ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                final Future<HaplotypeCallerEngine> first = executor.submit(() -> pool.get());
+                final Future<HaplotypeCallerEngine> second = executor.submit(() -> pool.get());
+
+                Assert.assertNotSame(first.get(), pool.getPrototype());
+                Assert.assertNotSame(second.get(), pool.getPrototype());
+                Assert.assertTrue(pool.numberOfEngines() >= 2 && pool.numberOfEngines() <= 3);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+
+            pool.shutdown();
+            Assert.assertEquals(pool.numberOfEngines(), 0);
+        }
+    }
+}
@@ -16,7 +16,10 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
@@ -329,6 +332,44 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(expectedMD5File.exists(), createBamoutMD5);
     }
 
+    @DataProvider(name="traversalThreadsVariations")
+    public Object[][] getTraversalThreadsVariations() {
+        return new Object[][]{
+                // extra arguments
+                { new String[]{} },
+                { new String[]{"-ERC", "GVCF"} },
+                { new String[]{"-contamination", "0.1"} },
+        };
+    }
+
+    /*
+     * Test that threaded traversal produces the same output as a single-threaded run. The interval includes many
+     * sites whose raw QD is above QualByDepth.MAX_QD_BEFORE_FIXING, which get a random jitter.
+     */
+    @Test(dataProvider = "traversalThreadsVariations")
+    public void testTraversalThreadsProducesSameOutputAsSingleThreaded(final String[] extraArgs) throws Exception {
+        final File singleThreadedOutput = createTempFile("testTraversalThreadsSingleThreaded", ".vcf");
+        final File threadedOutput = createTempFile("testTraversalThreadsThreaded", ".vcf");
+        for ( final File output : Arrays.asList(singleThreadedOutput, threadedOutput) ) {
+            Utils.resetRandomGenerator();
+
+            final List<String> args = new ArrayList<>(Arrays.asList(
+                    "-I", NA12878_20_21_WGS_bam,
+                    "-R", b37_reference_20_21,
+                    "-L", "20:10000000-10100000",
+                    "-O", output.getAbsolutePath(),
+                    "-stand_call_conf", "30.0",
+                    "-traversalThreads", output == threadedOutput ? "4" : "1",
+                    "-addOutputVCFCommandLine", "false"
+            ));
+            args.addAll(Arrays.asList(extraArgs));
+
+            runCommandLine(args);
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(threadedOutput, singleThreadedOutput);
+    }
+
     @Test
     public void testHaplotypeCallerRemoveAltAlleleBasedOnHaptypeScores() throws IOException{
         final File testBAM = new File(TEST_FILES_DIR + "pretendTobeTetraPloidTetraAllelicSite.bam");
@@ -0,0 +1,113 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKmerMapUnitTest extends BaseTest {
+
+    @DataProvider(name = "PackableKmers")
+    public Object[][] makePackableKmers() {
+        return new Object[][]{
+                {"A"}, {"T"}, {"ACGT"}, {"TTTTTTTTTTTTTTTTTTTTTTTTTTTTTTT"}, {"ACGTACGTACGTACGTACGTACGTACGTACG"}
+        };
+    }
+
+    @Test(dataProvider = "PackableKmers")
+    public void testPackUnpack(final String kmer) {
+        final long packed = PackedKmer.pack(kmer.getBytes(), 0, kmer.length());
+        Assert.assertTrue(packed >= 0);
+        Assert.assertEquals(new String(PackedKmer.unpack(packed, kmer.length())), kmer);
+
+        // packing an offset into a larger array gives the same answer
+        final byte[] padded = ("NN" + kmer + "NN").getBytes();
+        Assert.assertEquals(PackedKmer.pack(padded, 2, kmer.length()), packed);
+    }
+
+    @Test
+    public void testNotPackable() {
+        Assert.assertEquals(PackedKmer.pack("ACGNT".getBytes(), 0, 5), PackedKmer.NOT_PACKABLE);
+        Assert.assertEquals(PackedKmer.pack("ACGtT".getBytes(), 0, 5), PackedKmer.NOT_PACKABLE);
+        final String tooLong = "ACGTACGTACGTACGTACGTACGTACGTACGT";
+        Assert.assertEquals(PackedKmer.pack(tooLong.getBytes(), 0, tooLong.length()), PackedKmer.NOT_PACKABLE);
+    }
+
+    @DataProvider(name = "KmerSizes")
+    public Object[][] makeKmerSizes() {
+        // below, at, and above the largest packable kmer size
+        return new Object[][]{{10}, {31}, {32}, {45}};
+    }
+
+    @Test(dataProvider = "KmerSizes")
+    public void testMapMatchesKmerMap(final int kmerSize) {
+        final Random random = new Random(kmerSize);
+        final byte[] bases = new byte[1000];
+        final byte[] alphabet = "ACGTN".getBytes();
+        for ( int i = 0; i < bases.length; i++ ) {
+            // mostly ACGT, with the occasional N that makes a kmer unpackable
+            bases[i] = random.nextInt(50) == 0 ? alphabet[4] : alphabet[random.nextInt(4)];
+        }
+
+        final PackedKmerMap<Integer> map = new PackedKmerMap<>(kmerSize);
+        final Map<Kmer, Integer> expected = new LinkedHashMap<>();
+        for ( int i = 0; i + kmerSize <= bases.length; i += 1 + random.nextInt(3) ) {
+            Assert.assertEquals(map.put(bases, i, i), expected.put(new Kmer(bases, i, kmerSize), i));
+        }
+        Assert.assertEquals(map.size(), expected.size());
+        Assert.assertEquals(new HashSet<>(map.values()), new HashSet<>(expected.values()));
+
+        for ( int i = 0; i + kmerSize <= bases.length; i++ ) {
+            final Kmer kmer = new Kmer(bases, i, kmerSize);
+            Assert.assertEquals(map.get(bases, i), expected.get(kmer));
+            Assert.assertEquals(map.get(kmer), expected.get(kmer));
+            Assert.assertEquals(map.containsKey(bases, i), expected.containsKey(kmer));
+        }
+
+        for ( int i = 0; i + kmerSize <= bases.length; i += 2 ) {
+            Assert.assertEquals(map.remove(bases, i), expected.remove(new Kmer(bases, i, kmerSize)));
+        }
+        Assert.assertEquals(map.size(), expected.size());
+
+        map.clear();
+        Assert.assertEquals(map.size(), 0);
+        Assert.assertNull(map.get(bases, 0));
+    }
+
+    @Test
+    public void testMapIgnoresOtherKmerSizes() {
+        final PackedKmerMap<String> map = new PackedKmerMap<>(4);
+        map.put("ACGT".getBytes(), 0, "x");
+        Assert.assertEquals(map.get(new Kmer("ACGT")), "x");
+        Assert.assertNull(map.get(new Kmer("ACG")));
+        Assert.assertNull(map.get(new Kmer("ACGTA")));
+    }
+
+    @Test(dataProvider = "KmerSizes")
+    public void testSet(final int kmerSize) {
+        final String sequence = "ACGTNACGTACGTTTGACCAGTACAGATTACAGGACAGTAGACGATTTAGNNACGTACCGTAGGATACAGATAC";
+        final byte[] bases = (sequence + sequence).getBytes();
+
+        final PackedKmerSet set = new PackedKmerSet(kmerSize);
+        final Set<Kmer> expected = new HashSet<>();
+        for ( int i = 0; i + kmerSize <= bases.length; i++ ) {
+            Assert.assertEquals(set.add(bases, i), expected.add(new Kmer(bases, i, kmerSize)));
+        }
+        Assert.assertEquals(set.size(), expected.size());
+        Assert.assertEquals(set.toKmerSet(), expected);
+        for ( int i = 0; i + kmerSize <= bases.length; i++ ) {
+            Assert.assertTrue(set.contains(bases, i));
+        }
+        Assert.assertFalse(set.contains("GGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGGG".getBytes(), 0));
+
+        final PackedKmerSet copy = new PackedKmerSet(kmerSize);
+        copy.addAll(set);
+        Assert.assertEquals(copy.toKmerSet(), expected);
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+    }
+}
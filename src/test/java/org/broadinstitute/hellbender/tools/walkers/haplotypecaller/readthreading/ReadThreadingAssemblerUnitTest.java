@@ -160,6 +160,43 @@ public final class ReadThreadingAssemblerUnitTest extends BaseTest {
     }
 
 
+    @Test
+    public void testMultiThreadedAssemblyMatchesSingleThreaded() {
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100200);
+        final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
+        final String ref = new String(refBases);
+        final List<String> alts = Arrays.asList(
+                ref.substring(0, 60) + (ref.charAt(60) == 'A' ? 'C' : 'A') + ref.substring(61),
+                ref.substring(0, 120) + ref.substring(125));
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( final String alt : alts ) {
+            for ( int i = 0; i < 5; i++ ) {
+                reads.add(ArtificialReadUtils.createArtificialRead(header, loc.getContig(), loc.getContig(), loc.getStart(),
+                        alt.getBytes(), Utils.dupBytes((byte) 30, alt.length()), alt.length() + "M"));
+            }
+        }
+
+        final List<Integer> kmerSizes = Arrays.asList(10, 15, 20, 25, 30);
+        final ReadThreadingAssembler singleThreaded = new ReadThreadingAssembler(128, kmerSizes, false, false, 1);
+        final ReadThreadingAssembler multiThreaded = new ReadThreadingAssembler(128, kmerSizes, false, false, 1);
+        multiThreaded.setAssemblyThreads(4);
+        try {
+            final List<Haplotype> expected = assemble(singleThreaded, refBases, loc, reads);
+            Assert.assertTrue(expected.size() > 1);
+            for ( int i = 0; i < 5; i++ ) {
+                Assert.assertEquals(assemble(multiThreaded, refBases, loc, reads), expected);
+            }
+        } finally {
+            multiThreaded.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoAssemblyThreads() {
+        new ReadThreadingAssembler().setAssemblyThreads(0);
+    }
+
     private List<Haplotype> assemble(final ReadThreadingAssembler assembler, final byte[] refBases, final SimpleInterval loc, final List<GATKRead> reads) {
         final Haplotype refHaplotype = new Haplotype(refBases, true);
         final Cigar c = new Cigar();
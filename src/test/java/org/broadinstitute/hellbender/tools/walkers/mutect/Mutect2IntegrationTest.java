@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.tools.walkers.validation.ConcordanceSummary
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -159,6 +160,34 @@ public class Mutect2IntegrationTest extends CommandLineProgramTest {
         Assert.assertTrue(numVariants < 4);
     }
 
+    // threaded traversal must produce the same calls, in the same order, as a single-threaded run
+    @Test
+    public void testTumorNormalWithTraversalThreads() throws Exception {
+        final File tumorBam = new File(DREAM_BAMS_DIR, "tumor.bam");
+        final String tumorName = "synthetic.challenge.set1.tumor";
+        final File normalBam = new File(DREAM_BAMS_DIR, "normal.bam");
+        final String normalName = "synthetic.challenge.set1.normal";
+
+        final File singleThreadedVcf = createTempFile("singleThreaded", ".vcf");
+        final File threadedVcf = createTempFile("threaded", ".vcf");
+        for ( final File outputVcf : Arrays.asList(singleThreadedVcf, threadedVcf) ) {
+            final String[] args = {
+                    "-I", tumorBam.getAbsolutePath(),
+                    "-tumor", tumorName,
+                    "-I", normalBam.getAbsolutePath(),
+                    "-normal", normalName,
+                    "-R", b37_reference_20_21,
+                    "-L", "20:10000000-10100000",
+                    "-traversalThreads", outputVcf == threadedVcf ? "4" : "1",
+                    "-O", outputVcf.getAbsolutePath()
+            };
+            runCommandLine(args);
+        }
+
+        // the headers differ only in the command line
+        IntegrationTestSpec.assertEqualTextFiles(threadedVcf, singleThreadedVcf, "#");
+    }
+
     // run tumor-only using our mini gnomAD on NA12878, which is not a tumor
     // we're just making sure nothing blows up
     @Test
@@ -54,4 +54,18 @@ public class CheckPileupIntegrationTest extends CommandLineProgramTest {
         testSpec.executeTest("testBasicPileup", this);
     }
 
+    @Test
+    public void testBAQPileupWithTraversalThreads() throws IOException {
+        // Threaded traversal over the whole reference must report the same differences, in the same order
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+                " --continue_after_error " +
+                " -R " + hg19MiniReference +
+                " -I " + TEST_DATA_DIRECTORY + "reads_data_source_test1.bam" +
+                " -pileup " +  TEST_OUTPUT_DIRECTORY + "reads_data_source_test1.samtools.baq.pileup" +
+                " -traversalThreads 4" +
+                " -locusShardSize 50" +
+                " -O %s", Arrays.asList(TEST_OUTPUT_DIRECTORY + "reads_data_source_test1.samtools.baq.pileup.diff"));
+
+        testSpec.executeTest("testBAQPileupWithTraversalThreads", this);
+    }
 }
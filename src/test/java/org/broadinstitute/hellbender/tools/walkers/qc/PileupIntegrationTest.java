@@ -30,6 +30,22 @@ public class PileupIntegrationTest extends CommandLineProgramTest {
         testSpec.executeTest("testSimplePileup", this);
     }
 
+    @Test
+    public void testSimplePileupWithTraversalThreads() throws IOException {
+        // Threaded traversal must produce exactly the same output as a single-threaded run, including
+        // for reads that span the boundaries between the (deliberately small) locus shards
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+            " -L 20:9999900-10000000" +
+                " -R " + b37_reference_20_21 +
+                " -I " + NA12878_20_21_WGS_bam +
+                " -traversalThreads 4" +
+                " -locusShardSize 17" +
+                " -O %s",
+            Arrays.asList(TEST_OUTPUT_DIRECTORY + "expectedSimplePileup.txt")
+        );
+        testSpec.executeTest("testSimplePileupWithTraversalThreads", this);
+    }
+
     @Test
     public void testVerbosePileup() throws IOException {
         // GATK 3.5 code have a the last line with a REDUCE RESULT that was removed in this implementation
@@ -2,6 +2,8 @@ package org.broadinstitute.hellbender.utils.downsampling;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.variant.variantcontext.Allele;
+import org.apache.commons.math3.random.RandomDataGenerator;
+import org.apache.commons.math3.random.Well19937c;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
@@ -130,6 +132,10 @@ public class AlleleBiasedDownsamplingUtilsUnitTest extends BaseTest {
         //TODO should add assertions to test that the reads are downsampled properly by allele.
         final long toRemove = actualCount - expectedCount;
         Assert.assertEquals(results.size(), toRemove);
+
+        //generators with the same seed remove the same reads
+        final List<GATKRead> seededResults = AlleleBiasedDownsamplingUtils.selectAlleleBiasedReads(readMap, contaminationFraction, new RandomDataGenerator(new Well19937c(42)));
+        Assert.assertEquals(AlleleBiasedDownsamplingUtils.selectAlleleBiasedReads(readMap, contaminationFraction, new RandomDataGenerator(new Well19937c(42))), seededResults);
     }
 
     private static boolean countsAreEqual(final int[] counts1, final int[] counts2) {
@@ -0,0 +1,111 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class ParallelBgzfInputStreamUnitTest extends BaseTest {
+    private static final File BAM = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+
+    private ExecutorService inflaterPool;
+
+    @BeforeClass
+    public void startPool() {
+        inflaterPool = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterClass
+    public void stopPool() {
+        inflaterPool.shutdownNow();
+    }
+
+    private ParallelBgzfInputStream openStream( final int readAheadBlocks ) throws IOException {
+        return new ParallelBgzfInputStream(Files.newByteChannel(BAM.toPath()), inflaterPool, readAheadBlocks, BAM.getPath());
+    }
+
+    @Test
+    public void testMatchesBlockCompressedInputStream() throws IOException {
+        final Random random = new Random(31);
+        final byte[] expectedBuffer = new byte[5000];
+        final byte[] actualBuffer = new byte[5000];
+        try ( final BlockCompressedInputStream expected = new BlockCompressedInputStream(BAM);
+              final ParallelBgzfInputStream actual = openStream(4) ) {
+            Assert.assertEquals(actual.getFilePointer(), expected.getFilePointer());
+            while ( true ) {
+                final int length = 1 + random.nextInt(expectedBuffer.length - 1);
+                final int expectedCount = expected.read(expectedBuffer, 0, length);
+                if ( expectedCount <= 0 ) {
+                    Assert.assertEquals(actual.read(actualBuffer, 0, length), -1);
+                    break;
+                }
+                // our stream may return fewer bytes at block boundaries
+                int actualCount = 0;
+                while ( actualCount < expectedCount ) {
+                    actualCount += actual.read(actualBuffer, actualCount, expectedCount - actualCount);
+                }
+                Assert.assertEquals(Arrays.copyOf(actualBuffer, actualCount), Arrays.copyOf(expectedBuffer, expectedCount));
+                if ( expectedCount == length ) {
+                    // (at the end of the file, htsjdk may have moved on past the terminator block)
+                    Assert.assertEquals(actual.getFilePointer(), expected.getFilePointer());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSeek() throws IOException {
+        // collect some virtual file pointers, then visit them out of order
+        final Random random = new Random(37);
+        final List<Long> filePointers = new ArrayList<>();
+        try ( final BlockCompressedInputStream expected = new BlockCompressedInputStream(BAM) ) {
+            final byte[] buffer = new byte[20000];
+            while ( expected.read(buffer, 0, 1 + random.nextInt(buffer.length - 1)) > 0 ) {
+                filePointers.add(expected.getFilePointer());
+            }
+        }
+        final List<Long> seekOrder = new ArrayList<>(filePointers);
+        seekOrder.addAll(filePointers);
+        Collections.shuffle(seekOrder.subList(filePointers.size(), seekOrder.size()), random);
+
+        final byte[] expectedBuffer = new byte[100];
+        final byte[] actualBuffer = new byte[100];
+        try ( final BlockCompressedInputStream expected = new BlockCompressedInputStream(BAM);
+              final ParallelBgzfInputStream actual = openStream(2) ) {
+            for ( final long filePointer : seekOrder ) {
+                expected.seek(filePointer);
+                actual.seek(filePointer);
+                Assert.assertEquals(actual.getFilePointer(), filePointer);
+
+                final int expectedCount = Math.max(0, expected.read(expectedBuffer, 0, expectedBuffer.length));
+                int actualCount = 0;
+                while ( actualCount < expectedCount ) {
+                    actualCount += actual.read(actualBuffer, actualCount, expectedCount - actualCount);
+                }
+                Assert.assertEquals(Arrays.copyOf(actualBuffer, actualCount), Arrays.copyOf(expectedBuffer, expectedCount), "wrong data at " + filePointer);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotBgzf() throws IOException {
+        final File notBgzf = createTempFile("not.bgzf", ".txt");
+        Files.write(notBgzf.toPath(), "this is not a BGZF file, but it is long enough to have a header".getBytes());
+        try ( final ParallelBgzfInputStream stream = new ParallelBgzfInputStream(Files.newByteChannel(notBgzf.toPath()), inflaterPool, 2, notBgzf.getPath()) ) {
+            stream.read();
+        }
+    }
+}
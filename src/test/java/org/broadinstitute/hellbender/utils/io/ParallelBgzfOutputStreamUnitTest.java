@@ -0,0 +1,144 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class ParallelBgzfOutputStreamUnitTest extends BaseTest {
+    private static final File BAM = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+
+    private ExecutorService deflaterPool;
+
+    @BeforeClass
+    public void startPool() {
+        deflaterPool = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterClass
+    public void stopPool() {
+        deflaterPool.shutdownNow();
+    }
+
+    @Test
+    public void testMatchesBlockCompressedOutputStream() throws IOException {
+        // a mix of compressible data, incompressible (random) data and flushes of partial blocks
+        final Random random = new Random(41);
+        final byte[] bamBytes = Files.readAllBytes(BAM.toPath());
+        final List<byte[]> chunks = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ ) {
+            final byte[] chunk = new byte[1 + random.nextInt(30000)];
+            if ( random.nextBoolean() ) {
+                random.nextBytes(chunk);
+            }
+            else {
+                final int start = random.nextInt(bamBytes.length - chunk.length);
+                System.arraycopy(bamBytes, start, chunk, 0, chunk.length);
+            }
+            chunks.add(chunk);
+        }
+
+        final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+        final List<Long> expectedFilePointers = new ArrayList<>();
+        final List<Long> levelZeroFilePointers = new ArrayList<>();
+        final ParallelBgzfOutputStream parallelStream = new ParallelBgzfOutputStream(actualBytes, 5, deflaterPool, 4, true);
+        try ( final BlockCompressedOutputStream expected = new BlockCompressedOutputStream(expectedBytes, null, 5);
+              final BlockCompressedOutputStream levelZero = new BlockCompressedOutputStream(parallelStream, null, 0) ) {
+            for ( final byte[] chunk : chunks ) {
+                expected.write(chunk);
+                levelZero.write(chunk);
+                if ( random.nextInt(10) == 0 ) {
+                    expected.flush();
+                    levelZero.flush();
+                }
+                expectedFilePointers.add(expected.getFilePointer());
+                levelZeroFilePointers.add(levelZero.getFilePointer());
+            }
+        }
+
+        Assert.assertEquals(actualBytes.toByteArray(), expectedBytes.toByteArray());
+        for ( int i = 0; i < expectedFilePointers.size(); i++ ) {
+            Assert.assertEquals(parallelStream.translateFilePointer(levelZeroFilePointers.get(i)), (long)expectedFilePointers.get(i));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotBgzf() throws IOException {
+        try ( final ParallelBgzfOutputStream stream = new ParallelBgzfOutputStream(new ByteArrayOutputStream(), 5, deflaterPool, 4, false) ) {
+            stream.write("this is not a BGZF file, but it is long enough to have a header".getBytes());
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testIncompleteBlock() throws IOException {
+        final ByteArrayOutputStream levelZeroBytes = new ByteArrayOutputStream();
+        try ( final BlockCompressedOutputStream levelZero = new BlockCompressedOutputStream(levelZeroBytes, null, 0) ) {
+            levelZero.write(new byte[1000]);
+        }
+        final byte[] truncated = levelZeroBytes.toByteArray();
+        try ( final ParallelBgzfOutputStream stream = new ParallelBgzfOutputStream(new ByteArrayOutputStream(), 5, deflaterPool, 4, false) ) {
+            stream.write(truncated, 0, 500);
+        }
+    }
+
+    @DataProvider(name = "BamWriterData")
+    public Object[][] getBamWriterData() {
+        return new Object[][] {
+                { true },  // records written in order
+                { false }  // records sorted by the writer
+        };
+    }
+
+    @Test(dataProvider = "BamWriterData")
+    public void testBamWriterMatchesHtsjdk( final boolean preSorted ) throws IOException {
+        final SAMFileHeader header;
+        final List<SAMRecord> records = new ArrayList<>();
+        try ( final SamReader reader = SamReaderFactory.makeDefault().open(BAM) ) {
+            header = reader.getFileHeader();
+            reader.forEach(records::add);
+        }
+        Assert.assertEquals(header.getSortOrder(), SAMFileHeader.SortOrder.coordinate);
+        if ( ! preSorted ) {
+            Collections.shuffle(records, new Random(43));
+        }
+
+        final File expected = writeBam(header, records, preSorted, 0);
+        final File actual = writeBam(header, records, preSorted, 3);
+        Assert.assertEquals(Files.readAllBytes(actual.toPath()), Files.readAllBytes(expected.toPath()));
+        Assert.assertEquals(Files.readAllBytes(getSibling(actual, ".bai").toPath()), Files.readAllBytes(getSibling(expected, ".bai").toPath()));
+        Assert.assertEquals(Files.readAllBytes(getSibling(actual, ".bam.md5").toPath()), Files.readAllBytes(getSibling(expected, ".bam.md5").toPath()));
+    }
+
+    private File writeBam( final SAMFileHeader header, final List<SAMRecord> records, final boolean preSorted, final int compressionThreads ) {
+        final File output = new File(createTempDir("parallel.bgzf"), "output.bam");
+        try ( final SAMFileWriter writer = ReadUtils.createCommonSAMWriter(output, null, header, preSorted, true, true, compressionThreads) ) {
+            records.forEach(writer::addAlignment);
+        }
+        return output;
+    }
+
+    private static File getSibling( final File bam, final String extension ) {
+        return new File(bam.getParentFile(), "output" + extension);
+    }
+}
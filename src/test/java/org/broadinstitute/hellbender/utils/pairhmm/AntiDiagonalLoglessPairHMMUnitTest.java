@@ -0,0 +1,137 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.text.parsers.BasicInputParser;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public final class AntiDiagonalLoglessPairHMMUnitTest extends BaseTest {
+
+    private static final String pairHMMTestData = publicTestDir + "pairhmm-testdata.txt";
+
+    // single precision is accurate to about 1e-6 in log10 space
+    private static final double TOLERANCE = 1e-4;
+
+    private static final byte[] BASES = "ACGTN".getBytes();
+
+    private static double computeLikelihood(final PairHMM hmm, final byte[] haplotype, final byte[] read, final byte[] readQuals,
+                                            final byte[] insQuals, final byte[] delQuals, final byte[] gcp) {
+        hmm.initialize(read.length, haplotype.length);
+        return hmm.computeReadLikelihoodGivenHaplotypeLog10(haplotype, read, readQuals, insQuals, delQuals, gcp, true, null);
+    }
+
+    @Test
+    public void testMatchesLoglessPairHMMOnTestData() throws FileNotFoundException {
+        final BasicInputParser parser = new BasicInputParser(true, new FileInputStream(pairHMMTestData));
+        int count = 0;
+        while ( parser.hasNext() ) {
+            final String tokens[] = parser.next();
+            final byte[] haplotype = tokens[0].getBytes();
+            final byte[] read = tokens[1].getBytes();
+            final byte[] readQuals = normalize(tokens[2].getBytes(), 6);
+            final byte[] insQuals = normalize(tokens[3].getBytes(), 0);
+            final byte[] delQuals = normalize(tokens[4].getBytes(), 0);
+            final byte[] gcp = normalize(tokens[5].getBytes(), 0);
+
+            final double expected = computeLikelihood(new LoglessPairHMM(), haplotype, read, readQuals, insQuals, delQuals, gcp);
+            final double actual = computeLikelihood(new AntiDiagonalLoglessPairHMM(), haplotype, read, readQuals, insQuals, delQuals, gcp);
+            Assert.assertEquals(actual, expected, TOLERANCE, "Likelihood differs for test case " + count);
+            count++;
+        }
+        Assert.assertTrue(count > 0, "no test cases read from " + pairHMMTestData);
+    }
+
+    @DataProvider(name = "RandomReadsAndHaplotypes")
+    public Object[][] makeRandomReadsAndHaplotypes() {
+        final Random random = new Random(13);
+        final List<Object[]> tests = new ArrayList<>();
+        for ( int test = 0; test < 100; test++ ) {
+            final byte[] read = randomBases(random, 1 + random.nextInt(150));
+            final byte[] haplotype = new byte[1 + random.nextInt(200)];
+            for ( int i = 0; i < haplotype.length; i++ ) {
+                // mostly copy the read, so that the likelihoods aren't all negligible
+                haplotype[i] = i < read.length && random.nextInt(10) != 0 ? read[i] : BASES[random.nextInt(BASES.length)];
+            }
+            tests.add(new Object[]{haplotype, read, randomQuals(random, read.length, 6, 40), randomQuals(random, read.length, 10, 45),
+                    randomQuals(random, read.length, 10, 45), Utils.dupBytes((byte) 10, read.length)});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "RandomReadsAndHaplotypes")
+    public void testMatchesLoglessPairHMM(final byte[] haplotype, final byte[] read, final byte[] readQuals,
+                                          final byte[] insQuals, final byte[] delQuals, final byte[] gcp) {
+        final double expected = computeLikelihood(new LoglessPairHMM(), haplotype, read, readQuals, insQuals, delQuals, gcp);
+        final double actual = computeLikelihood(new AntiDiagonalLoglessPairHMM(), haplotype, read, readQuals, insQuals, delQuals, gcp);
+        Assert.assertEquals(actual, expected, TOLERANCE);
+    }
+
+    @Test
+    public void testFallsBackToDoublePrecision() {
+        // a high-quality read that mismatches the haplotype everywhere underflows in single precision, but not in double precision
+        final byte[] read = Utils.dupBytes((byte) 'A', 30);
+        final byte[] haplotype = Utils.dupBytes((byte) 'C', 40);
+        final byte[] quals = Utils.dupBytes((byte) 40, read.length);
+        final byte[] gcp = Utils.dupBytes((byte) 10, read.length);
+
+        final double expected = computeLikelihood(new LoglessPairHMM(), haplotype, read, quals, quals, quals, gcp);
+        Assert.assertTrue(expected < Math.log10(AntiDiagonalLoglessPairHMM.MIN_ACCEPTED_FLOAT_RESULT) - AntiDiagonalLoglessPairHMM.INITIAL_CONDITION_FLOAT_LOG10,
+                "test case does not exercise the double precision fallback: " + expected);
+
+        final double actual = computeLikelihood(new AntiDiagonalLoglessPairHMM(), haplotype, read, quals, quals, quals, gcp);
+        Assert.assertEquals(actual, expected, 1e-9);
+    }
+
+    @Test
+    public void testReusedReadValuesAcrossHaplotypes() {
+        // the HMM must give the same answers when the read's cached values are reused for several haplotypes, as in computeLog10Likelihoods
+        final Random random = new Random(17);
+        final byte[] read = randomBases(random, 80);
+        final byte[] readQuals = randomQuals(random, read.length, 6, 40);
+        final byte[] gapQuals = Utils.dupBytes((byte) 45, read.length);
+        final byte[] gcp = Utils.dupBytes((byte) 10, read.length);
+        final List<byte[]> haplotypes = Arrays.asList(randomBases(random, 120), randomBases(random, 120), randomBases(random, 90));
+
+        final AntiDiagonalLoglessPairHMM hmm = new AntiDiagonalLoglessPairHMM();
+        hmm.initialize(read.length, 120);
+        for ( int h = 0; h < haplotypes.size(); h++ ) {
+            final byte[] next = h == haplotypes.size() - 1 ? null : haplotypes.get(h + 1);
+            final double actual = hmm.computeReadLikelihoodGivenHaplotypeLog10(haplotypes.get(h), read, readQuals, gapQuals, gapQuals, gcp, h == 0, next);
+            final double expected = computeLikelihood(new LoglessPairHMM(), haplotypes.get(h), read, readQuals, gapQuals, gapQuals, gcp);
+            Assert.assertEquals(actual, expected, TOLERANCE, "Likelihood differs for haplotype " + h);
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    private static byte[] randomQuals(final Random random, final int length, final int min, final int max) {
+        final byte[] quals = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            quals[i] = (byte) (min + random.nextInt(max - min + 1));
+        }
+        return quals;
+    }
+
+    private static byte[] normalize(final byte[] scores, final int min) {
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] -= 33;
+            scores[i] = scores[i] < min ? (byte)min : scores[i];
+        }
+        return scores;
+    }
+}
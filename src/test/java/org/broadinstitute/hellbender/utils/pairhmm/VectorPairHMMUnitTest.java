@@ -114,6 +114,53 @@ public final class VectorPairHMMUnitTest extends BaseTest {
         hmm.close();
     }
 
+    @Test(dataProvider = "JustHMMProvider")
+    public void testBatchedLikelihoodsMatchPerMatrixLikelihoods(final PairHMM hmm, Boolean loaded) throws FileNotFoundException {
+
+        // skip if not loaded
+        if(!loaded.booleanValue()) {
+            throw new SkipException("AVX PairHMM is not supported on this system or the library is not available");
+        }
+
+        // Use the first few test cases: all of their haplotypes, with each read in its own matrix (as if from a different sample)
+        final BasicInputParser parser = new BasicInputParser(true, new FileInputStream(pairHMMTestData));
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        final List<List<GATKRead>> readsPerMatrix = new ArrayList<>();
+        final Map<GATKRead,byte[]> gpcs = new LinkedHashMap<>();
+        for ( int i = 0; i < 4 && parser.hasNext(); i++ ) {
+            String tokens[] = parser.next();
+            haplotypes.add(new Haplotype(tokens[0].getBytes(), i == 0));
+
+            final byte[] bases = tokens[1].getBytes();
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, normalize(tokens[2].getBytes(), 6), bases.length + "M");
+            ReadUtils.setInsertionBaseQualities(read, normalize(tokens[3].getBytes()));
+            ReadUtils.setDeletionBaseQualities(read, normalize(tokens[4].getBytes()));
+            gpcs.put(read, normalize(tokens[5].getBytes()));
+            readsPerMatrix.add(Collections.singletonList(read));
+        }
+
+        final List<double[][]> batchedResults = new ArrayList<>();
+        final List<LikelihoodMatrix<Haplotype>> batchedMatrices = new ArrayList<>();
+        for ( int i = 0; i < readsPerMatrix.size(); i++ ) {
+            final double[][] values = new double[haplotypes.size()][1];
+            batchedResults.add(values);
+            batchedMatrices.add(recordingMatrix(haplotypes, values));
+        }
+
+        hmm.initialize(haplotypes, null, 0, 0);
+        hmm.computeLog10Likelihoods(batchedMatrices, readsPerMatrix, gpcs);
+
+        for ( int i = 0; i < readsPerMatrix.size(); i++ ) {
+            final double[][] values = new double[haplotypes.size()][1];
+            hmm.computeLog10Likelihoods(recordingMatrix(haplotypes, values), readsPerMatrix.get(i), gpcs);
+            for ( int h = 0; h < haplotypes.size(); h++ ) {
+                Assert.assertEquals(batchedResults.get(i)[h][0], values[h][0], "Batched likelihood differs for matrix " + i + " haplotype " + h);
+            }
+        }
+
+        hmm.close();
+    }
+
     private static byte[] normalize(byte[] scores) {
         return normalize(scores, 0);
     }
@@ -126,6 +173,44 @@ public final class VectorPairHMMUnitTest extends BaseTest {
         return scores;
     }
 
+    private LikelihoodMatrix<Haplotype> recordingMatrix(final List<Haplotype> haplotypes, final double[][] values) {
+        final LikelihoodMatrix<Haplotype> delegate = matrix(haplotypes);
+        return new LikelihoodMatrix<Haplotype>() {
+            @Override
+            public List<GATKRead> reads() { return delegate.reads(); }
+
+            @Override
+            public List<Haplotype> alleles() { return delegate.alleles(); }
+
+            @Override
+            public void set(int alleleIndex, int readIndex, double value) { values[alleleIndex][readIndex] = value; }
+
+            @Override
+            public double get(int alleleIndex, int readIndex) { return values[alleleIndex][readIndex]; }
+
+            @Override
+            public int indexOfAllele(Haplotype allele) { return delegate.indexOfAllele(allele); }
+
+            @Override
+            public int indexOfRead(GATKRead read) { return delegate.indexOfRead(read); }
+
+            @Override
+            public int numberOfAlleles() { return delegate.numberOfAlleles(); }
+
+            @Override
+            public int numberOfReads() { return values.length == 0 ? 0 : values[0].length; }
+
+            @Override
+            public Haplotype getAllele(int alleleIndex) { return delegate.getAllele(alleleIndex); }
+
+            @Override
+            public GATKRead getRead(int readIndex) { return delegate.getRead(readIndex); }
+
+            @Override
+            public void copyAlleleLikelihoods(int alleleIndex, double[] dest, int offset) { delegate.copyAlleleLikelihoods(alleleIndex, dest, offset); }
+        };
+    }
+
     private LikelihoodMatrix<Haplotype> matrix(final List<Haplotype> haplotypes) {
         return new LikelihoodMatrix<Haplotype>() {
             @Override
@@ -12,6 +12,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -116,6 +118,19 @@ public class GATKReadAdaptersUnitTest extends BaseTest {
         return read;
     }
 
+    /**
+     * Round-trips the basic SAMRecord through the BAM codec, giving a lazily-decoded BAMRecord as read from a BAM file.
+     */
+    private static SAMRecord basicBAMRecord() {
+        final SAMRecord read = basicSAMRecord();
+        final BAMRecordCodec codec = new BAMRecordCodec(read.getHeader());
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        codec.setOutputStream(encoded);
+        codec.encode(read);
+        codec.setInputStream(new ByteArrayInputStream(encoded.toByteArray()));
+        return codec.decode();
+    }
+
     /**
      * Creates a basic mapped Google read with a mapped mate.
      * @return GoogleGenomicsRead
@@ -322,9 +337,15 @@ public class GATKReadAdaptersUnitTest extends BaseTest {
         final Read baselessGoogleRead = basicGoogleGenomicsRead();
         baselessGoogleRead.setAlignedSequence(null);
 
+        final SAMRecord reSequencedBam = basicBAMRecord();
+        reSequencedBam.setReadBases(new byte[]{'A', 'C'});
+        reSequencedBam.setBaseQualities(new byte[]{30, 40});
+
         return new Object[][]{
                 { basicReadBackedBySam(), BASIC_READ_BASES.length },
                 { basicReadBackedByGoogle(), BASIC_READ_BASES.length },
+                { new SAMRecordToGATKReadAdapter(basicBAMRecord()), BASIC_READ_BASES.length },
+                { new SAMRecordToGATKReadAdapter(reSequencedBam), 2 },
                 { new SAMRecordToGATKReadAdapter(baselessSam), 0 },
                 { new GoogleGenomicsReadToGATKReadAdapter(baselessGoogleRead), 0 }
         };
@@ -541,11 +562,13 @@ public class GATKReadAdaptersUnitTest extends BaseTest {
     @Test(dataProvider = "GetAndSetBasesData")
     public void testGetAndSetBases( final GATKRead read, final byte[] expectedBases, final String expectedBasesString ) {
         Assert.assertEquals(read.getBases(), expectedBases, "Wrong bases for read");
+        Assert.assertEquals(read.getBasesNoCopy(), expectedBases, "Wrong bases for read from getBasesNoCopy()");
         Assert.assertEquals(read.getBasesString(), expectedBasesString, "Wrong base string for read");
 
         final byte[] newBases = {'G', 'C', 'G', 'G'};
         read.setBases(newBases);
         Assert.assertEquals(read.getBases(), newBases, "Wrong bases for read after setBases()");
+        Assert.assertEquals(read.getBasesNoCopy(), newBases, "Wrong bases from getBasesNoCopy() after setBases()");
         Assert.assertEquals(read.getBasesString(), "GCGG", "Wrong base string for read after setBases()");
         for (int i = 0; i < newBases.length; i++) {
             Assert.assertEquals(read.getBase(i), newBases[i], "Wrong base string for read after setBases()");
@@ -579,17 +602,30 @@ public class GATKReadAdaptersUnitTest extends BaseTest {
     @Test(dataProvider = "GetAndSetBaseQualitiesData")
     public void testGetAndSetBaseQualities( final GATKRead read, final byte[] expectedQuals ) {
         Assert.assertEquals(read.getBaseQualities(), expectedQuals, "Wrong base qualities for read");
+        Assert.assertEquals(read.getBaseQualitiesNoCopy(), expectedQuals, "Wrong base qualities for read from getBaseQualitiesNoCopy()");
         Assert.assertEquals(read.getBaseQualityCount(), expectedQuals.length, "Wrong number of base qualities for read");
 
         final byte[] newQuals = {1, 2, 3, 4};
         read.setBaseQualities(newQuals);
         Assert.assertEquals(read.getBaseQualities(), newQuals, "Wrong base qualities for read after setBaseQualities()");
+        Assert.assertEquals(read.getBaseQualitiesNoCopy(), newQuals, "Wrong base qualities from getBaseQualitiesNoCopy() after setBaseQualities()");
         Assert.assertEquals(read.getBaseQualityCount(), newQuals.length, "Wrong number of base qualities for read after setBaseQualities()");
         for (int i = 0; i < newQuals.length; i++) {
             Assert.assertEquals(read.getBaseQuality(i), newQuals[i], "Wrong base quality for read after setBaseQualities()");
         }
     }
 
+    @Test
+    public void testNoCopyAccessorsOnSamBackedRead() {
+        final GATKRead read = basicReadBackedBySam();
+
+        // the views share the read's arrays, while the regular getters return defensive copies
+        Assert.assertSame(read.getBasesNoCopy(), read.getBasesNoCopy());
+        Assert.assertSame(read.getBaseQualitiesNoCopy(), read.getBaseQualitiesNoCopy());
+        Assert.assertNotSame(read.getBases(), read.getBasesNoCopy());
+        Assert.assertNotSame(read.getBaseQualities(), read.getBaseQualitiesNoCopy());
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testSetInvalidBaseQualitiesOnGoogleRead() {
         final GATKRead read = basicReadBackedByGoogle();
@@ -0,0 +1,136 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import org.apache.spark.SparkConf;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.test.SparkTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public final class ReadBatchUnitTest extends BaseTest {
+    private static final File BAM = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam");
+
+    private static List<GATKRead> makeArtificialReads() {
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 20; i++ ) {
+            reads.add(ArtificialReadUtils.createHeaderlessSamBackedRead("read" + i, i % 3 == 0 ? "1" : "2", 100 + i, 10 + i));
+        }
+
+        final GATKRead unmapped = ArtificialReadUtils.createHeaderlessSamBackedRead("unmapped", "1", 100, 11);
+        unmapped.setIsUnmapped();
+        reads.add(unmapped);
+
+        final GATKRead paired = ArtificialReadUtils.createHeaderlessSamBackedRead("paired", "1", 200, 9);
+        paired.setIsPaired(true);
+        paired.setMatePosition("2", 5000);
+        paired.setFragmentLength(-300);
+        paired.setMappingQuality(255);
+        paired.setCigar("2S5M1I1M");
+        paired.setBases("ACGTNacgt".getBytes());
+        reads.add(paired);
+
+        final GATKRead noQualities = ArtificialReadUtils.createHeaderlessSamBackedRead("noQualities", "2", 10, 5);
+        noQualities.setBaseQualities(SAMRecord.NULL_QUALS);
+        reads.add(noQualities);
+
+        final GATKRead noBases = ArtificialReadUtils.createHeaderlessSamBackedRead("noBases", "2", 10, 0);
+        noBases.setBases(SAMRecord.NULL_SEQUENCE);
+        noBases.setBaseQualities(SAMRecord.NULL_QUALS);
+        reads.add(noBases);
+
+        final GATKRead attributes = ArtificialReadUtils.createHeaderlessSamBackedRead("attributes", "1", 1000, 4);
+        final SAMRecord record = ((SAMRecordToGATKReadAdapter)attributes).getEncapsulatedSamRecord();
+        record.setAttribute("XA", 'x');
+        record.setAttribute("XI", -12345);
+        record.setAttribute("XL", 4000000000L);
+        record.setAttribute("XF", 1.5f);
+        record.setAttribute("XZ", "a string");
+        record.setAttribute("XB", new byte[]{1, -2, 3});
+        record.setUnsignedArrayAttribute("XU", new byte[]{1, -2, 3});
+        record.setAttribute("XS", new short[]{-1, 2});
+        record.setAttribute("XN", new int[]{-1, 2, 100000});
+        record.setUnsignedArrayAttribute("XV", new int[]{1, 2});
+        record.setAttribute("XG", new float[]{0.5f, -1.0f});
+        reads.add(attributes);
+        return reads;
+    }
+
+    private static List<GATKRead> roundTrip( final List<GATKRead> reads, final int batchSize ) {
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator", "org.broadinstitute.hellbender.engine.spark.GATKRegistrator");
+        final List<GATKRead> roundTripped = new ArrayList<>();
+        final Iterator<ReadBatch> batches = ReadBatch.batch(reads.iterator(), batchSize);
+        while ( batches.hasNext() ) {
+            final ReadBatch batch = batches.next();
+            Assert.assertTrue(batch.size() > 0 && batch.size() <= batchSize);
+            SparkTestUtils.roundTripInKryo(batch, ReadBatch.class, conf).forEach(roundTripped::add);
+        }
+        return roundTripped;
+    }
+
+    private static void assertSameReads( final List<GATKRead> actual, final List<GATKRead> expected ) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for ( int i = 0; i < expected.size(); i++ ) {
+            final SAMRecord expectedRecord = expected.get(i).convertToSAMRecord(null);
+            final SAMRecord actualRecord = actual.get(i).convertToSAMRecord(null);
+            Assert.assertEquals(actualRecord.getSAMString(), expectedRecord.getSAMString());
+            for ( final SAMRecord.SAMTagAndValue attribute : expectedRecord.getAttributes() ) {
+                Assert.assertEquals(actualRecord.isUnsignedArrayAttribute(attribute.tag), expectedRecord.isUnsignedArrayAttribute(attribute.tag), attribute.tag);
+            }
+        }
+    }
+
+    @Test
+    public void testArtificialReadsRoundTrip() {
+        final List<GATKRead> reads = makeArtificialReads();
+        final List<GATKRead> roundTripped = roundTrip(reads, 7);
+
+        // bases are stored in upper case, as in BAM
+        reads.get(21).setBases("ACGTNACGT".getBytes());
+        assertSameReads(roundTripped, reads);
+    }
+
+    @Test
+    public void testBamReadsRoundTrip() throws IOException {
+        final List<GATKRead> reads = new ArrayList<>();
+        try ( final SamReader reader = SamReaderFactory.makeDefault().open(BAM) ) {
+            reader.forEach(record -> reads.add(SAMRecordToGATKReadAdapter.headerlessReadAdapter(record)));
+        }
+        assertSameReads(roundTrip(reads, 1000), reads);
+    }
+
+    @Test
+    public void testColumns() {
+        final List<GATKRead> reads = makeArtificialReads();
+        final ReadBatch.Builder builder = new ReadBatch.Builder();
+        reads.forEach(builder::add);
+        Assert.assertEquals(builder.size(), reads.size());
+        final ReadBatch batch = builder.build();
+
+        Assert.assertEquals(batch.size(), reads.size());
+        for ( int row = 0; row < reads.size(); row++ ) {
+            final SAMRecord record = reads.get(row).convertToSAMRecord(null);
+            Assert.assertEquals(batch.getName(row), record.getReadName());
+            Assert.assertEquals(batch.getReferenceName(row), record.getReferenceName());
+            Assert.assertEquals(batch.getAlignmentStart(row), record.getAlignmentStart());
+            Assert.assertEquals(batch.getFlags(row), record.getFlags());
+            Assert.assertEquals(batch.getMappingQuality(row), record.getMappingQuality());
+            Assert.assertEquals(batch.getLength(row), record.getReadLength());
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        final ReadBatch batch = new ReadBatch.Builder().build();
+        Assert.assertEquals(batch.size(), 0);
+        Assert.assertFalse(batch.iterator().hasNext());
+        Assert.assertFalse(ReadBatch.batch(new ArrayList<GATKRead>().iterator(), 10).hasNext());
+    }
+}
@@ -0,0 +1,60 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public final class DuplicateKeyUnitTest extends BaseTest {
+
+    @Test
+    public void testKeysMatchReadsKey() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithGroups(2, 1, 1000, 3);
+        header.getReadGroups().get(0).setLibrary("libA");
+        header.getReadGroups().get(1).setLibrary("libB");
+        final Map<String, Short> libraryIndices = ReadDescriptor.getLibraryIndices(header);
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int readGroup = 0; readGroup < 3; readGroup++ ) {
+            for ( int refIndex = 0; refIndex < 2; refIndex++ ) {
+                for ( final int start : new int[]{1, 10, 20} ) {
+                    for ( final boolean reverse : new boolean[]{false, true} ) {
+                        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + reads.size(), refIndex, start, 10);
+                        read.setReadGroup(header.getReadGroups().get(readGroup).getReadGroupId());
+                        read.setIsReverseStrand(reverse);
+                        reads.add(read);
+                    }
+                }
+            }
+        }
+
+        final List<ReadDescriptor> descriptors = new ArrayList<>();
+        for ( final GATKRead read : reads ) {
+            descriptors.add(new ReadDescriptor(read, descriptors.size(), header, libraryIndices, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES));
+        }
+
+        for ( int i = 0; i < reads.size(); i++ ) {
+            for ( int j = 0; j < reads.size(); j++ ) {
+                final boolean sameFragment = ReadsKey.keyForFragment(header, reads.get(i)).equals(ReadsKey.keyForFragment(header, reads.get(j)));
+                final DuplicateKey fragmentKey = DuplicateKey.forFragment(descriptors.get(i));
+                Assert.assertEquals(fragmentKey.equals(DuplicateKey.forFragment(descriptors.get(j))), sameFragment);
+                Assert.assertTrue(fragmentKey.isFragment());
+
+                final boolean samePair = ReadsKey.keyForPairedEnds(header, reads.get(i), reads.get(j)).equals(ReadsKey.keyForPairedEnds(header, reads.get(j), reads.get(i)));
+                final DuplicateKey pairKey = DuplicateKey.forPairedEnds(descriptors.get(i), descriptors.get(j));
+                Assert.assertEquals(pairKey.equals(DuplicateKey.forPairedEnds(descriptors.get(j), descriptors.get(i))), samePair);
+                Assert.assertFalse(pairKey.isFragment());
+                if ( pairKey.equals(DuplicateKey.forPairedEnds(descriptors.get(j), descriptors.get(i))) ) {
+                    Assert.assertEquals(pairKey.hashCode(), DuplicateKey.forPairedEnds(descriptors.get(j), descriptors.get(i)).hashCode());
+                }
+            }
+            Assert.assertNotEquals(DuplicateKey.forPairedEnds(descriptors.get(i), null), DuplicateKey.forFragment(descriptors.get(i)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.utils.read.markduplicates;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public final class OpticalDuplicateCounterUnitTest extends BaseTest {
+
+    @DataProvider(name = "CounterData")
+    public Object[][] getCounterData() {
+        return new Object[][] {
+                // number of pairs, whether orientations are mixed, locations in RAM
+                { 1, false, 10 },
+                { 200, false, 1000 },
+                { 200, false, 7 },
+                { 200, true, 1000 },
+                { 200, true, 7 },
+                { 2000, true, 100 }
+        };
+    }
+
+    @Test(dataProvider = "CounterData")
+    public void testMatchesOpticalDuplicateFinder( final int numPairs, final boolean mixedOrientations, final int maxLocationsInRam ) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final Map<String, Short> libraryIndices = ReadDescriptor.getLibraryIndices(header);
+        final Random random = new Random(numPairs);
+        final List<PairedEnds> pairs = new ArrayList<>();
+        for ( int i = 0; i < numPairs; i++ ) {
+            // a few tiles, with clusters close enough together to be optical duplicates, and some unparseable names
+            final String name = random.nextInt(20) == 0 ? "unparseable" + i :
+                    "RUN:1:" + (1101 + random.nextInt(3)) + ":" + (random.nextInt(2000) - 1000) + ":" + random.nextInt(2000);
+            final List<GATKRead> reads = ArtificialReadUtils.createPair(header, name, 50, 100, 300, true,
+                    mixedOrientations && random.nextBoolean());
+            final ReadDescriptor first = new ReadDescriptor(reads.get(0), 2 * i, header, libraryIndices, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES);
+            final ReadDescriptor second = new ReadDescriptor(reads.get(1), 2 * i + 1, header, libraryIndices, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES);
+            pairs.add(PairedEnds.of(first).and(second));
+        }
+
+        final OpticalDuplicateFinder finder = new OpticalDuplicateFinder(OpticalDuplicateFinder.DEFAULT_READ_NAME_REGEX, 100, null);
+        final OpticalDuplicateCounter counter = new OpticalDuplicateCounter(finder, maxLocationsInRam, createTempDir("opticalDuplicateCounter"));
+        pairs.forEach(counter::add);
+        Assert.assertEquals(counter.count(), countWithFinder(finder, pairs));
+    }
+
+    // what MarkDuplicatesSpark used to do
+    private static int countWithFinder( final OpticalDuplicateFinder finder, final List<PairedEnds> pairs ) {
+        final List<PairedEnds> fr = new ArrayList<>();
+        final List<PairedEnds> rf = new ArrayList<>();
+        for ( final PairedEnds pair : pairs ) {
+            finder.addLocationInformation(pair.first().getName(), pair);
+            if ( pair.getOrientationForOpticalDuplicates() == ReadEnds.FR ) {
+                fr.add(pair);
+            }
+            else if ( pair.getOrientationForOpticalDuplicates() == ReadEnds.RF ) {
+                rf.add(pair);
+            }
+        }
+        if ( !fr.isEmpty() && !rf.isEmpty() ) {
+            return countFlags(finder.findOpticalDuplicates(fr)) + countFlags(finder.findOpticalDuplicates(rf));
+        }
+        return countFlags(finder.findOpticalDuplicates(new ArrayList<>(pairs)));
+    }
+
+    private static int countFlags( final boolean[] flags ) {
+        int count = 0;
+        for ( final boolean flag : flags ) {
+            if ( flag ) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
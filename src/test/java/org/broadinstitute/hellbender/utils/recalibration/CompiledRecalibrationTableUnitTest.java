@@ -0,0 +1,134 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class CompiledRecalibrationTableUnitTest extends BaseTest {
+
+    private static final int SUBSTITUTION = EventType.BASE_SUBSTITUTION.ordinal();
+    private static final int[] QUALS = {6, 10, 20, 25, 30, 37, 40};
+    private static final int NUM_KEYS = 50;
+
+    private static RecalibrationTables makeTables( final int numReadGroups ) {
+        final List<String> readGroups = IntStream.range(0, numReadGroups).mapToObj(i -> "readgroup" + i).collect(Collectors.toList());
+        return new RecalibrationTables(new StandardCovariateList(new RecalibrationArgumentCollection(), readGroups), numReadGroups);
+    }
+
+    private static RecalDatum randomDatum( final Random random, final int reportedQual ) {
+        final long observations = 1 + random.nextInt(100000);
+        return new RecalDatum(observations, observations * random.nextDouble() * 0.01, (byte)reportedQual);
+    }
+
+    /**
+     * Fill the tables sparsely, leaving out read group 1 entirely and some of the data for the other read groups.
+     */
+    private static RecalibrationTables makeRandomTables( final Random random ) {
+        final RecalibrationTables tables = makeTables(4);
+        for ( final int readGroup : new int[]{0, 2, 3} ) {
+            for ( final EventType event : EventType.values() ) {
+                tables.getReadGroupTable().put(randomDatum(random, 30), readGroup, event.ordinal());
+                for ( final int qual : QUALS ) {
+                    if ( random.nextInt(5) == 0 ) {
+                        continue;
+                    }
+                    tables.getQualityScoreTable().put(randomDatum(random, qual), readGroup, qual, event.ordinal());
+                    for ( final NestedIntegerArray<RecalDatum> table : tables.getAdditionalTables() ) {
+                        for ( int key = 0; key < NUM_KEYS; key++ ) {
+                            if ( random.nextInt(3) != 0 ) {
+                                table.put(randomDatum(random, qual), readGroup, qual, key, event.ordinal());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    @DataProvider(name = "Priors")
+    public Object[][] makePriors() {
+        return new Object[][]{{-1.0}, {0.0}, {25.0}};
+    }
+
+    @Test(dataProvider = "Priors")
+    public void testMatchesHierarchicalModel( final double globalQScorePrior ) {
+        final Random random = new Random(17);
+        final RecalibrationTables tables = makeRandomTables(random);
+
+        // map each recalibrated quality to a distinct value, to check that the mapping is applied
+        final byte[] finalQuals = new byte[RecalDatum.MAX_RECALIBRATED_Q_SCORE + 1];
+        for ( int qual = 0; qual < finalQuals.length; qual++ ) {
+            finalQuals[qual] = (byte)(finalQuals.length - qual);
+        }
+        final CompiledRecalibrationTable compiled = CompiledRecalibrationTable.compile(tables, globalQScorePrior, finalQuals);
+        Assert.assertNotNull(compiled);
+
+        Assert.assertTrue(compiled.hasReadGroup(0));
+        Assert.assertFalse(compiled.hasReadGroup(1));
+        Assert.assertFalse(compiled.hasReadGroup(4));
+
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = tables.getAdditionalTables();
+        for ( int i = 0; i < 10000; i++ ) {
+            final int readGroup = new int[]{0, 2, 3}[random.nextInt(3)];
+            final int qual = random.nextInt(5) == 0 ? random.nextInt(QualityUtils.MAX_SAM_QUAL_SCORE + 1) : QUALS[random.nextInt(QUALS.length)];
+            final int[] keySet = new int[2 + additionalTables.size()];
+            keySet[0] = readGroup;
+            keySet[1] = qual;
+            for ( int j = 0; j < additionalTables.size(); j++ ) {
+                // keys beyond those in the tables, and missing (negative) keys, have no data
+                keySet[2 + j] = random.nextInt(NUM_KEYS + 10) - 1;
+            }
+
+            final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(readGroup, SUBSTITUTION);
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final RecalDatum[] empiricalQualCovs = new RecalDatum[additionalTables.size()];
+            for ( int j = 0; j < additionalTables.size(); j++ ) {
+                if ( keySet[2 + j] >= 0 ) {
+                    empiricalQualCovs[j] = additionalTables.get(j).get4Keys(readGroup, qual, keySet[2 + j], SUBSTITUTION);
+                }
+            }
+            final double expected = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG,
+                    tables.getQualityScoreTable().get3Keys(readGroup, qual, SUBSTITUTION), empiricalQualCovs);
+
+            Assert.assertEquals(compiled.recalibrate(keySet),
+                    finalQuals[QualityUtils.boundQual(MathUtils.fastRound(expected), RecalDatum.MAX_RECALIBRATED_Q_SCORE)],
+                    "wrong quality for keys " + Arrays.toString(keySet));
+        }
+    }
+
+    @Test
+    public void testTooLargeToCompile() {
+        final RecalibrationTables tables = makeTables(1000);
+        final Random random = new Random(3);
+        for ( int readGroup = 0; readGroup < 1000; readGroup++ ) {
+            tables.getReadGroupTable().put(randomDatum(random, 30), readGroup, SUBSTITUTION);
+            for ( final int qual : QUALS ) {
+                tables.getQualityScoreTable().put(randomDatum(random, qual), readGroup, qual, SUBSTITUTION);
+            }
+        }
+        final byte[] finalQuals = new byte[RecalDatum.MAX_RECALIBRATED_Q_SCORE + 1];
+        Assert.assertNotNull(CompiledRecalibrationTable.compile(tables, -1.0, finalQuals));
+
+        // a datum with the highest key of each additional covariate means storing every key for every read group and quality
+        long numEntries = 1000L * QUALS.length;
+        for ( final NestedIntegerArray<RecalDatum> table : tables.getAdditionalTables() ) {
+            table.put(randomDatum(random, 30), 0, QUALS[0], table.getDimensions()[2] - 1, SUBSTITUTION);
+            numEntries += 1000L * QUALS.length * table.getDimensions()[2];
+        }
+        Assert.assertTrue(numEntries > CompiledRecalibrationTable.MAX_COMPILED_ENTRIES);
+        Assert.assertNull(CompiledRecalibrationTable.compile(tables, -1.0, finalQuals));
+    }
+}
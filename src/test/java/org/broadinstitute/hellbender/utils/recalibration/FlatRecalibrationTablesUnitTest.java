@@ -0,0 +1,120 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.apache.spark.SparkConf;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.broadinstitute.hellbender.utils.test.SparkTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class FlatRecalibrationTablesUnitTest extends BaseTest {
+    private static final int NUM_READ_GROUPS = 3;
+    private static final int[] QUALS = {6, 20, 30, 40};
+
+    private static StandardCovariateList makeCovariates() {
+        final List<String> readGroups = IntStream.range(0, NUM_READ_GROUPS).mapToObj(i -> "readgroup" + i).collect(Collectors.toList());
+        return new StandardCovariateList(new RecalibrationArgumentCollection(), readGroups);
+    }
+
+    /**
+     * Count random events, both in the flat tables and (the way BaseRecalibrationEngine used to) in the nested tables, if provided
+     */
+    private static void countRandomEvents( final Random random, final int numEvents, final FlatRecalibrationTables counts, final RecalibrationTables tables ) {
+        final int numAdditional = tables == null ? 2 : tables.getAdditionalTables().size();
+        final int[] keys = new int[2 + numAdditional];
+        for ( int i = 0; i < numEvents; i++ ) {
+            keys[0] = random.nextInt(NUM_READ_GROUPS);
+            keys[1] = QUALS[random.nextInt(QUALS.length)];
+            for ( int j = 0; j < numAdditional; j++ ) {
+                keys[2 + j] = random.nextInt(20) - 1;
+            }
+            final int eventIndex = random.nextInt(EventType.values().length);
+            final double isError = random.nextInt(10) == 0 ? random.nextDouble() : 0.0;
+
+            counts.increment(keys, 2, eventIndex, isError);
+            if ( tables != null ) {
+                RecalUtils.incrementDatumOrPutIfNecessary3keys(tables.getQualityScoreTable(), (byte)keys[1], isError, keys[0], keys[1], eventIndex);
+                for ( int j = 0; j < numAdditional; j++ ) {
+                    if ( keys[2 + j] >= 0 ) {
+                        RecalUtils.incrementDatumOrPutIfNecessary4keys(tables.getAdditionalTables().get(j), (byte)keys[1], isError, keys[0], keys[1], keys[2 + j], eventIndex);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertTablesEqual( final RecalibrationTables actual, final RecalibrationTables expected, final double mismatchTolerance ) {
+        Assert.assertEquals(actual.numTables(), expected.numTables());
+        for ( int i = 0; i < expected.numTables(); i++ ) {
+            final NestedIntegerArray<RecalDatum> actualTable = actual.getTable(i);
+            final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getTable(i).getAllLeaves();
+            Assert.assertEquals(actualTable.getAllLeaves().size(), expectedLeaves.size(), "wrong number of datums in table " + i);
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedLeaves ) {
+                final RecalDatum datum = actualTable.get(leaf.keys);
+                Assert.assertNotNull(datum);
+                Assert.assertEquals(datum.getNumObservations(), leaf.value.getNumObservations());
+                Assert.assertEquals(datum.getNumMismatches(), leaf.value.getNumMismatches(), mismatchTolerance);
+                Assert.assertEquals(datum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesIncrementedDatums() {
+        final StandardCovariateList covariates = makeCovariates();
+        final FlatRecalibrationTables counts = new FlatRecalibrationTables(covariates);
+        final RecalibrationTables expected = new RecalibrationTables(covariates);
+        Assert.assertTrue(counts.isEmpty());
+
+        countRandomEvents(new Random(5), 10000, counts, expected);
+        Assert.assertFalse(counts.isEmpty());
+
+        final RecalibrationTables actual = counts.toRecalibrationTables(covariates);
+        Assert.assertTrue(actual.getReadGroupTable().getAllLeaves().isEmpty());
+        assertTablesEqual(actual, expected, 0.0);
+    }
+
+    @Test
+    public void testCombine() {
+        final StandardCovariateList covariates = makeCovariates();
+        final FlatRecalibrationTables left = new FlatRecalibrationTables(covariates);
+        final FlatRecalibrationTables right = new FlatRecalibrationTables(covariates);
+        final FlatRecalibrationTables all = new FlatRecalibrationTables(covariates);
+
+        countRandomEvents(new Random(7), 5000, left, null);
+        countRandomEvents(new Random(7), 5000, all, null);
+        countRandomEvents(new Random(11), 3000, right, null);
+        countRandomEvents(new Random(11), 3000, all, null);
+
+        final FlatRecalibrationTables combined = FlatRecalibrationTables.inPlaceCombine(left, right);
+        Assert.assertSame(combined, left);
+        assertTablesEqual(combined.toRecalibrationTables(covariates), all.toRecalibrationTables(covariates), 1e-6);
+
+        // combining with empty counts changes nothing
+        assertTablesEqual(new FlatRecalibrationTables(covariates).combine(all).toRecalibrationTables(covariates), all.toRecalibrationTables(covariates), 0.0);
+        assertTablesEqual(all.combine(new FlatRecalibrationTables(covariates)).toRecalibrationTables(covariates), combined.toRecalibrationTables(covariates), 1e-6);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCombineDifferentDimensions() {
+        final StandardCovariateList covariates = makeCovariates();
+        new FlatRecalibrationTables(covariates).combine(new FlatRecalibrationTables(covariates, NUM_READ_GROUPS + 1));
+    }
+
+    @Test
+    public void testKryoRoundTrip() {
+        final StandardCovariateList covariates = makeCovariates();
+        final FlatRecalibrationTables counts = new FlatRecalibrationTables(covariates);
+        countRandomEvents(new Random(13), 10000, counts, null);
+
+        final FlatRecalibrationTables roundTripped = SparkTestUtils.roundTripInKryo(counts, FlatRecalibrationTables.class, new SparkConf());
+        assertTablesEqual(roundTripped.toRecalibrationTables(covariates), counts.toRecalibrationTables(covariates), 0.0);
+        Assert.assertTrue(SparkTestUtils.roundTripInKryo(new FlatRecalibrationTables(covariates), FlatRecalibrationTables.class, new SparkConf()).isEmpty());
+    }
+}
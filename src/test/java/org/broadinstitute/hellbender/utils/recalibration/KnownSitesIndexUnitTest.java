@@ -0,0 +1,96 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public final class KnownSitesIndexUnitTest extends BaseTest {
+
+    private static final Comparator<SimpleInterval> BY_POSITION = Comparator.comparing(SimpleInterval::getContig)
+            .thenComparingInt(SimpleInterval::getStart).thenComparingInt(SimpleInterval::getEnd);
+
+    private static List<SimpleInterval> makeRandomSites( final Random random ) {
+        final List<SimpleInterval> sites = new ArrayList<>();
+        for ( final String contig : Arrays.asList("1", "2") ) {
+            for ( int i = 0; i < 5000; i++ ) {
+                // mostly single-base sites, clustered so that some pages are empty, and some longer (and duplicate) ones
+                final int start = 1 + random.nextInt(3) * 200000 + random.nextInt(100000);
+                final int length = random.nextInt(10) == 0 ? 2 + random.nextInt(random.nextInt(10) == 0 ? 5000 : 20) : 1;
+                sites.add(new SimpleInterval(contig, start, start + length - 1));
+                if ( random.nextInt(20) == 0 ) {
+                    sites.add(new SimpleInterval(contig, start, start + length - 1));
+                }
+            }
+        }
+        sites.add(new SimpleInterval("3", 1, 1));
+        sites.add(new SimpleInterval("3", (1 << 16) - 1, 1 << 16));
+        Collections.shuffle(sites, random);
+        return sites;
+    }
+
+    private static Set<SimpleInterval> getOverlapping( final KnownSitesIndex index, final SimpleInterval interval ) {
+        final Set<SimpleInterval> overlapping = new TreeSet<>(BY_POSITION);
+        index.forEachSiteOverlapping(interval.getContig(), interval.getStart(), interval.getEnd(),
+                (start, end) -> Assert.assertTrue(overlapping.add(new SimpleInterval(interval.getContig(), start, end)), "site reported twice"));
+        return overlapping;
+    }
+
+    private static void assertMatchesSites( final KnownSitesIndex index, final List<SimpleInterval> sites, final Random random ) {
+        final List<SimpleInterval> queries = new ArrayList<>();
+        for ( int i = 0; i < 2000; i++ ) {
+            final int start = 1 + random.nextInt(700000);
+            queries.add(new SimpleInterval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(random.nextInt(10) == 0 ? 200000 : 300)));
+        }
+        queries.add(new SimpleInterval("3", 1, 100000));
+        queries.add(new SimpleInterval("3", 1 << 16, 1 << 16));
+        queries.add(new SimpleInterval("4", 1, 100000));
+
+        for ( final SimpleInterval query : queries ) {
+            final Set<SimpleInterval> expected = new TreeSet<>(BY_POSITION);
+            sites.stream().filter(site -> site.overlaps(query)).forEach(expected::add);
+            Assert.assertEquals(getOverlapping(index, query), expected, "wrong sites for " + query);
+        }
+    }
+
+    @Test
+    public void testOverlappingSites() {
+        final Random random = new Random(23);
+        final List<SimpleInterval> sites = makeRandomSites(random);
+        final KnownSitesIndex index = KnownSitesIndex.fromSites(Arrays.asList("a.vcf", "b.vcf"), sites.iterator());
+
+        Assert.assertEquals(index.getSources(), Arrays.asList("a.vcf", "b.vcf"));
+        Assert.assertEquals(index.size(), new HashSet<>(sites).size());
+        assertMatchesSites(index, sites, random);
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        final Random random = new Random(29);
+        final List<SimpleInterval> sites = makeRandomSites(random);
+        final File file = createTempFile("known.sites", ".index");
+        KnownSitesIndex.fromSites(Collections.singletonList("a.vcf"), sites.iterator()).write(file);
+
+        final KnownSitesIndex index = KnownSitesIndex.read(file);
+        Assert.assertEquals(index.getSources(), Collections.singletonList("a.vcf"));
+        assertMatchesSites(index, sites, random);
+    }
+
+    @Test
+    public void testEmpty() {
+        final KnownSitesIndex index = KnownSitesIndex.fromSites(Collections.emptyList(), Collections.<SimpleInterval>emptyList().iterator());
+        Assert.assertEquals(index.size(), 0L);
+        Assert.assertTrue(getOverlapping(index, new SimpleInterval("1", 1, 1000000)).isEmpty());
+    }
+}
@@ -13,6 +13,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import static org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate.getStrandedClippedBytes;
@@ -46,6 +47,21 @@ public final class ContextCovariateUnitTest extends BaseTest {
         }
     }
 
+    @Test
+    public void testRecordValuesDoesNotModifyRead() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final byte[] bases = "ACGTTGCAACGTTGCA".getBytes();
+        final byte[] quals = new byte[bases.length];
+        Arrays.fill(quals, (byte) 30);
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(bases, quals, bases.length + "M");
+
+        // nothing is clipped from a forward-strand read with no low quality tail, so the covariate sees the read's own bases
+        Assert.assertSame(getStrandedClippedBytes(read, RAC.LOW_QUAL_TAIL), read.getBasesNoCopy());
+
+        covariate.recordValues(read, header, new ReadCovariates(read.getLength(), 1, new CovariateKeyCache()), true);
+        Assert.assertEquals(read.getBases(), "ACGTTGCAACGTTGCA".getBytes());
+    }
+
     public static void verifyCovariateArray(int[][] values, int contextSize, GATKRead read, Covariate contextCovariate, final byte lowQualTail) {
         for (int i = 0; i < values.length; i++) {
             Assert.assertEquals(contextCovariate.formatKey(values[i][0]), expectedContext(read, i, contextSize, lowQualTail), "offset " + i);
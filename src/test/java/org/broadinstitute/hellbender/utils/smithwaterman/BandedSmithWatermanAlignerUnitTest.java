@@ -0,0 +1,117 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.broadinstitute.hellbender.utils.test.BaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class BandedSmithWatermanAlignerUnitTest extends BaseTest {
+
+    private static final byte[] BASES = "ACGT".getBytes();
+
+    private static final SWPairwiseAlignment.Parameters[] PARAMETERS = {
+            SWPairwiseAlignment.ORIGINAL_DEFAULT, SWPairwiseAlignment.STANDARD_NGS, CigarUtils.NEW_SW_PARAMETERS
+    };
+
+    @DataProvider(name = "SmallIndels")
+    public Object[][] makeSmallIndels() {
+        final List<Object[]> tests = new ArrayList<>();
+
+        tests.add(new Object[]{"ACTGACTGACTG", "AAAGGACTGACTG"});
+        tests.add(new Object[]{"AAAGACTACTG", "AACGGACACTG"});
+        tests.add(new Object[]{"AAACCCCC", "CCCCCGGG"});
+        tests.add(new Object[]{"ACGTTTTGCAGGATCCTAGCATGCAAGTT", "ACGTTTTGCAGGATTAGCATGCAAGTT"});
+        tests.add(new Object[]{"ACGTTTTGCAGGATCCTAGCATGCAAGTT", "ACGTTTTGCAGGATCCGGGTAGCATGCAAGTT"});
+
+        // random sequences with a few SNPs and small indels relative to a random reference
+        final Random random = new Random(31);
+        for ( int test = 0; test < 50; test++ ) {
+            final byte[] reference = randomBases(random, 20 + random.nextInt(200));
+            final StringBuilder alternate = new StringBuilder();
+            for ( int i = random.nextInt(10); i < reference.length; i++ ) {
+                final int event = random.nextInt(50);
+                if ( event == 0 ) {
+                    i += random.nextInt(5); // deletion
+                } else if ( event == 1 ) {
+                    alternate.append(new String(randomBases(random, 1 + random.nextInt(5)))); // insertion
+                }
+                alternate.append(event == 2 ? (char) BASES[random.nextInt(BASES.length)] : (char) reference[Math.min(i, reference.length - 1)]);
+            }
+            tests.add(new Object[]{new String(reference), alternate.toString()});
+        }
+
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "SmallIndels")
+    public void testMatchesFullMatrixAligner(final String reference, final String alternate) {
+        final SmithWatermanAligner full = SmithWatermanAligner.getAligner(SmithWatermanAligner.Implementation.JAVA);
+        final SmithWatermanAligner banded = SmithWatermanAligner.getAligner(SmithWatermanAligner.Implementation.BANDED_JAVA);
+        for ( final SWPairwiseAlignment.Parameters parameters : PARAMETERS ) {
+            for ( final SWPairwiseAlignment.OverhangStrategy strategy : SWPairwiseAlignment.OverhangStrategy.values() ) {
+                final SmithWatermanAlignment expected = full.align(reference.getBytes(), alternate.getBytes(), parameters, strategy);
+                final SmithWatermanAlignment actual = banded.align(reference.getBytes(), alternate.getBytes(), parameters, strategy);
+                Assert.assertEquals(actual.getCigar(), expected.getCigar(), "cigar differs for " + strategy);
+                Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset(), "offset differs for " + strategy);
+            }
+        }
+    }
+
+    @Test
+    public void testBandCoversLengthDifference() {
+        // a 10 base deletion is within the band whatever the padding, since the band always spans the difference in lengths
+        final String reference = "ACGTTTTGCAGGATCCTAGCATGCAAGTTGATCCAGTAGGCATTAGCAACTG";
+        final String alternate = "ACGTTTTGCAGGATCCTAGCAT" + "GCAAGTTGATCCAGTAGGCATTAGCAACTG".substring(10);
+
+        final SmithWatermanAlignment expected = new SWPairwiseAlignment(reference.getBytes(), alternate.getBytes(),
+                SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.INDEL);
+        Assert.assertEquals(expected.getCigar().toString(), "20M10D22M");
+
+        final SmithWatermanAlignment wideBand = new BandedSmithWatermanAligner().align(reference.getBytes(), alternate.getBytes(),
+                SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.INDEL);
+        Assert.assertEquals(wideBand.getCigar(), expected.getCigar());
+
+        final SmithWatermanAlignment noPadding = new BandedSmithWatermanAligner(0).align(reference.getBytes(), alternate.getBytes(),
+                SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.INDEL);
+        Assert.assertEquals(noPadding.getCigar(), expected.getCigar());
+    }
+
+    @Test
+    public void testBandWiderThanMatrix() {
+        // the band for these sequences would be wider than the rows of the full matrix
+        final Random random = new Random(17);
+        final String reference = new String(randomBases(random, 150));
+        final String alternate = reference.substring(40, 60) + "A" + reference.substring(61, 75);
+        for ( final SWPairwiseAlignment.OverhangStrategy strategy : SWPairwiseAlignment.OverhangStrategy.values() ) {
+            final SmithWatermanAlignment expected = new SWPairwiseAlignment(reference.getBytes(), alternate.getBytes(),
+                    SWPairwiseAlignment.STANDARD_NGS, strategy);
+            final SmithWatermanAlignment actual = new BandedSmithWatermanAligner().align(reference.getBytes(), alternate.getBytes(),
+                    SWPairwiseAlignment.STANDARD_NGS, strategy);
+            Assert.assertEquals(actual.getCigar(), expected.getCigar(), "cigar differs for " + strategy);
+            Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset(), "offset differs for " + strategy);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeBandPadding() {
+        new BandedSmithWatermanAligner(-1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptySequence() {
+        new BandedSmithWatermanAligner().align(new byte[0], "ACGT".getBytes(), SWPairwiseAlignment.STANDARD_NGS, SWPairwiseAlignment.OverhangStrategy.SOFTCLIP);
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+}